@@ -1,5 +1,8 @@
 package mil.nga.tiff;
 
+import java.util.HashMap;
+import java.util.Map;
+
 import mil.nga.tiff.util.TiffConstants;
 import mil.nga.tiff.util.TiffException;
 
@@ -13,66 +16,100 @@ public enum FieldType {
 	/**
 	 * 8-bit unsigned integer
 	 */
-	BYTE(1),
+	BYTE(1, 1),
 
 	/**
 	 * 8-bit byte that contains a 7-bit ASCII code; the last byte must be NUL
 	 * (binary zero)
 	 */
-	ASCII(1),
+	ASCII(2, 1),
 
 	/**
 	 * 16-bit (2-byte) unsigned integer
 	 */
-	SHORT(2),
+	SHORT(3, 2),
 
 	/**
 	 * 32-bit (4-byte) unsigned integer
 	 */
-	LONG(4),
+	LONG(4, 4),
 
 	/**
 	 * Two LONGs: the first represents the numerator of a fraction; the second,
 	 * the denominator
 	 */
-	RATIONAL(8),
+	RATIONAL(5, 8),
 
 	/**
 	 * An 8-bit signed (twos-complement) integer
 	 */
-	SBYTE(1),
+	SBYTE(6, 1),
 
 	/**
 	 * An 8-bit byte that may contain anything, depending on the definition of
 	 * the field
 	 */
-	UNDEFINED(1),
+	UNDEFINED(7, 1),
 
 	/**
 	 * A 16-bit (2-byte) signed (twos-complement) integer
 	 */
-	SSHORT(2),
+	SSHORT(8, 2),
 
 	/**
 	 * A 32-bit (4-byte) signed (twos-complement) integer
 	 */
-	SLONG(4),
+	SLONG(9, 4),
 
 	/**
 	 * Two SLONG’s: the first represents the numerator of a fraction, the second
 	 * the denominator
 	 */
-	SRATIONAL(8),
+	SRATIONAL(10, 8),
 
 	/**
 	 * Single precision (4-byte) IEEE format
 	 */
-	FLOAT(4),
+	FLOAT(11, 4),
 
 	/**
 	 * Double precision (8-byte) IEEE format
 	 */
-	DOUBLE(8);
+	DOUBLE(12, 8),
+
+	/**
+	 * 32-bit (4-byte) unsigned integer offset to a child Image File Directory
+	 * 
+	 * @since 3.0.1
+	 */
+	IFD(13, 4),
+
+	/**
+	 * BigTIFF 64-bit (8-byte) unsigned integer
+	 * 
+	 * @since 3.0.1
+	 */
+	LONG8(16, 8),
+
+	/**
+	 * BigTIFF 64-bit (8-byte) signed (twos-complement) integer
+	 * 
+	 * @since 3.0.1
+	 */
+	SLONG8(17, 8),
+
+	/**
+	 * BigTIFF 64-bit (8-byte) unsigned integer offset to a child Image File
+	 * Directory
+	 * 
+	 * @since 3.0.1
+	 */
+	IFD8(18, 8);
+
+	/**
+	 * Field type value
+	 */
+	private final int value;
 
 	/**
 	 * Number of bytes per field value
@@ -82,10 +119,13 @@ public enum FieldType {
 	/**
 	 * Constructor
 	 * 
+	 * @param value
+	 *            field type value
 	 * @param bytes
 	 *            bytes per value
 	 */
-	private FieldType(int bytes) {
+	private FieldType(int value, int bytes) {
+		this.value = value;
 		this.bytes = bytes;
 	}
 
@@ -95,7 +135,7 @@ public enum FieldType {
 	 * @return field type value
 	 */
 	public int getValue() {
-		return ordinal() + 1;
+		return value;
 	}
 
 	/**
@@ -117,15 +157,47 @@ public enum FieldType {
 		return bytes * 8;
 	}
 
+	/**
+	 * Mapping between values and field types
+	 */
+	private static final Map<Integer, FieldType> valueMapping = new HashMap<>();
+
+	/**
+	 * Load the value mapping
+	 */
+	static {
+		for (FieldType fieldType : FieldType.values()) {
+			valueMapping.put(fieldType.getValue(), fieldType);
+		}
+	}
+
 	/**
 	 * Get the field type
 	 * 
 	 * @param fieldType
 	 *            field type number
 	 * @return field type
+	 * @throws TiffException
+	 *             if not a known field type
 	 */
 	public static FieldType getFieldType(int fieldType) {
-		return FieldType.values()[fieldType - 1];
+		FieldType type = findFieldType(fieldType);
+		if (type == null) {
+			throw new TiffException("Unknown field type value " + fieldType);
+		}
+		return type;
+	}
+
+	/**
+	 * Find the field type
+	 * 
+	 * @param fieldType
+	 *            field type number
+	 * @return field type or null if not a known field type
+	 * @since 3.0.1
+	 */
+	public static FieldType findFieldType(int fieldType) {
+		return valueMapping.get(fieldType);
 	}
 
 	/**
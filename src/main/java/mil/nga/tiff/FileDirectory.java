@@ -1,15 +1,27 @@
 package mil.nga.tiff;
 
 import java.nio.ByteBuffer;
+import java.util.AbstractMap;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Collections;
+import java.util.Comparator;
 import java.util.HashMap;
+import java.util.Iterator;
 import java.util.List;
 import java.util.Map;
+import java.util.NoSuchElementException;
 import java.util.Set;
 import java.util.SortedSet;
 import java.util.TreeSet;
-
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.FutureTask;
+
+import mil.nga.tiff.compression.BitUnpacker;
 import mil.nga.tiff.compression.CompressionDecoder;
 import mil.nga.tiff.compression.DeflateCompression;
 import mil.nga.tiff.compression.LZWCompression;
@@ -18,6 +30,10 @@ import mil.nga.tiff.compression.Predictor;
 import mil.nga.tiff.compression.RawCompression;
 import mil.nga.tiff.compression.UnsupportedCompression;
 import mil.nga.tiff.io.ByteReader;
+import mil.nga.tiff.io.IOUtils;
+import mil.nga.tiff.util.BlockCache;
+import mil.nga.tiff.util.LRUBlockCache;
+import mil.nga.tiff.util.LongArrayList;
 import mil.nga.tiff.util.TiffConstants;
 import mil.nga.tiff.util.TiffException;
 
@@ -25,6 +41,11 @@ import mil.nga.tiff.util.TiffException;
  * File Directory, represents all directory entries and can be used to read the
  * image raster
  * 
+ * Rasters of a read file directory may be read concurrently from multiple
+ * threads. Tiles and strips are read by byte offset, decoded with per call
+ * decoder state, and shared through a thread safe cache. Modifying the
+ * entries while reading is not supported.
+ * 
  * @author osbornb
  */
 public class FileDirectory {
@@ -67,7 +88,7 @@ public class FileDirectory {
 	/**
 	 * Cache
 	 */
-	private Map<Integer, byte[]> cache = null;
+	private volatile BlockCache cache = null;
 
 	/**
 	 * Rasters to write to the TIFF file
@@ -75,14 +96,35 @@ public class FileDirectory {
 	private Rasters writeRasters = null;
 
 	/**
-	 * Last block index, index of single block cache
+	 * Last block index and block, single block cache when caching is not
+	 * enabled
+	 */
+	private volatile Map.Entry<Integer, byte[]> lastBlock;
+
+	/**
+	 * Tile or strip offsets, read from the entries on first block read
+	 */
+	private volatile long[] blockOffsets;
+
+	/**
+	 * Tile or strip byte counts, read from the entries on first block read
 	 */
-	private int lastBlockIndex = -1;
+	private volatile long[] blockByteCounts;
 
 	/**
-	 * Last block, single block cache when caching is not enabled
+	 * BigTIFF flag of the read TIFF file, for reading child file directories
 	 */
-	private byte[] lastBlock;
+	private boolean bigTiff = false;
+
+	/**
+	 * Sub file directories, parsed on first access
+	 */
+	private FileDirectory[] subFileDirectories = null;
+
+	/**
+	 * Exif file directory, parsed on first access
+	 */
+	private FileDirectory exifFileDirectory = null;
 
 	/**
 	 * Constructor, for reading TIFF files
@@ -109,6 +151,26 @@ public class FileDirectory {
 	 */
 	public FileDirectory(SortedSet<FileDirectoryEntry> entries,
 			ByteReader reader, boolean cacheData) {
+		this(entries, reader, cacheData, false);
+	}
+
+	/**
+	 * Constructor, for reading TIFF files
+	 * 
+	 * @param entries
+	 *            file directory entries
+	 * @param reader
+	 *            TIFF file byte reader
+	 * @param cacheData
+	 *            true to cache tiles and strips
+	 * @param bigTiff
+	 *            true if a BigTIFF, for reading child file directories
+	 * @since 3.0.1
+	 */
+	public FileDirectory(SortedSet<FileDirectoryEntry> entries,
+			ByteReader reader, boolean cacheData, boolean bigTiff) {
+		this.bigTiff = bigTiff;
+
 		// Set the entries and the field tag type mapping
 		this.entries = entries;
 		for (FileDirectoryEntry entry : entries) {
@@ -120,8 +182,9 @@ public class FileDirectory {
 		// Set the cache
 		setCache(cacheData);
 
-		// Determine if tiled
-		tiled = getRowsPerStrip() == null;
+		// Determine if tiled, strips may omit the rows per strip
+		tiled = getRowsPerStrip() == null
+				&& !fieldTagTypeMapping.containsKey(FieldTagType.StripOffsets);
 
 		// Determine and validate the planar configuration
 		Integer pc = getPlanarConfiguration();
@@ -134,10 +197,23 @@ public class FileDirectory {
 		}
 
 		// Determine the decoder based upon the compression
+		decoder = createDecoder();
+
+		// Determine the differencing predictor
+		predictor = getPredictor();
+	}
+
+	/**
+	 * Create a compression decoder based upon the compression
+	 * 
+	 * @return compression decoder
+	 */
+	private CompressionDecoder createDecoder() {
 		Integer compression = getCompression();
 		if (compression == null) {
 			compression = TiffConstants.COMPRESSION_NO;
 		}
+		CompressionDecoder decoder = null;
 		switch (compression) {
 		case TiffConstants.COMPRESSION_NO:
 			decoder = new RawCompression();
@@ -174,8 +250,7 @@ public class FileDirectory {
 					"Unknown compression method identifier: " + compression);
 		}
 
-		// Determine the differencing predictor
-		predictor = getPredictor();
+		return decoder;
 	}
 
 	/**
@@ -222,11 +297,14 @@ public class FileDirectory {
 		entries.remove(entry);
 		entries.add(entry);
 		fieldTagTypeMapping.put(entry.getFieldTag(), entry);
+		blockOffsets = null;
+		blockByteCounts = null;
 	}
 
 	/**
 	 * Set whether to cache tiles. Does nothing is already caching tiles, clears
-	 * the existing cache if set to false.
+	 * the existing cache if set to false. Tiles are cached in a
+	 * {@link LRUBlockCache} of {@link LRUBlockCache#DEFAULT_MAX_BYTES}.
 	 * 
 	 * @param cacheData
 	 *            true to cache tiles and strips
@@ -234,13 +312,64 @@ public class FileDirectory {
 	public void setCache(boolean cacheData) {
 		if (cacheData) {
 			if (cache == null) {
-				cache = new HashMap<>();
+				setCache(new LRUBlockCache());
 			}
 		} else {
-			cache = null;
+			setCache((BlockCache) null);
+		}
+	}
+
+	/**
+	 * Set the cache of decoded tiles and strips, shared with the SubIFD and
+	 * Exif child file directories through child caches
+	 * 
+	 * @param cache
+	 *            block cache, null to not cache
+	 * @since 3.0.1
+	 */
+	public synchronized void setCache(BlockCache cache) {
+		this.cache = cache;
+
+		// Update the child file directories already read
+		if (subFileDirectories != null) {
+			long[] offsets = getLongArrayEntryValue(FieldTagType.SubIFDs);
+			for (int i = 0; i < subFileDirectories.length; i++) {
+				if (subFileDirectories[i] != null) {
+					setChildCache(subFileDirectories[i], offsets[i]);
+				}
+			}
+		}
+		if (exifFileDirectory != null) {
+			setChildCache(exifFileDirectory,
+					getLongArrayEntryValue(FieldTagType.ExifIFD)[0]);
 		}
 	}
 
+	/**
+	 * Set the cache of a child file directory from the cache of this file
+	 * directory
+	 * 
+	 * @param fileDirectory
+	 *            child file directory
+	 * @param byteOffset
+	 *            child file directory byte offset
+	 */
+	private void setChildCache(FileDirectory fileDirectory, long byteOffset) {
+		BlockCache blockCache = cache;
+		fileDirectory.setCache(blockCache != null
+				? blockCache.getChildCache(byteOffset) : null);
+	}
+
+	/**
+	 * Get the cache of decoded tiles and strips
+	 * 
+	 * @return block cache, null if not caching
+	 * @since 3.0.1
+	 */
+	public BlockCache getCache() {
+		return cache;
+	}
+
 	/**
 	 * Get the byte reader
 	 * 
@@ -800,13 +929,25 @@ public class FileDirectory {
 	}
 
 	/**
-	 * Get the tile height
+	 * Get the tile height. Strips without rows per strip, or with rows per
+	 * strip beyond the image height such as the 2^32-1 default, are a single
+	 * strip of the image height.
 	 * 
 	 * @return tile height
 	 */
 	public Number getTileHeight() {
-		return tiled ? getNumberEntryValue(FieldTagType.TileLength)
-				: getRowsPerStrip();
+		Number tileHeight;
+		if (tiled) {
+			tileHeight = getNumberEntryValue(FieldTagType.TileLength);
+		} else {
+			tileHeight = getRowsPerStrip();
+			Number imageHeight = getImageHeight();
+			if (imageHeight != null && (tileHeight == null || tileHeight
+					.longValue() > imageHeight.longValue())) {
+				tileHeight = imageHeight;
+			}
+		}
+		return tileHeight;
 	}
 
 	/**
@@ -969,6 +1110,165 @@ public class FileDirectory {
 		setUnsignedIntegerEntryValue(FieldTagType.Predictor, predictor);
 	}
 
+	/**
+	 * Get the new subfile type bit flags
+	 * 
+	 * @return new subfile type
+	 * @since 3.0.1
+	 */
+	public Number getNewSubfileType() {
+		return getNumberEntryValue(FieldTagType.NewSubfileType);
+	}
+
+	/**
+	 * Set the new subfile type bit flags
+	 * 
+	 * @param newSubfileType
+	 *            new subfile type
+	 * @since 3.0.1
+	 */
+	public void setNewSubfileType(long newSubfileType) {
+		setUnsignedLongEntryValue(FieldTagType.NewSubfileType,
+				newSubfileType);
+	}
+
+	/**
+	 * Get the subfile type
+	 * 
+	 * @return subfile type
+	 * @since 3.0.1
+	 */
+	public Integer getSubfileType() {
+		return getIntegerEntryValue(FieldTagType.SubfileType);
+	}
+
+	/**
+	 * Set the subfile type
+	 * 
+	 * @param subfileType
+	 *            subfile type
+	 * @since 3.0.1
+	 */
+	public void setSubfileType(int subfileType) {
+		setUnsignedIntegerEntryValue(FieldTagType.SubfileType, subfileType);
+	}
+
+	/**
+	 * Is this a reduced resolution image, such as a pyramid overview, by the
+	 * new subfile type or subfile type
+	 * 
+	 * @return true if reduced resolution
+	 * @since 3.0.1
+	 */
+	public boolean isReducedResolution() {
+		Number newSubfileType = getNewSubfileType();
+		Integer subfileType = getSubfileType();
+		return (newSubfileType != null && (newSubfileType.longValue()
+				& TiffConstants.NEW_SUBFILE_TYPE_REDUCED_RESOLUTION) != 0)
+				|| (subfileType != null
+						&& subfileType == TiffConstants.SUBFILE_TYPE_REDUCED);
+	}
+
+	/**
+	 * Is this a transparency mask of another image, by the new subfile type
+	 * 
+	 * @return true if a transparency mask
+	 * @since 3.0.1
+	 */
+	public boolean isTransparencyMask() {
+		Number newSubfileType = getNewSubfileType();
+		return newSubfileType != null && (newSubfileType.longValue()
+				& TiffConstants.NEW_SUBFILE_TYPE_TRANSPARENCY_MASK) != 0;
+	}
+
+	/**
+	 * Get the number of sub file directories referenced by the SubIFDs entry
+	 * 
+	 * @return number of sub file directories
+	 * @since 3.0.1
+	 */
+	public int numSubFileDirectories() {
+		long[] offsets = getLongArrayEntryValue(FieldTagType.SubIFDs);
+		return offsets != null ? offsets.length : 0;
+	}
+
+	/**
+	 * Get the sub file directory at the index, parsed from the file on first
+	 * access
+	 * 
+	 * @param index
+	 *            sub file directory index
+	 * @return sub file directory
+	 * @since 3.0.1
+	 */
+	public synchronized FileDirectory getSubFileDirectory(int index) {
+		long[] offsets = getLongArrayEntryValue(FieldTagType.SubIFDs);
+		if (offsets == null || index < 0 || index >= offsets.length) {
+			throw new TiffException("Sub file directory index " + index
+					+ " is out of range, sub file directories: "
+					+ numSubFileDirectories());
+		}
+		if (subFileDirectories == null
+				|| subFileDirectories.length != offsets.length) {
+			subFileDirectories = new FileDirectory[offsets.length];
+		}
+		if (subFileDirectories[index] == null) {
+			subFileDirectories[index] = readChildFileDirectory(
+					offsets[index]);
+		}
+		return subFileDirectories[index];
+	}
+
+	/**
+	 * Get the sub file directories referenced by the SubIFDs entry, parsing
+	 * them from the file on first access
+	 * 
+	 * @return sub file directories
+	 * @since 3.0.1
+	 */
+	public List<FileDirectory> getSubFileDirectories() {
+		List<FileDirectory> fileDirectories = new ArrayList<>();
+		for (int i = 0; i < numSubFileDirectories(); i++) {
+			fileDirectories.add(getSubFileDirectory(i));
+		}
+		return fileDirectories;
+	}
+
+	/**
+	 * Get the Exif file directory referenced by the ExifIFD entry, parsed from
+	 * the file on first access
+	 * 
+	 * @return Exif file directory, null if none
+	 * @since 3.0.1
+	 */
+	public synchronized FileDirectory getExifFileDirectory() {
+		if (exifFileDirectory == null) {
+			long[] offsets = getLongArrayEntryValue(FieldTagType.ExifIFD);
+			if (offsets != null && offsets.length > 0) {
+				exifFileDirectory = readChildFileDirectory(offsets[0]);
+			}
+		}
+		return exifFileDirectory;
+	}
+
+	/**
+	 * Read a child file directory of this read file directory
+	 * 
+	 * @param byteOffset
+	 *            file directory byte offset
+	 * @return file directory
+	 */
+	private FileDirectory readChildFileDirectory(long byteOffset) {
+		if (reader == null) {
+			throw new TiffException(
+					"Child file directories are only read from a read TIFF file directory");
+		}
+		FileDirectory fileDirectory = TiffReader.readFileDirectory(reader,
+				byteOffset, bigTiff, false);
+		setChildCache(fileDirectory, byteOffset);
+		return fileDirectory;
+	}
+
 	/**
 	 * Get the rasters for writing a TIFF file
 	 * 
@@ -1142,107 +1442,1263 @@ public class FileDirectory {
 	 */
 	public Rasters readRasters(ImageWindow window, int[] samples,
 			boolean sampleValues, boolean interleaveValues) {
+		return readRasters(window, samples, sampleValues, interleaveValues,
+				null, null);
+	}
 
-		int width = getImageWidth().intValue();
-		int height = getImageHeight().intValue();
-
-		// Validate the image window
-		if (window.getMinX() < 0 || window.getMinY() < 0
-				|| window.getMaxX() > width || window.getMaxY() > height) {
-			throw new TiffException("Window is out of the image bounds. Width: "
-					+ width + ", Height: " + height + ", Window: " + window);
-		} else if (window.getMinX() > window.getMaxX()
-				|| window.getMinY() > window.getMaxY()) {
-			throw new TiffException("Invalid window range: " + window);
-		}
+	/**
+	 * Read the rasters, decoding the tiles or strips concurrently
+	 * 
+	 * @param executor
+	 *            executor to decode the tiles or strips with
+	 * @return rasters
+	 * @since 3.0.1
+	 */
+	public Rasters readRasters(Executor executor) {
+		ImageWindow window = new ImageWindow(this);
+		return readRasters(window, null, true, false, executor);
+	}
 
-		int windowWidth = window.getMaxX() - window.getMinX();
-		int windowHeight = window.getMaxY() - window.getMinY();
-		int numPixels = windowWidth * windowHeight;
+	/**
+	 * Read the rasters, decoding the tiles or strips concurrently. Each tile
+	 * or strip intersecting the window is decoded by an executor task which
+	 * then populates its disjoint region of the rasters.
+	 * 
+	 * @param window
+	 *            image window
+	 * @param samples
+	 *            pixel samples to read
+	 * @param sampleValues
+	 *            true to read results per sample
+	 * @param interleaveValues
+	 *            true to read results as interleaved
+	 * @param executor
+	 *            executor to decode the tiles or strips with
+	 * @return rasters
+	 * @since 3.0.1
+	 */
+	public Rasters readRasters(ImageWindow window, int[] samples,
+			boolean sampleValues, boolean interleaveValues,
+			Executor executor) {
+		return readRasters(window, samples, sampleValues, interleaveValues,
+				null, executor);
+	}
 
-		// Set or validate the samples
-		int samplesPerPixel = getSamplesPerPixel();
-		if (samples == null) {
-			samples = new int[samplesPerPixel];
-			for (int i = 0; i < samples.length; i++) {
-				samples[i] = i;
-			}
+	/**
+	 * Read the rasters, decoding the tiles or strips concurrently with a
+	 * thread pool of the parallelism level
+	 * 
+	 * @param window
+	 *            image window
+	 * @param samples
+	 *            pixel samples to read
+	 * @param sampleValues
+	 *            true to read results per sample
+	 * @param interleaveValues
+	 *            true to read results as interleaved
+	 * @param parallelism
+	 *            number of threads, 1 or less to read on the calling thread
+	 * @return rasters
+	 * @since 3.0.1
+	 */
+	public Rasters readRasters(ImageWindow window, int[] samples,
+			boolean sampleValues, boolean interleaveValues, int parallelism) {
+		Rasters rasters = null;
+		if (parallelism <= 1) {
+			rasters = readRasters(window, samples, sampleValues,
+					interleaveValues);
 		} else {
-			for (int i = 0; i < samples.length; i++) {
-				if (samples[i] >= samplesPerPixel) {
-					throw new TiffException(
-							"Invalid sample index: " + samples[i]);
-				}
+			ExecutorService executor = Executors
+					.newFixedThreadPool(parallelism);
+			try {
+				rasters = readRasters(window, samples, sampleValues,
+						interleaveValues, executor);
+			} finally {
+				executor.shutdown();
 			}
 		}
+		return rasters;
+	}
 
-		// Create the interleaved result buffer
-		List<Integer> bitsPerSample = getBitsPerSample();
-		int bytesPerPixel = 0;
-		for (int i = 0; i < samplesPerPixel; ++i) {
-			bytesPerPixel += bitsPerSample.get(i) / 8;
-		}
-		ByteBuffer interleave = null;
-		if (interleaveValues) {
-			interleave = ByteBuffer.allocateDirect(numPixels * bytesPerPixel);
-			interleave.order(reader.getByteOrder());
-		}
-
-		// Create the sample indexed result buffer array
-		ByteBuffer[] sample = null;
-		if (sampleValues) {
-			sample = new ByteBuffer[samplesPerPixel];
-			for (int i = 0; i < sample.length; ++i) {
-				double numberOfBytes = (double) numPixels
-						* Double.valueOf(bitsPerSample.get(i)) / 8;
-
-				if (numberOfBytes > Integer.MAX_VALUE) {
-					throw new TiffException(
-							"Number of sample value bytes is above max byte buffer capacity: "
-									+ numberOfBytes);
-				}
+	/**
+	 * Read the rasters
+	 * 
+	 * @param window
+	 *            image window
+	 * @param samples
+	 *            samples to read
+	 * @param sampleValues
+	 *            true to read results per sample
+	 * @param interleaveValues
+	 *            true to read results as interleaved
+	 * @param blockBytes
+	 *            tile or strip bytes already read by block index, may be
+	 *            null
+	 * @return rasters
+	 */
+	Rasters readRasters(ImageWindow window, int[] samples,
+			boolean sampleValues, boolean interleaveValues,
+			Map<Integer, byte[]> blockBytes) {
+		return readRasters(window, samples, sampleValues, interleaveValues,
+				blockBytes, null);
+	}
 
-				sample[i] = ByteBuffer.allocateDirect((int) numberOfBytes);
-				sample[i].order(reader.getByteOrder());
-			}
-		}
+	/**
+	 * Read the rasters
+	 * 
+	 * @param window
+	 *            image window
+	 * @param samples
+	 *            samples to read
+	 * @param sampleValues
+	 *            true to read results per sample
+	 * @param interleaveValues
+	 *            true to read results as interleaved
+	 * @param blockBytes
+	 *            tile or strip bytes already read by block index, may be
+	 *            null
+	 * @param executor
+	 *            executor to decode the tiles or strips with, null to read
+	 *            on the calling thread
+	 * @return rasters
+	 */
+	private Rasters readRasters(ImageWindow window, int[] samples,
+			boolean sampleValues, boolean interleaveValues,
+			Map<Integer, byte[]> blockBytes, Executor executor) {
 
-		FieldType[] fieldTypes = new FieldType[samples.length];
-		for (int i = 0; i < samples.length; i++) {
-			fieldTypes[i] = getFieldTypeForSample(samples[i]);
+		if (samples == null) {
+			samples = getSamples();
 		}
 
 		// Create the rasters results
-		Rasters rasters = new Rasters(windowWidth, windowHeight, fieldTypes,
-				sample, interleave);
+		Rasters rasters = createRasters(window, samples, sampleValues,
+				interleaveValues);
 
 		// Read the rasters
-		readRaster(window, samples, rasters);
+		readRasters(window, samples, rasters, blockBytes, executor);
 
 		return rasters;
 	}
 
 	/**
-	 * Read and populate the rasters
+	 * Read the rasters into existing rasters, such as those created by
+	 * {@link #createRasters(ImageWindow, int[], boolean, boolean)}. Rasters
+	 * of a matching layout are reused across reads of same sized windows
+	 * without allocating new value buffers.
 	 * 
 	 * @param window
 	 *            image window
 	 * @param samples
 	 *            pixel samples to read
 	 * @param rasters
-	 *            rasters to populate
+	 *            rasters to populate, with the window size and sample field
+	 *            types
+	 * @return populated rasters
+	 * @since 3.0.1
 	 */
-	private void readRaster(ImageWindow window, int[] samples,
+	public Rasters readRasters(ImageWindow window, int[] samples,
 			Rasters rasters) {
+		return readRasters(window, samples, rasters, null);
+	}
 
-		int tileWidth = getTileWidth().intValue();
-		int tileHeight = getTileHeight().intValue();
+	/**
+	 * Read the rasters into existing rasters, decoding the tiles or strips
+	 * concurrently
+	 * 
+	 * @param window
+	 *            image window
+	 * @param samples
+	 *            pixel samples to read
+	 * @param rasters
+	 *            rasters to populate, with the window size and sample field
+	 *            types
+	 * @param executor
+	 *            executor to decode the tiles or strips with, null to read
+	 *            on the calling thread
+	 * @return populated rasters
+	 * @since 3.0.1
+	 */
+	public Rasters readRasters(ImageWindow window, int[] samples,
+			Rasters rasters, Executor executor) {
 
-		int minXTile = window.getMinX() / tileWidth;
-		int maxXTile = (window.getMaxX() + tileWidth - 1) / tileWidth;
+		if (samples == null) {
+			samples = getSamples();
+		}
+
+		validateWindow(window);
+		validateSamples(samples);
+		validateRasters(window, samples, rasters);
+
+		readRasters(window, samples, rasters, null, executor);
+
+		return rasters;
+	}
+
+	/**
+	 * Read the interleaved rasters into an existing interleaved values buffer
+	 * 
+	 * @param window
+	 *            image window
+	 * @param samples
+	 *            pixel samples to read
+	 * @param interleaveValues
+	 *            interleaved values buffer to populate from index 0, at least
+	 *            the window size
+	 * @return populated rasters, backed by the interleaved values buffer
+	 * @since 3.0.1
+	 */
+	public Rasters readInterleavedRasters(ImageWindow window, int[] samples,
+			ByteBuffer interleaveValues) {
+		if (samples == null) {
+			samples = getSamples();
+		}
+		Rasters rasters = new Rasters(window.getMaxX() - window.getMinX(),
+				window.getMaxY() - window.getMinY(), getFieldTypes(samples),
+				interleaveValues);
+		return readRasters(window, samples, rasters);
+	}
+
+	/**
+	 * Read the rasters one tile or strip at a time, holding only a single
+	 * block in memory
+	 * 
+	 * @return raster blocks
+	 * @since 3.0.1
+	 */
+	public Iterable<RasterBlock> readBlocks() {
+		return readBlocks(null, true, false, 1);
+	}
+
+	/**
+	 * Read the rasters one tile or strip at a time in block order, the file
+	 * order of typically written images. Full size blocks reuse the rasters
+	 * of the previous full size block, copy values to retain them beyond the
+	 * next iteration. Iteration may stop at any block.
+	 * 
+	 * @param samples
+	 *            pixel samples to read
+	 * @param sampleValues
+	 *            true to read results per sample
+	 * @param interleaveValues
+	 *            true to read results as interleaved
+	 * @param maxBlocks
+	 *            maximum number of undecoded tiles or strips to read ahead
+	 *            from a byte source in a single request
+	 * @return raster blocks
+	 * @since 3.0.1
+	 */
+	public Iterable<RasterBlock> readBlocks(int[] samples,
+			final boolean sampleValues, final boolean interleaveValues,
+			final int maxBlocks) {
+
+		if (samples == null) {
+			samples = getSamples();
+		}
+		validateSamples(samples);
+		final int[] blockSamples = samples;
+
+		return new Iterable<RasterBlock>() {
+
+			/**
+			 * {@inheritDoc}
+			 */
+			@Override
+			public Iterator<RasterBlock> iterator() {
+				return new BlockIterator(blockSamples, sampleValues,
+						interleaveValues, maxBlocks);
+			}
+
+		};
+	}
+
+	/**
+	 * Iterator of the raster blocks of the tiles or strips
+	 */
+	private class BlockIterator implements Iterator<RasterBlock> {
+
+		/**
+		 * Pixel samples to read
+		 */
+		private final int[] samples;
+
+		/**
+		 * True to read results per sample
+		 */
+		private final boolean sampleValues;
+
+		/**
+		 * True to read results as interleaved
+		 */
+		private final boolean interleaveValues;
+
+		/**
+		 * Maximum number of blocks to read ahead
+		 */
+		private final int maxBlocks;
+
+		/**
+		 * Tile width
+		 */
+		private final int tileWidth;
+
+		/**
+		 * Tile height
+		 */
+		private final int tileHeight;
+
+		/**
+		 * Number of tiles or strips per row
+		 */
+		private final int blocksPerRow;
+
+		/**
+		 * Number of tiles or strips per sample
+		 */
+		private final int blocks;
+
+		/**
+		 * Next tile or strip
+		 */
+		private int next = 0;
+
+		/**
+		 * Tile or strip bytes read ahead by block index
+		 */
+		private Map<Integer, byte[]> blockBytes = null;
+
+		/**
+		 * Next tile or strip not read ahead
+		 */
+		private int readAheadEnd = 0;
+
+		/**
+		 * Rasters of the last full size block
+		 */
+		private Rasters rasters = null;
+
+		/**
+		 * Constructor
+		 * 
+		 * @param samples
+		 *            pixel samples to read
+		 * @param sampleValues
+		 *            true to read results per sample
+		 * @param interleaveValues
+		 *            true to read results as interleaved
+		 * @param maxBlocks
+		 *            maximum number of blocks to read ahead
+		 */
+		private BlockIterator(int[] samples, boolean sampleValues,
+				boolean interleaveValues, int maxBlocks) {
+			this.samples = samples;
+			this.sampleValues = sampleValues;
+			this.interleaveValues = interleaveValues;
+			this.maxBlocks = maxBlocks;
+			tileWidth = getTileWidth().intValue();
+			tileHeight = getTileHeight().intValue();
+			blocksPerRow = (getImageWidth().intValue() + tileWidth - 1)
+					/ tileWidth;
+			blocks = blocksPerRow
+					* ((getImageHeight().intValue() + tileHeight - 1)
+							/ tileHeight);
+		}
+
+		/**
+		 * {@inheritDoc}
+		 */
+		@Override
+		public boolean hasNext() {
+			return next < blocks;
+		}
+
+		/**
+		 * {@inheritDoc}
+		 */
+		@Override
+		public RasterBlock next() {
+			if (!hasNext()) {
+				throw new NoSuchElementException();
+			}
+
+			int xBlock = next % blocksPerRow;
+			int yBlock = next / blocksPerRow;
+			ImageWindow window = new ImageWindow(xBlock * tileWidth,
+					yBlock * tileHeight,
+					Math.min(getImageWidth().intValue(),
+							(xBlock + 1) * tileWidth),
+					Math.min(getImageHeight().intValue(),
+							(yBlock + 1) * tileHeight));
+
+			if (reader.hasSource() && next >= readAheadEnd) {
+				readAhead();
+			}
+
+			Rasters blockRasters = rasters;
+			if (blockRasters == null
+					|| blockRasters.getWidth() != window.getMaxX()
+							- window.getMinX()
+					|| blockRasters.getHeight() != window.getMaxY()
+							- window.getMinY()) {
+				blockRasters = createRasters(window, samples, sampleValues,
+						interleaveValues);
+				if (blockRasters.getWidth() == tileWidth
+						&& blockRasters.getHeight() == tileHeight) {
+					rasters = blockRasters;
+				}
+			}
+			readRasters(window, samples, blockRasters, blockBytes, null);
+
+			next++;
+
+			return new RasterBlock(xBlock, yBlock, window, blockRasters);
+		}
+
+		/**
+		 * Read ahead the bytes of the next blocks from the byte source, up to
+		 * the maximum number of blocks and at least the next block
+		 */
+		private void readAhead() {
+			List<Integer> indices = new ArrayList<>();
+			for (readAheadEnd = next; readAheadEnd < blocks; readAheadEnd++) {
+				int block = readAheadEnd;
+				List<Integer> blockIndices = new ArrayList<>();
+				for (int sample : samples) {
+					int index = getBlockIndex(block % blocksPerRow,
+							block / blocksPerRow, sample);
+					if (!blockIndices.contains(index)) {
+						blockIndices.add(index);
+					}
+				}
+				if (!indices.isEmpty()
+						&& indices.size() + blockIndices.size() > maxBlocks) {
+					break;
+				}
+				indices.addAll(blockIndices);
+			}
+			blockBytes = readBlockRanges(indices);
+		}
+
+	}
+
+	/**
+	 * Read decimated rasters of the full image, sampling the nearest pixels
+	 * for a preview of the size
+	 * 
+	 * @param width
+	 *            rasters width, repeating the nearest pixels when larger
+	 *            than the image width
+	 * @param height
+	 *            rasters height, repeating the nearest rows when larger than
+	 *            the image height
+	 * @return decimated rasters
+	 * @since 3.0.1
+	 */
+	public Rasters readDecimatedRasters(int width, int height) {
+		return readDecimatedRasters(new ImageWindow(this), null, true, false,
+				width, height);
+	}
+
+	/**
+	 * Read decimated rasters of every stride pixel and row of the window,
+	 * starting with the first
+	 * 
+	 * @param window
+	 *            image window
+	 * @param samples
+	 *            pixel samples to read
+	 * @param sampleValues
+	 *            true to read results per sample
+	 * @param interleaveValues
+	 *            true to read results as interleaved
+	 * @param stride
+	 *            pixel and row stride, 1 or more
+	 * @return decimated rasters
+	 * @since 3.0.1
+	 */
+	public Rasters readDecimatedRasters(ImageWindow window, int[] samples,
+			boolean sampleValues, boolean interleaveValues, int stride) {
+
+		if (stride < 1) {
+			throw new TiffException("Invalid stride: " + stride);
+		}
+		validateWindow(window);
+
+		int[] xs = new int[(window.getMaxX() - window.getMinX() + stride - 1)
+				/ stride];
+		for (int i = 0; i < xs.length; i++) {
+			xs[i] = window.getMinX() + i * stride;
+		}
+		int[] ys = new int[(window.getMaxY() - window.getMinY() + stride - 1)
+				/ stride];
+		for (int i = 0; i < ys.length; i++) {
+			ys[i] = window.getMinY() + i * stride;
+		}
+
+		return readDecimatedRasters(xs, ys, samples, sampleValues,
+				interleaveValues);
+	}
+
+	/**
+	 * Read decimated rasters of the window, sampling the nearest pixels for
+	 * rasters of the size. Sizes larger than the window upsample by repeating
+	 * the nearest pixels.
+	 * 
+	 * @param window
+	 *            image window
+	 * @param samples
+	 *            pixel samples to read
+	 * @param sampleValues
+	 *            true to read results per sample
+	 * @param interleaveValues
+	 *            true to read results as interleaved
+	 * @param width
+	 *            rasters width
+	 * @param height
+	 *            rasters height
+	 * @return decimated rasters
+	 * @since 3.0.1
+	 */
+	public Rasters readDecimatedRasters(ImageWindow window, int[] samples,
+			boolean sampleValues, boolean interleaveValues, int width,
+			int height) {
+
+		validateWindow(window);
+		int windowWidth = window.getMaxX() - window.getMinX();
+		int windowHeight = window.getMaxY() - window.getMinY();
+		if (width < 1 || height < 1) {
+			throw new TiffException("Invalid decimated size. Width: " + width
+					+ ", Height: " + height);
+		}
+
+		// Nearest pixel columns and rows, repeated when upsampling
+		int[] xs = new int[width];
+		for (int i = 0; i < xs.length; i++) {
+			xs[i] = window.getMinX() + (int) ((long) i * windowWidth / width);
+		}
+		int[] ys = new int[height];
+		for (int i = 0; i < ys.length; i++) {
+			ys[i] = window.getMinY()
+					+ (int) ((long) i * windowHeight / height);
+		}
+
+		return readDecimatedRasters(xs, ys, samples, sampleValues,
+				interleaveValues);
+	}
+
+	/**
+	 * Read decimated rasters of the pixel columns and rows. Only the tiles and
+	 * strips containing a sampled row are read, one at a time, and only the
+	 * sampled rows of uncompressed blocks.
+	 * 
+	 * @param xs
+	 *            non-decreasing image x coordinates of the rasters columns
+	 * @param ys
+	 *            non-decreasing image y coordinates of the rasters rows
+	 * @param samples
+	 *            pixel samples to read
+	 * @param sampleValues
+	 *            true to read results per sample
+	 * @param interleaveValues
+	 *            true to read results as interleaved
+	 * @return decimated rasters
+	 */
+	private Rasters readDecimatedRasters(int[] xs, int[] ys, int[] samples,
+			boolean sampleValues, boolean interleaveValues) {
+
+		if (samples == null) {
+			samples = getSamples();
+		}
+		validateSamples(samples);
+
+		Rasters rasters = createRasters(xs.length, ys.length, samples,
+				sampleValues, interleaveValues);
+		if (xs.length == 0 || ys.length == 0) {
+			return rasters;
+		}
+
+		int tileWidth = getTileWidth().intValue();
+		int tileHeight = getTileHeight().intValue();
+		int bytesPerPixel = getBytesPerPixel();
+		boolean rowReadable = isRowReadable();
+
+		// Sample byte sizes and offsets within the block and interleaved
+		// pixels
+		FieldType[] fieldTypes = rasters.getFieldTypes();
+		int[] sampleBytes = new int[samples.length];
+		int[] srcSampleOffsets = new int[samples.length];
+		int[] interleaveOffsets = new int[samples.length];
+		int interleaveOffset = 0;
+		for (int i = 0; i < samples.length; i++) {
+			sampleBytes[i] = fieldTypes[i].getBytes();
+			if (planarConfiguration == TiffConstants.PLANAR_CONFIGURATION_CHUNKY) {
+				for (int j = 0; j < samples[i]; j++) {
+					srcSampleOffsets[i] += getSampleByteSize(j);
+				}
+			}
+			interleaveOffsets[i] = interleaveOffset;
+			interleaveOffset += sampleBytes[i];
+		}
+		int pixelBytes = interleaveOffset;
+
+		ByteBuffer interleave = null;
+		ByteBuffer[] sampleBuffers = null;
+		boolean swap = false;
+		if (rasters.hasInterleaveValues()) {
+			interleave = rasters.getInterleaveValues();
+			swap = interleave.order() != reader.getByteOrder();
+		}
+		if (rasters.hasSampleValues()) {
+			sampleBuffers = rasters.getSampleValues();
+			swap = sampleBuffers[0].order() != reader.getByteOrder();
+		}
+
+		int lastRowIndex = -1;
+		int lastRow = -1;
+		byte[] rowBytes = null;
+		byte[] cachedRow = null;
+		BlockCache blockCache = cache;
+
+		// Each block row containing sampled rows
+		int row = 0;
+		while (row < ys.length) {
+			int yTile = ys[row] / tileHeight;
+			int endRow = row;
+			while (endRow < ys.length && ys[endRow] / tileHeight == yTile) {
+				endRow++;
+			}
+
+			// Each block column containing sampled columns
+			int column = 0;
+			while (column < xs.length) {
+				int xTile = xs[column] / tileWidth;
+				int endColumn = column;
+				while (endColumn < xs.length
+						&& xs[endColumn] / tileWidth == xTile) {
+					endColumn++;
+				}
+
+				for (int sampleIndex = 0; sampleIndex < samples.length; sampleIndex++) {
+					int sample = samples[sampleIndex];
+					int blockPixelBytes = bytesPerPixel;
+					if (planarConfiguration == TiffConstants.PLANAR_CONFIGURATION_PLANAR) {
+						blockPixelBytes = getSampleByteSize(sample);
+					}
+					int blockRowBytes = tileWidth * blockPixelBytes;
+
+					int index = getBlockIndex(xTile, yTile, sample);
+					boolean readRows = rowReadable && !isCachedBlock(index);
+					boolean copyRows = blockCache != null
+							&& blockCache.contains(index);
+					byte[] block = null;
+					if (!readRows && !copyRows) {
+						block = getTileOrStrip(xTile, yTile, sample, null);
+					}
+
+					for (int r = row; r < endRow; r++) {
+						int y = ys[r] - yTile * tileHeight;
+						int blockOffset = y * blockRowBytes;
+						if (copyRows && (r == row || ys[r] != ys[r - 1])) {
+							// Copy only the sampled row of the cached block
+							byte[] copied = copyCachedRows(blockCache, index,
+									y, y + 1, blockRowBytes, cachedRow);
+							if (copied != null) {
+								cachedRow = copied;
+							} else {
+								copyRows = false;
+								block = getTileOrStrip(xTile, yTile, sample,
+										null);
+							}
+						}
+						if (copyRows) {
+							block = cachedRow;
+							blockOffset = 0;
+						} else if (readRows) {
+							// Read only the sampled row of the raw block
+							if (index != lastRowIndex || y != lastRow) {
+								rowBytes = readBlockRows(index, y, y + 1,
+										blockRowBytes);
+								lastRowIndex = index;
+								lastRow = y;
+							}
+							block = rowBytes;
+							blockOffset = 0;
+						}
+						for (int c = column; c < endColumn; c++) {
+							int valueOffset = blockOffset
+									+ (xs[c] - xTile * tileWidth)
+											* blockPixelBytes
+									+ srcSampleOffsets[sampleIndex];
+							int pixel = r * xs.length + c;
+							if (interleave != null) {
+								copyValue(block, valueOffset, interleave,
+										pixel * pixelBytes
+												+ interleaveOffsets[sampleIndex],
+										sampleBytes[sampleIndex], swap);
+							}
+							if (sampleBuffers != null) {
+								copyValue(block, valueOffset,
+										sampleBuffers[sampleIndex],
+										pixel * sampleBytes[sampleIndex],
+										sampleBytes[sampleIndex], swap);
+							}
+						}
+					}
+				}
+
+				column = endColumn;
+			}
+
+			row = endRow;
+		}
+
+		return rasters;
+	}
+
+	/**
+	 * Copy a single sample value from a decoded block into a rasters buffer
+	 * 
+	 * @param block
+	 *            decoded tile or strip bytes
+	 * @param blockOffset
+	 *            block byte offset of the value
+	 * @param buffer
+	 *            rasters buffer
+	 * @param bufferOffset
+	 *            buffer byte offset of the value
+	 * @param bytes
+	 *            value bytes
+	 * @param swap
+	 *            true to reverse the value bytes
+	 */
+	private static void copyValue(byte[] block, int blockOffset,
+			ByteBuffer buffer, int bufferOffset, int bytes, boolean swap) {
+		if (swap) {
+			for (int i = 0; i < bytes; i++) {
+				buffer.put(bufferOffset + i, block[blockOffset + bytes - 1 - i]);
+			}
+		} else {
+			for (int i = 0; i < bytes; i++) {
+				buffer.put(bufferOffset + i, block[blockOffset + i]);
+			}
+		}
+	}
+
+	/**
+	 * Read and populate validated rasters
+	 * 
+	 * @param window
+	 *            image window
+	 * @param samples
+	 *            samples to read
+	 * @param rasters
+	 *            rasters to populate
+	 * @param blockBytes
+	 *            tile or strip bytes already read by block index, may be
+	 *            null
+	 * @param executor
+	 *            executor to decode the tiles or strips with, null to read
+	 *            on the calling thread
+	 */
+	private void readRasters(ImageWindow window, int[] samples,
+			Rasters rasters, Map<Integer, byte[]> blockBytes,
+			Executor executor) {
+		if (executor != null) {
+			readRaster(window, samples, rasters, executor);
+		} else {
+			readRaster(window, samples, rasters, blockBytes);
+		}
+	}
+
+	/**
+	 * Create empty rasters for reading the window and samples, for reuse
+	 * with {@link #readRasters(ImageWindow, int[], Rasters)}
+	 * 
+	 * @param window
+	 *            image window
+	 * @param samples
+	 *            pixel samples to read
+	 * @param sampleValues
+	 *            true to read results per sample
+	 * @param interleaveValues
+	 *            true to read results as interleaved
+	 * @return rasters
+	 * @since 3.0.1
+	 */
+	public Rasters createRasters(ImageWindow window, int[] samples,
+			boolean sampleValues, boolean interleaveValues) {
+
+		validateWindow(window);
+
+		if (samples == null) {
+			samples = getSamples();
+		}
+		validateSamples(samples);
+
+		return createRasters(window.getMaxX() - window.getMinX(),
+				window.getMaxY() - window.getMinY(), samples, sampleValues,
+				interleaveValues);
+	}
+
+	/**
+	 * Create empty rasters of the size for the validated samples
+	 * 
+	 * @param width
+	 *            rasters width
+	 * @param height
+	 *            rasters height
+	 * @param samples
+	 *            pixel samples to read
+	 * @param sampleValues
+	 *            true to read results per sample
+	 * @param interleaveValues
+	 *            true to read results as interleaved
+	 * @return rasters
+	 */
+	private Rasters createRasters(int width, int height, int[] samples,
+			boolean sampleValues, boolean interleaveValues) {
+
+		int numPixels = width * height;
+
+		// Create the interleaved result buffer
+		int samplesPerPixel = getSamplesPerPixel();
+		int bytesPerPixel = 0;
+		for (int i = 0; i < samplesPerPixel; ++i) {
+			bytesPerPixel += getSampleByteSize(i);
+		}
+		ByteBuffer interleave = null;
+		if (interleaveValues) {
+			interleave = ByteBuffer.allocateDirect(numPixels * bytesPerPixel);
+			interleave.order(reader.getByteOrder());
+		}
+
+		// Create the sample indexed result buffer array
+		ByteBuffer[] sample = null;
+		if (sampleValues) {
+			sample = new ByteBuffer[samplesPerPixel];
+			for (int i = 0; i < sample.length; ++i) {
+				double numberOfBytes = (double) numPixels
+						* getSampleByteSize(i);
+
+				if (numberOfBytes > Integer.MAX_VALUE) {
+					throw new TiffException(
+							"Number of sample value bytes is above max byte buffer capacity: "
+									+ numberOfBytes);
+				}
+
+				sample[i] = ByteBuffer.allocateDirect((int) numberOfBytes);
+				sample[i].order(reader.getByteOrder());
+			}
+		}
+
+		return new Rasters(width, height, getFieldTypes(samples), sample,
+				interleave);
+	}
+
+	/**
+	 * Get all pixel sample indices
+	 * 
+	 * @return samples
+	 */
+	private int[] getSamples() {
+		int[] samples = new int[getSamplesPerPixel()];
+		for (int i = 0; i < samples.length; i++) {
+			samples[i] = i;
+		}
+		return samples;
+	}
+
+	/**
+	 * Get the field types of the pixel samples
+	 * 
+	 * @param samples
+	 *            pixel samples
+	 * @return field types
+	 */
+	private FieldType[] getFieldTypes(int[] samples) {
+		FieldType[] fieldTypes = new FieldType[samples.length];
+		for (int i = 0; i < samples.length; i++) {
+			fieldTypes[i] = getFieldTypeForSample(samples[i]);
+		}
+		return fieldTypes;
+	}
+
+	/**
+	 * Validate the image window is within the image bounds
+	 * 
+	 * @param window
+	 *            image window
+	 */
+	private void validateWindow(ImageWindow window) {
+		int width = getImageWidth().intValue();
+		int height = getImageHeight().intValue();
+		if (window.getMinX() < 0 || window.getMinY() < 0
+				|| window.getMaxX() > width || window.getMaxY() > height) {
+			throw new TiffException("Window is out of the image bounds. Width: "
+					+ width + ", Height: " + height + ", Window: " + window);
+		} else if (window.getMinX() > window.getMaxX()
+				|| window.getMinY() > window.getMaxY()) {
+			throw new TiffException("Invalid window range: " + window);
+		}
+	}
+
+	/**
+	 * Validate the pixel sample indices
+	 * 
+	 * @param samples
+	 *            pixel samples
+	 */
+	private void validateSamples(int[] samples) {
+		int samplesPerPixel = getSamplesPerPixel();
+		for (int i = 0; i < samples.length; i++) {
+			if (samples[i] >= samplesPerPixel) {
+				throw new TiffException("Invalid sample index: " + samples[i]);
+			}
+		}
+	}
+
+	/**
+	 * Validate existing rasters match the layout of the window and samples
+	 * 
+	 * @param window
+	 *            image window
+	 * @param samples
+	 *            pixel samples
+	 * @param rasters
+	 *            rasters to populate
+	 */
+	private void validateRasters(ImageWindow window, int[] samples,
+			Rasters rasters) {
+
+		int windowWidth = window.getMaxX() - window.getMinX();
+		int windowHeight = window.getMaxY() - window.getMinY();
+		if (rasters.getWidth() != windowWidth
+				|| rasters.getHeight() != windowHeight) {
+			throw new TiffException("Rasters size does not match the window. "
+					+ "Rasters Width: " + rasters.getWidth() + ", Height: "
+					+ rasters.getHeight() + ", Window: " + window);
+		}
+
+		FieldType[] fieldTypes = rasters.getFieldTypes();
+		if (!Arrays.equals(fieldTypes, getFieldTypes(samples))) {
+			throw new TiffException(
+					"Rasters field types do not match the samples. Field Types: "
+							+ Arrays.toString(fieldTypes) + ", Samples: "
+							+ Arrays.toString(samples));
+		}
+
+		int numPixels = rasters.getNumPixels();
+		if (rasters.hasSampleValues()) {
+			ByteBuffer[] sampleValues = rasters.getSampleValues();
+			if (sampleValues.length < samples.length) {
+				throw new TiffException(
+						"Rasters sample values expected for each sample. Sample Values: "
+								+ sampleValues.length + ", Samples: "
+								+ samples.length);
+			}
+			for (int i = 0; i < samples.length; i++) {
+				validateCapacity(sampleValues[i],
+						numPixels * fieldTypes[i].getBytes());
+			}
+		}
+		if (rasters.hasInterleaveValues()) {
+			validateCapacity(rasters.getInterleaveValues(),
+					numPixels * rasters.sizePixel());
+		}
+	}
+
+	/**
+	 * Validate a rasters values buffer capacity
+	 * 
+	 * @param buffer
+	 *            values buffer
+	 * @param bytes
+	 *            required number of bytes
+	 */
+	private static void validateCapacity(ByteBuffer buffer, int bytes) {
+		if (buffer.capacity() < bytes) {
+			throw new TiffException(
+					"Rasters values buffer is smaller than the window. Capacity: "
+							+ buffer.capacity() + ", Required: " + bytes);
+		}
+	}
+
+	/**
+	 * Read and populate the rasters
+	 * 
+	 * @param window
+	 *            image window
+	 * @param samples
+	 *            pixel samples to read
+	 * @param rasters
+	 *            rasters to populate
+	 * @param blockBytes
+	 *            tile or strip bytes already read by block index, may be
+	 *            null
+	 */
+	private void readRaster(ImageWindow window, int[] samples,
+			Rasters rasters, Map<Integer, byte[]> blockBytes) {
+
+		int tileWidth = getTileWidth().intValue();
+		int tileHeight = getTileHeight().intValue();
+
+		int minXTile = window.getMinX() / tileWidth;
+		int maxXTile = (window.getMaxX() + tileWidth - 1) / tileWidth;
 		int minYTile = window.getMinY() / tileHeight;
 		int maxYTile = (window.getMaxY() + tileHeight - 1) / tileHeight;
 
+		// When reading from a byte source, read the window blocks in as few
+		// byte range requests as possible. Uncompressed blocks partially
+		// covered by the window are read by row instead.
+		if (blockBytes == null && reader.hasSource()) {
+			boolean rowReadable = isRowReadable();
+			List<Integer> blockIndices = new ArrayList<>();
+			for (int yTile = minYTile; yTile < maxYTile; yTile++) {
+				if (rowReadable
+						&& (window.getMinY() > yTile * tileHeight || window
+								.getMaxY() < (yTile + 1) * tileHeight)) {
+					continue;
+				}
+				for (int xTile = minXTile; xTile < maxXTile; xTile++) {
+					for (int sample : samples) {
+						blockIndices.add(getBlockIndex(xTile, yTile, sample));
+					}
+				}
+			}
+			blockBytes = readBlockRanges(blockIndices);
+		}
+
+		readRaster(window, samples, rasters, minXTile, maxXTile, minYTile,
+				maxYTile, blockBytes, null);
+	}
+
+	/**
+	 * Read and populate the rasters, decoding the tiles or strips
+	 * concurrently. Undecoded bytes are read in batches as decode tasks
+	 * complete, holding at most about {@link IOUtils#READ_AHEAD_SIZE} bytes
+	 * read ahead of the decoding.
+	 * 
+	 * @param window
+	 *            image window
+	 * @param samples
+	 *            pixel samples to read
+	 * @param rasters
+	 *            rasters to populate
+	 * @param executor
+	 *            executor to decode the tiles or strips with
+	 */
+	private void readRaster(final ImageWindow window, final int[] samples,
+			final Rasters rasters, Executor executor) {
+
+		int tileWidth = getTileWidth().intValue();
+		int tileHeight = getTileHeight().intValue();
+
+		int minXTile = window.getMinX() / tileWidth;
+		int maxXTile = (window.getMaxX() + tileWidth - 1) / tileWidth;
+		int minYTile = window.getMinY() / tileHeight;
+		int maxYTile = (window.getMaxY() + tileHeight - 1) / tileHeight;
+
+		readBlockOffsets();
+
+		int xTiles = maxXTile - minXTile;
+		int tiles = xTiles * (maxYTile - minYTile);
+
+		// Batches are a fraction of the read ahead so reads of the next batch
+		// overlap decoding of the previous batches
+		long readAhead = Math.max(1, IOUtils.READ_AHEAD_SIZE);
+		long batchSize = Math.max(1, readAhead / 4);
+
+		List<FutureTask<Map<Integer, byte[]>>> tasks = new ArrayList<>();
+		List<Long> taskBytes = new ArrayList<>();
+		int completed = 0;
+		long pendingBytes = 0;
+
+		try {
+
+			int tile = 0;
+			while (tile < tiles) {
+
+				// Group the next tiles or strips up to the batch size
+				int batchEnd = tile;
+				long batchBytes = 0;
+				List<Integer> batchIndices = new ArrayList<>();
+				List<Long> batchTileBytes = new ArrayList<>();
+				while (batchEnd < tiles) {
+					int xTile = minXTile + batchEnd % xTiles;
+					int yTile = minYTile + batchEnd / xTiles;
+					List<Integer> tileIndices = new ArrayList<>();
+					long bytes = 0;
+					for (int sample : samples) {
+						int index = getBlockIndex(xTile, yTile, sample);
+						if (!tileIndices.contains(index)
+								&& !isCachedBlock(index)) {
+							tileIndices.add(index);
+							bytes += blockByteCounts[index];
+						}
+					}
+					if (batchEnd > tile && batchBytes + bytes > batchSize) {
+						break;
+					}
+					batchIndices.addAll(tileIndices);
+					batchTileBytes.add(bytes);
+					batchBytes += bytes;
+					batchEnd++;
+				}
+
+				// Wait for decode tasks until the batch fits in the read ahead
+				while (completed < tasks.size()
+						&& pendingBytes + batchBytes > readAhead) {
+					pendingBytes -= taskBytes.get(completed);
+					cacheDecodedBlocks(tasks.get(completed++));
+				}
+
+				// When reading from a byte source, read the batch blocks in as
+				// few byte range requests as possible
+				Map<Integer, byte[]> blockBytes = new HashMap<>();
+				if (reader.hasSource()) {
+					blockBytes = readBlockRanges(batchIndices);
+				}
+
+				// Decode and populate each tile or strip in a task, reading
+				// the undecoded bytes on the calling thread
+				int batchStart = tile;
+				for (; tile < batchEnd; tile++) {
+
+					int xTile = minXTile + tile % xTiles;
+					int yTile = minYTile + tile / xTiles;
+
+					final Map<Integer, byte[]> tileBytes = new HashMap<>();
+					final Map<Integer, byte[]> tileBlocks = new HashMap<>();
+					for (int sample : samples) {
+						int index = getBlockIndex(xTile, yTile, sample);
+						if (tileBlocks.containsKey(index)
+								|| tileBytes.containsKey(index)) {
+							continue;
+						}
+						BlockCache blockCache = cache;
+						if (blockCache != null && blockCache.contains(index)) {
+							// Copied from the cache by the task
+							continue;
+						}
+						byte[] block = getCachedBlock(index);
+						if (block != null) {
+							tileBlocks.put(index, block);
+						} else {
+							byte[] bytes = blockBytes.remove(index);
+							if (bytes == null) {
+								bytes = readBlockBytes(index);
+							}
+							tileBytes.put(index, bytes);
+						}
+					}
+
+					final int x = xTile;
+					final int y = yTile;
+					FutureTask<Map<Integer, byte[]>> task = new FutureTask<>(
+							new Callable<Map<Integer, byte[]>>() {
+								@Override
+								public Map<Integer, byte[]> call() {
+									return readRaster(window, samples,
+											rasters, x, x + 1, y, y + 1,
+											tileBytes, tileBlocks);
+								}
+							});
+					long bytes = batchTileBytes.get(tile - batchStart);
+					tasks.add(task);
+					taskBytes.add(bytes);
+					pendingBytes += bytes;
+					executor.execute(task);
+				}
+			}
+
+			// Wait for the remaining tasks, caching the decoded blocks
+			while (completed < tasks.size()) {
+				cacheDecodedBlocks(tasks.get(completed++));
+			}
+
+		} catch (InterruptedException e) {
+			cancel(tasks);
+			Thread.currentThread().interrupt();
+			throw new TiffException("Interrupted while reading rasters", e);
+		} catch (ExecutionException e) {
+			cancel(tasks);
+			Throwable cause = e.getCause();
+			if (cause instanceof RuntimeException) {
+				throw (RuntimeException) cause;
+			}
+			throw new TiffException("Failed to read rasters", cause);
+		} catch (RuntimeException e) {
+			cancel(tasks);
+			throw e;
+		}
+	}
+
+	/**
+	 * Wait for a raster read task and cache its decoded blocks
+	 * 
+	 * @param task
+	 *            raster read task
+	 * @throws InterruptedException
+	 *             upon interruption while waiting
+	 * @throws ExecutionException
+	 *             upon task failure
+	 */
+	private void cacheDecodedBlocks(FutureTask<Map<Integer, byte[]>> task)
+			throws InterruptedException, ExecutionException {
+		Map<Integer, byte[]> decodedBlocks = task.get();
+		BlockCache blockCache = cache;
+		if (blockCache != null) {
+			for (Map.Entry<Integer, byte[]> decodedBlock : decodedBlocks
+					.entrySet()) {
+				blockCache.put(decodedBlock.getKey(), decodedBlock.getValue());
+			}
+		}
+	}
+
+	/**
+	 * Cancel the raster read tasks
+	 * 
+	 * @param tasks
+	 *            raster read tasks
+	 */
+	private static void cancel(List<FutureTask<Map<Integer, byte[]>>> tasks) {
+		for (FutureTask<Map<Integer, byte[]>> task : tasks) {
+			task.cancel(false);
+		}
+	}
+
+	/**
+	 * Read and populate the rasters from a range of tiles or strips
+	 * 
+	 * @param window
+	 *            image window
+	 * @param samples
+	 *            pixel samples to read
+	 * @param rasters
+	 *            rasters to populate
+	 * @param minXTile
+	 *            min x tile
+	 * @param maxXTile
+	 *            max x tile, exclusive
+	 * @param minYTile
+	 *            min y tile
+	 * @param maxYTile
+	 *            max y tile, exclusive
+	 * @param blockBytes
+	 *            tile or strip bytes already read by block index, may be
+	 *            null
+	 * @param decodedBlocks
+	 *            decoded tiles or strips by block index for a concurrent
+	 *            task, null to use the shared cache
+	 * @return decoded blocks
+	 */
+	private Map<Integer, byte[]> readRaster(ImageWindow window, int[] samples,
+			Rasters rasters, int minXTile, int maxXTile, int minYTile,
+			int maxYTile, Map<Integer, byte[]> blockBytes,
+			Map<Integer, byte[]> decodedBlocks) {
+
+		int tileWidth = getTileWidth().intValue();
+		int tileHeight = getTileHeight().intValue();
+
 		int windowWidth = window.getMaxX() - window.getMinX();
 
 		int bytesPerPixel = getBytesPerPixel();
@@ -1252,12 +2708,56 @@ public class FileDirectory {
 		for (int i = 0; i < samples.length; i++) {
 			int sampleOffset = 0;
 			if (planarConfiguration == TiffConstants.PLANAR_CONFIGURATION_CHUNKY) {
-				sampleOffset = sum(getBitsPerSample(), 0, samples[i]) / 8;
+				for (int j = 0; j < samples[i]; j++) {
+					sampleOffset += getSampleByteSize(j);
+				}
 			}
 			srcSampleOffsets[i] = sampleOffset;
 			sampleFieldTypes[i] = getFieldTypeForSample(samples[i]);
 		}
 
+		// Determine when window row spans can be copied from the decoded
+		// blocks in bulk instead of value by value. Sample values copy when
+		// the sample is the only one in its block. Interleaved values copy
+		// when the block pixels match the interleaved pixels.
+		boolean[] sampleSpans = new boolean[samples.length];
+		int[] sampleBytes = new int[samples.length];
+		int[][] spanSampleBytes = new int[samples.length][];
+		for (int i = 0; i < samples.length; i++) {
+			sampleBytes[i] = sampleFieldTypes[i].getBytes();
+			spanSampleBytes[i] = new int[] { sampleBytes[i] };
+			int sampleStride = bytesPerPixel;
+			if (planarConfiguration == TiffConstants.PLANAR_CONFIGURATION_PLANAR) {
+				sampleStride = getSampleByteSize(samples[i]);
+			}
+			sampleSpans[i] = sampleStride == sampleBytes[i];
+		}
+		// Uncompressed blocks not already read are read by window rows
+		boolean partialRows = isRowReadable() && decodedBlocks == null;
+		int partialIndex = -1;
+		byte[] partialBlock = null;
+
+		// Cached blocks are copied from the cache by window rows or spans
+		BlockCache blockCache = cache;
+		byte[] cachedRows = null;
+
+		boolean interleaveSpan = false;
+		if (rasters.hasInterleaveValues()) {
+			if (samples.length == 1) {
+				interleaveSpan = sampleSpans[0];
+			} else if (planarConfiguration == TiffConstants.PLANAR_CONFIGURATION_CHUNKY
+					&& samples.length == getSamplesPerPixel()
+					&& bytesPerPixel == rasters.sizePixel()) {
+				interleaveSpan = true;
+				for (int i = 0; i < samples.length; i++) {
+					if (samples[i] != i) {
+						interleaveSpan = false;
+						break;
+					}
+				}
+			}
+		}
+
 		for (int yTile = minYTile; yTile < maxYTile; yTile++) {
 			for (int xTile = minXTile; xTile < maxXTile; xTile++) {
 
@@ -1266,26 +2766,145 @@ public class FileDirectory {
 				int lastLine = (yTile + 1) * tileHeight;
 				int lastCol = (xTile + 1) * tileWidth;
 
+				int minY = Math.max(0, window.getMinY() - firstLine);
+				int maxY = Math.min(tileHeight,
+						tileHeight - (lastLine - window.getMaxY()));
+				int minX = Math.max(0, window.getMinX() - firstCol);
+				int maxX = Math.min(tileWidth,
+						tileWidth - (lastCol - window.getMaxX()));
+				int spanWidth = maxX - minX;
+
 				for (int sampleIndex = 0; sampleIndex < samples.length; sampleIndex++) {
 					int sample = samples[sampleIndex];
 					if (planarConfiguration == TiffConstants.PLANAR_CONFIGURATION_PLANAR) {
 						bytesPerPixel = getSampleByteSize(sample);
 					}
 
-					byte[] block = getTileOrStrip(xTile, yTile, sample);
+					// A chunky interleaved span copies all samples at once
+					boolean copyInterleave = interleaveSpan
+							&& sampleIndex == 0;
+					boolean readInterleave = rasters.hasInterleaveValues()
+							&& !interleaveSpan;
+					boolean copySample = rasters.hasSampleValues()
+							&& sampleSpans[sampleIndex];
+					boolean readSample = rasters.hasSampleValues()
+							&& !copySample;
+					if (!copyInterleave && !readInterleave && !copySample
+							&& !readSample) {
+						continue;
+					}
+
+					int index = getBlockIndex(xTile, yTile, sample);
+					byte[] block = null;
+					int blockFirstRow = 0;
+					if (decodedBlocks != null) {
+						block = decodedBlocks.get(index);
+					}
+
+					// Copy cached blocks without copying the whole block
+					if (block == null && blockCache != null
+							&& (blockBytes == null
+									|| !blockBytes.containsKey(index))
+							&& blockCache.contains(index)) {
+						int blockRowBytes = tileWidth * bytesPerPixel;
+						if (!readInterleave && !readSample) {
+							// Copy the window spans straight into the rasters
+							int rows = maxY - minY;
+							int blockRow = minY * blockRowBytes
+									+ minX * bytesPerPixel;
+							int windowRow = (minY + firstLine
+									- window.getMinY()) * windowWidth + minX
+									+ firstCol - window.getMinX();
+							boolean copied = true;
+							if (copyInterleave) {
+								copied = copyCachedSpans(blockCache, index,
+										blockRow, blockRowBytes,
+										rasters.getInterleaveValues(),
+										windowRow * rasters.sizePixel(),
+										windowWidth * rasters.sizePixel(),
+										spanWidth, sampleBytes, rows);
+							}
+							if (copied && copySample) {
+								int bytes = sampleBytes[sampleIndex];
+								copied = copyCachedSpans(blockCache, index,
+										blockRow
+												+ srcSampleOffsets[sampleIndex],
+										blockRowBytes,
+										rasters.getSampleValues()[sampleIndex],
+										windowRow * bytes, windowWidth * bytes,
+										spanWidth,
+										spanSampleBytes[sampleIndex], rows);
+							}
+							if (copied) {
+								continue;
+							}
+						} else {
+							// Copy the window rows to read by value
+							byte[] rows = copyCachedRows(blockCache, index,
+									minY, maxY, blockRowBytes, cachedRows);
+							if (rows != null) {
+								cachedRows = rows;
+								block = rows;
+								blockFirstRow = minY;
+							}
+						}
+					}
+
+					if (block == null) {
+						if (decodedBlocks != null && blockBytes != null
+								&& blockBytes.containsKey(index)) {
+							block = decodeBlock(blockBytes.get(index),
+									decoder);
+							decodedBlocks.put(index, block);
+						} else if (partialRows && maxY - minY < tileHeight
+								&& isPartialBlock(index, blockBytes)) {
+							// Read only the window rows of the raw block
+							if (index != partialIndex) {
+								partialBlock = readBlockRows(index, minY,
+										maxY, tileWidth * bytesPerPixel);
+								partialIndex = index;
+							}
+							block = partialBlock;
+							blockFirstRow = minY;
+						} else {
+							block = getTileOrStrip(xTile, yTile, sample,
+									blockBytes);
+						}
+					}
 					ByteReader blockReader = new ByteReader(block,
 							reader.getByteOrder());
 
-					for (int y = Math.max(0, window.getMinY()
-							- firstLine); y < Math.min(tileHeight, tileHeight
-									- (lastLine - window.getMaxY())); y++) {
+					for (int y = minY; y < maxY; y++) {
 
-						for (int x = Math.max(0, window.getMinX()
-								- firstCol); x < Math.min(tileWidth, tileWidth
-										- (lastCol - window.getMaxX())); x++) {
+						int windowRow = (y + firstLine - window.getMinY())
+								* windowWidth + minX + firstCol
+								- window.getMinX();
+						int blockRow = ((y - blockFirstRow) * tileWidth + minX)
+								* bytesPerPixel;
 
-							int pixelOffset = (y * tileWidth + x)
-									* bytesPerPixel;
+						if (copyInterleave) {
+							copySpan(block, blockRow,
+									rasters.getInterleaveValues(),
+									windowRow * rasters.sizePixel(),
+									spanWidth, sampleBytes);
+						}
+
+						if (copySample) {
+							copySpan(block,
+									blockRow + srcSampleOffsets[sampleIndex],
+									rasters.getSampleValues()[sampleIndex],
+									windowRow * sampleBytes[sampleIndex],
+									spanWidth, spanSampleBytes[sampleIndex]);
+						}
+
+						if (!readInterleave && !readSample) {
+							continue;
+						}
+
+						for (int x = minX; x < maxX; x++) {
+
+							int pixelOffset = ((y - blockFirstRow) * tileWidth
+									+ x) * bytesPerPixel;
 							int valueOffset = pixelOffset
 									+ srcSampleOffsets[sampleIndex];
 							blockReader.setNextByte(valueOffset);
@@ -1294,7 +2913,7 @@ public class FileDirectory {
 							Number value = readValue(blockReader,
 									sampleFieldTypes[sampleIndex]);
 
-							if (rasters.hasInterleaveValues()) {
+							if (readInterleave) {
 								int windowCoordinate = (y + firstLine
 										- window.getMinY()) * windowWidth
 										+ (x + firstCol - window.getMinX());
@@ -1302,7 +2921,7 @@ public class FileDirectory {
 										windowCoordinate, value);
 							}
 
-							if (rasters.hasSampleValues()) {
+							if (readSample) {
 								int windowCoordinate = (y + firstLine
 										- window.getMinY()) * windowWidth + x
 										+ firstCol - window.getMinX();
@@ -1315,6 +2934,154 @@ public class FileDirectory {
 				}
 			}
 		}
+
+		return decodedBlocks;
+	}
+
+	/**
+	 * Copy a row span of pixels from a decoded block into a rasters buffer,
+	 * reversing the sample bytes when the buffer byte order differs
+	 * 
+	 * @param block
+	 *            decoded tile or strip bytes
+	 * @param blockOffset
+	 *            block byte offset of the first pixel
+	 * @param buffer
+	 *            rasters buffer
+	 * @param bufferOffset
+	 *            buffer byte offset of the first pixel
+	 * @param pixels
+	 *            number of pixels
+	 * @param sampleBytes
+	 *            byte sizes of the samples in each pixel
+	 */
+	private void copySpan(byte[] block, int blockOffset, ByteBuffer buffer,
+			int bufferOffset, int pixels, int[] sampleBytes) {
+
+		int pixelBytes = 0;
+		for (int bytes : sampleBytes) {
+			pixelBytes += bytes;
+		}
+
+		// Copy with a buffer duplicate so concurrent tasks do not share the
+		// buffer position
+		ByteBuffer target = buffer.duplicate();
+		target.position(bufferOffset);
+		target.put(block, blockOffset, pixels * pixelBytes);
+
+		// Reverse the sample bytes when the buffer byte order differs
+		if (buffer.order() != reader.getByteOrder()) {
+			swapSpan(buffer, bufferOffset, pixels, sampleBytes);
+		}
+	}
+
+	/**
+	 * Copy row spans of pixels from a cached block straight into a rasters
+	 * buffer, reversing the sample bytes when the buffer byte order differs
+	 * 
+	 * @param blockCache
+	 *            block cache
+	 * @param index
+	 *            block index
+	 * @param blockOffset
+	 *            block byte offset of the first pixel
+	 * @param blockRowBytes
+	 *            block bytes between rows
+	 * @param buffer
+	 *            rasters buffer
+	 * @param bufferOffset
+	 *            buffer byte offset of the first pixel
+	 * @param bufferRowBytes
+	 *            buffer bytes between rows
+	 * @param pixels
+	 *            number of pixels in each span
+	 * @param sampleBytes
+	 *            byte sizes of the samples in each pixel
+	 * @param rows
+	 *            number of rows
+	 * @return true if copied, false if no longer cached
+	 */
+	private boolean copyCachedSpans(BlockCache blockCache, int index,
+			int blockOffset, int blockRowBytes, ByteBuffer buffer,
+			int bufferOffset, int bufferRowBytes, int pixels,
+			int[] sampleBytes, int rows) {
+
+		int pixelBytes = 0;
+		for (int bytes : sampleBytes) {
+			pixelBytes += bytes;
+		}
+
+		boolean copied = blockCache.copy(index, blockOffset, blockRowBytes,
+				buffer, bufferOffset, bufferRowBytes, pixels * pixelBytes,
+				rows);
+
+		// Reverse the sample bytes when the buffer byte order differs
+		if (copied && buffer.order() != reader.getByteOrder()) {
+			for (int row = 0; row < rows; row++) {
+				swapSpan(buffer, bufferOffset + row * bufferRowBytes, pixels,
+						sampleBytes);
+			}
+		}
+
+		return copied;
+	}
+
+	/**
+	 * Copy a range of rows of a cached block
+	 * 
+	 * @param blockCache
+	 *            block cache
+	 * @param index
+	 *            block index
+	 * @param minRow
+	 *            first block row
+	 * @param maxRow
+	 *            last block row, exclusive
+	 * @param rowBytes
+	 *            bytes per block row
+	 * @param rows
+	 *            reusable rows bytes, may be null
+	 * @return rows bytes starting at the first row, null if no longer cached
+	 */
+	private static byte[] copyCachedRows(BlockCache blockCache, int index,
+			int minRow, int maxRow, int rowBytes, byte[] rows) {
+		int length = (maxRow - minRow) * rowBytes;
+		if (rows == null || rows.length < length) {
+			rows = new byte[length];
+		}
+		if (!blockCache.copy(index, minRow * rowBytes, length,
+				ByteBuffer.wrap(rows), 0, length, length, 1)) {
+			rows = null;
+		}
+		return rows;
+	}
+
+	/**
+	 * Reverse the sample bytes of a span of pixels in a rasters buffer
+	 * 
+	 * @param buffer
+	 *            rasters buffer
+	 * @param bufferOffset
+	 *            buffer byte offset of the first pixel
+	 * @param pixels
+	 *            number of pixels
+	 * @param sampleBytes
+	 *            byte sizes of the samples in each pixel
+	 */
+	private static void swapSpan(ByteBuffer buffer, int bufferOffset,
+			int pixels, int[] sampleBytes) {
+		int position = bufferOffset;
+		for (int pixel = 0; pixel < pixels; pixel++) {
+			for (int bytes : sampleBytes) {
+				for (int i = 0, j = position + bytes
+						- 1; i < bytes / 2; i++, j--) {
+					byte swap = buffer.get(position + i);
+					buffer.put(position + i, buffer.get(j));
+					buffer.put(j, swap);
+				}
+				position += bytes;
+			}
+		}
 	}
 
 	/**
@@ -1380,8 +3147,15 @@ public class FileDirectory {
 								: 0);
 		int bitsPerSample = getBitsPerSample().get(sampleIndex);
 
+		// Packed samples are read unpacked into the next supported size
+		if (BitUnpacker.isPacked(bitsPerSample)
+				&& sampleFormat != TiffConstants.SAMPLE_FORMAT_UNSIGNED_INT) {
+			throw new TiffException("Sample bit-width of " + bitsPerSample
+					+ " is only supported for unsigned integers");
+		}
+
 		FieldType fieldType = FieldType.getFieldType(sampleFormat,
-				bitsPerSample);
+				BitUnpacker.getUnpackedBits(bitsPerSample));
 
 		return fieldType;
 	}
@@ -1395,11 +3169,195 @@ public class FileDirectory {
 	 *            y coordinate
 	 * @param sample
 	 *            sample index
+	 * @param blockBytes
+	 *            block bytes already read by block index, may be null
 	 * @return bytes
 	 */
-	private byte[] getTileOrStrip(int x, int y, int sample) {
+	private byte[] getTileOrStrip(int x, int y, int sample,
+			Map<Integer, byte[]> blockBytes) {
+
+		int index = getBlockIndex(x, y, sample);
+
+		// Attempt to pull from the cache
+		byte[] tileOrStrip = getCachedBlock(index);
+		if (tileOrStrip == null) {
+
+			// Read and decode the block
+
+			byte[] bytes = null;
+			if (blockBytes != null) {
+				bytes = blockBytes.remove(index);
+			}
+			if (bytes == null) {
+				bytes = readBlockBytes(index);
+			}
+			tileOrStrip = decodeBlock(bytes, decoder);
+
+			// Cache the data
+			BlockCache blockCache = cache;
+			if (blockCache != null) {
+				blockCache.put(index, tileOrStrip);
+			} else {
+				lastBlock = new AbstractMap.SimpleImmutableEntry<>(index,
+						tileOrStrip);
+			}
+		}
+
+		return tileOrStrip;
+	}
+
+	/**
+	 * Get a decoded tile or strip from the cache or the last block read
+	 * 
+	 * @param index
+	 *            block index
+	 * @return decoded tile or strip, null if not cached
+	 */
+	private byte[] getCachedBlock(int index) {
+		byte[] block = null;
+		BlockCache blockCache = cache;
+		if (blockCache != null) {
+			block = blockCache.get(index);
+		}
+		if (block == null) {
+			Map.Entry<Integer, byte[]> last = lastBlock;
+			if (last != null && last.getKey() == index) {
+				block = last.getValue();
+			}
+		}
+		return block;
+	}
+
+	/**
+	 * Determine if a decoded tile or strip is in the cache or the last block
+	 * read, without counting as a cache access
+	 * 
+	 * @param index
+	 *            block index
+	 * @return true if cached
+	 */
+	private boolean isCachedBlock(int index) {
+		BlockCache blockCache = cache;
+		Map.Entry<Integer, byte[]> last = lastBlock;
+		return (blockCache != null && blockCache.contains(index))
+				|| (last != null && last.getKey() == index);
+	}
+
+	/**
+	 * Read the undecoded tile or strip bytes
+	 * 
+	 * @param index
+	 *            block index
+	 * @return tile or strip bytes
+	 */
+	private byte[] readBlockBytes(int index) {
+		readBlockOffsets();
+		return reader.readBytes(blockOffsets[index],
+				(int) blockByteCounts[index]);
+	}
+
+	/**
+	 * Determine if tiles and strips can be read by row, uncompressed without
+	 * a predictor or packed samples
+	 * 
+	 * @return true if readable by row
+	 */
+	private boolean isRowReadable() {
+		return decoder instanceof RawCompression
+				&& (predictor == null
+						|| predictor == TiffConstants.PREDICTOR_NO)
+				&& getPackedBitsPerSample() == 0;
+	}
+
+	/**
+	 * Determine if a block is neither cached nor already read and may be read
+	 * by row
+	 * 
+	 * @param index
+	 *            block index
+	 * @param blockBytes
+	 *            tile or strip bytes already read by block index, may be
+	 *            null
+	 * @return true if the block rows should be read
+	 */
+	private boolean isPartialBlock(int index, Map<Integer, byte[]> blockBytes) {
+		return !isCachedBlock(index)
+				&& (blockBytes == null || !blockBytes.containsKey(index));
+	}
+
+	/**
+	 * Read a range of rows of an uncompressed tile or strip
+	 * 
+	 * @param index
+	 *            block index
+	 * @param minRow
+	 *            first block row
+	 * @param maxRow
+	 *            last block row, exclusive
+	 * @param rowBytes
+	 *            bytes per block row
+	 * @return block rows bytes
+	 */
+	private byte[] readBlockRows(int index, int minRow, int maxRow,
+			int rowBytes) {
+		readBlockOffsets();
+		long rowsOffset = (long) minRow * rowBytes;
+		long bytes = Math.min((long) (maxRow - minRow) * rowBytes,
+				blockByteCounts[index] - rowsOffset);
+		if (bytes > Integer.MAX_VALUE) {
+			throw new TiffException(
+					"Number of block row bytes is above max byte array capacity: "
+							+ bytes);
+		}
+		return reader.readBytes(blockOffsets[index] + rowsOffset,
+				(int) Math.max(bytes, 0));
+	}
+
+	/**
+	 * Decode the tile or strip bytes, including the differencing predictor
+	 * 
+	 * @param bytes
+	 *            tile or strip bytes
+	 * @param blockDecoder
+	 *            compression decoder
+	 * @return decoded tile or strip
+	 */
+	private byte[] decodeBlock(byte[] bytes, CompressionDecoder blockDecoder) {
+
+		byte[] block = blockDecoder.decode(bytes, reader.getByteOrder());
 
-		byte[] tileOrStrip = null;
+		if (predictor != null) {
+			block = Predictor.decode(block, predictor,
+					getTileWidth().intValue(), getTileHeight().intValue(),
+					getBitsPerSample(), planarConfiguration,
+					reader.getByteOrder());
+		}
+
+		int packedBits = getPackedBitsPerSample();
+		if (packedBits > 0) {
+			int valuesPerRow = getTileWidth().intValue();
+			if (planarConfiguration == TiffConstants.PLANAR_CONFIGURATION_CHUNKY) {
+				valuesPerRow *= getSamplesPerPixel();
+			}
+			block = BitUnpacker.unpack(block, packedBits, valuesPerRow,
+					getTileHeight().intValue(), reader.getByteOrder());
+		}
+
+		return block;
+	}
+
+	/**
+	 * Get the tile or strip block index for the sample coordinate
+	 * 
+	 * @param x
+	 *            x coordinate
+	 * @param y
+	 *            y coordinate
+	 * @param sample
+	 *            sample index
+	 * @return block index
+	 */
+	private int getBlockIndex(int x, int y, int sample) {
 
 		int imageWidth = getImageWidth().intValue();
 		int imageHeight = getImageHeight().intValue();
@@ -1416,45 +3374,90 @@ public class FileDirectory {
 					+ y * numTilesPerRow + x;
 		}
 
-		// Attempt to pull from the cache
-		if (cache != null && cache.containsKey(index)) {
-			tileOrStrip = cache.get(index);
-		} else if (lastBlockIndex == index && lastBlock != null) {
-			tileOrStrip = lastBlock;
-		} else {
-
-			// Read and decode the block
+		return index;
+	}
 
-			long offset = 0;
-			int byteCount = 0;
+	/**
+	 * Read the tile or strip offsets and byte counts into arrays if not
+	 * already read
+	 */
+	private void readBlockOffsets() {
+		if (blockOffsets == null || blockByteCounts == null) {
 			if (tiled) {
-				offset = getTileOffsets().get(index).longValue();
-				byteCount = getTileByteCounts().get(index).intValue();
+				blockOffsets = getLongArrayEntryValue(FieldTagType.TileOffsets);
+				blockByteCounts = getLongArrayEntryValue(
+						FieldTagType.TileByteCounts);
 			} else {
-				offset = getStripOffsets().get(index).longValue();
-				byteCount = getStripByteCounts().get(index).intValue();
+				blockOffsets = getLongArrayEntryValue(
+						FieldTagType.StripOffsets);
+				blockByteCounts = getLongArrayEntryValue(
+						FieldTagType.StripByteCounts);
 			}
+		}
+	}
+
+	/**
+	 * Read the bytes of the tile or strip blocks not already cached. Blocks
+	 * with byte ranges within {@link IOUtils#COALESCE_GAP_SIZE} bytes of each
+	 * other are coalesced into a single byte range read.
+	 * 
+	 * @param blockIndices
+	 *            block indices
+	 * @return block bytes by block index
+	 */
+	private Map<Integer, byte[]> readBlockRanges(List<Integer> blockIndices) {
 
-			reader.setNextByte(offset);
-			byte[] bytes = reader.readBytes(byteCount);
-			tileOrStrip = decoder.decode(bytes, reader.getByteOrder());
+		readBlockOffsets();
 
-			if (predictor != null) {
-				tileOrStrip = Predictor.decode(tileOrStrip, predictor,
-						tileWidth, tileHeight, getBitsPerSample(),
-						planarConfiguration);
+		List<Integer> indices = new ArrayList<>();
+		for (int index : blockIndices) {
+			if (!isCachedBlock(index)) {
+				indices.add(index);
+			}
+		}
+		final long[] offsets = blockOffsets;
+		Collections.sort(indices, new Comparator<Integer>() {
+			@Override
+			public int compare(Integer index1, Integer index2) {
+				return Long.compare(offsets[index1], offsets[index2]);
+			}
+		});
+
+		Map<Integer, byte[]> blockBytes = new HashMap<>();
+
+		int start = 0;
+		while (start < indices.size()) {
+
+			// Extend the range while the next block is nearby
+			long rangeStart = blockOffsets[indices.get(start)];
+			long rangeEnd = rangeStart + blockByteCounts[indices.get(start)];
+			int end = start + 1;
+			while (end < indices.size()) {
+				int index = indices.get(end);
+				long blockEnd = Math.max(rangeEnd,
+						blockOffsets[index] + blockByteCounts[index]);
+				if (blockOffsets[index] > rangeEnd + IOUtils.COALESCE_GAP_SIZE
+						|| blockEnd - rangeStart > Integer.MAX_VALUE) {
+					break;
+				}
+				rangeEnd = blockEnd;
+				end++;
 			}
 
-			// Cache the data
-			if (cache != null) {
-				cache.put(index, tileOrStrip);
-			} else {
-				lastBlockIndex = index;
-				lastBlock = tileOrStrip;
+			// Read the range and split into blocks
+			byte[] range = reader.readBytes(rangeStart,
+					(int) (rangeEnd - rangeStart));
+			for (int i = start; i < end; i++) {
+				int index = indices.get(i);
+				int blockStart = (int) (blockOffsets[index] - rangeStart);
+				blockBytes.put(index, Arrays.copyOfRange(range, blockStart,
+						blockStart + (int) blockByteCounts[index]));
 			}
+
+			start = end;
 		}
 
-		return tileOrStrip;
+		return blockBytes;
 	}
 
 	/**
@@ -1470,18 +3473,37 @@ public class FileDirectory {
 			throw new TiffException(
 					"Sample index " + sampleIndex + " is out of range");
 		}
-		int bits = bitsPerSample.get(sampleIndex);
-		if ((bits % 8) != 0) {
-			throw new TiffException(
-					"Sample bit-width of " + bits + " is not supported");
-		}
+		int bits = BitUnpacker.getUnpackedBits(bitsPerSample.get(sampleIndex));
 		return (bits / 8);
 	}
 
 	/**
-	 * Calculates the number of bytes for each pixel across all samples. Only
-	 * full bytes are supported, an exception is thrown when this is not the
-	 * case.
+	 * Get the bits per sample of packed samples, not a multiple of 8 bits.
+	 * Packed samples must all be the same size.
+	 * 
+	 * @return packed bits per sample, 0 if not packed
+	 */
+	private int getPackedBitsPerSample() {
+		int packedBits = 0;
+		List<Integer> bitsPerSamples = getBitsPerSample();
+		int bits = bitsPerSamples.get(0);
+		for (int i = 0; i < bitsPerSamples.size(); i++) {
+			if (BitUnpacker.isPacked(bitsPerSamples.get(i))) {
+				packedBits = bitsPerSamples.get(i);
+			}
+			if (packedBits > 0 && bitsPerSamples.get(i) != bits) {
+				throw new TiffException(
+						"Differing size of packed samples are not supported. sample 0 = "
+								+ bits + ", sample " + i + " = "
+								+ bitsPerSamples.get(i));
+			}
+		}
+		return packedBits;
+	}
+
+	/**
+	 * Calculates the number of bytes for each pixel across all samples, with
+	 * packed samples unpacked to full bytes
 	 * 
 	 * @return the bytes per pixel
 	 */
@@ -1490,16 +3512,13 @@ public class FileDirectory {
 		List<Integer> bitsPerSamples = getBitsPerSample();
 		for (int i = 0; i < bitsPerSamples.size(); i++) {
 			int bits = bitsPerSamples.get(i);
-			if ((bits % 8) != 0) {
-				throw new TiffException(
-						"Sample bit-width of " + bits + " is not supported");
-			} else if (bits != bitsPerSamples.get(0)) {
+			if (bits != bitsPerSamples.get(0)) {
 				throw new TiffException(
 						"Differing size of samples in a pixel are not supported. sample 0 = "
 								+ bitsPerSamples.get(0) + ", sample " + i
 								+ " = " + bits);
 			}
-			bitsPerSample += bits;
+			bitsPerSample += BitUnpacker.getUnpackedBits(bits);
 		}
 		return bitsPerSample / 8;
 	}
@@ -1682,6 +3701,33 @@ public class FileDirectory {
 		return getEntryValue(fieldTagType);
 	}
 
+	/**
+	 * Get a number list entry value as a new long array. Values read into a
+	 * {@link LongArrayList} are bulk copied from the primitive array, changes
+	 * to the returned array do not modify the entry.
+	 * 
+	 * @param fieldTagType
+	 *            field tag type
+	 * @return long array value
+	 * @since 3.0.1
+	 */
+	public long[] getLongArrayEntryValue(FieldTagType fieldTagType) {
+		long[] values = null;
+		Object value = getEntryValue(fieldTagType);
+		if (value instanceof LongArrayList) {
+			values = ((LongArrayList) value).toPrimitiveArray();
+		} else if (value instanceof List) {
+			List<?> list = (List<?>) value;
+			values = new long[list.size()];
+			for (int i = 0; i < values.length; i++) {
+				values[i] = ((Number) list.get(i)).longValue();
+			}
+		} else if (value instanceof Number) {
+			values = new long[] { ((Number) value).longValue() };
+		}
+		return values;
+	}
+
 	/**
 	 * Set an unsigned long list of values for the field tag type
 	 * 
@@ -1696,6 +3742,21 @@ public class FileDirectory {
 		setEntryValue(fieldTagType, FieldType.LONG, value.size(), value);
 	}
 
+	/**
+	 * Set an unsigned 8 byte long list of values for the field tag type, used
+	 * by BigTIFF offset and byte count values
+	 * 
+	 * @param fieldTagType
+	 *            field tag type
+	 * @param value
+	 *            long list value
+	 * @since 3.0.1
+	 */
+	public void setLong8ListEntryValue(FieldTagType fieldTagType,
+			List<Long> value) {
+		setEntryValue(fieldTagType, FieldType.LONG8, value.size(), value);
+	}
+
 	/**
 	 * Set rational value for the field tag type
 	 * 
@@ -1751,25 +3812,6 @@ public class FileDirectory {
 		addEntry(entry);
 	}
 
-	/**
-	 * Sum the list integer values in the provided range
-	 * 
-	 * @param values
-	 *            integer values
-	 * @param start
-	 *            inclusive start index
-	 * @param end
-	 *            exclusive end index
-	 * @return sum
-	 */
-	private int sum(List<Integer> values, int start, int end) {
-		int sum = 0;
-		for (int i = start; i < end; i++) {
-			sum += values.get(i);
-		}
-		return sum;
-	}
-
 	/**
 	 * Create a single integer list with the value
 	 * 
@@ -1815,9 +3857,29 @@ public class FileDirectory {
 	 * @return size in bytes
 	 */
 	public long size() {
-		return TiffConstants.IFD_HEADER_BYTES
-				+ (entries.size() * TiffConstants.IFD_ENTRY_BYTES)
-				+ TiffConstants.IFD_OFFSET_BYTES;
+		return size(false);
+	}
+
+	/**
+	 * Size in bytes of the Image File Directory (all contiguous)
+	 * 
+	 * @param bigTiff
+	 *            true if a BigTIFF directory
+	 * @return size in bytes
+	 * @since 3.0.1
+	 */
+	public long size(boolean bigTiff) {
+		long size;
+		if (bigTiff) {
+			size = TiffConstants.BIGTIFF_IFD_HEADER_BYTES
+					+ (entries.size() * TiffConstants.BIGTIFF_IFD_ENTRY_BYTES)
+					+ TiffConstants.BIGTIFF_IFD_OFFSET_BYTES;
+		} else {
+			size = TiffConstants.IFD_HEADER_BYTES
+					+ (entries.size() * TiffConstants.IFD_ENTRY_BYTES)
+					+ TiffConstants.IFD_OFFSET_BYTES;
+		}
+		return size;
 	}
 
 	/**
@@ -1827,10 +3889,29 @@ public class FileDirectory {
 	 * @return size in bytes
 	 */
 	public long sizeWithValues() {
-		long size = TiffConstants.IFD_HEADER_BYTES
-				+ TiffConstants.IFD_OFFSET_BYTES;
+		return sizeWithValues(false);
+	}
+
+	/**
+	 * Size in bytes of the image file directory including entry values (not
+	 * contiguous bytes)
+	 * 
+	 * @param bigTiff
+	 *            true if a BigTIFF directory
+	 * @return size in bytes
+	 * @since 3.0.1
+	 */
+	public long sizeWithValues(boolean bigTiff) {
+		long size;
+		if (bigTiff) {
+			size = TiffConstants.BIGTIFF_IFD_HEADER_BYTES
+					+ TiffConstants.BIGTIFF_IFD_OFFSET_BYTES;
+		} else {
+			size = TiffConstants.IFD_HEADER_BYTES
+					+ TiffConstants.IFD_OFFSET_BYTES;
+		}
 		for (FileDirectoryEntry entry : entries) {
-			size += entry.sizeWithValues();
+			size += entry.sizeWithValues(bigTiff);
 		}
 		return size;
 	}
@@ -1,5 +1,6 @@
 package mil.nga.tiff;
 
+import mil.nga.tiff.io.ByteReader;
 import mil.nga.tiff.util.TiffConstants;
 
 /**
@@ -27,7 +28,17 @@ public class FileDirectoryEntry implements Comparable<FileDirectoryEntry> {
 	/**
 	 * Values
 	 */
-	private final Object values;
+	private volatile Object values;
+
+	/**
+	 * Byte reader of deferred values, null once the values are read
+	 */
+	private volatile ByteReader reader;
+
+	/**
+	 * Byte offset of deferred values
+	 */
+	private long valuesOffset;
 
 	/**
 	 * Constructor
@@ -49,6 +60,30 @@ public class FileDirectoryEntry implements Comparable<FileDirectoryEntry> {
 		this.values = values;
 	}
 
+	/**
+	 * Constructor, deferred values read from the byte offset on first access
+	 * 
+	 * @param fieldTag
+	 *            field tag type
+	 * @param fieldType
+	 *            field type
+	 * @param typeCount
+	 *            type count
+	 * @param reader
+	 *            byte reader
+	 * @param valuesOffset
+	 *            values byte offset
+	 * @since 3.0.1
+	 */
+	public FileDirectoryEntry(FieldTagType fieldTag, FieldType fieldType,
+			long typeCount, ByteReader reader, long valuesOffset) {
+		this.fieldTag = fieldTag;
+		this.fieldType = fieldType;
+		this.typeCount = typeCount;
+		this.reader = reader;
+		this.valuesOffset = valuesOffset;
+	}
+
 	/**
 	 * Get the field tag type
 	 * 
@@ -82,9 +117,28 @@ public class FileDirectoryEntry implements Comparable<FileDirectoryEntry> {
 	 * @return values
 	 */
 	public Object getValues() {
+		if (reader != null) {
+			synchronized (this) {
+				if (reader != null) {
+					values = TiffReader.readFieldValues(reader, valuesOffset,
+							fieldTag, fieldType, typeCount);
+					reader = null;
+				}
+			}
+		}
 		return values;
 	}
 
+	/**
+	 * Are the values deferred and not yet read
+	 * 
+	 * @return true if deferred
+	 * @since 3.0.1
+	 */
+	public boolean isDeferred() {
+		return reader != null;
+	}
+
 	/**
 	 * Size in bytes of the image file directory entry and its values (not
 	 * contiguous bytes)
@@ -92,7 +146,21 @@ public class FileDirectoryEntry implements Comparable<FileDirectoryEntry> {
 	 * @return size in bytes
 	 */
 	public long sizeWithValues() {
-		long size = TiffConstants.IFD_ENTRY_BYTES + sizeOfValues();
+		return sizeWithValues(false);
+	}
+
+	/**
+	 * Size in bytes of the image file directory entry and its values (not
+	 * contiguous bytes)
+	 * 
+	 * @param bigTiff
+	 *            true if a BigTIFF entry
+	 * @return size in bytes
+	 * @since 3.0.1
+	 */
+	public long sizeWithValues(boolean bigTiff) {
+		long size = (bigTiff ? TiffConstants.BIGTIFF_IFD_ENTRY_BYTES
+				: TiffConstants.IFD_ENTRY_BYTES) + sizeOfValues(bigTiff);
 		return size;
 	}
 
@@ -102,9 +170,22 @@ public class FileDirectoryEntry implements Comparable<FileDirectoryEntry> {
 	 * @return size in bytes
 	 */
 	public long sizeOfValues() {
+		return sizeOfValues(false);
+	}
+
+	/**
+	 * Size of the values not included in the directory entry bytes
+	 * 
+	 * @param bigTiff
+	 *            true if a BigTIFF entry
+	 * @return size in bytes
+	 * @since 3.0.1
+	 */
+	public long sizeOfValues(boolean bigTiff) {
 		long size = 0;
 		long valueBytes = fieldType.getBytes() * typeCount;
-		if (valueBytes > 4) {
+		if (valueBytes > (bigTiff ? TiffConstants.BIGTIFF_IFD_ENTRY_VALUE_BYTES
+				: TiffConstants.IFD_ENTRY_VALUE_BYTES)) {
 			size = valueBytes;
 		}
 		return size;
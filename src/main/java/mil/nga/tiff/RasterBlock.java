@@ -0,0 +1,106 @@
+package mil.nga.tiff;
+
+/**
+ * Rasters of a single decoded tile or strip and its image window, read by
+ * {@link FileDirectory#readBlocks(int[], boolean, boolean, int)}
+ * 
+ * @author osbornb
+ * @since 3.0.1
+ */
+public class RasterBlock {
+
+	/**
+	 * Tile or strip x index
+	 */
+	private final int xBlock;
+
+	/**
+	 * Tile or strip y index
+	 */
+	private final int yBlock;
+
+	/**
+	 * Image window of the block
+	 */
+	private final ImageWindow window;
+
+	/**
+	 * Rasters of the block window
+	 */
+	private final Rasters rasters;
+
+	/**
+	 * Constructor
+	 * 
+	 * @param xBlock
+	 *            tile or strip x index
+	 * @param yBlock
+	 *            tile or strip y index
+	 * @param window
+	 *            image window of the block
+	 * @param rasters
+	 *            rasters of the block window
+	 */
+	public RasterBlock(int xBlock, int yBlock, ImageWindow window,
+			Rasters rasters) {
+		this.xBlock = xBlock;
+		this.yBlock = yBlock;
+		this.window = window;
+		this.rasters = rasters;
+	}
+
+	/**
+	 * Get the tile x index, 0 for strips
+	 * 
+	 * @return x block index
+	 */
+	public int getXBlock() {
+		return xBlock;
+	}
+
+	/**
+	 * Get the tile or strip y index
+	 * 
+	 * @return y block index
+	 */
+	public int getYBlock() {
+		return yBlock;
+	}
+
+	/**
+	 * Get the image window of the block, clipped to the image bounds
+	 * 
+	 * @return image window
+	 */
+	public ImageWindow getWindow() {
+		return window;
+	}
+
+	/**
+	 * Get the image x coordinate of the first block pixel
+	 * 
+	 * @return min x
+	 */
+	public int getX() {
+		return window.getMinX();
+	}
+
+	/**
+	 * Get the image y coordinate of the first block pixel
+	 * 
+	 * @return min y
+	 */
+	public int getY() {
+		return window.getMinY();
+	}
+
+	/**
+	 * Get the rasters of the block window
+	 * 
+	 * @return rasters
+	 */
+	public Rasters getRasters() {
+		return rasters;
+	}
+
+}
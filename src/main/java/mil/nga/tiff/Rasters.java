@@ -2,6 +2,9 @@ package mil.nga.tiff;
 
 import java.nio.ByteBuffer;
 import java.nio.ByteOrder;
+import java.nio.FloatBuffer;
+import java.nio.IntBuffer;
+import java.nio.ShortBuffer;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.List;
@@ -387,8 +390,15 @@ public class Rasters {
 					+ ". Buffer capacity: " + buffer.capacity());
 		}
 
-		buffer.position(bufferIndex);
-		writeSample(buffer, fieldTypes[sampleIndex], value);
+		FieldType fieldType = fieldTypes[sampleIndex];
+		switch (fieldType) {
+		case FLOAT:
+		case DOUBLE:
+			writeDouble(buffer, bufferIndex, fieldType, value.doubleValue());
+			break;
+		default:
+			writeLong(buffer, bufferIndex, fieldType, value.longValue());
+		}
 	}
 
 	/**
@@ -750,11 +760,7 @@ public class Rasters {
 			pixelSample = getSampleFromByteBuffer(sampleValues[sample],
 					bufferPos, sample);
 		} else {
-			int bufferPos = getInterleaveIndex(x, y);
-			for (int i = 0; i < sample; i++) {
-				bufferPos += fieldTypes[sample].getBytes();
-			}
-
+			int bufferPos = getInterleaveIndex(sample, x, y);
 			pixelSample = getSampleFromByteBuffer(interleaveValues, bufferPos,
 					sample);
 		}
@@ -788,12 +794,8 @@ public class Rasters {
 					value);
 		}
 		if (interleaveValues != null) {
-			int interleaveIndex = getSampleIndex(x, y) * sizePixel();
-			for (int i = 0; i < sample; ++i) {
-				interleaveIndex += fieldTypes[sample].getBytes();
-			}
-			updateSampleInByteBuffer(interleaveValues, interleaveIndex, sample,
-					value);
+			updateSampleInByteBuffer(interleaveValues,
+					getInterleaveIndex(sample, x, y), sample, value);
 		}
 	}
 
@@ -826,6 +828,374 @@ public class Rasters {
 		setPixelSample(0, x, y, value);
 	}
 
+	/**
+	 * Get a pixel sample value as an int, narrowed as by a cast
+	 * 
+	 * @param sample
+	 *            sample index (&gt;= 0 &amp;&amp; &lt;
+	 *            {@link #getSamplesPerPixel()})
+	 * @param x
+	 *            x coordinate (&gt;= 0 &amp;&amp; &lt; {@link #getWidth()})
+	 * @param y
+	 *            y coordinate (&gt;= 0 &amp;&amp; &lt; {@link #getHeight()})
+	 * @return pixel sample
+	 * @since 3.0.1
+	 */
+	public int getInt(int sample, int x, int y) {
+		return (int) getLong(sample, x, y);
+	}
+
+	/**
+	 * Get a pixel sample value as a long, floating point values are truncated
+	 * 
+	 * @param sample
+	 *            sample index (&gt;= 0 &amp;&amp; &lt;
+	 *            {@link #getSamplesPerPixel()})
+	 * @param x
+	 *            x coordinate (&gt;= 0 &amp;&amp; &lt; {@link #getWidth()})
+	 * @param y
+	 *            y coordinate (&gt;= 0 &amp;&amp; &lt; {@link #getHeight()})
+	 * @return pixel sample
+	 * @since 3.0.1
+	 */
+	public long getLong(int sample, int x, int y) {
+		validateCoordinates(x, y);
+		validateSample(sample);
+		return readLong(getValuesBuffer(sample), getBufferIndex(sample, x, y),
+				fieldTypes[sample]);
+	}
+
+	/**
+	 * Get a pixel sample value as a float
+	 * 
+	 * @param sample
+	 *            sample index (&gt;= 0 &amp;&amp; &lt;
+	 *            {@link #getSamplesPerPixel()})
+	 * @param x
+	 *            x coordinate (&gt;= 0 &amp;&amp; &lt; {@link #getWidth()})
+	 * @param y
+	 *            y coordinate (&gt;= 0 &amp;&amp; &lt; {@link #getHeight()})
+	 * @return pixel sample
+	 * @since 3.0.1
+	 */
+	public float getFloat(int sample, int x, int y) {
+		return (float) getDouble(sample, x, y);
+	}
+
+	/**
+	 * Get a pixel sample value as a double
+	 * 
+	 * @param sample
+	 *            sample index (&gt;= 0 &amp;&amp; &lt;
+	 *            {@link #getSamplesPerPixel()})
+	 * @param x
+	 *            x coordinate (&gt;= 0 &amp;&amp; &lt; {@link #getWidth()})
+	 * @param y
+	 *            y coordinate (&gt;= 0 &amp;&amp; &lt; {@link #getHeight()})
+	 * @return pixel sample
+	 * @since 3.0.1
+	 */
+	public double getDouble(int sample, int x, int y) {
+		validateCoordinates(x, y);
+		validateSample(sample);
+		return readDouble(getValuesBuffer(sample),
+				getBufferIndex(sample, x, y), fieldTypes[sample]);
+	}
+
+	/**
+	 * Set a pixel sample value from an int
+	 * 
+	 * @param sample
+	 *            sample index (&gt;= 0 &amp;&amp; &lt;
+	 *            {@link #getSamplesPerPixel()})
+	 * @param x
+	 *            x coordinate (&gt;= 0 &amp;&amp; &lt; {@link #getWidth()})
+	 * @param y
+	 *            y coordinate (&gt;= 0 &amp;&amp; &lt; {@link #getHeight()})
+	 * @param value
+	 *            pixel value
+	 * @since 3.0.1
+	 */
+	public void setInt(int sample, int x, int y, int value) {
+		setLong(sample, x, y, value);
+	}
+
+	/**
+	 * Set a pixel sample value from a long
+	 * 
+	 * @param sample
+	 *            sample index (&gt;= 0 &amp;&amp; &lt;
+	 *            {@link #getSamplesPerPixel()})
+	 * @param x
+	 *            x coordinate (&gt;= 0 &amp;&amp; &lt; {@link #getWidth()})
+	 * @param y
+	 *            y coordinate (&gt;= 0 &amp;&amp; &lt; {@link #getHeight()})
+	 * @param value
+	 *            pixel value
+	 * @since 3.0.1
+	 */
+	public void setLong(int sample, int x, int y, long value) {
+		validateCoordinates(x, y);
+		validateSample(sample);
+		if (sampleValues != null) {
+			writeLong(sampleValues[sample],
+					getSampleIndex(x, y) * fieldTypes[sample].getBytes(),
+					fieldTypes[sample], value);
+		}
+		if (interleaveValues != null) {
+			writeLong(interleaveValues, getInterleaveIndex(sample, x, y),
+					fieldTypes[sample], value);
+		}
+	}
+
+	/**
+	 * Set a pixel sample value from a float
+	 * 
+	 * @param sample
+	 *            sample index (&gt;= 0 &amp;&amp; &lt;
+	 *            {@link #getSamplesPerPixel()})
+	 * @param x
+	 *            x coordinate (&gt;= 0 &amp;&amp; &lt; {@link #getWidth()})
+	 * @param y
+	 *            y coordinate (&gt;= 0 &amp;&amp; &lt; {@link #getHeight()})
+	 * @param value
+	 *            pixel value
+	 * @since 3.0.1
+	 */
+	public void setFloat(int sample, int x, int y, float value) {
+		setDouble(sample, x, y, value);
+	}
+
+	/**
+	 * Set a pixel sample value from a double, truncated for integer samples
+	 * 
+	 * @param sample
+	 *            sample index (&gt;= 0 &amp;&amp; &lt;
+	 *            {@link #getSamplesPerPixel()})
+	 * @param x
+	 *            x coordinate (&gt;= 0 &amp;&amp; &lt; {@link #getWidth()})
+	 * @param y
+	 *            y coordinate (&gt;= 0 &amp;&amp; &lt; {@link #getHeight()})
+	 * @param value
+	 *            pixel value
+	 * @since 3.0.1
+	 */
+	public void setDouble(int sample, int x, int y, double value) {
+		validateCoordinates(x, y);
+		validateSample(sample);
+		if (sampleValues != null) {
+			writeDouble(sampleValues[sample],
+					getSampleIndex(x, y) * fieldTypes[sample].getBytes(),
+					fieldTypes[sample], value);
+		}
+		if (interleaveValues != null) {
+			writeDouble(interleaveValues, getInterleaveIndex(sample, x, y),
+					fieldTypes[sample], value);
+		}
+	}
+
+	/**
+	 * Get a row of sample values as floats
+	 * 
+	 * @param y
+	 *            y coordinate (&gt;= 0 &amp;&amp; &lt; {@link #getHeight()})
+	 * @param sample
+	 *            sample index (&gt;= 0 &amp;&amp; &lt;
+	 *            {@link #getSamplesPerPixel()})
+	 * @param values
+	 *            values array of at least {@link #getWidth()} length to fill,
+	 *            or null to create
+	 * @return values
+	 * @since 3.0.1
+	 */
+	public float[] getSampleRow(int y, int sample, float[] values) {
+		return getSampleRectangle(sample, 0, y, width, 1, values);
+	}
+
+	/**
+	 * Get a row of sample values as ints
+	 * 
+	 * @param y
+	 *            y coordinate (&gt;= 0 &amp;&amp; &lt; {@link #getHeight()})
+	 * @param sample
+	 *            sample index (&gt;= 0 &amp;&amp; &lt;
+	 *            {@link #getSamplesPerPixel()})
+	 * @param values
+	 *            values array of at least {@link #getWidth()} length to fill,
+	 *            or null to create
+	 * @return values
+	 * @since 3.0.1
+	 */
+	public int[] getSampleRow(int y, int sample, int[] values) {
+		return getSampleRectangle(sample, 0, y, width, 1, values);
+	}
+
+	/**
+	 * Get a row of sample values as shorts
+	 * 
+	 * @param y
+	 *            y coordinate (&gt;= 0 &amp;&amp; &lt; {@link #getHeight()})
+	 * @param sample
+	 *            sample index (&gt;= 0 &amp;&amp; &lt;
+	 *            {@link #getSamplesPerPixel()})
+	 * @param values
+	 *            values array of at least {@link #getWidth()} length to fill,
+	 *            or null to create
+	 * @return values
+	 * @since 3.0.1
+	 */
+	public short[] getSampleRow(int y, int sample, short[] values) {
+		return getSampleRectangle(sample, 0, y, width, 1, values);
+	}
+
+	/**
+	 * Get a rectangle of sample values as floats, in row order
+	 * 
+	 * @param sample
+	 *            sample index (&gt;= 0 &amp;&amp; &lt;
+	 *            {@link #getSamplesPerPixel()})
+	 * @param x
+	 *            min x coordinate
+	 * @param y
+	 *            min y coordinate
+	 * @param rectWidth
+	 *            rectangle width
+	 * @param rectHeight
+	 *            rectangle height
+	 * @param values
+	 *            values array of at least rectangle width * height length to
+	 *            fill, or null to create
+	 * @return values
+	 * @since 3.0.1
+	 */
+	public float[] getSampleRectangle(int sample, int x, int y,
+			int rectWidth, int rectHeight, float[] values) {
+		validateRectangle(sample, x, y, rectWidth, rectHeight);
+		if (values == null) {
+			values = new float[rectWidth * rectHeight];
+		}
+		validateLength(values.length, rectWidth, rectHeight);
+		if (sampleValues != null && fieldTypes[sample] == FieldType.FLOAT) {
+			FloatBuffer buffer = getSampleView(sample).asFloatBuffer();
+			for (int row = 0; row < rectHeight; row++) {
+				buffer.position(getSampleIndex(x, y + row));
+				buffer.get(values, row * rectWidth, rectWidth);
+			}
+		} else {
+			ByteBuffer buffer = getValuesBuffer(sample);
+			FieldType fieldType = fieldTypes[sample];
+			int index = 0;
+			for (int row = 0; row < rectHeight; row++) {
+				for (int col = 0; col < rectWidth; col++) {
+					values[index++] = (float) readDouble(buffer,
+							getBufferIndex(sample, x + col, y + row),
+							fieldType);
+				}
+			}
+		}
+		return values;
+	}
+
+	/**
+	 * Get a rectangle of sample values as ints, in row order. Values are
+	 * narrowed as by a cast.
+	 * 
+	 * @param sample
+	 *            sample index (&gt;= 0 &amp;&amp; &lt;
+	 *            {@link #getSamplesPerPixel()})
+	 * @param x
+	 *            min x coordinate
+	 * @param y
+	 *            min y coordinate
+	 * @param rectWidth
+	 *            rectangle width
+	 * @param rectHeight
+	 *            rectangle height
+	 * @param values
+	 *            values array of at least rectangle width * height length to
+	 *            fill, or null to create
+	 * @return values
+	 * @since 3.0.1
+	 */
+	public int[] getSampleRectangle(int sample, int x, int y, int rectWidth,
+			int rectHeight, int[] values) {
+		validateRectangle(sample, x, y, rectWidth, rectHeight);
+		if (values == null) {
+			values = new int[rectWidth * rectHeight];
+		}
+		validateLength(values.length, rectWidth, rectHeight);
+		FieldType fieldType = fieldTypes[sample];
+		if (sampleValues != null && (fieldType == FieldType.LONG
+				|| fieldType == FieldType.SLONG)) {
+			IntBuffer buffer = getSampleView(sample).asIntBuffer();
+			for (int row = 0; row < rectHeight; row++) {
+				buffer.position(getSampleIndex(x, y + row));
+				buffer.get(values, row * rectWidth, rectWidth);
+			}
+		} else {
+			ByteBuffer buffer = getValuesBuffer(sample);
+			int index = 0;
+			for (int row = 0; row < rectHeight; row++) {
+				for (int col = 0; col < rectWidth; col++) {
+					values[index++] = (int) readLong(buffer,
+							getBufferIndex(sample, x + col, y + row),
+							fieldType);
+				}
+			}
+		}
+		return values;
+	}
+
+	/**
+	 * Get a rectangle of sample values as shorts, in row order. Values are
+	 * narrowed as by a cast.
+	 * 
+	 * @param sample
+	 *            sample index (&gt;= 0 &amp;&amp; &lt;
+	 *            {@link #getSamplesPerPixel()})
+	 * @param x
+	 *            min x coordinate
+	 * @param y
+	 *            min y coordinate
+	 * @param rectWidth
+	 *            rectangle width
+	 * @param rectHeight
+	 *            rectangle height
+	 * @param values
+	 *            values array of at least rectangle width * height length to
+	 *            fill, or null to create
+	 * @return values
+	 * @since 3.0.1
+	 */
+	public short[] getSampleRectangle(int sample, int x, int y,
+			int rectWidth, int rectHeight, short[] values) {
+		validateRectangle(sample, x, y, rectWidth, rectHeight);
+		if (values == null) {
+			values = new short[rectWidth * rectHeight];
+		}
+		validateLength(values.length, rectWidth, rectHeight);
+		FieldType fieldType = fieldTypes[sample];
+		if (sampleValues != null && (fieldType == FieldType.SHORT
+				|| fieldType == FieldType.SSHORT)) {
+			ShortBuffer buffer = getSampleView(sample).asShortBuffer();
+			for (int row = 0; row < rectHeight; row++) {
+				buffer.position(getSampleIndex(x, y + row));
+				buffer.get(values, row * rectWidth, rectWidth);
+			}
+		} else {
+			ByteBuffer buffer = getValuesBuffer(sample);
+			int index = 0;
+			for (int row = 0; row < rectHeight; row++) {
+				for (int col = 0; col < rectWidth; col++) {
+					values[index++] = (short) readLong(buffer,
+							getBufferIndex(sample, x + col, y + row),
+							fieldType);
+				}
+			}
+		}
+		return values;
+	}
+
 	/**
 	 * Get the sample index location
 	 * 
@@ -852,6 +1222,73 @@ public class Rasters {
 		return (y * width * sizePixel()) + (x * sizePixel());
 	}
 
+	/**
+	 * Get the interleave byte index of a pixel sample
+	 * 
+	 * @param sample
+	 *            sample index
+	 * @param x
+	 *            x coordinate
+	 * @param y
+	 *            y coordinate
+	 * @return interleave byte index
+	 */
+	private int getInterleaveIndex(int sample, int x, int y) {
+		int index = getInterleaveIndex(x, y);
+		for (int i = 0; i < sample; i++) {
+			index += fieldTypes[i].getBytes();
+		}
+		return index;
+	}
+
+	/**
+	 * Get the buffer values are read from for the sample, preferring sample
+	 * values over interleaved values
+	 * 
+	 * @param sample
+	 *            sample index
+	 * @return values buffer
+	 */
+	private ByteBuffer getValuesBuffer(int sample) {
+		return sampleValues != null ? sampleValues[sample] : interleaveValues;
+	}
+
+	/**
+	 * Get a view of a sample values buffer starting at the first value,
+	 * independent of the position left by other reads
+	 * 
+	 * @param sample
+	 *            sample index
+	 * @return sample values view in the sample values byte order
+	 */
+	private ByteBuffer getSampleView(int sample) {
+		ByteBuffer view = sampleValues[sample].duplicate();
+		view.order(sampleValues[sample].order());
+		view.position(0);
+		return view;
+	}
+
+	/**
+	 * Get the byte index of a pixel sample within {@link #getValuesBuffer}
+	 * 
+	 * @param sample
+	 *            sample index
+	 * @param x
+	 *            x coordinate
+	 * @param y
+	 *            y coordinate
+	 * @return byte index
+	 */
+	private int getBufferIndex(int sample, int x, int y) {
+		int index;
+		if (sampleValues != null) {
+			index = getSampleIndex(x, y) * fieldTypes[sample].getBytes();
+		} else {
+			index = getInterleaveIndex(sample, x, y);
+		}
+		return index;
+	}
+
 	/**
 	 * Size in bytes of the image
 	 * 
@@ -908,6 +1345,51 @@ public class Rasters {
 		}
 	}
 
+	/**
+	 * Validate a rectangle of sample values
+	 * 
+	 * @param sample
+	 *            sample index
+	 * @param x
+	 *            min x coordinate
+	 * @param y
+	 *            min y coordinate
+	 * @param rectWidth
+	 *            rectangle width
+	 * @param rectHeight
+	 *            rectangle height
+	 */
+	private void validateRectangle(int sample, int x, int y, int rectWidth,
+			int rectHeight) {
+		validateSample(sample);
+		if (x < 0 || y < 0 || rectWidth < 0 || rectHeight < 0
+				|| x + rectWidth > width || y + rectHeight > height) {
+			throw new TiffException(
+					"Rectangle oustide of raster range. Width: " + width
+							+ ", Height: " + height + ", x: " + x + ", y: "
+							+ y + ", Rectangle Width: " + rectWidth
+							+ ", Rectangle Height: " + rectHeight);
+		}
+	}
+
+	/**
+	 * Validate the values array length for a rectangle
+	 * 
+	 * @param length
+	 *            values array length
+	 * @param rectWidth
+	 *            rectangle width
+	 * @param rectHeight
+	 *            rectangle height
+	 */
+	private void validateLength(int length, int rectWidth, int rectHeight) {
+		if (length < rectWidth * rectHeight) {
+			throw new TiffException("Values array length of " + length
+					+ " is less than the rectangle size of "
+					+ rectWidth * rectHeight);
+		}
+	}
+
 	/**
 	 * Calculate the rows per strip to write
 	 * 
@@ -1016,35 +1498,35 @@ public class Rasters {
 	}
 
 	/**
-	 * Writes sample into given buffer.
+	 * Writes sample from input buffer to given output buffer.
 	 *
-	 * @param buffer
+	 * @param outBuffer
 	 *            A buffer to write to. @note Make sure buffer position is set.
+	 * @param inBuffer
+	 *            A buffer to read from. @note Make sure buffer position is set.
 	 * @param fieldType
-	 *            field type to be written.
-	 * @param value
-	 *            Actual value to write.
+	 *            Field type to be read.
 	 */
-	private void writeSample(ByteBuffer buffer, FieldType fieldType,
-			Number value) {
+	private void writeSample(ByteBuffer outBuffer, ByteBuffer inBuffer,
+			FieldType fieldType) {
 		switch (fieldType) {
 		case BYTE:
 		case SBYTE:
-			buffer.put(value.byteValue());
+			outBuffer.put(inBuffer.get());
 			break;
 		case SHORT:
 		case SSHORT:
-			buffer.putShort(value.shortValue());
+			outBuffer.putShort(inBuffer.getShort());
 			break;
 		case LONG:
 		case SLONG:
-			buffer.putInt(value.intValue());
+			outBuffer.putInt(inBuffer.getInt());
 			break;
 		case FLOAT:
-			buffer.putFloat(value.floatValue());
+			outBuffer.putFloat(inBuffer.getFloat());
 			break;
 		case DOUBLE:
-			buffer.putDouble(value.doubleValue());
+			outBuffer.putDouble(inBuffer.getDouble());
 			break;
 		default:
 			throw new TiffException(
@@ -1053,35 +1535,117 @@ public class Rasters {
 	}
 
 	/**
-	 * Writes sample from input buffer to given output buffer.
-	 *
-	 * @param outBuffer
-	 *            A buffer to write to. @note Make sure buffer position is set.
-	 * @param inBuffer
-	 *            A buffer to read from. @note Make sure buffer position is set.
+	 * Read a sample as a long from the buffer index without moving the buffer
+	 * position, floating point values are truncated
+	 * 
+	 * @param buffer
+	 *            buffer to read from
+	 * @param index
+	 *            byte index
 	 * @param fieldType
-	 *            Field type to be read.
+	 *            field type to read
+	 * @return sample value
 	 */
-	private void writeSample(ByteBuffer outBuffer, ByteBuffer inBuffer,
+	private static long readLong(ByteBuffer buffer, int index,
 			FieldType fieldType) {
+		long sampleValue;
+
 		switch (fieldType) {
 		case BYTE:
+			sampleValue = buffer.get(index) & 0xff;
+			break;
+		case SHORT:
+			sampleValue = buffer.getShort(index) & 0xffff;
+			break;
+		case LONG:
+			sampleValue = buffer.getInt(index) & 0xffffffffL;
+			break;
 		case SBYTE:
-			outBuffer.put(inBuffer.get());
+			sampleValue = buffer.get(index);
+			break;
+		case SSHORT:
+			sampleValue = buffer.getShort(index);
+			break;
+		case SLONG:
+			sampleValue = buffer.getInt(index);
+			break;
+		case FLOAT:
+			sampleValue = (long) buffer.getFloat(index);
+			break;
+		case DOUBLE:
+			sampleValue = (long) buffer.getDouble(index);
+			break;
+		default:
+			throw new TiffException(
+					"Unsupported raster field type: " + fieldType);
+		}
+
+		return sampleValue;
+	}
+
+	/**
+	 * Read a sample as a double from the buffer index without moving the
+	 * buffer position
+	 * 
+	 * @param buffer
+	 *            buffer to read from
+	 * @param index
+	 *            byte index
+	 * @param fieldType
+	 *            field type to read
+	 * @return sample value
+	 */
+	private static double readDouble(ByteBuffer buffer, int index,
+			FieldType fieldType) {
+		double sampleValue;
+
+		switch (fieldType) {
+		case FLOAT:
+			sampleValue = buffer.getFloat(index);
+			break;
+		case DOUBLE:
+			sampleValue = buffer.getDouble(index);
+			break;
+		default:
+			sampleValue = readLong(buffer, index, fieldType);
+		}
+
+		return sampleValue;
+	}
+
+	/**
+	 * Write a long sample to the buffer index without moving the buffer
+	 * position
+	 * 
+	 * @param buffer
+	 *            buffer to write to
+	 * @param index
+	 *            byte index
+	 * @param fieldType
+	 *            field type to write
+	 * @param value
+	 *            sample value
+	 */
+	private static void writeLong(ByteBuffer buffer, int index,
+			FieldType fieldType, long value) {
+		switch (fieldType) {
+		case BYTE:
+		case SBYTE:
+			buffer.put(index, (byte) value);
 			break;
 		case SHORT:
 		case SSHORT:
-			outBuffer.putShort(inBuffer.getShort());
+			buffer.putShort(index, (short) value);
 			break;
 		case LONG:
 		case SLONG:
-			outBuffer.putInt(inBuffer.getInt());
+			buffer.putInt(index, (int) value);
 			break;
 		case FLOAT:
-			outBuffer.putFloat(inBuffer.getFloat());
+			buffer.putFloat(index, value);
 			break;
 		case DOUBLE:
-			outBuffer.putDouble(inBuffer.getDouble());
+			buffer.putDouble(index, value);
 			break;
 		default:
 			throw new TiffException(
@@ -1089,6 +1653,33 @@ public class Rasters {
 		}
 	}
 
+	/**
+	 * Write a double sample to the buffer index without moving the buffer
+	 * position, truncated for integer field types
+	 * 
+	 * @param buffer
+	 *            buffer to write to
+	 * @param index
+	 *            byte index
+	 * @param fieldType
+	 *            field type to write
+	 * @param value
+	 *            sample value
+	 */
+	private static void writeDouble(ByteBuffer buffer, int index,
+			FieldType fieldType, double value) {
+		switch (fieldType) {
+		case FLOAT:
+			buffer.putFloat(index, (float) value);
+			break;
+		case DOUBLE:
+			buffer.putDouble(index, value);
+			break;
+		default:
+			writeLong(buffer, index, fieldType, (long) value);
+		}
+	}
+
 	/**
 	 * Returns field types
 	 * 
@@ -0,0 +1,21 @@
+package mil.nga.tiff;
+
+/**
+ * Callback for rows of rasters read sequentially from a TIFF stream
+ * 
+ * @author osbornb
+ * @since 3.0.1
+ */
+public interface RowsCallback {
+
+	/**
+	 * Handle the next rows of the image, read from a single strip
+	 * 
+	 * @param y
+	 *            image row of the first rasters row
+	 * @param rasters
+	 *            rasters of the image width and strip rows
+	 */
+	void rows(int y, Rasters rasters);
+
+}
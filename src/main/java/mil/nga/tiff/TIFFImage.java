@@ -2,22 +2,59 @@ package mil.nga.tiff;
 
 import java.util.ArrayList;
 import java.util.Collections;
+import java.util.Iterator;
 import java.util.List;
+import java.util.NoSuchElementException;
 
+import mil.nga.tiff.io.ByteReader;
+import mil.nga.tiff.util.SharedBlockCache;
 import mil.nga.tiff.util.TiffConstants;
 
 /**
- * TIFF Image containing the File Directories
+ * TIFF Image containing the File Directories. A lazy TIFF Image, read with
+ * {@link TiffReader#readTiff(ByteReader, boolean, boolean)}, parses each file
+ * directory on first access. A read TIFF Image may serve concurrent reads of
+ * its file directories from multiple threads.
  * 
  * @author osbornb
  */
-public class TIFFImage {
+public class TIFFImage implements Iterable<FileDirectory> {
 
 	/**
 	 * File directories
 	 */
 	private final List<FileDirectory> fileDirectories = new ArrayList<>();
 
+	/**
+	 * BigTIFF flag, true when 8 byte offsets and counts are used
+	 */
+	private boolean bigTiff = false;
+
+	/**
+	 * Byte reader for lazily parsed file directories
+	 */
+	private ByteReader reader = null;
+
+	/**
+	 * Byte offsets of the lazily parsed file directories
+	 */
+	private List<Long> fileDirectoryOffsets = null;
+
+	/**
+	 * Cache tiles and strips of lazily parsed file directories
+	 */
+	private boolean cache = false;
+
+	/**
+	 * Shared block cache of the file directories
+	 */
+	private SharedBlockCache sharedCache = null;
+
+	/**
+	 * File identity within the shared block cache
+	 */
+	private Object fileIdentity = null;
+
 	/**
 	 * Constructor
 	 */
@@ -25,6 +62,28 @@ public class TIFFImage {
 
 	}
 
+	/**
+	 * Constructor, lazy file directories parsed on first access
+	 * 
+	 * @param reader
+	 *            byte reader
+	 * @param fileDirectoryOffsets
+	 *            file directory byte offsets
+	 * @param bigTiff
+	 *            true if a BigTIFF
+	 * @param cache
+	 *            true to cache tiles and strips
+	 */
+	TIFFImage(ByteReader reader, List<Long> fileDirectoryOffsets,
+			boolean bigTiff, boolean cache) {
+		this.reader = reader;
+		this.fileDirectoryOffsets = fileDirectoryOffsets;
+		this.bigTiff = bigTiff;
+		this.cache = cache;
+		this.fileDirectories.addAll(
+				Collections.nCopies(fileDirectoryOffsets.size(), null));
+	}
+
 	/**
 	 * Constructor, single file directory
 	 * 
@@ -56,11 +115,108 @@ public class TIFFImage {
 	}
 
 	/**
-	 * Get the file directories
+	 * Is this a BigTIFF, using 8 byte offsets and counts
+	 * 
+	 * @return true if a BigTIFF
+	 * @since 3.0.1
+	 */
+	public boolean isBigTiff() {
+		return bigTiff;
+	}
+
+	/**
+	 * Set the BigTIFF flag, true to use 8 byte offsets and counts. When
+	 * writing, images too large for 4 byte offsets are written as a BigTIFF
+	 * regardless of this flag.
+	 * 
+	 * @param bigTiff
+	 *            true if a BigTIFF
+	 * @since 3.0.1
+	 */
+	public void setBigTiff(boolean bigTiff) {
+		this.bigTiff = bigTiff;
+	}
+
+	/**
+	 * Get the shared block cache of the file directories
+	 * 
+	 * @return shared block cache, null if not shared
+	 * @since 3.0.1
+	 */
+	public SharedBlockCache getSharedCache() {
+		return sharedCache;
+	}
+
+	/**
+	 * Cache the decoded tiles and strips of the file directories in a shared
+	 * block cache, shared with other TIFF images of the same file identity
+	 * 
+	 * @param sharedCache
+	 *            shared block cache
+	 * @param fileIdentity
+	 *            file identity, such as
+	 *            {@link SharedBlockCache#fileIdentity(java.io.File)}
+	 * @since 3.0.1
+	 */
+	public synchronized void setSharedCache(SharedBlockCache sharedCache,
+			Object fileIdentity) {
+		this.sharedCache = sharedCache;
+		this.fileIdentity = fileIdentity;
+		for (int i = 0; i < fileDirectories.size(); i++) {
+			FileDirectory fileDirectory = fileDirectories.get(i);
+			if (fileDirectory != null) {
+				setSharedCache(fileDirectory, i);
+			}
+		}
+	}
+
+	/**
+	 * Set the shared block cache of the file directory at the index
+	 * 
+	 * @param fileDirectory
+	 *            file directory
+	 * @param index
+	 *            index
+	 */
+	private void setSharedCache(FileDirectory fileDirectory, int index) {
+		if (sharedCache != null) {
+			fileDirectory
+					.setCache(sharedCache.getBlockCache(fileIdentity, index));
+		}
+	}
+
+	/**
+	 * Is this a lazy TIFF image with file directories parsed on first access
+	 * 
+	 * @return true if lazy
+	 * @since 3.0.1
+	 */
+	public boolean isLazy() {
+		return fileDirectoryOffsets != null;
+	}
+
+	/**
+	 * Get the number of file directories, without parsing lazy file
+	 * directories
+	 * 
+	 * @return number of file directories
+	 * @since 3.0.1
+	 */
+	public int numFileDirectories() {
+		return fileDirectories.size();
+	}
+
+	/**
+	 * Get the file directories, parsing all lazy file directories
 	 * 
 	 * @return file directories
 	 */
 	public List<FileDirectory> getFileDirectories() {
+		if (isLazy()) {
+			for (int i = 0; i < fileDirectories.size(); i++) {
+				getFileDirectory(i);
+			}
+		}
 		return Collections.unmodifiableList(fileDirectories);
 	}
 
@@ -80,8 +236,232 @@ public class TIFFImage {
 	 *            index
 	 * @return file directory
 	 */
-	public FileDirectory getFileDirectory(int index) {
-		return fileDirectories.get(index);
+	public synchronized FileDirectory getFileDirectory(int index) {
+		FileDirectory fileDirectory = fileDirectories.get(index);
+		if (fileDirectory == null) {
+			fileDirectory = readFileDirectory(index);
+			fileDirectories.set(index, fileDirectory);
+		}
+		return fileDirectory;
+	}
+
+	/**
+	 * Iterate over the file directories. Lazy file directories not yet
+	 * accessed are parsed for the iteration only and not retained by the
+	 * image, streaming through the directories of large multi-page images.
+	 * 
+	 * @return file directory iterator
+	 * @since 3.0.1
+	 */
+	@Override
+	public Iterator<FileDirectory> iterator() {
+		return new Iterator<FileDirectory>() {
+
+			/**
+			 * Next file directory index
+			 */
+			private int index = 0;
+
+			/**
+			 * {@inheritDoc}
+			 */
+			@Override
+			public boolean hasNext() {
+				return index < fileDirectories.size();
+			}
+
+			/**
+			 * {@inheritDoc}
+			 */
+			@Override
+			public FileDirectory next() {
+				if (!hasNext()) {
+					throw new NoSuchElementException();
+				}
+				FileDirectory fileDirectory = fileDirectories.get(index);
+				if (fileDirectory == null) {
+					fileDirectory = readFileDirectory(index);
+				}
+				index++;
+				return fileDirectory;
+			}
+
+		};
+	}
+
+	/**
+	 * Parse the lazy file directory at the index
+	 * 
+	 * @param index
+	 *            index
+	 * @return file directory
+	 */
+	private FileDirectory readFileDirectory(int index) {
+		FileDirectory fileDirectory = TiffReader.readFileDirectory(reader,
+				fileDirectoryOffsets.get(index), bigTiff, cache);
+		setSharedCache(fileDirectory, index);
+		return fileDirectory;
+	}
+
+	/**
+	 * Get the reduced resolution overview file directories of the first full
+	 * resolution file directory, identified by the new subfile type or
+	 * subfile type and excluding transparency masks. Overviews following in
+	 * the file directory chain are followed by those in the sub file
+	 * directories of the first file directory.
+	 * 
+	 * @return overview file directories
+	 * @since 3.0.1
+	 */
+	public List<FileDirectory> getOverviews() {
+		List<FileDirectory> fileDirectories = new ArrayList<>();
+		for (int i = 1; i < numFileDirectories(); i++) {
+			fileDirectories.add(getFileDirectory(i));
+		}
+		FileDirectory fileDirectory = getFileDirectory();
+		if (fileDirectory.getReader() != null) {
+			fileDirectories.addAll(fileDirectory.getSubFileDirectories());
+		}
+		List<FileDirectory> overviews = new ArrayList<>();
+		for (FileDirectory overview : fileDirectories) {
+			if (overview.isReducedResolution()
+					&& !overview.isTransparencyMask()) {
+				overviews.add(overview);
+			}
+		}
+		return overviews;
+	}
+
+	/**
+	 * Get the lowest resolution file directory, the full resolution or an
+	 * overview, with at least the resolution of the size over the full
+	 * resolution window
+	 * 
+	 * @param window
+	 *            full resolution image window
+	 * @param width
+	 *            minimum window width in pixels
+	 * @param height
+	 *            minimum window height in pixels
+	 * @return file directory
+	 * @since 3.0.1
+	 */
+	public FileDirectory getOverview(ImageWindow window, int width,
+			int height) {
+		FileDirectory fileDirectory = getFileDirectory();
+		long pixels = numPixels(fileDirectory);
+		for (FileDirectory overview : getOverviews()) {
+			ImageWindow overviewWindow = getOverviewWindow(window, overview);
+			if (overviewWindow.getMaxX() - overviewWindow.getMinX() >= width
+					&& overviewWindow.getMaxY()
+							- overviewWindow.getMinY() >= height
+					&& numPixels(overview) < pixels) {
+				fileDirectory = overview;
+				pixels = numPixels(overview);
+			}
+		}
+		return fileDirectory;
+	}
+
+	/**
+	 * Scale a full resolution image window to the coordinates of an overview,
+	 * covering at least the full resolution window
+	 * 
+	 * @param window
+	 *            full resolution image window
+	 * @param overview
+	 *            overview file directory
+	 * @return overview image window
+	 * @since 3.0.1
+	 */
+	public ImageWindow getOverviewWindow(ImageWindow window,
+			FileDirectory overview) {
+		FileDirectory fileDirectory = getFileDirectory();
+		long width = fileDirectory.getImageWidth().longValue();
+		long height = fileDirectory.getImageHeight().longValue();
+		long overviewWidth = overview.getImageWidth().longValue();
+		long overviewHeight = overview.getImageHeight().longValue();
+		return new ImageWindow(
+				(int) (window.getMinX() * overviewWidth / width),
+				(int) (window.getMinY() * overviewHeight / height),
+				(int) Math.min(overviewWidth,
+						(window.getMaxX() * overviewWidth + width - 1)
+								/ width),
+				(int) Math.min(overviewHeight,
+						(window.getMaxY() * overviewHeight + height - 1)
+								/ height));
+	}
+
+	/**
+	 * Read rasters of the size over a full resolution window from the lowest
+	 * sufficient resolution, sampling the nearest pixels. Sizes larger than
+	 * the full resolution window upsample by repeating the nearest pixels.
+	 * 
+	 * @param window
+	 *            full resolution image window
+	 * @param width
+	 *            rasters width
+	 * @param height
+	 *            rasters height
+	 * @return rasters
+	 * @since 3.0.1
+	 */
+	public Rasters readOverviewRasters(ImageWindow window, int width,
+			int height) {
+		return readOverviewRasters(window, null, true, false, width, height);
+	}
+
+	/**
+	 * Read rasters of the size over a full resolution window from the lowest
+	 * sufficient resolution, sampling the nearest pixels. Sizes larger than
+	 * the full resolution window upsample by repeating the nearest pixels.
+	 * 
+	 * @param window
+	 *            full resolution image window
+	 * @param samples
+	 *            pixel samples to read
+	 * @param sampleValues
+	 *            true to read results per sample
+	 * @param interleaveValues
+	 *            true to read results as interleaved
+	 * @param width
+	 *            rasters width
+	 * @param height
+	 *            rasters height
+	 * @return rasters
+	 * @since 3.0.1
+	 */
+	public Rasters readOverviewRasters(ImageWindow window, int[] samples,
+			boolean sampleValues, boolean interleaveValues, int width,
+			int height) {
+		FileDirectory fileDirectory = getOverview(window, width, height);
+		ImageWindow overviewWindow = window;
+		if (fileDirectory != getFileDirectory()) {
+			overviewWindow = getOverviewWindow(window, fileDirectory);
+		}
+		Rasters rasters = null;
+		if (overviewWindow.getMaxX() - overviewWindow.getMinX() == width
+				&& overviewWindow.getMaxY()
+						- overviewWindow.getMinY() == height) {
+			rasters = fileDirectory.readRasters(overviewWindow, samples,
+					sampleValues, interleaveValues);
+		} else {
+			rasters = fileDirectory.readDecimatedRasters(overviewWindow,
+					samples, sampleValues, interleaveValues, width, height);
+		}
+		return rasters;
+	}
+
+	/**
+	 * Get the number of pixels in the file directory image
+	 * 
+	 * @param fileDirectory
+	 *            file directory
+	 * @return number of pixels
+	 */
+	private static long numPixels(FileDirectory fileDirectory) {
+		return fileDirectory.getImageWidth().longValue()
+				* fileDirectory.getImageHeight().longValue();
 	}
 
 	/**
@@ -90,9 +470,10 @@ public class TIFFImage {
 	 * @return size in bytes
 	 */
 	public long sizeHeaderAndDirectories() {
-		long size = TiffConstants.HEADER_BYTES;
-		for (FileDirectory directory : fileDirectories) {
-			size += directory.size();
+		long size = bigTiff ? TiffConstants.BIGTIFF_HEADER_BYTES
+				: TiffConstants.HEADER_BYTES;
+		for (FileDirectory directory : getFileDirectories()) {
+			size += directory.size(bigTiff);
 		}
 		return size;
 	}
@@ -104,9 +485,10 @@ public class TIFFImage {
 	 * @return size in bytes
 	 */
 	public long sizeHeaderAndDirectoriesWithValues() {
-		long size = TiffConstants.HEADER_BYTES;
-		for (FileDirectory directory : fileDirectories) {
-			size += directory.sizeWithValues();
+		long size = bigTiff ? TiffConstants.BIGTIFF_HEADER_BYTES
+				: TiffConstants.HEADER_BYTES;
+		for (FileDirectory directory : getFileDirectories()) {
+			size += directory.sizeWithValues(bigTiff);
 		}
 		return size;
 	}
@@ -1,17 +1,30 @@
 package mil.nga.tiff;
 
+import java.io.ByteArrayOutputStream;
+import java.io.EOFException;
 import java.io.File;
 import java.io.IOException;
 import java.io.InputStream;
 import java.io.UnsupportedEncodingException;
 import java.nio.ByteOrder;
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.EnumSet;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
 import java.util.SortedSet;
 import java.util.TreeSet;
 
 import mil.nga.tiff.io.ByteReader;
+import mil.nga.tiff.io.ByteSource;
+import mil.nga.tiff.io.FileByteSource;
 import mil.nga.tiff.io.IOUtils;
+import mil.nga.tiff.util.DoubleArrayList;
+import mil.nga.tiff.util.IntegerArrayList;
+import mil.nga.tiff.util.LongArrayList;
+import mil.nga.tiff.util.SharedBlockCache;
 import mil.nga.tiff.util.TiffConstants;
 import mil.nga.tiff.util.TiffException;
 
@@ -22,6 +35,26 @@ import mil.nga.tiff.util.TiffException;
  */
 public class TiffReader {
 
+	/**
+	 * Entry values larger than this number of bytes are not read with the
+	 * file directory, they are read from the file on first access
+	 * 
+	 * @since 3.0.1
+	 */
+	public static int DEFERRED_VALUE_BYTES = 1024;
+
+	/**
+	 * Field tags with entry values required to decode strips read
+	 * sequentially from an input stream
+	 */
+	private static final Set<FieldTagType> STRIP_DECODE_TAGS = EnumSet.of(
+			FieldTagType.ImageWidth, FieldTagType.ImageLength,
+			FieldTagType.BitsPerSample, FieldTagType.Compression,
+			FieldTagType.SamplesPerPixel, FieldTagType.RowsPerStrip,
+			FieldTagType.StripOffsets, FieldTagType.StripByteCounts,
+			FieldTagType.PlanarConfiguration, FieldTagType.Predictor,
+			FieldTagType.SampleFormat);
+
 	/**
 	 * Read a TIFF from a file
 	 * 
@@ -36,7 +69,8 @@ public class TiffReader {
 	}
 
 	/**
-	 * Read a TIFF from a file
+	 * Read a TIFF from a file. The file is memory-mapped, only the file
+	 * directories and the tiles or strips read are loaded into memory.
 	 * 
 	 * @param file
 	 *            TIFF file
@@ -48,8 +82,50 @@ public class TiffReader {
 	 */
 	public static TIFFImage readTiff(File file, boolean cache)
 			throws IOException {
-		byte[] bytes = IOUtils.fileBytes(file);
-		TIFFImage tiffImage = readTiff(bytes, cache);
+		return readTiff(file, cache, false);
+	}
+
+	/**
+	 * Read a TIFF from a file. The file is memory-mapped, only the file
+	 * directories and the tiles or strips read are loaded into memory.
+	 * 
+	 * @param file
+	 *            TIFF file
+	 * @param cache
+	 *            true to cache tiles and strips
+	 * @param lazy
+	 *            true to parse file directories on first access
+	 * @return TIFF image
+	 * @throws IOException
+	 *             upon failure to read
+	 * @since 3.0.1
+	 */
+	public static TIFFImage readTiff(File file, boolean cache, boolean lazy)
+			throws IOException {
+		ByteReader reader = new ByteReader(IOUtils.mapFile(file));
+		TIFFImage tiffImage = readTiff(reader, cache, lazy);
+		return tiffImage;
+	}
+
+	/**
+	 * Read a TIFF from a file, lazily parsing file directories that cache
+	 * decoded tiles and strips in the shared block cache. TIFF images of the
+	 * same unmodified file share cached blocks.
+	 * 
+	 * @param file
+	 *            TIFF file
+	 * @param sharedCache
+	 *            shared block cache
+	 * @return TIFF image
+	 * @throws IOException
+	 *             upon failure to read
+	 * @since 3.0.1
+	 */
+	public static TIFFImage readTiff(File file, SharedBlockCache sharedCache)
+			throws IOException {
+		TIFFImage tiffImage = readTiff(file, false, true);
+		tiffImage.setSharedCache(sharedCache,
+				SharedBlockCache.fileIdentity(file));
 		return tiffImage;
 	}
 
@@ -84,6 +160,145 @@ public class TiffReader {
 		return tiffImage;
 	}
 
+	/**
+	 * Read a TIFF from a range addressable byte source. The file directories
+	 * are read in chunks and tiles or strips are read in byte ranges as
+	 * needed.
+	 * 
+	 * @param source
+	 *            byte source
+	 * @return TIFF image
+	 * @throws IOException
+	 *             upon failure to read
+	 * @since 3.0.1
+	 */
+	public static TIFFImage readTiff(ByteSource source) throws IOException {
+		return readTiff(source, false);
+	}
+
+	/**
+	 * Read a TIFF from a range addressable byte source. The file directories
+	 * are read in chunks and tiles or strips are read in byte ranges as
+	 * needed.
+	 * 
+	 * @param source
+	 *            byte source
+	 * @param cache
+	 *            true to cache tiles and strips
+	 * @return TIFF image
+	 * @throws IOException
+	 *             upon failure to read
+	 * @since 3.0.1
+	 */
+	public static TIFFImage readTiff(ByteSource source, boolean cache)
+			throws IOException {
+		return readTiff(source, cache, false);
+	}
+
+	/**
+	 * Read a TIFF from a range addressable byte source. The file directories
+	 * are read in chunks and tiles or strips are read in byte ranges as
+	 * needed.
+	 * 
+	 * @param source
+	 *            byte source
+	 * @param cache
+	 *            true to cache tiles and strips
+	 * @param lazy
+	 *            true to parse file directories on first access
+	 * @return TIFF image
+	 * @throws IOException
+	 *             upon failure to read
+	 * @since 3.0.1
+	 */
+	public static TIFFImage readTiff(ByteSource source, boolean cache,
+			boolean lazy) throws IOException {
+		ByteReader reader = new ByteReader(source);
+		TIFFImage tiffImage = readTiff(reader, cache, lazy);
+		return tiffImage;
+	}
+
+	/**
+	 * Probe a TIFF file for metadata, reading a prefix of
+	 * {@link IOUtils#PROBE_PREFIX_SIZE} bytes and only the additional byte
+	 * ranges of file directories and values outside of the prefix. The file is
+	 * closed before returning, so deferred entry values and rasters of the
+	 * probed image can not be read.
+	 * 
+	 * @param file
+	 *            TIFF file
+	 * @return TIFF image
+	 * @throws IOException
+	 *             upon failure to read
+	 * @since 3.0.1
+	 */
+	public static TIFFImage probeTiff(File file) throws IOException {
+		return probeTiff(file, IOUtils.PROBE_PREFIX_SIZE);
+	}
+
+	/**
+	 * Probe a TIFF file for metadata, reading a prefix of bytes and only the
+	 * additional byte ranges of file directories and values outside of the
+	 * prefix. The file is closed before returning, so deferred entry values
+	 * and rasters of the probed image can not be read.
+	 * 
+	 * @param file
+	 *            TIFF file
+	 * @param prefixSize
+	 *            prefix size in bytes, also used as the size of additional
+	 *            range reads
+	 * @return TIFF image
+	 * @throws IOException
+	 *             upon failure to read
+	 * @since 3.0.1
+	 */
+	public static TIFFImage probeTiff(File file, int prefixSize)
+			throws IOException {
+		try (FileByteSource source = new FileByteSource(file)) {
+			return probeTiff(source, prefixSize);
+		}
+	}
+
+	/**
+	 * Probe a TIFF byte source for metadata, reading a prefix of
+	 * {@link IOUtils#PROBE_PREFIX_SIZE} bytes and only the additional byte
+	 * ranges of file directories and values outside of the prefix
+	 * 
+	 * @param source
+	 *            byte source
+	 * @return TIFF image
+	 * @throws IOException
+	 *             upon failure to read
+	 * @since 3.0.1
+	 */
+	public static TIFFImage probeTiff(ByteSource source) throws IOException {
+		return probeTiff(source, IOUtils.PROBE_PREFIX_SIZE);
+	}
+
+	/**
+	 * Probe a TIFF byte source for metadata, reading a prefix of bytes and
+	 * only the additional byte ranges of file directories and values outside
+	 * of the prefix. Entry values larger than {@link #DEFERRED_VALUE_BYTES}
+	 * and rasters are read from the source when accessed.
+	 * 
+	 * @param source
+	 *            byte source
+	 * @param prefixSize
+	 *            prefix size in bytes, also used as the size of additional
+	 *            range reads
+	 * @return TIFF image
+	 * @throws IOException
+	 *             upon failure to read
+	 * @since 3.0.1
+	 */
+	public static TIFFImage probeTiff(ByteSource source, int prefixSize)
+			throws IOException {
+		ByteReader reader = new ByteReader(source, ByteOrder.nativeOrder(),
+				prefixSize);
+		TIFFImage tiffImage = readTiff(reader);
+		return tiffImage;
+	}
+
 	/**
 	 * Read a TIFF from the bytes
 	 * 
@@ -105,8 +320,25 @@ public class TiffReader {
 	 * @return TIFF image
 	 */
 	public static TIFFImage readTiff(byte[] bytes, boolean cache) {
+		return readTiff(bytes, cache, false);
+	}
+
+	/**
+	 * Read a TIFF from the bytes
+	 * 
+	 * @param bytes
+	 *            TIFF bytes
+	 * @param cache
+	 *            true to cache tiles and strips
+	 * @param lazy
+	 *            true to parse file directories on first access
+	 * @return TIFF image
+	 * @since 3.0.1
+	 */
+	public static TIFFImage readTiff(byte[] bytes, boolean cache,
+			boolean lazy) {
 		ByteReader reader = new ByteReader(bytes);
-		TIFFImage tiffImage = readTiff(reader, cache);
+		TIFFImage tiffImage = readTiff(reader, cache, lazy);
 		return tiffImage;
 	}
 
@@ -131,6 +363,208 @@ public class TiffReader {
 	 * @return TIFF image
 	 */
 	public static TIFFImage readTiff(ByteReader reader, boolean cache) {
+		return readTiff(reader, cache, false);
+	}
+
+	/**
+	 * Read a TIFF from the byte reader. When lazy, the image file directory
+	 * chain is walked to record the directory offsets and each file directory
+	 * is parsed on first access.
+	 * 
+	 * @param reader
+	 *            byte reader
+	 * @param cache
+	 *            true to cache tiles and strips
+	 * @param lazy
+	 *            true to parse file directories on first access
+	 * @return TIFF image
+	 * @since 3.0.1
+	 */
+	public static TIFFImage readTiff(ByteReader reader, boolean cache,
+			boolean lazy) {
+
+		// Read the header and the first IFD offset
+		long byteOffset = readHeader(reader);
+		boolean bigTiff = isBigTiff(reader);
+
+		// Get the TIFF Image
+		TIFFImage tiffImage = null;
+		if (lazy) {
+			tiffImage = parseLazyTIFFImage(reader, byteOffset, bigTiff, cache);
+		} else {
+			tiffImage = parseTIFFImage(reader, byteOffset, bigTiff, cache);
+		}
+
+		return tiffImage;
+	}
+
+	/**
+	 * Read a stripped TIFF sequentially from an input stream, passing the
+	 * rows of each strip to the callback while holding only a single strip in
+	 * memory. Only the first file directory is read. The file directory and
+	 * the entry values required to decode the strips must precede the strips,
+	 * the strips must be in increasing offset order, and multiple samples must
+	 * be chunky. Other entries with values not preceding the first strip, such
+	 * as metadata written after the image data, are skipped instead of
+	 * buffering the stream through their values.
+	 * 
+	 * @param stream
+	 *            TIFF input stream
+	 * @param callback
+	 *            rows callback
+	 * @return file directory
+	 * @throws IOException
+	 *             upon failure to read
+	 * @since 3.0.1
+	 */
+	public static FileDirectory readStrips(InputStream stream,
+			RowsCallback callback) throws IOException {
+
+		// Read the header and the first IFD offset
+		ByteArrayOutputStream metadata = new ByteArrayOutputStream();
+		readStream(stream, metadata, TiffConstants.BIGTIFF_HEADER_BYTES);
+		ByteReader reader = new ByteReader(metadata.toByteArray());
+		long byteOffset = readHeader(reader);
+		boolean bigTiff = isBigTiff(reader);
+		ByteOrder byteOrder = reader.getByteOrder();
+
+		int headerBytes = bigTiff ? TiffConstants.BIGTIFF_IFD_HEADER_BYTES
+				: TiffConstants.IFD_HEADER_BYTES;
+		int entryBytes = bigTiff ? TiffConstants.BIGTIFF_IFD_ENTRY_BYTES
+				: TiffConstants.IFD_ENTRY_BYTES;
+		int valueBytes = bigTiff ? TiffConstants.BIGTIFF_IFD_ENTRY_VALUE_BYTES
+				: TiffConstants.IFD_ENTRY_VALUE_BYTES;
+
+		// Read the file directory entries
+		readStream(stream, metadata, byteOffset + headerBytes);
+		reader = new ByteReader(metadata.toByteArray(), byteOrder);
+		long numDirectoryEntries = bigTiff ? reader.readLong(byteOffset)
+				: reader.readUnsignedShort(byteOffset);
+		long entriesOffset = byteOffset + headerBytes;
+		long metadataEnd = entriesOffset + numDirectoryEntries * entryBytes
+				+ (bigTiff ? TiffConstants.BIGTIFF_IFD_OFFSET_BYTES
+						: TiffConstants.IFD_OFFSET_BYTES);
+		readStream(stream, metadata, metadataEnd);
+		reader = new ByteReader(metadata.toByteArray(), byteOrder);
+
+		// Read through the end of the entry values required to decode,
+		// recording the end of the other entry values
+		List<Long> otherValuesEnds = new ArrayList<>();
+		for (long entry = 0; entry < numDirectoryEntries; entry++) {
+			long entryOffset = entriesOffset + entry * entryBytes;
+			FieldTagType fieldTag = FieldTagType
+					.getById(reader.readUnsignedShort(entryOffset));
+			FieldType fieldType = FieldType
+					.findFieldType(reader.readUnsignedShort(entryOffset + 2));
+			long typeCount = bigTiff ? reader.readLong(entryOffset + 4)
+					: reader.readUnsignedInt(entryOffset + 4);
+			if (fieldTag != null && fieldType != null
+					&& fieldType.getBytes() * typeCount > valueBytes) {
+				long valueOffset = bigTiff ? reader.readLong(entryOffset + 12)
+						: reader.readUnsignedInt(entryOffset + 8);
+				long valuesEnd = valueOffset + fieldType.getBytes() * typeCount;
+				if (STRIP_DECODE_TAGS.contains(fieldTag)) {
+					metadataEnd = Math.max(metadataEnd, valuesEnd);
+				} else {
+					otherValuesEnds.add(valuesEnd);
+				}
+			}
+		}
+		readStream(stream, metadata, metadataEnd);
+		byte[] metadataBytes = metadata.toByteArray();
+		reader = new ByteReader(metadataBytes, byteOrder);
+		FileDirectory fileDirectory = readFileDirectory(reader, byteOffset,
+				bigTiff, false, metadataEnd);
+
+		if (fileDirectory.isTiled()) {
+			throw new TiffException(
+					"Sequential stream reading requires a stripped TIFF");
+		}
+
+		// Read the other entry values preceding the first strip
+		long firstStripOffset = Long.MAX_VALUE;
+		for (long stripOffset : fileDirectory
+				.getLongArrayEntryValue(FieldTagType.StripOffsets)) {
+			firstStripOffset = Math.min(firstStripOffset, stripOffset);
+		}
+		long valuesEnd = metadataEnd;
+		for (long otherValuesEnd : otherValuesEnds) {
+			if (otherValuesEnd <= firstStripOffset) {
+				valuesEnd = Math.max(valuesEnd, otherValuesEnd);
+			}
+		}
+		if (valuesEnd > metadataEnd) {
+			readStream(stream, metadata, valuesEnd);
+			metadataBytes = metadata.toByteArray();
+			reader = new ByteReader(metadataBytes, byteOrder);
+			fileDirectory = readFileDirectory(reader, byteOffset, bigTiff,
+					false, valuesEnd);
+		}
+
+		Integer planarConfiguration = fileDirectory.getPlanarConfiguration();
+		if (planarConfiguration != null
+				&& planarConfiguration == TiffConstants.PLANAR_CONFIGURATION_PLANAR
+				&& fileDirectory.getSamplesPerPixel() > 1) {
+			throw new TiffException(
+					"Sequential stream reading requires chunky planar configuration");
+		}
+
+		int width = fileDirectory.getImageWidth().intValue();
+		int height = fileDirectory.getImageHeight().intValue();
+		int rowsPerStrip = fileDirectory.getTileHeight().intValue();
+		long[] stripOffsets = fileDirectory
+				.getLongArrayEntryValue(FieldTagType.StripOffsets);
+		long[] stripByteCounts = fileDirectory
+				.getLongArrayEntryValue(FieldTagType.StripByteCounts);
+
+		long position = metadataBytes.length;
+		for (int strip = 0; strip < stripOffsets.length; strip++) {
+
+			long stripOffset = stripOffsets[strip];
+			int stripByteCount = (int) stripByteCounts[strip];
+
+			// Read the strip bytes
+			byte[] stripBytes = null;
+			if (stripOffset + stripByteCount <= metadataBytes.length) {
+				stripBytes = Arrays.copyOfRange(metadataBytes,
+						(int) stripOffset, (int) stripOffset + stripByteCount);
+			} else if (stripOffset >= position) {
+				skipStream(stream, stripOffset - position);
+				stripBytes = stream.readNBytes(stripByteCount);
+				if (stripBytes.length != stripByteCount) {
+					throw new EOFException(
+							"Stream ended before the end of strip " + strip);
+				}
+				position = stripOffset + stripByteCount;
+			} else {
+				throw new TiffException(
+						"Strips are not in increasing offset order. Strip: "
+								+ strip + ", Offset: " + stripOffset
+								+ ", Stream Position: " + position);
+			}
+
+			// Read the strip rows and pass to the callback
+			int startY = strip * rowsPerStrip;
+			int endY = Math.min(startY + rowsPerStrip, height);
+			Map<Integer, byte[]> blockBytes = new HashMap<>();
+			blockBytes.put(strip, stripBytes);
+			Rasters rasters = fileDirectory.readRasters(
+					new ImageWindow(0, startY, width, endY), null, true,
+					false, blockBytes);
+			callback.rows(startY, rasters);
+		}
+
+		return fileDirectory;
+	}
+
+	/**
+	 * Read the TIFF header, setting the byte order on the reader
+	 * 
+	 * @param reader
+	 *            byte reader
+	 * @return byte offset of the first image file directory
+	 */
+	private static long readHeader(ByteReader reader) {
 
 		// Read the 2 bytes of byte order
 		String byteOrderString = null;
@@ -156,17 +590,94 @@ public class TiffReader {
 
 		// Validate the TIFF file identifier
 		int tiffIdentifier = reader.readUnsignedShort();
-		if (tiffIdentifier != TiffConstants.FILE_IDENTIFIER) {
+		long byteOffset;
+		switch (tiffIdentifier) {
+		case TiffConstants.FILE_IDENTIFIER:
+			// Get the offset in bytes of the first image file directory (IFD)
+			byteOffset = reader.readUnsignedInt();
+			break;
+		case TiffConstants.BIGTIFF_FILE_IDENTIFIER:
+			// Validate the byte size of offsets and the reserved bytes
+			int offsetBytes = reader.readUnsignedShort();
+			if (offsetBytes != TiffConstants.BIGTIFF_OFFSET_BYTES) {
+				throw new TiffException(
+						"Unsupported BigTIFF byte size of offsets: "
+								+ offsetBytes);
+			}
+			int reserved = reader.readUnsignedShort();
+			if (reserved != 0) {
+				throw new TiffException(
+						"Invalid BigTIFF reserved header value: " + reserved);
+			}
+			// Get the offset in bytes of the first image file directory (IFD)
+			byteOffset = reader.readLong();
+			break;
+		default:
 			throw new TiffException("Invalid file identifier, not a TIFF");
 		}
 
-		// Get the offset in bytes of the first image file directory (IFD)
-		long byteOffset = reader.readUnsignedInt();
+		return byteOffset;
+	}
 
-		// Get the TIFF Image
-		TIFFImage tiffImage = parseTIFFImage(reader, byteOffset, cache);
+	/**
+	 * Determine if the header read by the reader is a BigTIFF header
+	 * 
+	 * @param reader
+	 *            byte reader
+	 * @return true if a BigTIFF
+	 */
+	private static boolean isBigTiff(ByteReader reader) {
+		return reader.readUnsignedShort(
+				2L) == TiffConstants.BIGTIFF_FILE_IDENTIFIER;
+	}
 
-		return tiffImage;
+	/**
+	 * Read from the stream until the bytes reach the end byte
+	 * 
+	 * @param stream
+	 *            input stream
+	 * @param bytes
+	 *            bytes read from the stream
+	 * @param end
+	 *            end byte
+	 * @throws IOException
+	 *             upon failure to read
+	 */
+	private static void readStream(InputStream stream,
+			ByteArrayOutputStream bytes, long end) throws IOException {
+		byte[] buffer = new byte[IOUtils.COPY_BUFFER_SIZE];
+		while (bytes.size() < end) {
+			int read = stream.read(buffer, 0,
+					(int) Math.min(buffer.length, end - bytes.size()));
+			if (read < 0) {
+				throw new EOFException("Stream ended before byte " + end);
+			}
+			bytes.write(buffer, 0, read);
+		}
+	}
+
+	/**
+	 * Skip forward in the stream
+	 * 
+	 * @param stream
+	 *            input stream
+	 * @param count
+	 *            number of bytes to skip
+	 * @throws IOException
+	 *             upon failure to skip
+	 */
+	private static void skipStream(InputStream stream, long count)
+			throws IOException {
+		while (count > 0) {
+			long skipped = stream.skip(count);
+			if (skipped <= 0) {
+				if (stream.read() < 0) {
+					throw new EOFException("Stream ended while skipping");
+				}
+				skipped = 1;
+			}
+			count -= skipped;
+		}
 	}
 
 	/**
@@ -176,30 +687,134 @@ public class TiffReader {
 	 *            byte reader
 	 * @param byteOffset
 	 *            byte offset
+	 * @param bigTiff
+	 *            true if a BigTIFF with 8 byte offsets and counts
 	 * @param cache
 	 *            true to cache tiles and strips
 	 * @return TIFF image
 	 */
 	private static TIFFImage parseTIFFImage(ByteReader reader, long byteOffset,
-			boolean cache) {
+			boolean bigTiff, boolean cache) {
 
 		TIFFImage tiffImage = new TIFFImage();
+		tiffImage.setBigTiff(bigTiff);
 
 		// Continue until the byte offset no longer points to another file
 		// directory
 		while (byteOffset != 0) {
 
-			// Set the next byte to read from
+			// Add the file directory
+			FileDirectory fileDirectory = readFileDirectory(reader, byteOffset,
+					bigTiff, cache);
+			tiffImage.add(fileDirectory);
+
+			// Read the next byte offset location
+			byteOffset = bigTiff ? reader.readLong()
+					: reader.readUnsignedInt();
+		}
+
+		return tiffImage;
+	}
+
+	/**
+	 * Parse the TIFF Image, recording the file directory offsets without
+	 * parsing the file directories
+	 * 
+	 * @param reader
+	 *            byte reader
+	 * @param byteOffset
+	 *            byte offset
+	 * @param bigTiff
+	 *            true if a BigTIFF with 8 byte offsets and counts
+	 * @param cache
+	 *            true to cache tiles and strips
+	 * @return TIFF image
+	 */
+	private static TIFFImage parseLazyTIFFImage(ByteReader reader,
+			long byteOffset, boolean bigTiff, boolean cache) {
+
+		List<Long> fileDirectoryOffsets = new ArrayList<>();
+
+		// Continue until the byte offset no longer points to another file
+		// directory
+		while (byteOffset != 0) {
+
+			fileDirectoryOffsets.add(byteOffset);
+
+			// Read the number of directory entries and skip to the next byte
+			// offset location
 			reader.setNextByte(byteOffset);
+			long numDirectoryEntries;
+			if (bigTiff) {
+				numDirectoryEntries = reader.readLong();
+				reader.setNextByte(reader.getNextByteLong() + numDirectoryEntries
+						* TiffConstants.BIGTIFF_IFD_ENTRY_BYTES);
+				byteOffset = reader.readLong();
+			} else {
+				numDirectoryEntries = reader.readUnsignedShort();
+				reader.setNextByte(reader.getNextByteLong()
+						+ numDirectoryEntries * TiffConstants.IFD_ENTRY_BYTES);
+				byteOffset = reader.readUnsignedInt();
+			}
+		}
 
-			// Create the new directory
-			SortedSet<FileDirectoryEntry> entries = new TreeSet<>();
+		return new TIFFImage(reader, fileDirectoryOffsets, bigTiff, cache);
+	}
+
+	/**
+	 * Read the file directory at the byte offset. The reader is left
+	 * positioned at the offset of the next file directory.
+	 * 
+	 * @param reader
+	 *            byte reader
+	 * @param byteOffset
+	 *            file directory byte offset
+	 * @param bigTiff
+	 *            true if a BigTIFF with 8 byte offsets and counts
+	 * @param cache
+	 *            true to cache tiles and strips
+	 * @return file directory
+	 * @since 3.0.1
+	 */
+	public static FileDirectory readFileDirectory(ByteReader reader,
+			long byteOffset, boolean bigTiff, boolean cache) {
+		return readFileDirectory(reader, byteOffset, bigTiff, cache,
+				Long.MAX_VALUE);
+	}
+
+	/**
+	 * Read the file directory, skipping entries with values not contained
+	 * before the values end byte
+	 * 
+	 * @param reader
+	 *            byte reader
+	 * @param byteOffset
+	 *            byte offset of the file directory
+	 * @param bigTiff
+	 *            true if a BigTIFF
+	 * @param cache
+	 *            true to cache tiles and strips
+	 * @param valuesEnd
+	 *            end byte of the entry values to read
+	 * @return file directory
+	 */
+	private static FileDirectory readFileDirectory(ByteReader reader,
+			long byteOffset, boolean bigTiff, boolean cache, long valuesEnd) {
+
+		// Read with the reader cursor, synchronized for concurrent lazy
+		// directory reads
+		SortedSet<FileDirectoryEntry> entries = new TreeSet<>();
+		synchronized (reader) {
+
+			// Set the next byte to read from
+			reader.setNextByte(byteOffset);
 
 			// Read the number of directory entries
-			int numDirectoryEntries = reader.readUnsignedShort();
+			long numDirectoryEntries = bigTiff ? reader.readLong()
+					: reader.readUnsignedShort();
 
 			// Read each entry and the values
-			for (short entryCount = 0; entryCount < numDirectoryEntries; entryCount++) {
+			for (long entryCount = 0; entryCount < numDirectoryEntries; entryCount++) {
 
 				// Read the field tag, field type, and type count
 				int fieldTagValue = reader.readUnsignedShort();
@@ -207,41 +822,55 @@ public class TiffReader {
 
 				int fieldTypeValue = reader.readUnsignedShort();
 				FieldType fieldType = FieldType.getFieldType(fieldTypeValue);
-				if (fieldType == null) {
-					throw new TiffException(
-							"Unknown field type value " + fieldTypeValue);
-				}
 
-				long typeCount = reader.readUnsignedInt();
+				long typeCount = bigTiff ? reader.readLong()
+						: reader.readUnsignedInt();
 
 				// Save off the next byte to read location
-				int nextByte = reader.getNextByte();
+				long nextByte = reader.getNextByteLong();
 
-				// Read the field values
-				Object values = readFieldValues(reader, fieldTag, fieldType,
-						typeCount);
+				// Skip entries with values beyond the values end
+				long valueBytes = fieldType.getBytes() * typeCount;
+				if (fieldTag != null && valuesEnd != Long.MAX_VALUE
+						&& valueBytes > (bigTiff
+								? TiffConstants.BIGTIFF_IFD_ENTRY_VALUE_BYTES
+								: TiffConstants.IFD_ENTRY_VALUE_BYTES)) {
+					long valueOffset = bigTiff ? reader.readLong(nextByte)
+							: reader.readUnsignedInt(nextByte);
+					if (valueOffset + valueBytes > valuesEnd) {
+						fieldTag = null;
+					}
+				}
 
 				// Create and add a file directory if the tag is recognized.
 				if (fieldTag != null) {
-					FileDirectoryEntry entry = new FileDirectoryEntry(fieldTag,
-							fieldType, typeCount, values);
+					FileDirectoryEntry entry = null;
+					if (valueBytes > Math.max(DEFERRED_VALUE_BYTES,
+							TiffConstants.BIGTIFF_IFD_ENTRY_VALUE_BYTES)) {
+						// Defer reading the large values until accessed
+						valuesByteLength(fieldType, typeCount);
+						long valueOffset = bigTiff ? reader.readLong()
+								: reader.readUnsignedInt();
+						entry = new FileDirectoryEntry(fieldTag, fieldType,
+								typeCount, reader, valueOffset);
+					} else {
+						// Read the field values
+						Object values = readFieldValues(reader, fieldTag,
+								fieldType, typeCount, bigTiff);
+						entry = new FileDirectoryEntry(fieldTag, fieldType,
+								typeCount, values);
+					}
 					entries.add(entry);
 				}
 
 				// Restore the next byte to read location
-				reader.setNextByte(nextByte + 4);
+				reader.setNextByte(nextByte + (bigTiff
+						? TiffConstants.BIGTIFF_IFD_ENTRY_VALUE_BYTES
+						: TiffConstants.IFD_ENTRY_VALUE_BYTES));
 			}
-
-			// Add the file directory
-			FileDirectory fileDirectory = new FileDirectory(entries, reader,
-					cache);
-			tiffImage.add(fileDirectory);
-
-			// Read the next byte offset location
-			byteOffset = reader.readUnsignedInt();
 		}
 
-		return tiffImage;
+		return new FileDirectory(entries, reader, cache, bigTiff);
 	}
 
 	/**
@@ -255,13 +884,23 @@ public class TiffReader {
 	 *            field type
 	 * @param typeCount
 	 *            type count
+	 * @param bigTiff
+	 *            true if a BigTIFF with 8 byte offsets and counts
 	 * @return values
 	 */
 	private static Object readFieldValues(ByteReader reader,
-			FieldTagType fieldTag, FieldType fieldType, long typeCount) {
+			FieldTagType fieldTag, FieldType fieldType, long typeCount,
+			boolean bigTiff) {
 
 		// If the value is larger and not stored inline, determine the offset
-		if (fieldType.getBytes() * typeCount > 4) {
+		if (bigTiff) {
+			if (fieldType.getBytes()
+					* typeCount > TiffConstants.BIGTIFF_IFD_ENTRY_VALUE_BYTES) {
+				long valueOffset = reader.readLong();
+				reader.setNextByte(valueOffset);
+			}
+		} else if (fieldType.getBytes()
+				* typeCount > TiffConstants.IFD_ENTRY_VALUE_BYTES) {
 			long valueOffset = reader.readUnsignedInt();
 			reader.setNextByte(valueOffset);
 		}
@@ -269,6 +908,60 @@ public class TiffReader {
 		// Read the directory entry values
 		List<Object> valuesList = getValues(reader, fieldType, typeCount);
 
+		return getSingleOrArrayValues(valuesList, fieldTag, fieldType,
+				typeCount);
+	}
+
+	/**
+	 * Read the deferred field values at the byte offset without moving the
+	 * reader location
+	 * 
+	 * @param reader
+	 *            byte reader
+	 * @param valueOffset
+	 *            values byte offset
+	 * @param fieldTag
+	 *            field tag type
+	 * @param fieldType
+	 *            field type
+	 * @param typeCount
+	 *            type count
+	 * @return values
+	 */
+	static Object readFieldValues(ByteReader reader, long valueOffset,
+			FieldTagType fieldTag, FieldType fieldType, long typeCount) {
+
+		// Read the values bytes by offset, leaving the shared reader cursor
+		// untouched for concurrent reads
+		ByteReader valuesReader = new ByteReader(
+				reader.readBytes(valueOffset,
+						valuesByteLength(fieldType, typeCount)),
+				reader.getByteOrder());
+
+		// Read the directory entry values
+		List<Object> valuesList = getValues(valuesReader, fieldType,
+				typeCount);
+
+		return getSingleOrArrayValues(valuesList, fieldTag, fieldType,
+				typeCount);
+	}
+
+	/**
+	 * Get the single value or array values from the read values
+	 * 
+	 * @param valuesList
+	 *            read values
+	 * @param fieldTag
+	 *            field tag type
+	 * @param fieldType
+	 *            field type
+	 * @param typeCount
+	 *            type count
+	 * @return values
+	 */
+	private static Object getSingleOrArrayValues(List<Object> valuesList,
+			FieldTagType fieldTag, FieldType fieldType, long typeCount) {
+
 		// Get the single or array values
 		Object values = null;
 		if (typeCount == 1 && fieldTag != null && !fieldTag.isArray()
@@ -283,7 +976,8 @@ public class TiffReader {
 	}
 
 	/**
-	 * Get the directory entry values
+	 * Get the directory entry values. Integer, long, and double values are
+	 * stored in primitive arrays backing the returned list.
 	 * 
 	 * @param reader
 	 *            byte reader
@@ -293,12 +987,44 @@ public class TiffReader {
 	 *            type count
 	 * @return values
 	 */
+	@SuppressWarnings("unchecked")
 	private static List<Object> getValues(ByteReader reader,
 			FieldType fieldType, long typeCount) {
 
+		List<?> primitiveValues = null;
+		switch (fieldType) {
+		case SHORT:
+		case SLONG:
+		case SRATIONAL:
+			primitiveValues = new IntegerArrayList(
+					getIntegerValues(reader, fieldType, typeCount));
+			break;
+		case LONG:
+		case IFD:
+		case RATIONAL:
+		case LONG8:
+		case SLONG8:
+		case IFD8:
+			primitiveValues = new LongArrayList(
+					getLongValues(reader, fieldType, typeCount));
+			break;
+		case DOUBLE:
+			double[] doubleValues = new double[arrayLength(typeCount, 1)];
+			for (int i = 0; i < doubleValues.length; i++) {
+				doubleValues[i] = reader.readDouble();
+			}
+			primitiveValues = new DoubleArrayList(doubleValues);
+			break;
+		default:
+			break;
+		}
+		if (primitiveValues != null) {
+			return (List<Object>) primitiveValues;
+		}
+
 		List<Object> values = new ArrayList<Object>();
 
-		for (int i = 0; i < typeCount; i++) {
+		for (long i = 0; i < typeCount; i++) {
 
 			switch (fieldType) {
 			case ASCII:
@@ -316,32 +1042,12 @@ public class TiffReader {
 			case SBYTE:
 				values.add(reader.readByte());
 				break;
-			case SHORT:
-				values.add(reader.readUnsignedShort());
-				break;
 			case SSHORT:
 				values.add(reader.readShort());
 				break;
-			case LONG:
-				values.add(reader.readUnsignedInt());
-				break;
-			case SLONG:
-				values.add(reader.readInt());
-				break;
-			case RATIONAL:
-				values.add(reader.readUnsignedInt());
-				values.add(reader.readUnsignedInt());
-				break;
-			case SRATIONAL:
-				values.add(reader.readInt());
-				values.add(reader.readInt());
-				break;
 			case FLOAT:
 				values.add(reader.readFloat());
 				break;
-			case DOUBLE:
-				values.add(reader.readDouble());
-				break;
 			default:
 				throw new TiffException("Invalid field type: " + fieldType);
 			}
@@ -368,4 +1074,104 @@ public class TiffReader {
 		return values;
 	}
 
+	/**
+	 * Get the integer directory entry values
+	 * 
+	 * @param reader
+	 *            byte reader
+	 * @param fieldType
+	 *            short, signed long, or signed rational field type
+	 * @param typeCount
+	 *            type count
+	 * @return integer values
+	 */
+	private static int[] getIntegerValues(ByteReader reader,
+			FieldType fieldType, long typeCount) {
+
+		int[] values;
+
+		if (fieldType == FieldType.SHORT) {
+			values = new int[arrayLength(typeCount, 1)];
+			for (int i = 0; i < values.length; i++) {
+				values[i] = reader.readUnsignedShort();
+			}
+		} else {
+			values = new int[arrayLength(typeCount,
+					fieldType == FieldType.SRATIONAL ? 2 : 1)];
+			for (int i = 0; i < values.length; i++) {
+				values[i] = reader.readInt();
+			}
+		}
+
+		return values;
+	}
+
+	/**
+	 * Get the long directory entry values
+	 * 
+	 * @param reader
+	 *            byte reader
+	 * @param fieldType
+	 *            long, IFD, rational, or 8 byte field type
+	 * @param typeCount
+	 *            type count
+	 * @return long values
+	 */
+	private static long[] getLongValues(ByteReader reader,
+			FieldType fieldType, long typeCount) {
+
+		long[] values;
+
+		if (fieldType.getBytes() == 8 && fieldType != FieldType.RATIONAL) {
+			values = new long[arrayLength(typeCount, 1)];
+			for (int i = 0; i < values.length; i++) {
+				values[i] = reader.readLong();
+			}
+		} else {
+			values = new long[arrayLength(typeCount,
+					fieldType == FieldType.RATIONAL ? 2 : 1)];
+			for (int i = 0; i < values.length; i++) {
+				values[i] = reader.readUnsignedInt();
+			}
+		}
+
+		return values;
+	}
+
+	/**
+	 * Get the array length for the type count values
+	 * 
+	 * @param typeCount
+	 *            type count
+	 * @param valuesPerType
+	 *            number of values per type
+	 * @return array length
+	 */
+	private static int arrayLength(long typeCount, int valuesPerType) {
+		if (typeCount < 0 || typeCount > Integer.MAX_VALUE / valuesPerType) {
+			throw new TiffException(
+					"Type count too large to read into an array: " + typeCount);
+		}
+		return (int) (typeCount * valuesPerType);
+	}
+
+	/**
+	 * Get the byte length of the type count values
+	 * 
+	 * @param fieldType
+	 *            field type
+	 * @param typeCount
+	 *            type count
+	 * @return byte length
+	 */
+	private static int valuesByteLength(FieldType fieldType, long typeCount) {
+		if (typeCount < 0
+				|| typeCount > Integer.MAX_VALUE / fieldType.getBytes()) {
+			throw new TiffException(
+					"Type count too large to read into a byte array: "
+							+ typeCount);
+		}
+		return (int) (fieldType.getBytes() * typeCount);
+	}
+
 }
@@ -2,6 +2,7 @@ package mil.nga.tiff;
 
 import java.io.ByteArrayInputStream;
 import java.io.File;
+import java.io.FileOutputStream;
 import java.io.IOException;
 import java.nio.ByteOrder;
 import java.util.ArrayList;
@@ -12,6 +13,7 @@ import mil.nga.tiff.compression.CompressionEncoder;
 import mil.nga.tiff.compression.DeflateCompression;
 import mil.nga.tiff.compression.LZWCompression;
 import mil.nga.tiff.compression.PackbitsCompression;
+import mil.nga.tiff.compression.Predictor;
 import mil.nga.tiff.compression.RawCompression;
 import mil.nga.tiff.io.ByteWriter;
 import mil.nga.tiff.io.IOUtils;
@@ -33,12 +35,21 @@ import mil.nga.tiff.util.TiffException;
  * {@link Rasters#calculateRowsPerStrip(int, int)} methods provide a mechanism
  * for determining a {@link FileDirectory#getRowsPerStrip()} setting.
  * 
+ * A BigTIFF with 8 byte offsets is written when
+ * {@link TIFFImage#isBigTiff()} is set or when the estimated size of the
+ * directories, entry values, and rasters exceeds the classic TIFF limit.
+ * 
+ * Strips are encoded and written one at a time to byte array and file output
+ * stream writers, with the strip offsets and byte counts written back after
+ * the strips. Writers of other output streams encode the rasters of a file
+ * directory into memory before writing it.
+ * 
  * @author osbornb
  */
 public class TiffWriter {
 
 	/**
-	 * Write a TIFF to a file
+	 * Write a TIFF to a file, writing directly to the file output stream
 	 * 
 	 * @param file
 	 *            file to create
@@ -49,9 +60,13 @@ public class TiffWriter {
 	 */
 	public static void writeTiff(File file, TIFFImage tiffImage)
 			throws IOException {
-		ByteWriter writer = new ByteWriter();
-		writeTiff(file, writer, tiffImage);
-		writer.close();
+		ByteWriter writer = new ByteWriter(new FileOutputStream(file),
+				ByteOrder.nativeOrder());
+		try {
+			writeTiff(writer, tiffImage);
+		} finally {
+			writer.close();
+		}
 	}
 
 	/**
@@ -121,20 +136,104 @@ public class TiffWriter {
 	public static void writeTiff(ByteWriter writer, TIFFImage tiffImage)
 			throws IOException {
 
+		// Determine if the image must be written as a BigTIFF
+		boolean bigTiff = isBigTiff(tiffImage);
+
 		// Write the byte order (bytes 0-1)
 		String byteOrder = writer.getByteOrder() == ByteOrder.BIG_ENDIAN ? TiffConstants.BYTE_ORDER_BIG_ENDIAN
 				: TiffConstants.BYTE_ORDER_LITTLE_ENDIAN;
 		writer.writeString(byteOrder);
 
-		// Write the TIFF file identifier (bytes 2-3)
-		writer.writeUnsignedShort(TiffConstants.FILE_IDENTIFIER);
+		if (bigTiff) {
+
+			// Write the BigTIFF file identifier (bytes 2-3)
+			writer.writeUnsignedShort(TiffConstants.BIGTIFF_FILE_IDENTIFIER);
+
+			// Write the offset byte size (bytes 4-5) and reserved (bytes 6-7)
+			writer.writeUnsignedShort(TiffConstants.BIGTIFF_OFFSET_BYTES);
+			writer.writeUnsignedShort(0);
 
-		// Write the first IFD offset (bytes 4-7), set to start right away at
-		// byte 8
-		writer.writeUnsignedInt(TiffConstants.HEADER_BYTES);
+			// Write the first IFD offset (bytes 8-15), set to start right away
+			// at byte 16
+			writer.writeLong(TiffConstants.BIGTIFF_HEADER_BYTES);
+
+		} else {
+
+			// Write the TIFF file identifier (bytes 2-3)
+			writer.writeUnsignedShort(TiffConstants.FILE_IDENTIFIER);
+
+			// Write the first IFD offset (bytes 4-7), set to start right away
+			// at byte 8
+			writer.writeUnsignedInt(TiffConstants.HEADER_BYTES);
+
+		}
 
 		// Write the TIFF Image
-		writeImageFileDirectories(writer, tiffImage);
+		writeImageFileDirectories(writer, tiffImage, bigTiff);
+	}
+
+	/**
+	 * Determine if the TIFF image should be written as a BigTIFF, either
+	 * explicitly or because the estimated size of the directories, entry
+	 * values, and uncompressed rasters exceeds the classic TIFF limit
+	 * 
+	 * @param tiffImage
+	 *            TIFF image
+	 * @return true if a BigTIFF
+	 */
+	private static boolean isBigTiff(TIFFImage tiffImage) {
+
+		boolean bigTiff = tiffImage.isBigTiff();
+
+		if (!bigTiff) {
+
+			long size = TiffConstants.HEADER_BYTES;
+			for (FileDirectory fileDirectory : tiffImage.getFileDirectories()) {
+				size += classicSizeWithValues(fileDirectory);
+				Rasters rasters = fileDirectory.getWriteRasters();
+				size += (long) rasters.getWidth() * rasters.getHeight()
+						* rasters.sizePixel();
+			}
+
+			bigTiff = size > TiffConstants.MAX_CLASSIC_BYTES;
+		}
+
+		return bigTiff;
+	}
+
+	/**
+	 * Get the classic TIFF size of the file directory and entry values as it
+	 * will be written, with placeholder strip entries in place of any current
+	 * strip entries and without modifying the file directory
+	 * 
+	 * @param fileDirectory
+	 *            file directory
+	 * @return size in bytes
+	 */
+	private static long classicSizeWithValues(FileDirectory fileDirectory) {
+
+		validateRasterEntries(fileDirectory);
+
+		long size = fileDirectory.sizeWithValues(false);
+
+		FileDirectoryEntry stripOffsets = fileDirectory
+				.get(FieldTagType.StripOffsets);
+		if (stripOffsets != null) {
+			size -= stripOffsets.sizeWithValues(false);
+		}
+		FileDirectoryEntry stripByteCounts = fileDirectory
+				.get(FieldTagType.StripByteCounts);
+		if (stripByteCounts != null) {
+			size -= stripByteCounts.sizeWithValues(false);
+		}
+
+		int strips = getStrips(fileDirectory);
+		size += new FileDirectoryEntry(FieldTagType.StripOffsets,
+				FieldType.LONG, strips, null).sizeWithValues(false);
+		size += new FileDirectoryEntry(FieldTagType.StripByteCounts,
+				FieldType.SHORT, strips, null).sizeWithValues(false);
+
+		return size;
 	}
 
 	/**
@@ -144,10 +243,12 @@ public class TiffWriter {
 	 *            byte writer
 	 * @param tiffImage
 	 *            tiff image
+	 * @param bigTiff
+	 *            true if writing a BigTIFF
 	 * @throws IOException
 	 */
 	private static void writeImageFileDirectories(ByteWriter writer,
-			TIFFImage tiffImage) throws IOException {
+			TIFFImage tiffImage, boolean bigTiff) throws IOException {
 
 		// Write each file directory
 		for (int i = 0; i < tiffImage.getFileDirectories().size(); i++) {
@@ -155,16 +256,37 @@ public class TiffWriter {
 
 			// Populate strip entries with placeholder values so the sizes come
 			// out correctly
-			populateRasterEntries(fileDirectory);
+			populateRasterEntries(fileDirectory, bigTiff);
 
 			// Track of the starting byte of this directory
-			int startOfDirectory = writer.size();
-			long afterDirectory = startOfDirectory + fileDirectory.size();
+			long startOfDirectory = writer.sizeLong();
+			long afterDirectory = startOfDirectory
+					+ fileDirectory.size(bigTiff);
 			long afterValues = startOfDirectory
-					+ fileDirectory.sizeWithValues();
+					+ fileDirectory.sizeWithValues(bigTiff);
+
+			// Stream the rasters after the directory when the strip offsets
+			// and byte counts can be written back, otherwise create the
+			// raster bytes first, written to the stream later
+			boolean stream = writer.isSeekable();
+			byte[] rastersBytes = null;
+			if (!stream) {
+				rastersBytes = writeRasters(writer.getByteOrder(),
+						fileDirectory, afterValues, bigTiff);
+				validateSize(afterValues + rastersBytes.length, bigTiff);
+			}
 
 			// Write the number of directory entries
-			writer.writeUnsignedShort(fileDirectory.numEntries());
+			if (bigTiff) {
+				writer.writeLong(fileDirectory.numEntries());
+			} else {
+				writer.writeUnsignedShort(fileDirectory.numEntries());
+			}
+
+			// Inline entry value bytes
+			int inlineBytes = bigTiff
+					? TiffConstants.BIGTIFF_IFD_ENTRY_VALUE_BYTES
+					: TiffConstants.IFD_ENTRY_VALUE_BYTES;
 
 			List<FileDirectoryEntry> entryValues = new ArrayList<>();
 
@@ -173,30 +295,37 @@ public class TiffWriter {
 
 			List<Long> valueBytesCheck = new ArrayList<>();
 
-			// Write the raster bytes to temporary storage
-			if (fileDirectory.isTiled()) {
-				throw new TiffException("Tiled images are not supported");
-			}
-
-			// Create the raster bytes, written to the stream later
-			byte[] rastersBytes = writeRasters(writer.getByteOrder(),
-					fileDirectory, afterValues);
+			// Bytes of the strip offsets and byte counts values
+			long stripOffsetsByte = -1;
+			long stripByteCountsByte = -1;
 
 			// Write each entry
 			for (FileDirectoryEntry entry : fileDirectory.getEntries()) {
 				writer.writeUnsignedShort(entry.getFieldTag().getId());
 				writer.writeUnsignedShort(entry.getFieldType().getValue());
-				writer.writeUnsignedInt(entry.getTypeCount());
+				if (bigTiff) {
+					writer.writeLong(entry.getTypeCount());
+				} else {
+					writer.writeUnsignedInt(entry.getTypeCount());
+				}
+				long valuesByte;
 				long valueBytes = entry.getFieldType().getBytes()
 						* entry.getTypeCount();
-				if (valueBytes > 4) {
+				if (valueBytes > inlineBytes) {
 					// Write the value offset
 					entryValues.add(entry);
-					writer.writeUnsignedInt(nextByte);
+					valuesByte = nextByte;
+					if (bigTiff) {
+						writer.writeLong(nextByte);
+					} else {
+						writer.writeUnsignedInt(nextByte);
+					}
 					valueBytesCheck.add(nextByte);
-					nextByte += entry.sizeOfValues();
+					nextByte += entry.sizeOfValues(bigTiff);
 				} else {
-					// Write the value in the inline 4 byte space, left aligned
+					// Write the value in the inline 4 or 8 byte space, left
+					// aligned
+					valuesByte = writer.sizeLong();
 					int bytesWritten = writeValues(writer, entry);
 					if (bytesWritten != valueBytes) {
 						throw new TiffException(
@@ -204,28 +333,40 @@ public class TiffWriter {
 										+ valueBytes + ", Actual: "
 										+ bytesWritten);
 					}
-					writeFillerBytes(writer, 4 - valueBytes);
+					writeFillerBytes(writer, inlineBytes - valueBytes);
+				}
+				if (entry.getFieldTag() == FieldTagType.StripOffsets) {
+					stripOffsetsByte = valuesByte;
+				} else if (entry
+						.getFieldTag() == FieldTagType.StripByteCounts) {
+					stripByteCountsByte = valuesByte;
 				}
 			}
 
-			if (i + 1 == tiffImage.getFileDirectories().size()) {
-				// Write 0's since there are not more file directories
-				writeFillerBytes(writer, 4);
+			// Byte of the next file directory offset
+			long nextFileDirectoryByte = writer.sizeLong();
+			int offsetBytes = bigTiff ? TiffConstants.BIGTIFF_IFD_OFFSET_BYTES
+					: TiffConstants.IFD_OFFSET_BYTES;
+
+			if (i + 1 == tiffImage.getFileDirectories().size() || stream) {
+				// Write 0's since there are not more file directories, or
+				// until the streamed rasters are written
+				writeFillerBytes(writer, offsetBytes);
 			} else {
 				// Write the start address of the next file directory
-				long nextFileDirectory = afterValues + rastersBytes.length;
-				writer.writeUnsignedInt(nextFileDirectory);
+				writeOffset(writer, afterValues + rastersBytes.length,
+						bigTiff);
 			}
 
 			// Write the external entry values
 			for (int entryIndex = 0; entryIndex < entryValues.size(); entryIndex++) {
 				FileDirectoryEntry entry = entryValues.get(entryIndex);
 				long entryValuesByte = valueBytesCheck.get(entryIndex);
-				if (entryValuesByte != writer.size()) {
+				if (entryValuesByte != writer.sizeLong()) {
 					throw new TiffException(
 							"Entry values byte does not match the write location. Entry Values Byte: "
 									+ entryValuesByte + ", Current Byte: "
-									+ writer.size());
+									+ writer.sizeLong());
 				}
 				int bytesWritten = writeValues(writer, entry);
 				long valueBytes = entry.getFieldType().getBytes()
@@ -237,10 +378,101 @@ public class TiffWriter {
 				}
 			}
 
-			// Write the image bytes
-			writer.writeBytes(rastersBytes);
+			if (stream) {
+
+				// Write the image bytes a strip at a time
+				writeRasters(writer, fileDirectory, writer.sizeLong(),
+						bigTiff);
+				validateSize(writer.sizeLong(), bigTiff);
+
+				// Write back the strip offsets and byte counts
+				writeValuesAt(writer, stripOffsetsByte,
+						fileDirectory.get(FieldTagType.StripOffsets));
+				writeValuesAt(writer, stripByteCountsByte,
+						fileDirectory.get(FieldTagType.StripByteCounts));
+
+				// Write back the start address of the next file directory
+				if (i + 1 < tiffImage.getFileDirectories().size()) {
+					ByteWriter offsetWriter = new ByteWriter(
+							writer.getByteOrder());
+					writeOffset(offsetWriter, writer.sizeLong(), bigTiff);
+					writer.writeAt(nextFileDirectoryByte,
+							offsetWriter.getBytes());
+					offsetWriter.close();
+				}
+
+			} else {
+
+				// Write the image bytes
+				writer.writeBytes(rastersBytes);
+			}
+		}
+
+	}
+
+	/**
+	 * Validate that the written size fits a classic TIFF when not writing a
+	 * BigTIFF
+	 * 
+	 * @param size
+	 *            size in bytes
+	 * @param bigTiff
+	 *            true if writing a BigTIFF
+	 */
+	private static void validateSize(long size, boolean bigTiff) {
+		if (!bigTiff && size > TiffConstants.MAX_CLASSIC_BYTES) {
+			throw new TiffException(
+					"TIFF exceeds the classic TIFF size limit, write as a BigTIFF. Size: "
+							+ size);
+		}
+	}
+
+	/**
+	 * Write a 4 byte or BigTIFF 8 byte offset
+	 * 
+	 * @param writer
+	 *            byte writer
+	 * @param offset
+	 *            byte offset
+	 * @param bigTiff
+	 *            true if writing a BigTIFF
+	 * @throws IOException
+	 */
+	private static void writeOffset(ByteWriter writer, long offset,
+			boolean bigTiff) throws IOException {
+		if (bigTiff) {
+			writer.writeLong(offset);
+		} else {
+			writer.writeUnsignedInt(offset);
 		}
+	}
 
+	/**
+	 * Write back the entry values at the previously written values byte
+	 * 
+	 * @param writer
+	 *            byte writer
+	 * @param valuesByte
+	 *            byte of the previously written entry values
+	 * @param entry
+	 *            file directory entry
+	 * @throws IOException
+	 */
+	private static void writeValuesAt(ByteWriter writer, long valuesByte,
+			FileDirectoryEntry entry) throws IOException {
+		ByteWriter valuesWriter = new ByteWriter(writer.getByteOrder());
+		try {
+			int bytesWritten = writeValues(valuesWriter, entry);
+			long valueBytes = entry.getFieldType().getBytes()
+					* entry.getTypeCount();
+			if (bytesWritten != valueBytes) {
+				throw new TiffException("Unexpected bytes written. Expected: "
+						+ valueBytes + ", Actual: " + bytesWritten);
+			}
+			writer.writeAt(valuesByte, valuesWriter.getBytes());
+		} finally {
+			valuesWriter.close();
+		}
 	}
 
 	/**
@@ -249,8 +481,27 @@ public class TiffWriter {
 	 * 
 	 * @param fileDirectory
 	 *            file directory
+	 * @param bigTiff
+	 *            true if writing a BigTIFF
 	 */
-	private static void populateRasterEntries(FileDirectory fileDirectory) {
+	private static void populateRasterEntries(FileDirectory fileDirectory,
+			boolean bigTiff) {
+
+		validateRasterEntries(fileDirectory);
+
+		// Populate the raster entries
+		populateStripEntries(fileDirectory, bigTiff);
+
+	}
+
+	/**
+	 * Validate the file directory has write rasters in a supported strip
+	 * layout
+	 * 
+	 * @param fileDirectory
+	 *            file directory
+	 */
+	private static void validateRasterEntries(FileDirectory fileDirectory) {
 
 		Rasters rasters = fileDirectory.getWriteRasters();
 		if (rasters == null) {
@@ -258,35 +509,55 @@ public class TiffWriter {
 					"File Directory Writer Rasters is required to create a TIFF");
 		}
 
-		// Populate the raster entries
-		if (!fileDirectory.isTiled()) {
-			populateStripEntries(fileDirectory);
-		} else {
+		if (fileDirectory.isTiled()) {
 			throw new TiffException("Tiled images are not supported");
 		}
 
 	}
 
 	/**
-	 * Populate the strip entries with placeholder values
+	 * Get the number of strips to write
 	 * 
 	 * @param fileDirectory
 	 *            file directory
+	 * @return number of strips
 	 */
-	private static void populateStripEntries(FileDirectory fileDirectory) {
-
+	private static int getStrips(FileDirectory fileDirectory) {
 		int rowsPerStrip = fileDirectory.getRowsPerStrip().intValue();
 		int imageHeight = fileDirectory.getImageHeight().intValue();
-		int stripsPerSample = (imageHeight + rowsPerStrip - 1) / rowsPerStrip;
-		int strips = stripsPerSample;
+		int strips = (imageHeight + rowsPerStrip - 1) / rowsPerStrip;
 		if (fileDirectory.getPlanarConfiguration() == TiffConstants.PLANAR_CONFIGURATION_PLANAR) {
 			strips *= fileDirectory.getSamplesPerPixel();
 		}
+		return strips;
+	}
 
-		fileDirectory.setStripOffsetsAsLongs(new ArrayList<>(Collections
-				.nCopies(strips, 0l)));
-		fileDirectory.setStripByteCounts(new ArrayList<>(Collections.nCopies(
-				strips, 0)));
+	/**
+	 * Populate the strip entries with placeholder values
+	 * 
+	 * @param fileDirectory
+	 *            file directory
+	 * @param bigTiff
+	 *            true if writing a BigTIFF
+	 */
+	private static void populateStripEntries(FileDirectory fileDirectory,
+			boolean bigTiff) {
+
+		int strips = getStrips(fileDirectory);
+
+		if (bigTiff) {
+			List<Long> placeholders = new ArrayList<>(Collections.nCopies(
+					strips, 0l));
+			fileDirectory.setLong8ListEntryValue(FieldTagType.StripOffsets,
+					placeholders);
+			fileDirectory.setLong8ListEntryValue(FieldTagType.StripByteCounts,
+					placeholders);
+		} else {
+			fileDirectory.setStripOffsetsAsLongs(new ArrayList<>(Collections
+					.nCopies(strips, 0l)));
+			fileDirectory.setStripByteCounts(new ArrayList<>(Collections
+					.nCopies(strips, 0)));
+		}
 	}
 
 	/**
@@ -298,30 +569,20 @@ public class TiffWriter {
 	 *            file directory
 	 * @param offset
 	 *            byte offset
+	 * @param bigTiff
+	 *            true if writing a BigTIFF
 	 * @return rasters bytes
 	 * @throws IOException
 	 */
 	private static byte[] writeRasters(ByteOrder byteOrder,
-			FileDirectory fileDirectory, long offset) throws IOException {
-
-		Rasters rasters = fileDirectory.getWriteRasters();
-		if (rasters == null) {
-			throw new TiffException(
-					"File Directory Writer Rasters is required to create a TIFF");
-		}
-
-		// Get the compression encoder
-		CompressionEncoder encoder = getEncoder(fileDirectory);
+			FileDirectory fileDirectory, long offset, boolean bigTiff)
+			throws IOException {
 
 		// Byte writer to write the raster
 		ByteWriter writer = new ByteWriter(byteOrder);
 
 		// Write the rasters
-		if (!fileDirectory.isTiled()) {
-			writeStripRasters(writer, fileDirectory, offset, encoder);
-		} else {
-			throw new TiffException("Tiled images are not supported");
-		}
+		writeRasters(writer, fileDirectory, offset, bigTiff);
 
 		// Return the rasters bytes
 		byte[] bytes = writer.getBytes();
@@ -330,6 +591,32 @@ public class TiffWriter {
 		return bytes;
 	}
 
+	/**
+	 * Write the rasters to the byte writer a strip at a time
+	 * 
+	 * @param writer
+	 *            byte writer
+	 * @param fileDirectory
+	 *            file directory
+	 * @param offset
+	 *            byte offset of the rasters
+	 * @param bigTiff
+	 *            true if writing a BigTIFF
+	 * @throws IOException
+	 */
+	private static void writeRasters(ByteWriter writer,
+			FileDirectory fileDirectory, long offset, boolean bigTiff)
+			throws IOException {
+
+		validateRasterEntries(fileDirectory);
+
+		// Get the compression encoder
+		CompressionEncoder encoder = getEncoder(fileDirectory);
+
+		// Write the rasters
+		writeStripRasters(writer, fileDirectory, offset, encoder, bigTiff);
+	}
+
 	/**
 	 * Write the rasters as bytes
 	 * 
@@ -341,11 +628,13 @@ public class TiffWriter {
 	 *            byte offset
 	 * @param encoder
 	 *            compression encoder
+	 * @param bigTiff
+	 *            true if writing a BigTIFF
 	 * @throws IOException
 	 */
 	private static void writeStripRasters(ByteWriter writer,
-			FileDirectory fileDirectory, long offset, CompressionEncoder encoder)
-			throws IOException {
+			FileDirectory fileDirectory, long offset,
+			CompressionEncoder encoder, boolean bigTiff) throws IOException {
 
 		Rasters rasters = fileDirectory.getWriteRasters();
 
@@ -358,6 +647,11 @@ public class TiffWriter {
 			strips *= fileDirectory.getSamplesPerPixel();
 		}
 
+		// Differencing predictor applied to each row before compression
+		Integer predictor = fileDirectory.getPredictor();
+		int width = fileDirectory.getImageWidth().intValue();
+		List<Integer> bitsPerSample = fileDirectory.getBitsPerSample();
+
 		// Build the strip offsets and byte counts
 		List<Long> stripOffsets = new ArrayList<>();
 		List<Integer> stripByteCounts = new ArrayList<>();
@@ -388,6 +682,15 @@ public class TiffWriter {
 					rowBytes = rasters.getPixelRow(y, writer.getByteOrder());
 				}
 
+				if (predictor != null) {
+					rowBytes = Predictor.encode(rowBytes, predictor, width, 1,
+							bitsPerSample,
+							sample != null
+									? TiffConstants.PLANAR_CONFIGURATION_PLANAR
+									: TiffConstants.PLANAR_CONFIGURATION_CHUNKY,
+							writer.getByteOrder());
+				}
+
 				if (encoder.rowEncoding()) {
 					rowBytes = encoder.encode(rowBytes, writer.getByteOrder());
 				}
@@ -417,8 +720,19 @@ public class TiffWriter {
 		}
 
 		// Set the strip offsets and byte counts
-		fileDirectory.setStripOffsetsAsLongs(stripOffsets);
-		fileDirectory.setStripByteCounts(stripByteCounts);
+		if (bigTiff) {
+			List<Long> stripByteCountLongs = new ArrayList<>();
+			for (int stripByteCount : stripByteCounts) {
+				stripByteCountLongs.add((long) stripByteCount);
+			}
+			fileDirectory.setLong8ListEntryValue(FieldTagType.StripOffsets,
+					stripOffsets);
+			fileDirectory.setLong8ListEntryValue(FieldTagType.StripByteCounts,
+					stripByteCountLongs);
+		} else {
+			fileDirectory.setStripOffsetsAsLongs(stripOffsets);
+			fileDirectory.setStripByteCounts(stripByteCounts);
+		}
 
 	}
 
@@ -568,6 +882,16 @@ public class TiffWriter {
 				writer.writeDouble((double) value);
 				bytesWritten += 8;
 				break;
+			case IFD:
+				writer.writeUnsignedInt((long) value);
+				bytesWritten += 4;
+				break;
+			case LONG8:
+			case SLONG8:
+			case IFD8:
+				writer.writeLong((long) value);
+				bytesWritten += 8;
+				break;
 			default:
 				throw new TiffException("Invalid field type: "
 						+ entry.getFieldType());
@@ -0,0 +1,289 @@
+package mil.nga.tiff.compression;
+
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+
+import mil.nga.tiff.util.TiffException;
+
+/**
+ * Unpacker of decoded tiles and strips with samples not a multiple of 8 bits,
+ * expanding the packed rows into byte, short, or integer samples. Packed
+ * samples are read most significant bit first with each row padded to a byte
+ * boundary. 1, 2, and 4 bit samples are expanded a packed byte at a time with
+ * lookup tables.
+ * 
+ * @author osbornb
+ * @since 3.0.1
+ */
+public class BitUnpacker {
+
+	/**
+	 * 8 unpacked 1 bit samples for each packed byte value
+	 */
+	private static final long[] ONE_BIT_SAMPLES = new long[256];
+
+	/**
+	 * 4 unpacked 2 bit samples for each packed byte value
+	 */
+	private static final int[] TWO_BIT_SAMPLES = new int[256];
+
+	/**
+	 * 2 unpacked 4 bit samples for each packed byte value
+	 */
+	private static final short[] FOUR_BIT_SAMPLES = new short[256];
+
+	static {
+		for (int value = 0; value < 256; value++) {
+			long oneBit = 0;
+			for (int i = 7; i >= 0; i--) {
+				oneBit = (oneBit << 8) | ((value >> i) & 0x01);
+			}
+			ONE_BIT_SAMPLES[value] = oneBit;
+			int twoBit = 0;
+			for (int i = 6; i >= 0; i -= 2) {
+				twoBit = (twoBit << 8) | ((value >> i) & 0x03);
+			}
+			TWO_BIT_SAMPLES[value] = twoBit;
+			FOUR_BIT_SAMPLES[value] = (short) (((value >> 4) << 8)
+					| (value & 0x0F));
+		}
+	}
+
+	/**
+	 * Determine if samples of the bit width are packed, not a multiple of 8
+	 * bits
+	 * 
+	 * @param bitsPerSample
+	 *            bits per sample
+	 * @return true if packed
+	 */
+	public static boolean isPacked(int bitsPerSample) {
+		return bitsPerSample % 8 != 0;
+	}
+
+	/**
+	 * Get the bit width of samples once unpacked
+	 * 
+	 * @param bitsPerSample
+	 *            bits per sample
+	 * @return unpacked bits per sample
+	 */
+	public static int getUnpackedBits(int bitsPerSample) {
+		int bits = bitsPerSample;
+		if (isPacked(bitsPerSample)) {
+			if (bitsPerSample < 0 || bitsPerSample > 32) {
+				throw new TiffException("Sample bit-width of " + bitsPerSample
+						+ " is not supported");
+			} else if (bitsPerSample < 8) {
+				bits = 8;
+			} else if (bitsPerSample < 16) {
+				bits = 16;
+			} else {
+				bits = 32;
+			}
+		}
+		return bits;
+	}
+
+	/**
+	 * Unpack the packed samples of a decoded tile or strip
+	 * 
+	 * @param bytes
+	 *            decoded packed bytes
+	 * @param bitsPerSample
+	 *            packed bits per sample
+	 * @param valuesPerRow
+	 *            number of sample values per row
+	 * @param rows
+	 *            number of rows, truncated to the rows in the bytes
+	 * @param byteOrder
+	 *            byte order of unpacked multiple byte samples
+	 * @return unpacked bytes
+	 */
+	public static byte[] unpack(byte[] bytes, int bitsPerSample,
+			int valuesPerRow, int rows, ByteOrder byteOrder) {
+
+		int unpackedBytes = getUnpackedBits(bitsPerSample) / 8;
+		int packedRowBytes = (int) (((long) valuesPerRow * bitsPerSample + 7)
+				/ 8);
+		int unpackedRowBytes = valuesPerRow * unpackedBytes;
+
+		// Last strip will be truncated if height % stripHeight != 0
+		if (packedRowBytes > 0) {
+			rows = Math.min(rows, bytes.length / packedRowBytes);
+		}
+
+		byte[] unpacked = new byte[rows * unpackedRowBytes];
+		ByteBuffer buffer = ByteBuffer.wrap(unpacked);
+		if (unpackedBytes > 1) {
+			buffer.order(byteOrder);
+		}
+
+		for (int row = 0; row < rows; row++) {
+			int offset = row * packedRowBytes;
+			buffer.position(row * unpackedRowBytes);
+			switch (bitsPerSample) {
+			case 1:
+				unpackOneBit(bytes, offset, valuesPerRow, buffer);
+				break;
+			case 2:
+				unpackTwoBit(bytes, offset, valuesPerRow, buffer);
+				break;
+			case 4:
+				unpackFourBit(bytes, offset, valuesPerRow, buffer);
+				break;
+			case 12:
+				unpackTwelveBit(bytes, offset, valuesPerRow, buffer);
+				break;
+			default:
+				unpackBits(bytes, offset, valuesPerRow, bitsPerSample,
+						unpackedBytes, buffer);
+			}
+		}
+
+		return unpacked;
+	}
+
+	/**
+	 * Unpack a row of 1 bit samples
+	 * 
+	 * @param bytes
+	 *            packed bytes
+	 * @param offset
+	 *            row byte offset
+	 * @param values
+	 *            number of row values
+	 * @param buffer
+	 *            unpacked buffer at the row position
+	 */
+	private static void unpackOneBit(byte[] bytes, int offset, int values,
+			ByteBuffer buffer) {
+		int fullBytes = values / 8;
+		for (int i = 0; i < fullBytes; i++) {
+			buffer.putLong(ONE_BIT_SAMPLES[bytes[offset++] & 0xFF]);
+		}
+		int remaining = values - fullBytes * 8;
+		for (int i = 0; i < remaining; i++) {
+			buffer.put((byte) ((bytes[offset] >> (7 - i)) & 0x01));
+		}
+	}
+
+	/**
+	 * Unpack a row of 2 bit samples
+	 * 
+	 * @param bytes
+	 *            packed bytes
+	 * @param offset
+	 *            row byte offset
+	 * @param values
+	 *            number of row values
+	 * @param buffer
+	 *            unpacked buffer at the row position
+	 */
+	private static void unpackTwoBit(byte[] bytes, int offset, int values,
+			ByteBuffer buffer) {
+		int fullBytes = values / 4;
+		for (int i = 0; i < fullBytes; i++) {
+			buffer.putInt(TWO_BIT_SAMPLES[bytes[offset++] & 0xFF]);
+		}
+		int remaining = values - fullBytes * 4;
+		for (int i = 0; i < remaining; i++) {
+			buffer.put((byte) ((bytes[offset] >> (6 - i * 2)) & 0x03));
+		}
+	}
+
+	/**
+	 * Unpack a row of 4 bit samples
+	 * 
+	 * @param bytes
+	 *            packed bytes
+	 * @param offset
+	 *            row byte offset
+	 * @param values
+	 *            number of row values
+	 * @param buffer
+	 *            unpacked buffer at the row position
+	 */
+	private static void unpackFourBit(byte[] bytes, int offset, int values,
+			ByteBuffer buffer) {
+		int fullBytes = values / 2;
+		for (int i = 0; i < fullBytes; i++) {
+			buffer.putShort(FOUR_BIT_SAMPLES[bytes[offset++] & 0xFF]);
+		}
+		if (values % 2 != 0) {
+			buffer.put((byte) ((bytes[offset] >> 4) & 0x0F));
+		}
+	}
+
+	/**
+	 * Unpack a row of 12 bit samples, two samples from each three bytes
+	 * 
+	 * @param bytes
+	 *            packed bytes
+	 * @param offset
+	 *            row byte offset
+	 * @param values
+	 *            number of row values
+	 * @param buffer
+	 *            unpacked buffer at the row position
+	 */
+	private static void unpackTwelveBit(byte[] bytes, int offset, int values,
+			ByteBuffer buffer) {
+		int pairs = values / 2;
+		for (int i = 0; i < pairs; i++) {
+			int value = ((bytes[offset] & 0xFF) << 16)
+					| ((bytes[offset + 1] & 0xFF) << 8)
+					| (bytes[offset + 2] & 0xFF);
+			buffer.putShort((short) (value >>> 12));
+			buffer.putShort((short) (value & 0x0FFF));
+			offset += 3;
+		}
+		if (values % 2 != 0) {
+			buffer.putShort((short) (((bytes[offset] & 0xFF) << 4)
+					| ((bytes[offset + 1] & 0xFF) >>> 4)));
+		}
+	}
+
+	/**
+	 * Unpack a row of samples of any bit width up to 32 bits, buffering the
+	 * packed bits in a 64 bit word
+	 * 
+	 * @param bytes
+	 *            packed bytes
+	 * @param offset
+	 *            row byte offset
+	 * @param values
+	 *            number of row values
+	 * @param bitsPerSample
+	 *            packed bits per sample
+	 * @param unpackedBytes
+	 *            unpacked bytes per sample
+	 * @param buffer
+	 *            unpacked buffer at the row position
+	 */
+	private static void unpackBits(byte[] bytes, int offset, int values,
+			int bitsPerSample, int unpackedBytes, ByteBuffer buffer) {
+		long mask = (1L << bitsPerSample) - 1;
+		long word = 0;
+		int wordBits = 0;
+		for (int i = 0; i < values; i++) {
+			while (wordBits < bitsPerSample) {
+				word = (word << 8) | (bytes[offset++] & 0xFF);
+				wordBits += 8;
+			}
+			wordBits -= bitsPerSample;
+			long value = (word >>> wordBits) & mask;
+			switch (unpackedBytes) {
+			case 1:
+				buffer.put((byte) value);
+				break;
+			case 2:
+				buffer.putShort((short) value);
+				break;
+			default:
+				buffer.putInt((int) value);
+			}
+		}
+	}
+
+}
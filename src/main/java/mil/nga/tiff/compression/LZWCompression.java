@@ -39,24 +39,32 @@ public class LZWCompression implements CompressionDecoder, CompressionEncoder {
 	private static final int MIN_BITS = 9;
 
 	/**
-	 * Table entries
+	 * Decoding state of a single decode call, allowing concurrent decoding
+	 * with a shared instance
 	 */
-	private Map<Integer, Integer[]> table = new HashMap<>();
+	private static class DecodeState {
 
-	/**
-	 * Current max table code
-	 */
-	private int maxCode;
+		/**
+		 * Table entries
+		 */
+		private final Map<Integer, Integer[]> table = new HashMap<>();
 
-	/**
-	 * Current byte length
-	 */
-	private int byteLength;
+		/**
+		 * Current max table code
+		 */
+		private int maxCode;
 
-	/**
-	 * Current byte compression position
-	 */
-	private int position;
+		/**
+		 * Current byte length
+		 */
+		private int byteLength;
+
+		/**
+		 * Current byte compression position
+		 */
+		private int position;
+
+	}
 
 	/**
 	 * {@inheritDoc}
@@ -69,24 +77,25 @@ public class LZWCompression implements CompressionDecoder, CompressionEncoder {
 		ByteArrayOutputStream decodedStream = new ByteArrayOutputStream();
 
 		// Initialize the table, starting position, and old code
-		initializeTable();
-		position = 0;
+		DecodeState state = new DecodeState();
+		initializeTable(state);
+		state.position = 0;
 		int oldCode = 0;
 
 		// Read codes until end of input
-		int code = getNextCode(reader);
+		int code = getNextCode(state, reader);
 		while (code != EOI_CODE) {
 
 			// If a clear code
 			if (code == CLEAR_CODE) {
 
 				// Reset the table
-				initializeTable();
+				initializeTable(state);
 
 				// Read past clear codes
-				code = getNextCode(reader);
+				code = getNextCode(state, reader);
 				while (code == CLEAR_CODE) {
-					code = getNextCode(reader);
+					code = getNextCode(state, reader);
 				}
 				if (code == EOI_CODE) {
 					break;
@@ -97,40 +106,40 @@ public class LZWCompression implements CompressionDecoder, CompressionEncoder {
 				}
 
 				// Write the code value
-				Integer[] value = table.get(code);
+				Integer[] value = state.table.get(code);
 				writeValue(decodedStream, value);
 				oldCode = code;
 
 			} else {
 
 				// If already in the table
-				Integer[] value = table.get(code);
+				Integer[] value = state.table.get(code);
 				if (value != null) {
 
 					// Write the code value
 					writeValue(decodedStream, value);
 
 					// Create new value and add to table
-					Integer[] newValue = concat(table.get(oldCode),
-							table.get(code)[0]);
-					addToTable(newValue);
+					Integer[] newValue = concat(state.table.get(oldCode),
+							state.table.get(code)[0]);
+					addToTable(state, newValue);
 					oldCode = code;
 
 				} else {
 
 					// Create and write new value from old value
-					Integer[] oldValue = table.get(oldCode);
+					Integer[] oldValue = state.table.get(oldCode);
 					Integer[] newValue = concat(oldValue, oldValue[0]);
 					writeValue(decodedStream, newValue);
 
 					// Write value to the table
-					addToTable(code, newValue);
+					addToTable(state, code, newValue);
 					oldCode = code;
 				}
 			}
 
 			// Get the next code
-			code = getNextCode(reader);
+			code = getNextCode(state, reader);
 		}
 
 		byte[] decoded = decodedStream.toByteArray();
@@ -140,47 +149,57 @@ public class LZWCompression implements CompressionDecoder, CompressionEncoder {
 
 	/**
 	 * Initialize the table and byte length
+	 * 
+	 * @param state
+	 *            decode state
 	 */
-	private void initializeTable() {
-		table.clear();
+	private void initializeTable(DecodeState state) {
+		state.table.clear();
 		for (int i = 0; i <= 257; i++) {
-			table.put(i, new Integer[] { i });
+			state.table.put(i, new Integer[] { i });
 		}
-		maxCode = 257;
-		byteLength = MIN_BITS;
+		state.maxCode = 257;
+		state.byteLength = MIN_BITS;
 	}
 
 	/**
 	 * Check the byte length and increase if needed
+	 * 
+	 * @param state
+	 *            decode state
 	 */
-	private void checkByteLength() {
-		if (maxCode >= Math.pow(2, byteLength) - 2) {
-			byteLength++;
+	private void checkByteLength(DecodeState state) {
+		if (state.maxCode >= Math.pow(2, state.byteLength) - 2) {
+			state.byteLength++;
 		}
 	}
 
 	/**
 	 * Add the value to the table
 	 * 
+	 * @param state
+	 *            decode state
 	 * @param value
 	 *            value
 	 */
-	private void addToTable(Integer[] value) {
-		addToTable(maxCode + 1, value);
+	private void addToTable(DecodeState state, Integer[] value) {
+		addToTable(state, state.maxCode + 1, value);
 	}
 
 	/**
 	 * Add the code and value to the table
 	 * 
+	 * @param state
+	 *            decode state
 	 * @param code
 	 *            code
 	 * @param value
 	 *            value
 	 */
-	private void addToTable(int code, Integer[] value) {
-		table.put(code, value);
-		maxCode = Math.max(maxCode, code);
-		checkByteLength();
+	private void addToTable(DecodeState state, int code, Integer[] value) {
+		state.table.put(code, value);
+		state.maxCode = Math.max(state.maxCode, code);
+		checkByteLength(state);
 	}
 
 	/**
@@ -229,25 +248,31 @@ public class LZWCompression implements CompressionDecoder, CompressionEncoder {
 	/**
 	 * Get the next code
 	 * 
+	 * @param state
+	 *            decode state
 	 * @param reader
 	 *            byte reader
 	 * @return code
 	 */
-	private int getNextCode(ByteReader reader) {
-		int nextByte = getByte(reader);
-		position += byteLength;
+	private int getNextCode(DecodeState state, ByteReader reader) {
+		int nextByte = getByte(state, reader);
+		state.position += state.byteLength;
 		return nextByte;
 	}
 
 	/**
 	 * Get the next byte
 	 * 
+	 * @param state
+	 *            decode state
 	 * @param reader
 	 *            byte reader
 	 * @return byte
 	 */
-	private int getByte(ByteReader reader) {
+	private int getByte(DecodeState state, ByteReader reader) {
 
+		int position = state.position;
+		int byteLength = state.byteLength;
 		int d = position % 8;
 		int a = (int) Math.floor(position / 8.0);
 		int de = 8 - d;
@@ -255,23 +280,23 @@ public class LZWCompression implements CompressionDecoder, CompressionEncoder {
 		int fg = 8 * (a + 2) - (position + byteLength);
 		int dg = (a + 2) * 8 - position;
 		fg = Math.max(0, fg);
-		if (a >= reader.byteLength()) {
+		if (a >= reader.byteLengthLong()) {
 			logger.log(Level.WARNING,
 					"End of data reached without an end of input code");
 			return EOI_CODE;
 		}
-		int chunk1 = ((int) reader.readUnsignedByte(a))
+		int chunk1 = ((int) reader.readUnsignedByte((long) a))
 				& ((int) (Math.pow(2, 8 - d) - 1));
 		chunk1 = chunk1 << (byteLength - de);
 		int chunks = chunk1;
-		if (a + 1 < reader.byteLength()) {
-			int chunk2 = reader.readUnsignedByte(a + 1) >>> fg;
+		if (a + 1 < reader.byteLengthLong()) {
+			int chunk2 = reader.readUnsignedByte(a + 1L) >>> fg;
 			chunk2 = chunk2 << Math.max(0, byteLength - dg);
 			chunks += chunk2;
 		}
-		if (ef > 8 && a + 2 < reader.byteLength()) {
+		if (ef > 8 && a + 2 < reader.byteLengthLong()) {
 			int hi = (a + 3) * 8 - (position + byteLength);
-			int chunk3 = reader.readUnsignedByte(a + 2) >>> hi;
+			int chunk3 = reader.readUnsignedByte(a + 2L) >>> hi;
 			chunks += chunk3;
 		}
 		return chunks;
@@ -1,15 +1,15 @@
 package mil.nga.tiff.compression;
 
-import java.io.IOException;
+import java.nio.ByteOrder;
 import java.util.List;
 
-import mil.nga.tiff.io.ByteReader;
-import mil.nga.tiff.io.ByteWriter;
 import mil.nga.tiff.util.TiffConstants;
 import mil.nga.tiff.util.TiffException;
 
 /**
- * Differencing Predictor decoder
+ * Differencing Predictor encoder and decoder. Horizontal and floating point
+ * differencing are applied and undone in place on the tile or strip bytes,
+ * with loops specialized by sample byte size and byte order.
  * 
  * @author osbornb
  * @since 3.0.0
@@ -17,7 +17,7 @@ import mil.nga.tiff.util.TiffException;
 public class Predictor {
 
 	/**
-	 * Decode the predictor encoded bytes
+	 * Decode the predictor encoded bytes in the native byte order
 	 * 
 	 * @param bytes
 	 *            bytes to decode
@@ -35,54 +35,146 @@ public class Predictor {
 	 */
 	public static byte[] decode(byte[] bytes, int predictor, int width,
 			int height, List<Integer> bitsPerSample, int planarConfiguration) {
+		return decode(bytes, predictor, width, height, bitsPerSample,
+				planarConfiguration, ByteOrder.nativeOrder());
+	}
 
-		if (predictor != TiffConstants.PREDICTOR_NO) {
+	/**
+	 * Decode the predictor encoded bytes in place
+	 * 
+	 * @param bytes
+	 *            bytes to decode
+	 * @param predictor
+	 *            predictor value
+	 * @param width
+	 *            tile width
+	 * @param height
+	 *            tile height
+	 * @param bitsPerSample
+	 *            bits per samples
+	 * @param planarConfiguration
+	 *            planar configuration
+	 * @param byteOrder
+	 *            byte order of the samples
+	 * @return decoded bytes, the same array as the bytes to decode
+	 * @since 3.0.1
+	 */
+	public static byte[] decode(byte[] bytes, int predictor, int width,
+			int height, List<Integer> bitsPerSample, int planarConfiguration,
+			ByteOrder byteOrder) {
 
-			int numBitsPerSample = bitsPerSample.get(0);
-			if (numBitsPerSample % 8 != 0) {
-				throw new TiffException(
-						"When decoding with predictor, only multiple of 8 bits are supported");
-			}
+		if (predictor != TiffConstants.PREDICTOR_NO) {
 
-			for (int i = 1; i < bitsPerSample.size(); i++) {
-				if (bitsPerSample.get(i) != numBitsPerSample) {
-					throw new TiffException(
-							"When decoding with predictor, all samples must have the same size");
+			int bytesPerSample = getBytesPerSample(bitsPerSample);
+			int samples = planarConfiguration == 2 ? 1 : bitsPerSample.size();
+			int rowValues = width * samples;
+			int rowBytes = rowValues * bytesPerSample;
+
+			// Last strip will be truncated if height % stripHeight != 0
+			int rows = rowBytes > 0 ? Math.min(height, bytes.length / rowBytes)
+					: 0;
+			boolean bigEndian = byteOrder == ByteOrder.BIG_ENDIAN;
+
+			switch (predictor) {
+			case TiffConstants.PREDICTOR_HORIZONTAL:
+				switch (bytesPerSample) {
+				case 1:
+					decodeHorizontal8(bytes, rows, rowBytes, samples);
+					break;
+				case 2:
+					decodeHorizontal16(bytes, rows, rowBytes, samples,
+							bigEndian);
+					break;
+				case 4:
+					decodeHorizontal32(bytes, rows, rowBytes, samples,
+							bigEndian);
+					break;
+				case 8:
+					decodeHorizontal64(bytes, rows, rowBytes, samples,
+							bigEndian);
+					break;
+				default:
+					throw new TiffException("Predictor not supported with "
+							+ bytesPerSample + " bytes per sample");
 				}
+				break;
+			case TiffConstants.PREDICTOR_FLOATINGPOINT:
+				decodeFloatingPoint(bytes, rows, rowValues, bytesPerSample,
+						samples, bigEndian);
+				break;
+			default:
+				throw new TiffException("Unsupported predictor: " + predictor);
 			}
 
-			int bytesPerSample = numBitsPerSample / 8;
-			int samples = planarConfiguration == 2 ? 1 : bitsPerSample.size();
+		}
 
-			ByteReader reader = new ByteReader(bytes);
-			ByteWriter writer = new ByteWriter();
-			try {
+		return bytes;
+	}
 
-				for (int row = 0; row < height; row++) {
-					// Last strip will be truncated if height % stripHeight != 0
-					if (row * samples * width
-							* bytesPerSample >= bytes.length) {
-						break;
-					}
-					switch (predictor) {
-					case TiffConstants.PREDICTOR_HORIZONTAL:
-						decodeHorizontal(reader, writer, width, bytesPerSample,
-								samples);
-						break;
-					case TiffConstants.PREDICTOR_FLOATINGPOINT:
-						decodeFloatingPoint(reader, writer, width,
-								bytesPerSample, samples);
-						break;
-					default:
-						throw new TiffException(
-								"Unsupported predictor: " + predictor);
-					}
-				}
+	/**
+	 * Encode the bytes in place with the predictor, applied before compression
+	 * 
+	 * @param bytes
+	 *            bytes to encode
+	 * @param predictor
+	 *            predictor value
+	 * @param width
+	 *            tile width
+	 * @param height
+	 *            tile height
+	 * @param bitsPerSample
+	 *            bits per samples
+	 * @param planarConfiguration
+	 *            planar configuration
+	 * @param byteOrder
+	 *            byte order of the samples
+	 * @return encoded bytes, the same array as the bytes to encode
+	 * @since 3.0.1
+	 */
+	public static byte[] encode(byte[] bytes, int predictor, int width,
+			int height, List<Integer> bitsPerSample, int planarConfiguration,
+			ByteOrder byteOrder) {
 
-				bytes = writer.getBytes();
+		if (predictor != TiffConstants.PREDICTOR_NO) {
 
-			} finally {
-				writer.close();
+			int bytesPerSample = getBytesPerSample(bitsPerSample);
+			int samples = planarConfiguration == 2 ? 1 : bitsPerSample.size();
+			int rowValues = width * samples;
+			int rowBytes = rowValues * bytesPerSample;
+
+			int rows = rowBytes > 0 ? Math.min(height, bytes.length / rowBytes)
+					: 0;
+			boolean bigEndian = byteOrder == ByteOrder.BIG_ENDIAN;
+
+			switch (predictor) {
+			case TiffConstants.PREDICTOR_HORIZONTAL:
+				switch (bytesPerSample) {
+				case 1:
+					encodeHorizontal8(bytes, rows, rowBytes, samples);
+					break;
+				case 2:
+					encodeHorizontal16(bytes, rows, rowBytes, samples,
+							bigEndian);
+					break;
+				case 4:
+					encodeHorizontal32(bytes, rows, rowBytes, samples,
+							bigEndian);
+					break;
+				case 8:
+					encodeHorizontal64(bytes, rows, rowBytes, samples,
+							bigEndian);
+					break;
+				default:
+					throw new TiffException("Predictor not supported with "
+							+ bytesPerSample + " bytes per sample");
+				}
+				break;
+			case TiffConstants.PREDICTOR_FLOATINGPOINT:
+				encodeFloatingPoint(bytes, rows, rowValues, bytesPerSample,
+						samples, bigEndian);
+				break;
+			default:
+				throw new TiffException("Unsupported predictor: " + predictor);
 			}
 
 		}
@@ -91,147 +183,454 @@ public class Predictor {
 	}
 
 	/**
-	 * Decode a horizontal encoded predictor row
+	 * Get the bytes per sample of predictor samples, validating that all
+	 * samples are the same multiple of 8 bits
 	 * 
-	 * @param reader
-	 *            byte reader
-	 * @param writer
-	 *            byte writer
-	 * @param width
-	 *            tile width
-	 * @param bytesPerSample
-	 *            bytes per sample
-	 * @param samples
-	 *            number of samples
+	 * @param bitsPerSample
+	 *            bits per samples
+	 * @return bytes per sample
 	 */
-	private static void decodeHorizontal(ByteReader reader, ByteWriter writer,
-			int width, int bytesPerSample, int samples) {
+	private static int getBytesPerSample(List<Integer> bitsPerSample) {
 
-		int[] previous = new int[samples];
+		int numBitsPerSample = bitsPerSample.get(0);
+		if (numBitsPerSample % 8 != 0) {
+			throw new TiffException(
+					"When encoding or decoding with predictor, only multiple of 8 bits are supported");
+		}
 
-		for (int pixel = 0; pixel < width; pixel++) {
+		for (int i = 1; i < bitsPerSample.size(); i++) {
+			if (bitsPerSample.get(i) != numBitsPerSample) {
+				throw new TiffException(
+						"When encoding or decoding with predictor, all samples must have the same size");
+			}
+		}
+
+		return numBitsPerSample / 8;
+	}
 
-			for (int sample = 0; sample < samples; sample++) {
-				int value = readValue(reader, bytesPerSample)
-						+ previous[sample];
-				writeValue(writer, bytesPerSample, value);
-				previous[sample] = value;
+	/**
+	 * Decode horizontal encoded predictor rows of 1 byte samples
+	 * 
+	 * @param bytes
+	 *            bytes to decode in place
+	 * @param rows
+	 *            number of rows
+	 * @param rowBytes
+	 *            bytes per row
+	 * @param samples
+	 *            number of samples
+	 */
+	private static void decodeHorizontal8(byte[] bytes, int rows,
+			int rowBytes, int samples) {
+		for (int offset = 0, row = 0; row < rows; row++, offset += rowBytes) {
+			int end = offset + rowBytes;
+			for (int i = offset + samples; i < end; i++) {
+				bytes[i] += bytes[i - samples];
 			}
+		}
+	}
 
+	/**
+	 * Decode horizontal encoded predictor rows of 2 byte samples
+	 * 
+	 * @param bytes
+	 *            bytes to decode in place
+	 * @param rows
+	 *            number of rows
+	 * @param rowBytes
+	 *            bytes per row
+	 * @param samples
+	 *            number of samples
+	 * @param bigEndian
+	 *            true if big endian samples
+	 */
+	private static void decodeHorizontal16(byte[] bytes, int rows,
+			int rowBytes, int samples, boolean bigEndian) {
+		int stride = samples * 2;
+		for (int offset = 0, row = 0; row < rows; row++, offset += rowBytes) {
+			int end = offset + rowBytes;
+			if (bigEndian) {
+				for (int i = offset + stride; i < end; i += 2) {
+					int p = i - stride;
+					int value = (((bytes[i] & 0xff) << 8) | (bytes[i + 1] & 0xff))
+							+ (((bytes[p] & 0xff) << 8) | (bytes[p + 1] & 0xff));
+					bytes[i] = (byte) (value >>> 8);
+					bytes[i + 1] = (byte) value;
+				}
+			} else {
+				for (int i = offset + stride; i < end; i += 2) {
+					int p = i - stride;
+					int value = ((bytes[i] & 0xff) | ((bytes[i + 1] & 0xff) << 8))
+							+ ((bytes[p] & 0xff) | ((bytes[p + 1] & 0xff) << 8));
+					bytes[i] = (byte) value;
+					bytes[i + 1] = (byte) (value >>> 8);
+				}
+			}
 		}
+	}
 
+	/**
+	 * Decode horizontal encoded predictor rows of 4 byte samples
+	 * 
+	 * @param bytes
+	 *            bytes to decode in place
+	 * @param rows
+	 *            number of rows
+	 * @param rowBytes
+	 *            bytes per row
+	 * @param samples
+	 *            number of samples
+	 * @param bigEndian
+	 *            true if big endian samples
+	 */
+	private static void decodeHorizontal32(byte[] bytes, int rows,
+			int rowBytes, int samples, boolean bigEndian) {
+		int stride = samples * 4;
+		for (int offset = 0, row = 0; row < rows; row++, offset += rowBytes) {
+			int end = offset + rowBytes;
+			if (bigEndian) {
+				for (int i = offset + stride; i < end; i += 4) {
+					int value = getIntBigEndian(bytes, i)
+							+ getIntBigEndian(bytes, i - stride);
+					bytes[i] = (byte) (value >>> 24);
+					bytes[i + 1] = (byte) (value >>> 16);
+					bytes[i + 2] = (byte) (value >>> 8);
+					bytes[i + 3] = (byte) value;
+				}
+			} else {
+				for (int i = offset + stride; i < end; i += 4) {
+					int value = getIntLittleEndian(bytes, i)
+							+ getIntLittleEndian(bytes, i - stride);
+					bytes[i] = (byte) value;
+					bytes[i + 1] = (byte) (value >>> 8);
+					bytes[i + 2] = (byte) (value >>> 16);
+					bytes[i + 3] = (byte) (value >>> 24);
+				}
+			}
+		}
 	}
 
 	/**
-	 * Decode a floating point encoded predictor row
+	 * Decode horizontal encoded predictor rows of 8 byte samples
 	 * 
-	 * @param reader
-	 *            byte reader
-	 * @param writer
-	 *            byte writer
-	 * @param width
-	 *            tile width
+	 * @param bytes
+	 *            bytes to decode in place
+	 * @param rows
+	 *            number of rows
+	 * @param rowBytes
+	 *            bytes per row
+	 * @param samples
+	 *            number of samples
+	 * @param bigEndian
+	 *            true if big endian samples
+	 */
+	private static void decodeHorizontal64(byte[] bytes, int rows,
+			int rowBytes, int samples, boolean bigEndian) {
+		int stride = samples * 8;
+		for (int offset = 0, row = 0; row < rows; row++, offset += rowBytes) {
+			int end = offset + rowBytes;
+			if (bigEndian) {
+				for (int i = offset + stride; i < end; i += 8) {
+					long value = ((long) getIntBigEndian(bytes, i) << 32
+							| (getIntBigEndian(bytes, i + 4) & 0xffffffffL))
+							+ ((long) getIntBigEndian(bytes, i - stride) << 32
+									| (getIntBigEndian(bytes, i - stride + 4)
+											& 0xffffffffL));
+					for (int b = 7; b >= 0; b--) {
+						bytes[i + b] = (byte) value;
+						value >>>= 8;
+					}
+				}
+			} else {
+				for (int i = offset + stride; i < end; i += 8) {
+					long value = ((getIntLittleEndian(bytes, i) & 0xffffffffL)
+							| (long) getIntLittleEndian(bytes, i + 4) << 32)
+							+ ((getIntLittleEndian(bytes, i - stride)
+									& 0xffffffffL)
+									| (long) getIntLittleEndian(bytes,
+											i - stride + 4) << 32);
+					for (int b = 0; b < 8; b++) {
+						bytes[i + b] = (byte) value;
+						value >>>= 8;
+					}
+				}
+			}
+		}
+	}
+
+	/**
+	 * Decode floating point encoded predictor rows. The byte differencing is
+	 * undone in place and the most significant byte first planes of each row
+	 * are interleaved back into samples of the byte order through a single
+	 * reused row buffer.
+	 * 
+	 * @param bytes
+	 *            bytes to decode in place
+	 * @param rows
+	 *            number of rows
+	 * @param rowValues
+	 *            sample values per row
 	 * @param bytesPerSample
 	 *            bytes per sample
 	 * @param samples
 	 *            number of samples
+	 * @param bigEndian
+	 *            true if big endian samples
 	 */
-	private static void decodeFloatingPoint(ByteReader reader,
-			ByteWriter writer, int width, int bytesPerSample, int samples) {
+	private static void decodeFloatingPoint(byte[] bytes, int rows,
+			int rowValues, int bytesPerSample, int samples,
+			boolean bigEndian) {
 
-		int samplesWidth = width * samples;
+		int rowBytes = rowValues * bytesPerSample;
+		byte[] planes = new byte[rows > 0 ? rowBytes : 0];
 
-		byte[] bytes = new byte[samplesWidth * bytesPerSample];
+		for (int offset = 0, row = 0; row < rows; row++, offset += rowBytes) {
 
-		byte[] previous = new byte[samples];
+			int end = offset + rowBytes;
+			for (int i = offset + samples; i < end; i++) {
+				bytes[i] += bytes[i - samples];
+			}
 
-		for (int sampleByte = 0; sampleByte < width
-				* bytesPerSample; sampleByte++) {
+			System.arraycopy(bytes, offset, planes, 0, rowBytes);
 
-			for (int sample = 0; sample < samples; sample++) {
-				byte value = (byte) (reader.readByte() + previous[sample]);
-				bytes[sampleByte * samples + sample] = value;
-				previous[sample] = value;
+			for (int plane = 0; plane < bytesPerSample; plane++) {
+				int planeOffset = plane * rowValues;
+				int index = offset
+						+ (bigEndian ? plane : bytesPerSample - plane - 1);
+				for (int value = 0; value < rowValues; value++) {
+					bytes[index] = planes[planeOffset + value];
+					index += bytesPerSample;
+				}
 			}
 
 		}
 
-		for (int widthSample = 0; widthSample < samplesWidth; widthSample++) {
-			for (int sampleByte = 0; sampleByte < bytesPerSample; sampleByte++) {
-				int index = ((bytesPerSample - sampleByte - 1) * samplesWidth)
-						+ widthSample;
-				writer.writeByte(bytes[index]);
+	}
+
+	/**
+	 * Encode horizontal predictor rows of 1 byte samples
+	 * 
+	 * @param bytes
+	 *            bytes to encode in place
+	 * @param rows
+	 *            number of rows
+	 * @param rowBytes
+	 *            bytes per row
+	 * @param samples
+	 *            number of samples
+	 */
+	private static void encodeHorizontal8(byte[] bytes, int rows,
+			int rowBytes, int samples) {
+		for (int offset = 0, row = 0; row < rows; row++, offset += rowBytes) {
+			for (int i = offset + rowBytes - 1; i >= offset + samples; i--) {
+				bytes[i] -= bytes[i - samples];
 			}
 		}
+	}
 
+	/**
+	 * Encode horizontal predictor rows of 2 byte samples
+	 * 
+	 * @param bytes
+	 *            bytes to encode in place
+	 * @param rows
+	 *            number of rows
+	 * @param rowBytes
+	 *            bytes per row
+	 * @param samples
+	 *            number of samples
+	 * @param bigEndian
+	 *            true if big endian samples
+	 */
+	private static void encodeHorizontal16(byte[] bytes, int rows,
+			int rowBytes, int samples, boolean bigEndian) {
+		int stride = samples * 2;
+		for (int offset = 0, row = 0; row < rows; row++, offset += rowBytes) {
+			int start = offset + stride;
+			if (bigEndian) {
+				for (int i = offset + rowBytes - 2; i >= start; i -= 2) {
+					int p = i - stride;
+					int value = (((bytes[i] & 0xff) << 8) | (bytes[i + 1] & 0xff))
+							- (((bytes[p] & 0xff) << 8) | (bytes[p + 1] & 0xff));
+					bytes[i] = (byte) (value >>> 8);
+					bytes[i + 1] = (byte) value;
+				}
+			} else {
+				for (int i = offset + rowBytes - 2; i >= start; i -= 2) {
+					int p = i - stride;
+					int value = ((bytes[i] & 0xff) | ((bytes[i + 1] & 0xff) << 8))
+							- ((bytes[p] & 0xff) | ((bytes[p + 1] & 0xff) << 8));
+					bytes[i] = (byte) value;
+					bytes[i + 1] = (byte) (value >>> 8);
+				}
+			}
+		}
 	}
 
 	/**
-	 * Read a sample value
+	 * Encode horizontal predictor rows of 4 byte samples
 	 * 
-	 * @param reader
-	 *            byte reader
-	 * @param bytesPerSample
-	 *            bytes per sample
-	 * @return sample value
-	 */
-	private static int readValue(ByteReader reader, int bytesPerSample) {
-
-		int value;
-
-		switch (bytesPerSample) {
-		case 1:
-			value = reader.readByte();
-			break;
-		case 2:
-			value = reader.readShort();
-			break;
-		case 4:
-			value = reader.readInt();
-			break;
-		default:
-			throw new TiffException("Predictor not supported with "
-					+ bytesPerSample + " bytes per sample");
+	 * @param bytes
+	 *            bytes to encode in place
+	 * @param rows
+	 *            number of rows
+	 * @param rowBytes
+	 *            bytes per row
+	 * @param samples
+	 *            number of samples
+	 * @param bigEndian
+	 *            true if big endian samples
+	 */
+	private static void encodeHorizontal32(byte[] bytes, int rows,
+			int rowBytes, int samples, boolean bigEndian) {
+		int stride = samples * 4;
+		for (int offset = 0, row = 0; row < rows; row++, offset += rowBytes) {
+			int start = offset + stride;
+			if (bigEndian) {
+				for (int i = offset + rowBytes - 4; i >= start; i -= 4) {
+					int value = getIntBigEndian(bytes, i)
+							- getIntBigEndian(bytes, i - stride);
+					bytes[i] = (byte) (value >>> 24);
+					bytes[i + 1] = (byte) (value >>> 16);
+					bytes[i + 2] = (byte) (value >>> 8);
+					bytes[i + 3] = (byte) value;
+				}
+			} else {
+				for (int i = offset + rowBytes - 4; i >= start; i -= 4) {
+					int value = getIntLittleEndian(bytes, i)
+							- getIntLittleEndian(bytes, i - stride);
+					bytes[i] = (byte) value;
+					bytes[i + 1] = (byte) (value >>> 8);
+					bytes[i + 2] = (byte) (value >>> 16);
+					bytes[i + 3] = (byte) (value >>> 24);
+				}
+			}
 		}
+	}
 
-		return value;
+	/**
+	 * Encode horizontal predictor rows of 8 byte samples
+	 * 
+	 * @param bytes
+	 *            bytes to encode in place
+	 * @param rows
+	 *            number of rows
+	 * @param rowBytes
+	 *            bytes per row
+	 * @param samples
+	 *            number of samples
+	 * @param bigEndian
+	 *            true if big endian samples
+	 */
+	private static void encodeHorizontal64(byte[] bytes, int rows,
+			int rowBytes, int samples, boolean bigEndian) {
+		int stride = samples * 8;
+		for (int offset = 0, row = 0; row < rows; row++, offset += rowBytes) {
+			int start = offset + stride;
+			if (bigEndian) {
+				for (int i = offset + rowBytes - 8; i >= start; i -= 8) {
+					long value = ((long) getIntBigEndian(bytes, i) << 32
+							| (getIntBigEndian(bytes, i + 4) & 0xffffffffL))
+							- ((long) getIntBigEndian(bytes, i - stride) << 32
+									| (getIntBigEndian(bytes, i - stride + 4)
+											& 0xffffffffL));
+					for (int b = 7; b >= 0; b--) {
+						bytes[i + b] = (byte) value;
+						value >>>= 8;
+					}
+				}
+			} else {
+				for (int i = offset + rowBytes - 8; i >= start; i -= 8) {
+					long value = ((getIntLittleEndian(bytes, i) & 0xffffffffL)
+							| (long) getIntLittleEndian(bytes, i + 4) << 32)
+							- ((getIntLittleEndian(bytes, i - stride)
+									& 0xffffffffL)
+									| (long) getIntLittleEndian(bytes,
+											i - stride + 4) << 32);
+					for (int b = 0; b < 8; b++) {
+						bytes[i + b] = (byte) value;
+						value >>>= 8;
+					}
+				}
+			}
+		}
 	}
 
 	/**
-	 * Write a sample value
+	 * Encode floating point predictor rows. The samples of each row are split
+	 * into most significant byte first planes through a single reused row
+	 * buffer and the bytes are then differenced in place.
 	 * 
-	 * @param writer
-	 *            byte writer
+	 * @param bytes
+	 *            bytes to encode in place
+	 * @param rows
+	 *            number of rows
+	 * @param rowValues
+	 *            sample values per row
 	 * @param bytesPerSample
 	 *            bytes per sample
-	 * @param value
-	 *            sample value
+	 * @param samples
+	 *            number of samples
+	 * @param bigEndian
+	 *            true if big endian samples
 	 */
-	private static void writeValue(ByteWriter writer, int bytesPerSample,
-			int value) {
+	private static void encodeFloatingPoint(byte[] bytes, int rows,
+			int rowValues, int bytesPerSample, int samples,
+			boolean bigEndian) {
+
+		int rowBytes = rowValues * bytesPerSample;
+		byte[] planes = new byte[rows > 0 ? rowBytes : 0];
+
+		for (int offset = 0, row = 0; row < rows; row++, offset += rowBytes) {
+
+			for (int plane = 0; plane < bytesPerSample; plane++) {
+				int planeOffset = plane * rowValues;
+				int index = offset
+						+ (bigEndian ? plane : bytesPerSample - plane - 1);
+				for (int value = 0; value < rowValues; value++) {
+					planes[planeOffset + value] = bytes[index];
+					index += bytesPerSample;
+				}
+			}
 
-		try {
+			System.arraycopy(planes, 0, bytes, offset, rowBytes);
 
-			switch (bytesPerSample) {
-			case 1:
-				writer.writeByte((byte) value);
-				break;
-			case 2:
-				writer.writeShort((short) value);
-				break;
-			case 4:
-				writer.writeInt(value);
-				break;
-			default:
-				throw new TiffException("Predictor not supported with "
-						+ bytesPerSample + " bytes per sample");
+			for (int i = offset + rowBytes - 1; i >= offset + samples; i--) {
+				bytes[i] -= bytes[i - samples];
 			}
 
-		} catch (IOException e) {
-			throw new TiffException("Failed to write value: " + value
-					+ ", bytes: " + bytesPerSample, e);
 		}
 
 	}
 
+	/**
+	 * Get a big endian int from the bytes
+	 * 
+	 * @param bytes
+	 *            bytes
+	 * @param index
+	 *            byte index
+	 * @return int value
+	 */
+	private static int getIntBigEndian(byte[] bytes, int index) {
+		return ((bytes[index] & 0xff) << 24)
+				| ((bytes[index + 1] & 0xff) << 16)
+				| ((bytes[index + 2] & 0xff) << 8) | (bytes[index + 3] & 0xff);
+	}
+
+	/**
+	 * Get a little endian int from the bytes
+	 * 
+	 * @param bytes
+	 *            bytes
+	 * @param index
+	 *            byte index
+	 * @return int value
+	 */
+	private static int getIntLittleEndian(byte[] bytes, int index) {
+		return (bytes[index] & 0xff) | ((bytes[index + 1] & 0xff) << 8)
+				| ((bytes[index + 2] & 0xff) << 16)
+				| ((bytes[index + 3] & 0xff) << 24);
+	}
+
 }
@@ -0,0 +1,76 @@
+package mil.nga.tiff.io;
+
+import java.io.EOFException;
+import java.io.IOException;
+import java.util.Arrays;
+
+/**
+ * In-memory byte array byte source
+ * 
+ * @author osbornb
+ * @since 3.0.1
+ */
+public class ByteArrayByteSource implements ByteSource {
+
+	/**
+	 * Bytes
+	 */
+	private final byte[] bytes;
+
+	/**
+	 * Number of range reads
+	 */
+	private int reads = 0;
+
+	/**
+	 * Constructor
+	 * 
+	 * @param bytes
+	 *            bytes
+	 */
+	public ByteArrayByteSource(byte[] bytes) {
+		this.bytes = bytes;
+	}
+
+	/**
+	 * Get the number of range reads made from the source
+	 * 
+	 * @return range reads
+	 */
+	public synchronized int getReads() {
+		return reads;
+	}
+
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	public long length() {
+		return bytes.length;
+	}
+
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	public byte[] readRange(long offset, int length) throws IOException {
+		if (offset < 0 || offset + length > bytes.length) {
+			throw new EOFException("Range out of bounds. Offset: " + offset
+					+ ", Length: " + length + ", Total Bytes: "
+					+ bytes.length);
+		}
+		synchronized (this) {
+			reads++;
+		}
+		return Arrays.copyOfRange(bytes, (int) offset, (int) offset + length);
+	}
+
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	public void close() {
+
+	}
+
+}
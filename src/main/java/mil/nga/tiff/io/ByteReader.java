@@ -1,15 +1,22 @@
 package mil.nga.tiff.io;
 
+import java.io.IOException;
 import java.io.UnsupportedEncodingException;
 import java.nio.ByteBuffer;
 import java.nio.ByteOrder;
 import java.nio.charset.StandardCharsets;
-import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.Map;
 
 import mil.nga.tiff.util.TiffException;
 
 /**
- * Read through a byte array
+ * Read through a byte array or byte buffers, such as a memory-mapped file, or
+ * through a range addressable {@link ByteSource}. Byte offsets are long values,
+ * supporting byte buffer segments that together are larger than the max
+ * integer. Byte source segments are read on demand in chunks of
+ * {@link IOUtils#SOURCE_CHUNK_SIZE} bytes, keeping up to
+ * {@link IOUtils#SOURCE_CACHE_CHUNKS} recently read chunks.
  * 
  * @author osbornb
  */
@@ -18,12 +25,33 @@ public class ByteReader {
 	/**
 	 * Next byte index to read
 	 */
-	private int nextByte = 0;
+	private long nextByte = 0;
 
 	/**
-	 * Bytes to read
+	 * Byte buffer segments to read, each the same size except for the last.
+	 * Null when reading from a byte source.
 	 */
-	private final byte[] bytes;
+	private final ByteBuffer[] segments;
+
+	/**
+	 * Byte source to read segments from on demand
+	 */
+	private final ByteSource source;
+
+	/**
+	 * Recently read byte source segments by segment index
+	 */
+	private final Map<Long, ByteBuffer> sourceSegments;
+
+	/**
+	 * Number of bytes in each segment, except for the last
+	 */
+	private final long segmentBytes;
+
+	/**
+	 * Total number of bytes
+	 */
+	private final long length;
 
 	/**
 	 * Byte order
@@ -49,16 +77,194 @@ public class ByteReader {
 	 *            byte order
 	 */
 	public ByteReader(byte[] bytes, ByteOrder byteOrder) {
-		this.bytes = bytes;
-		this.byteOrder = byteOrder;
+		this(ByteBuffer.wrap(bytes), byteOrder);
+	}
+
+	/**
+	 * Constructor
+	 * 
+	 * @param bytes
+	 *            byte buffer, such as a memory-mapped file, read from the
+	 *            current position to the limit
+	 * @since 3.0.1
+	 */
+	public ByteReader(ByteBuffer bytes) {
+		this(bytes, ByteOrder.nativeOrder());
+	}
+
+	/**
+	 * Constructor
+	 * 
+	 * @param bytes
+	 *            byte buffer, such as a memory-mapped file, read from the
+	 *            current position to the limit
+	 * @param byteOrder
+	 *            byte order
+	 * @since 3.0.1
+	 */
+	public ByteReader(ByteBuffer bytes, ByteOrder byteOrder) {
+		this(new ByteBuffer[] { bytes }, byteOrder);
+	}
+
+	/**
+	 * Constructor
+	 * 
+	 * @param segments
+	 *            contiguous byte buffer segments, such as a memory-mapped
+	 *            file, each read from the current position to the limit. All
+	 *            segments except for the last must be the same size.
+	 * @since 3.0.1
+	 */
+	public ByteReader(ByteBuffer[] segments) {
+		this(segments, ByteOrder.nativeOrder());
+	}
+
+	/**
+	 * Constructor
+	 * 
+	 * @param segments
+	 *            contiguous byte buffer segments, such as a memory-mapped
+	 *            file, each read from the current position to the limit. All
+	 *            segments except for the last must be the same size.
+	 * @param byteOrder
+	 *            byte order
+	 * @since 3.0.1
+	 */
+	public ByteReader(ByteBuffer[] segments, ByteOrder byteOrder) {
+		if (segments.length == 0) {
+			throw new TiffException("At least one byte segment is required");
+		}
+		this.segments = new ByteBuffer[segments.length];
+		long length = 0;
+		for (int i = 0; i < segments.length; i++) {
+			ByteBuffer segment = segments[i].slice();
+			if (i > 0 && segment.capacity() != this.segments[0].capacity()
+					&& i + 1 < segments.length) {
+				throw new TiffException(
+						"Byte segments must be the same size except for the last. Segment 0: "
+								+ this.segments[0].capacity() + ", Segment "
+								+ i + ": " + segment.capacity());
+			}
+			this.segments[i] = segment;
+			length += segment.capacity();
+		}
+		this.segmentBytes = Math.max(1, this.segments[0].capacity());
+		this.length = length;
+		this.source = null;
+		this.sourceSegments = null;
+		setByteOrder(byteOrder);
+	}
+
+	/**
+	 * Constructor
+	 * 
+	 * @param source
+	 *            byte source
+	 * @throws IOException
+	 *             upon failure to determine the source length
+	 * @since 3.0.1
+	 */
+	public ByteReader(ByteSource source) throws IOException {
+		this(source, ByteOrder.nativeOrder());
+	}
+
+	/**
+	 * Constructor
+	 * 
+	 * @param source
+	 *            byte source
+	 * @param byteOrder
+	 *            byte order
+	 * @throws IOException
+	 *             upon failure to determine the source length
+	 * @since 3.0.1
+	 */
+	public ByteReader(ByteSource source, ByteOrder byteOrder)
+			throws IOException {
+		this(source, byteOrder, IOUtils.SOURCE_CHUNK_SIZE);
+	}
+
+	/**
+	 * Constructor
+	 * 
+	 * @param source
+	 *            byte source
+	 * @param byteOrder
+	 *            byte order
+	 * @param chunkSize
+	 *            number of bytes read from the source at a time for values
+	 *            and smaller byte reads
+	 * @throws IOException
+	 *             upon failure to determine the source length
+	 * @since 3.0.1
+	 */
+	public ByteReader(ByteSource source, ByteOrder byteOrder, int chunkSize)
+			throws IOException {
+		this.segments = null;
+		this.source = source;
+		final int cacheChunks = IOUtils.SOURCE_CACHE_CHUNKS;
+		this.sourceSegments = new LinkedHashMap<Long, ByteBuffer>(16, 0.75f,
+				true) {
+
+			/**
+			 * Serial version id
+			 */
+			private static final long serialVersionUID = 1L;
+
+			/**
+			 * {@inheritDoc}
+			 */
+			@Override
+			protected boolean removeEldestEntry(
+					Map.Entry<Long, ByteBuffer> eldest) {
+				return size() > cacheChunks;
+			}
+
+		};
+		this.segmentBytes = Math.max(1, chunkSize);
+		this.length = source.length();
+		setByteOrder(byteOrder);
+	}
+
+	/**
+	 * Get the byte source
+	 * 
+	 * @return byte source, null when reading from byte buffers
+	 * @since 3.0.1
+	 */
+	public ByteSource getSource() {
+		return source;
+	}
+
+	/**
+	 * Is the reader reading from a byte source
+	 * 
+	 * @return true if reading from a byte source
+	 * @since 3.0.1
+	 */
+	public boolean hasSource() {
+		return source != null;
 	}
 
 	/**
 	 * Get the next byte to be read
 	 * 
 	 * @return next byte to be read
+	 * @deprecated use {@link #getNextByteLong()}, fails for next bytes beyond
+	 *             {@link Integer#MAX_VALUE}
 	 */
+	@Deprecated
 	public int getNextByte() {
+		return toInt(nextByte);
+	}
+
+	/**
+	 * Get the next byte to be read
+	 * 
+	 * @return next byte to be read
+	 * @since 3.0.1
+	 */
+	public long getNextByteLong() {
 		return nextByte;
 	}
 
@@ -69,11 +275,11 @@ public class ByteReader {
 	 *            next byte
 	 */
 	public void setNextByte(long nextByte) {
-		if (nextByte >= bytes.length) {
+		if (nextByte < 0 || nextByte >= length) {
 			throw new TiffException("Byte offset out of range. Total Bytes: "
-					+ bytes.length + ", Byte offset: " + nextByte);
+					+ length + ", Byte offset: " + nextByte);
 		}
-		this.nextByte = (int) nextByte;
+		this.nextByte = nextByte;
 	}
 
 	/**
@@ -93,6 +299,17 @@ public class ByteReader {
 	 */
 	public void setByteOrder(ByteOrder byteOrder) {
 		this.byteOrder = byteOrder;
+		if (segments != null) {
+			for (ByteBuffer segment : segments) {
+				segment.order(byteOrder);
+			}
+		} else {
+			synchronized (sourceSegments) {
+				for (ByteBuffer segment : sourceSegments.values()) {
+					segment.order(byteOrder);
+				}
+			}
+		}
 	}
 
 	/**
@@ -111,10 +328,23 @@ public class ByteReader {
 	 *            byte offset
 	 * @return true more bytes left to read
 	 */
-	public boolean hasByte(int offset) {
+	public boolean hasByte(long offset) {
 		return hasBytes(offset, 1);
 	}
 
+	/**
+	 * Check if there is at least one more byte left to read
+	 * 
+	 * @param offset
+	 *            byte offset
+	 * @return true more bytes left to read
+	 * @deprecated use {@link #hasByte(long)}
+	 */
+	@Deprecated
+	public boolean hasByte(int offset) {
+		return hasByte((long) offset);
+	}
+
 	/**
 	 * Check if there are the provided number of bytes left to read
 	 * 
@@ -135,8 +365,23 @@ public class ByteReader {
 	 *            number of bytes
 	 * @return true if has at least the number of bytes left
 	 */
+	public boolean hasBytes(long offset, int count) {
+		return offset + count <= length;
+	}
+
+	/**
+	 * Check if there are the provided number of bytes left to read
+	 * 
+	 * @param offset
+	 *            byte offset
+	 * @param count
+	 *            number of bytes
+	 * @return true if has at least the number of bytes left
+	 * @deprecated use {@link #hasBytes(long, int)}
+	 */
+	@Deprecated
 	public boolean hasBytes(int offset, int count) {
-		return offset + count <= bytes.length;
+		return hasBytes((long) offset, count);
 	}
 
 	/**
@@ -165,16 +410,35 @@ public class ByteReader {
 	 * @throws UnsupportedEncodingException
 	 *             upon string encoding error
 	 */
-	public String readString(int offset, int num)
+	public String readString(long offset, int num)
 			throws UnsupportedEncodingException {
 		verifyRemainingBytes(offset, num);
 		String value = null;
-		if (num != 1 || bytes[offset] != 0) {
-			value = new String(bytes, offset, num, StandardCharsets.US_ASCII);
+		if (num != 1 || readByte(offset) != 0) {
+			value = new String(readBytes(offset, num),
+					StandardCharsets.US_ASCII);
 		}
 		return value;
 	}
 
+	/**
+	 * Read a String from the provided number of bytes
+	 * 
+	 * @param offset
+	 *            byte offset
+	 * @param num
+	 *            number of bytes
+	 * @return String
+	 * @throws UnsupportedEncodingException
+	 *             upon string encoding error
+	 * @deprecated use {@link #readString(long, int)}
+	 */
+	@Deprecated
+	public String readString(int offset, int num)
+			throws UnsupportedEncodingException {
+		return readString((long) offset, num);
+	}
+
 	/**
 	 * Read a byte
 	 * 
@@ -193,12 +457,25 @@ public class ByteReader {
 	 *            byte offset
 	 * @return byte
 	 */
-	public byte readByte(int offset) {
+	public byte readByte(long offset) {
 		verifyRemainingBytes(offset, 1);
-		byte value = bytes[offset];
+		byte value = segment(offset).get(position(offset));
 		return value;
 	}
 
+	/**
+	 * Read a byte
+	 * 
+	 * @param offset
+	 *            byte offset
+	 * @return byte
+	 * @deprecated use {@link #readByte(long)}
+	 */
+	@Deprecated
+	public byte readByte(int offset) {
+		return readByte((long) offset);
+	}
+
 	/**
 	 * Read an unsigned byte
 	 * 
@@ -217,10 +494,23 @@ public class ByteReader {
 	 *            byte offset
 	 * @return unsigned byte as short
 	 */
-	public short readUnsignedByte(int offset) {
+	public short readUnsignedByte(long offset) {
 		return ((short) (readByte(offset) & 0xff));
 	}
 
+	/**
+	 * Read an unsigned byte
+	 * 
+	 * @param offset
+	 *            byte offset
+	 * @return unsigned byte as short
+	 * @deprecated use {@link #readUnsignedByte(long)}
+	 */
+	@Deprecated
+	public short readUnsignedByte(int offset) {
+		return readUnsignedByte((long) offset);
+	}
+
 	/**
 	 * Read a number of bytes
 	 * 
@@ -243,12 +533,40 @@ public class ByteReader {
 	 *            number of bytes
 	 * @return bytes
 	 */
-	public byte[] readBytes(int offset, int num) {
+	public byte[] readBytes(long offset, int num) {
 		verifyRemainingBytes(offset, num);
-		byte[] readBytes = Arrays.copyOfRange(bytes, offset, offset + num);
+		if (source != null && num >= segmentBytes) {
+			// Read larger byte ranges directly from the source
+			return readSource(offset, num);
+		}
+		byte[] readBytes = new byte[num];
+		int read = 0;
+		while (read < num) {
+			long readOffset = offset + read;
+			ByteBuffer buffer = segment(readOffset).duplicate();
+			buffer.position(position(readOffset));
+			int count = Math.min(num - read, buffer.remaining());
+			buffer.get(readBytes, read, count);
+			read += count;
+		}
 		return readBytes;
 	}
 
+	/**
+	 * Read a number of bytes
+	 * 
+	 * @param offset
+	 *            byte offset
+	 * @param num
+	 *            number of bytes
+	 * @return bytes
+	 * @deprecated use {@link #readBytes(long, int)}
+	 */
+	@Deprecated
+	public byte[] readBytes(int offset, int num) {
+		return readBytes((long) offset, num);
+	}
+
 	/**
 	 * Read a short
 	 * 
@@ -267,13 +585,31 @@ public class ByteReader {
 	 *            byte offset
 	 * @return short
 	 */
-	public short readShort(int offset) {
+	public short readShort(long offset) {
 		verifyRemainingBytes(offset, 2);
-		short value = ByteBuffer.wrap(bytes, offset, 2).order(byteOrder)
-				.getShort();
+		ByteBuffer buffer = segment(offset);
+		int position = position(offset);
+		if (position + 2 > buffer.capacity()) {
+			buffer = spanningBuffer(offset, 2);
+			position = 0;
+		}
+		short value = buffer.getShort(position);
 		return value;
 	}
 
+	/**
+	 * Read a short
+	 * 
+	 * @param offset
+	 *            byte offset
+	 * @return short
+	 * @deprecated use {@link #readShort(long)}
+	 */
+	@Deprecated
+	public short readShort(int offset) {
+		return readShort((long) offset);
+	}
+
 	/**
 	 * Read an unsigned short
 	 * 
@@ -292,10 +628,23 @@ public class ByteReader {
 	 *            byte offset
 	 * @return unsigned short as int
 	 */
-	public int readUnsignedShort(int offset) {
+	public int readUnsignedShort(long offset) {
 		return (readShort(offset) & 0xffff);
 	}
 
+	/**
+	 * Read an unsigned short
+	 * 
+	 * @param offset
+	 *            byte offset
+	 * @return unsigned short as int
+	 * @deprecated use {@link #readUnsignedShort(long)}
+	 */
+	@Deprecated
+	public int readUnsignedShort(int offset) {
+		return readUnsignedShort((long) offset);
+	}
+
 	/**
 	 * Read an integer
 	 * 
@@ -314,12 +663,31 @@ public class ByteReader {
 	 *            byte offset
 	 * @return integer
 	 */
-	public int readInt(int offset) {
+	public int readInt(long offset) {
 		verifyRemainingBytes(offset, 4);
-		int value = ByteBuffer.wrap(bytes, offset, 4).order(byteOrder).getInt();
+		ByteBuffer buffer = segment(offset);
+		int position = position(offset);
+		if (position + 4 > buffer.capacity()) {
+			buffer = spanningBuffer(offset, 4);
+			position = 0;
+		}
+		int value = buffer.getInt(position);
 		return value;
 	}
 
+	/**
+	 * Read an integer
+	 * 
+	 * @param offset
+	 *            byte offset
+	 * @return integer
+	 * @deprecated use {@link #readInt(long)}
+	 */
+	@Deprecated
+	public int readInt(int offset) {
+		return readInt((long) offset);
+	}
+
 	/**
 	 * Read an unsigned int
 	 * 
@@ -338,10 +706,55 @@ public class ByteReader {
 	 *            byte offset
 	 * @return unsigned int as long
 	 */
-	public long readUnsignedInt(int offset) {
+	public long readUnsignedInt(long offset) {
 		return ((long) readInt(offset) & 0xffffffffL);
 	}
 
+	/**
+	 * Read an unsigned int
+	 * 
+	 * @param offset
+	 *            byte offset
+	 * @return unsigned int as long
+	 * @deprecated use {@link #readUnsignedInt(long)}
+	 */
+	@Deprecated
+	public long readUnsignedInt(int offset) {
+		return readUnsignedInt((long) offset);
+	}
+
+	/**
+	 * Read a long
+	 * 
+	 * @return long
+	 * @since 3.0.1
+	 */
+	public long readLong() {
+		long value = readLong(nextByte);
+		nextByte += 8;
+		return value;
+	}
+
+	/**
+	 * Read a long
+	 * 
+	 * @param offset
+	 *            byte offset
+	 * @return long
+	 * @since 3.0.1
+	 */
+	public long readLong(long offset) {
+		verifyRemainingBytes(offset, 8);
+		ByteBuffer buffer = segment(offset);
+		int position = position(offset);
+		if (position + 8 > buffer.capacity()) {
+			buffer = spanningBuffer(offset, 8);
+			position = 0;
+		}
+		long value = buffer.getLong(position);
+		return value;
+	}
+
 	/**
 	 * Read a float
 	 * 
@@ -360,13 +773,31 @@ public class ByteReader {
 	 *            byte offset
 	 * @return float
 	 */
-	public float readFloat(int offset) {
+	public float readFloat(long offset) {
 		verifyRemainingBytes(offset, 4);
-		float value = ByteBuffer.wrap(bytes, offset, 4).order(byteOrder)
-				.getFloat();
+		ByteBuffer buffer = segment(offset);
+		int position = position(offset);
+		if (position + 4 > buffer.capacity()) {
+			buffer = spanningBuffer(offset, 4);
+			position = 0;
+		}
+		float value = buffer.getFloat(position);
 		return value;
 	}
 
+	/**
+	 * Read a float
+	 * 
+	 * @param offset
+	 *            byte offset
+	 * @return float
+	 * @deprecated use {@link #readFloat(long)}
+	 */
+	@Deprecated
+	public float readFloat(int offset) {
+		return readFloat((long) offset);
+	}
+
 	/**
 	 * Read a double
 	 * 
@@ -385,20 +816,142 @@ public class ByteReader {
 	 *            byte offset
 	 * @return double
 	 */
-	public double readDouble(int offset) {
+	public double readDouble(long offset) {
 		verifyRemainingBytes(offset, 8);
-		double value = ByteBuffer.wrap(bytes, offset, 8).order(byteOrder)
-				.getDouble();
+		ByteBuffer buffer = segment(offset);
+		int position = position(offset);
+		if (position + 8 > buffer.capacity()) {
+			buffer = spanningBuffer(offset, 8);
+			position = 0;
+		}
+		double value = buffer.getDouble(position);
 		return value;
 	}
 
+	/**
+	 * Read a double
+	 * 
+	 * @param offset
+	 *            byte offset
+	 * @return double
+	 * @deprecated use {@link #readDouble(long)}
+	 */
+	@Deprecated
+	public double readDouble(int offset) {
+		return readDouble((long) offset);
+	}
+
 	/**
 	 * Get the byte length
 	 * 
 	 * @return byte length
+	 * @deprecated use {@link #byteLengthLong()}, fails for byte lengths beyond
+	 *             {@link Integer#MAX_VALUE}
 	 */
+	@Deprecated
 	public int byteLength() {
-		return bytes.length;
+		return toInt(length);
+	}
+
+	/**
+	 * Get the byte length
+	 * 
+	 * @return byte length
+	 * @since 3.0.1
+	 */
+	public long byteLengthLong() {
+		return length;
+	}
+
+	/**
+	 * Convert a byte position or length to an int for the int API
+	 * 
+	 * @param value
+	 *            byte position or length
+	 * @return int value
+	 */
+	private static int toInt(long value) {
+		if (value > Integer.MAX_VALUE) {
+			throw new TiffException("Byte value " + value
+					+ " is too large for an int, use the long methods");
+		}
+		return (int) value;
+	}
+
+	/**
+	 * Get the segment containing the byte offset, reading it from the byte
+	 * source if needed
+	 * 
+	 * @param offset
+	 *            byte offset
+	 * @return segment
+	 */
+	private ByteBuffer segment(long offset) {
+		ByteBuffer segment = null;
+		if (segments != null) {
+			segment = segments[(int) (offset / segmentBytes)];
+		} else {
+			long index = offset / segmentBytes;
+			synchronized (sourceSegments) {
+				segment = sourceSegments.get(index);
+			}
+			if (segment == null) {
+				long segmentOffset = index * segmentBytes;
+				int segmentLength = (int) Math.min(segmentBytes,
+						length - segmentOffset);
+				segment = ByteBuffer
+						.wrap(readSource(segmentOffset, segmentLength))
+						.order(byteOrder);
+				synchronized (sourceSegments) {
+					sourceSegments.put(index, segment);
+				}
+			}
+		}
+		return segment;
+	}
+
+	/**
+	 * Read bytes from the byte source
+	 * 
+	 * @param offset
+	 *            byte offset
+	 * @param num
+	 *            number of bytes
+	 * @return bytes
+	 */
+	private byte[] readSource(long offset, int num) {
+		try {
+			return source.readRange(offset, num);
+		} catch (IOException e) {
+			throw new TiffException(
+					"Failed to read from the byte source. Offset: " + offset
+							+ ", Length: " + num,
+					e);
+		}
+	}
+
+	/**
+	 * Get the position within the segment of the byte offset
+	 * 
+	 * @param offset
+	 *            byte offset
+	 * @return segment position
+	 */
+	private int position(long offset) {
+		return (int) (offset % segmentBytes);
+	}
+
+	/**
+	 * Copy a value spanning multiple segments into a single byte buffer
+	 * 
+	 * @param offset
+	 *            byte offset
+	 * @param num
+	 *            number of bytes
+	 * @return byte buffer containing the value at position 0
+	 */
+	private ByteBuffer spanningBuffer(long offset, int num) {
+		return ByteBuffer.wrap(readBytes(offset, num)).order(byteOrder);
 	}
 
 	/**
@@ -410,11 +963,11 @@ public class ByteReader {
 	 * @param bytesToRead
 	 *            number of bytes to read
 	 */
-	private void verifyRemainingBytes(int offset, int bytesToRead) {
-		if (offset + bytesToRead > bytes.length) {
+	private void verifyRemainingBytes(long offset, int bytesToRead) {
+		if (offset < 0 || offset + bytesToRead > length) {
 			throw new TiffException(
-					"No more remaining bytes to read. Total Bytes: "
-							+ bytes.length + ", Byte offset: " + offset
+					"No more remaining bytes to read. Total Bytes: " + length
+							+ ", Byte offset: " + offset
 							+ ", Attempted to read: " + bytesToRead);
 		}
 	}
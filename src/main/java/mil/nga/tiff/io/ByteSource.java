@@ -0,0 +1,37 @@
+package mil.nga.tiff.io;
+
+import java.io.Closeable;
+import java.io.IOException;
+
+/**
+ * Range addressable source of TIFF bytes, such as a file or object storage.
+ * Implementations must support concurrent range reads.
+ * 
+ * @author osbornb
+ * @since 3.0.1
+ */
+public interface ByteSource extends Closeable {
+
+	/**
+	 * Get the total number of bytes in the source
+	 * 
+	 * @return byte length
+	 * @throws IOException
+	 *             upon failure to determine the length
+	 */
+	long length() throws IOException;
+
+	/**
+	 * Read a range of bytes
+	 * 
+	 * @param offset
+	 *            byte offset
+	 * @param length
+	 *            number of bytes
+	 * @return bytes
+	 * @throws IOException
+	 *             upon failure to read
+	 */
+	byte[] readRange(long offset, int length) throws IOException;
+
+}
@@ -1,12 +1,18 @@
 package mil.nga.tiff.io;
 
+import java.io.BufferedOutputStream;
 import java.io.ByteArrayOutputStream;
+import java.io.FileOutputStream;
 import java.io.IOException;
+import java.io.OutputStream;
 import java.nio.ByteBuffer;
 import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+
+import mil.nga.tiff.util.TiffException;
 
 /**
- * Write a byte array
+ * Write a byte array, or write bytes directly to an output stream
  * 
  * @author osbornb
  */
@@ -15,7 +21,17 @@ public class ByteWriter {
 	/**
 	 * Output stream to write bytes to
 	 */
-	private final ByteArrayOutputStream os = new ByteArrayOutputStream();
+	private final OutputStream os;
+
+	/**
+	 * File channel of a file output stream, for writing at previous positions
+	 */
+	private final FileChannel channel;
+
+	/**
+	 * Number of bytes written
+	 */
+	private long size = 0;
 
 	/**
 	 * Byte order
@@ -36,6 +52,51 @@ public class ByteWriter {
 	 *            byte order
 	 */
 	public ByteWriter(ByteOrder byteOrder) {
+		this(new BytesOutputStream(), byteOrder);
+	}
+
+	/**
+	 * Constructor, write bytes directly to the output stream, such as a file
+	 * output stream
+	 * 
+	 * @param os
+	 *            output stream
+	 * @param byteOrder
+	 *            byte order
+	 * @since 3.0.1
+	 */
+	public ByteWriter(OutputStream os, ByteOrder byteOrder) {
+		this(os, null, byteOrder);
+	}
+
+	/**
+	 * Constructor, write bytes buffered to the file output stream, supporting
+	 * writes at previous positions
+	 * 
+	 * @param os
+	 *            file output stream
+	 * @param byteOrder
+	 *            byte order
+	 * @since 3.0.1
+	 */
+	public ByteWriter(FileOutputStream os, ByteOrder byteOrder) {
+		this(new BufferedOutputStream(os), os.getChannel(), byteOrder);
+	}
+
+	/**
+	 * Constructor
+	 * 
+	 * @param os
+	 *            output stream
+	 * @param channel
+	 *            file channel of the output stream, null if not a file
+	 * @param byteOrder
+	 *            byte order
+	 */
+	private ByteWriter(OutputStream os, FileChannel channel,
+			ByteOrder byteOrder) {
+		this.os = os;
+		this.channel = channel;
 		this.byteOrder = byteOrder;
 	}
 
@@ -55,7 +116,11 @@ public class ByteWriter {
 	 * @return byte array output stream
 	 */
 	public ByteArrayOutputStream getOutputStream() {
-		return os;
+		if (!(os instanceof ByteArrayOutputStream)) {
+			throw new TiffException(
+					"Byte writer is not writing to a byte array output stream");
+		}
+		return (ByteArrayOutputStream) os;
 	}
 
 	/**
@@ -83,7 +148,7 @@ public class ByteWriter {
 	 * @return written bytes
 	 */
 	public byte[] getBytes() {
-		return os.toByteArray();
+		return getOutputStream().toByteArray();
 	}
 
 	/**
@@ -92,7 +157,65 @@ public class ByteWriter {
 	 * @return bytes written
 	 */
 	public int size() {
-		return os.size();
+		if (size > Integer.MAX_VALUE) {
+			throw new TiffException(
+					"Bytes written is above max int value, use sizeLong: "
+							+ size);
+		}
+		return (int) size;
+	}
+
+	/**
+	 * Get the current size in bytes written
+	 * 
+	 * @return bytes written
+	 * @since 3.0.1
+	 */
+	public long sizeLong() {
+		return size;
+	}
+
+	/**
+	 * Determine if previously written bytes can be overwritten, true when
+	 * writing to a byte array or a file output stream
+	 * 
+	 * @return true if bytes can be written at previous positions
+	 * @since 3.0.1
+	 */
+	public boolean isSeekable() {
+		return channel != null || os instanceof BytesOutputStream;
+	}
+
+	/**
+	 * Overwrite previously written bytes at the position, leaving the current
+	 * size and write position unchanged
+	 * 
+	 * @param position
+	 *            byte position
+	 * @param value
+	 *            bytes
+	 * @throws IOException
+	 *             upon failure to write
+	 * @since 3.0.1
+	 */
+	public void writeAt(long position, byte[] value) throws IOException {
+		if (position < 0 || position + value.length > size) {
+			throw new TiffException("Write at position " + position
+					+ " of " + value.length
+					+ " bytes is outside the written bytes: " + size);
+		}
+		if (channel != null) {
+			os.flush();
+			ByteBuffer buffer = ByteBuffer.wrap(value);
+			while (buffer.hasRemaining()) {
+				channel.write(buffer, position + buffer.position());
+			}
+		} else if (os instanceof BytesOutputStream) {
+			((BytesOutputStream) os).writeAt((int) position, value);
+		} else {
+			throw new TiffException(
+					"Byte writer output stream does not support writing at previous positions");
+		}
 	}
 
 	/**
@@ -106,7 +229,7 @@ public class ByteWriter {
 	 */
 	public int writeString(String value) throws IOException {
 		byte[] valueBytes = value.getBytes();
-		os.write(valueBytes);
+		write(valueBytes);
 		return valueBytes.length;
 	}
 
@@ -117,7 +240,7 @@ public class ByteWriter {
 	 *            byte
 	 */
 	public void writeByte(byte value) {
-		os.write(value);
+		write(value);
 	}
 
 	/**
@@ -127,7 +250,7 @@ public class ByteWriter {
 	 *            unsigned byte as a short
 	 */
 	public void writeUnsignedByte(short value) {
-		os.write((byte) (value & 0xff));
+		write((byte) (value & 0xff));
 	}
 
 	/**
@@ -139,7 +262,7 @@ public class ByteWriter {
 	 *             upon failure to write
 	 */
 	public void writeBytes(byte[] value) throws IOException {
-		os.write(value);
+		write(value);
 	}
 
 	/**
@@ -156,7 +279,7 @@ public class ByteWriter {
 				.putShort(value);
 		byteBuffer.flip();
 		byteBuffer.get(valueBytes);
-		os.write(valueBytes);
+		write(valueBytes);
 	}
 
 	/**
@@ -173,7 +296,7 @@ public class ByteWriter {
 				.putShort((short) (value & 0xffff));
 		byteBuffer.flip();
 		byteBuffer.get(valueBytes);
-		os.write(valueBytes);
+		write(valueBytes);
 	}
 
 	/**
@@ -190,7 +313,7 @@ public class ByteWriter {
 				.putInt(value);
 		byteBuffer.flip();
 		byteBuffer.get(valueBytes);
-		os.write(valueBytes);
+		write(valueBytes);
 	}
 
 	/**
@@ -207,7 +330,25 @@ public class ByteWriter {
 				.putInt((int) (value & 0xffffffffL));
 		byteBuffer.flip();
 		byteBuffer.get(valueBytes);
-		os.write(valueBytes);
+		write(valueBytes);
+	}
+
+	/**
+	 * Write a long
+	 * 
+	 * @param value
+	 *            long
+	 * @throws IOException
+	 *             upon failure to write
+	 * @since 3.0.1
+	 */
+	public void writeLong(long value) throws IOException {
+		byte[] valueBytes = new byte[8];
+		ByteBuffer byteBuffer = ByteBuffer.allocate(8).order(byteOrder)
+				.putLong(value);
+		byteBuffer.flip();
+		byteBuffer.get(valueBytes);
+		write(valueBytes);
 	}
 
 	/**
@@ -224,7 +365,7 @@ public class ByteWriter {
 				.putFloat(value);
 		byteBuffer.flip();
 		byteBuffer.get(valueBytes);
-		os.write(valueBytes);
+		write(valueBytes);
 	}
 
 	/**
@@ -241,7 +382,54 @@ public class ByteWriter {
 				.putDouble(value);
 		byteBuffer.flip();
 		byteBuffer.get(valueBytes);
-		os.write(valueBytes);
+		write(valueBytes);
+	}
+
+	/**
+	 * Write a byte to the output stream
+	 * 
+	 * @param value
+	 *            byte
+	 */
+	private void write(byte value) {
+		try {
+			os.write(value);
+		} catch (IOException e) {
+			throw new TiffException("Failed to write byte", e);
+		}
+		size++;
+	}
+
+	/**
+	 * Write bytes to the output stream
+	 * 
+	 * @param value
+	 *            bytes
+	 * @throws IOException
+	 *             upon failure to write
+	 */
+	private void write(byte[] value) throws IOException {
+		os.write(value);
+		size += value.length;
+	}
+
+	/**
+	 * Byte array output stream supporting overwrites of written bytes
+	 */
+	private static class BytesOutputStream extends ByteArrayOutputStream {
+
+		/**
+		 * Overwrite written bytes at the position
+		 * 
+		 * @param position
+		 *            byte position
+		 * @param value
+		 *            bytes
+		 */
+		public synchronized void writeAt(int position, byte[] value) {
+			System.arraycopy(value, 0, buf, position, value.length);
+		}
+
 	}
 
 }
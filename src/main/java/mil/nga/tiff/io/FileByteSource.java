@@ -0,0 +1,69 @@
+package mil.nga.tiff.io;
+
+import java.io.EOFException;
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * File byte source, reading ranges with positional file channel reads
+ * 
+ * @author osbornb
+ * @since 3.0.1
+ */
+public class FileByteSource implements ByteSource {
+
+	/**
+	 * File channel
+	 */
+	private final FileChannel channel;
+
+	/**
+	 * Constructor
+	 * 
+	 * @param file
+	 *            file
+	 * @throws IOException
+	 *             upon failure to open the file
+	 */
+	public FileByteSource(File file) throws IOException {
+		channel = FileChannel.open(file.toPath(), StandardOpenOption.READ);
+	}
+
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	public long length() throws IOException {
+		return channel.size();
+	}
+
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	public byte[] readRange(long offset, int length) throws IOException {
+		byte[] bytes = new byte[length];
+		ByteBuffer buffer = ByteBuffer.wrap(bytes);
+		while (buffer.hasRemaining()) {
+			int read = channel.read(buffer, offset + buffer.position());
+			if (read < 0) {
+				throw new EOFException("End of file reached. Offset: "
+						+ offset + ", Length: " + length + ", Read: "
+						+ buffer.position());
+			}
+		}
+		return bytes;
+	}
+
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	public void close() throws IOException {
+		channel.close();
+	}
+
+}
@@ -7,6 +7,9 @@ import java.io.FileOutputStream;
 import java.io.IOException;
 import java.io.InputStream;
 import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.StandardOpenOption;
 
 /**
  * Input / Output utility methods
@@ -22,6 +25,51 @@ public class IOUtils {
 	 */
 	public static int COPY_BUFFER_SIZE = 8192;
 
+	/**
+	 * Memory-mapped file segment size in bytes
+	 * 
+	 * @since 3.0.1
+	 */
+	public static int MAP_SEGMENT_SIZE = 1 << 30;
+
+	/**
+	 * Byte source chunk size in bytes, read at a time for values and smaller
+	 * byte reads
+	 * 
+	 * @since 3.0.1
+	 */
+	public static int SOURCE_CHUNK_SIZE = 64 * 1024;
+
+	/**
+	 * Number of recently read byte source chunks kept by a byte reader
+	 * 
+	 * @since 3.0.1
+	 */
+	public static int SOURCE_CACHE_CHUNKS = 16;
+
+	/**
+	 * Max gap in bytes between tile or strip byte ranges coalesced into a
+	 * single byte source range read
+	 * 
+	 * @since 3.0.1
+	 */
+	public static int COALESCE_GAP_SIZE = 64 * 1024;
+
+	/**
+	 * Max undecoded tile or strip bytes read ahead of the concurrent decode
+	 * tasks of a raster read
+	 * 
+	 * @since 3.0.1
+	 */
+	public static int READ_AHEAD_SIZE = 32 * 1024 * 1024;
+
+	/**
+	 * Default prefix size in bytes read when probing a TIFF for metadata
+	 * 
+	 * @since 3.0.1
+	 */
+	public static int PROBE_PREFIX_SIZE = 16 * 1024;
+
 	/**
 	 * Copy a file to a file location
 	 * 
@@ -74,6 +122,41 @@ public class IOUtils {
 		return streamBytes(fis);
 	}
 
+	/**
+	 * Memory-map the file for read only access. The file bytes are paged in
+	 * by the operating system as they are read instead of copied to the heap.
+	 * Files are mapped in segments of {@link #MAP_SEGMENT_SIZE} bytes,
+	 * supporting files larger than the max integer size.
+	 * 
+	 * @param file
+	 *            file
+	 * @return mapped byte buffer segments
+	 * @throws IOException
+	 *             upon failure to map the file
+	 * @since 3.0.1
+	 */
+	public static ByteBuffer[] mapFile(File file) throws IOException {
+
+		try (FileChannel channel = FileChannel.open(file.toPath(),
+				StandardOpenOption.READ)) {
+
+			long size = channel.size();
+			int segmentSize = MAP_SEGMENT_SIZE;
+			int segmentCount = (int) Math.max(1,
+					(size + segmentSize - 1) / segmentSize);
+
+			ByteBuffer[] segments = new ByteBuffer[segmentCount];
+			for (int i = 0; i < segmentCount; i++) {
+				long position = (long) i * segmentSize;
+				long segmentBytes = Math.min(segmentSize, size - position);
+				segments[i] = channel.map(FileChannel.MapMode.READ_ONLY,
+						position, segmentBytes);
+			}
+
+			return segments;
+		}
+	}
+
 	/**
 	 * Get the stream bytes
 	 * 
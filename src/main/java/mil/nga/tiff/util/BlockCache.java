@@ -0,0 +1,83 @@
+package mil.nga.tiff.util;
+
+import java.nio.ByteBuffer;
+
+/**
+ * Cache of decoded tile and strip blocks of a file directory, by block index.
+ * Implementations must support concurrent access.
+ * 
+ * @author osbornb
+ * @since 3.0.1
+ */
+public interface BlockCache {
+
+	/**
+	 * Get the decoded block
+	 * 
+	 * @param index
+	 *            block index
+	 * @return decoded block, null if not cached
+	 */
+	byte[] get(int index);
+
+	/**
+	 * Determine if the block is cached, without counting as a cache access
+	 * 
+	 * @param index
+	 *            block index
+	 * @return true if cached
+	 */
+	boolean contains(int index);
+
+	/**
+	 * Copy rows of the decoded block into a buffer, without copying the whole
+	 * block. Counts as a cache access like {@link #get(int)}.
+	 * 
+	 * @param index
+	 *            block index
+	 * @param blockOffset
+	 *            block byte offset of the first row
+	 * @param blockRowBytes
+	 *            block bytes between rows
+	 * @param buffer
+	 *            buffer to copy into
+	 * @param bufferOffset
+	 *            buffer byte offset of the first row
+	 * @param bufferRowBytes
+	 *            buffer bytes between rows
+	 * @param length
+	 *            bytes to copy from each row
+	 * @param rows
+	 *            number of rows
+	 * @return true if copied, false if not cached
+	 */
+	boolean copy(int index, int blockOffset, int blockRowBytes,
+			ByteBuffer buffer, int bufferOffset, int bufferRowBytes,
+			int length, int rows);
+
+	/**
+	 * Cache the decoded block
+	 * 
+	 * @param index
+	 *            block index
+	 * @param block
+	 *            decoded block
+	 */
+	void put(int index, byte[] block);
+
+	/**
+	 * Remove all cached blocks
+	 */
+	void clear();
+
+	/**
+	 * Get the block cache of a child file directory, such as a SubIFD or Exif
+	 * directory, sharing the storage and maximum bytes of this cache
+	 * 
+	 * @param byteOffset
+	 *            child file directory byte offset, unique within the file
+	 * @return child block cache
+	 */
+	BlockCache getChildCache(long byteOffset);
+
+}
@@ -0,0 +1,47 @@
+package mil.nga.tiff.util;
+
+/**
+ * Fixed size, read only list view of a primitive double array, storing large
+ * numeric file directory entry values without boxing each value
+ * 
+ * @author osbornb
+ * @since 3.0.1
+ */
+public class DoubleArrayList extends PrimitiveArrayList<Double, double[]> {
+
+	/**
+	 * Values
+	 */
+	private final double[] values;
+
+	/**
+	 * Constructor
+	 * 
+	 * @param values
+	 *            double values
+	 */
+	public DoubleArrayList(double[] values) {
+		super(values);
+		this.values = values;
+	}
+
+	/**
+	 * Get the primitive value at the index
+	 * 
+	 * @param index
+	 *            index
+	 * @return double value
+	 */
+	public double getDouble(int index) {
+		return values[index];
+	}
+
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	public Double get(int index) {
+		return values[index];
+	}
+
+}
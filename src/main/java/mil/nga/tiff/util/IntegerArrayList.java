@@ -0,0 +1,47 @@
+package mil.nga.tiff.util;
+
+/**
+ * Fixed size, read only list view of a primitive int array, storing large
+ * numeric file directory entry values without boxing each value
+ * 
+ * @author osbornb
+ * @since 3.0.1
+ */
+public class IntegerArrayList extends PrimitiveArrayList<Integer, int[]> {
+
+	/**
+	 * Values
+	 */
+	private final int[] values;
+
+	/**
+	 * Constructor
+	 * 
+	 * @param values
+	 *            int values
+	 */
+	public IntegerArrayList(int[] values) {
+		super(values);
+		this.values = values;
+	}
+
+	/**
+	 * Get the primitive value at the index
+	 * 
+	 * @param index
+	 *            index
+	 * @return int value
+	 */
+	public int getInt(int index) {
+		return values[index];
+	}
+
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	public Integer get(int index) {
+		return values[index];
+	}
+
+}
@@ -0,0 +1,269 @@
+package mil.nga.tiff.util;
+
+import java.nio.ByteBuffer;
+
+/**
+ * Least recently used block cache bounded by a maximum number of decoded
+ * bytes, with hit, miss, and eviction counters. Child file directory caches
+ * share the blocks, maximum bytes, and counters of the cache.
+ * 
+ * @author osbornb
+ * @since 3.0.1
+ */
+public class LRUBlockCache implements BlockCache {
+
+	/**
+	 * Default maximum number of cached bytes
+	 */
+	public static long DEFAULT_MAX_BYTES = 64 * 1024 * 1024;
+
+	/**
+	 * Block key of a file directory block
+	 */
+	private static class Key {
+
+		/**
+		 * Child file directory byte offset, 0 for the cache file directory
+		 */
+		private final long directory;
+
+		/**
+		 * Block index
+		 */
+		private final int block;
+
+		/**
+		 * Constructor
+		 * 
+		 * @param directory
+		 *            child file directory byte offset, 0 for the cache file
+		 *            directory
+		 * @param block
+		 *            block index
+		 */
+		private Key(long directory, int block) {
+			this.directory = directory;
+			this.block = block;
+		}
+
+		/**
+		 * {@inheritDoc}
+		 */
+		@Override
+		public int hashCode() {
+			return Long.hashCode(directory) * 31 + block;
+		}
+
+		/**
+		 * {@inheritDoc}
+		 */
+		@Override
+		public boolean equals(Object obj) {
+			if (this == obj) {
+				return true;
+			}
+			if (!(obj instanceof Key)) {
+				return false;
+			}
+			Key other = (Key) obj;
+			return directory == other.directory && block == other.block;
+		}
+
+	}
+
+	/**
+	 * Least recently used blocks by key, shared with the child caches and
+	 * synchronized on
+	 */
+	private final LRUCache<Key, byte[]> blocks;
+
+	/**
+	 * Child file directory byte offset, 0 for the cache file directory
+	 */
+	private final long directory;
+
+	/**
+	 * Constructor, using {@link #DEFAULT_MAX_BYTES}
+	 */
+	public LRUBlockCache() {
+		this(DEFAULT_MAX_BYTES);
+	}
+
+	/**
+	 * Constructor
+	 * 
+	 * @param maxBytes
+	 *            maximum number of cached bytes
+	 */
+	public LRUBlockCache(long maxBytes) {
+		this(new LRUCache<Key, byte[]>(maxBytes) {
+			@Override
+			protected long size(byte[] block) {
+				return block.length;
+			}
+		}, 0);
+	}
+
+	/**
+	 * Constructor
+	 * 
+	 * @param blocks
+	 *            least recently used blocks
+	 * @param directory
+	 *            child file directory byte offset, 0 for the cache file
+	 *            directory
+	 */
+	private LRUBlockCache(LRUCache<Key, byte[]> blocks, long directory) {
+		this.blocks = blocks;
+		this.directory = directory;
+	}
+
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	public byte[] get(int index) {
+		synchronized (blocks) {
+			return blocks.get(new Key(directory, index));
+		}
+	}
+
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	public boolean contains(int index) {
+		synchronized (blocks) {
+			return blocks.contains(new Key(directory, index));
+		}
+	}
+
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	public boolean copy(int index, int blockOffset, int blockRowBytes,
+			ByteBuffer buffer, int bufferOffset, int bufferRowBytes,
+			int length, int rows) {
+		byte[] block = get(index);
+		if (block != null) {
+			ByteBuffer target = buffer.duplicate();
+			for (int row = 0; row < rows; row++) {
+				target.position(bufferOffset + row * bufferRowBytes);
+				target.put(block, blockOffset + row * blockRowBytes, length);
+			}
+		}
+		return block != null;
+	}
+
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	public void put(int index, byte[] block) {
+		synchronized (blocks) {
+			blocks.put(new Key(directory, index), block);
+		}
+	}
+
+	/**
+	 * Remove all cached blocks, including child file directory blocks. A
+	 * child file directory cache removes only the child blocks.
+	 */
+	@Override
+	public void clear() {
+		synchronized (blocks) {
+			if (directory == 0) {
+				blocks.clear();
+			} else {
+				for (Key key : blocks.keys()) {
+					if (key.directory == directory) {
+						blocks.remove(key);
+					}
+				}
+			}
+		}
+	}
+
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	public BlockCache getChildCache(long byteOffset) {
+		return new LRUBlockCache(blocks, byteOffset);
+	}
+
+	/**
+	 * Get the maximum number of cached bytes
+	 * 
+	 * @return max bytes
+	 */
+	public long getMaxBytes() {
+		return blocks.getMaxBytes();
+	}
+
+	/**
+	 * Get the number of cached bytes
+	 * 
+	 * @return bytes
+	 */
+	public long getBytes() {
+		synchronized (blocks) {
+			return blocks.getBytes();
+		}
+	}
+
+	/**
+	 * Get the number of cached blocks
+	 * 
+	 * @return blocks
+	 */
+	public int size() {
+		synchronized (blocks) {
+			return blocks.size();
+		}
+	}
+
+	/**
+	 * Get the number of cache hits
+	 * 
+	 * @return hits
+	 */
+	public long getHits() {
+		synchronized (blocks) {
+			return blocks.getHits();
+		}
+	}
+
+	/**
+	 * Get the number of cache misses
+	 * 
+	 * @return misses
+	 */
+	public long getMisses() {
+		synchronized (blocks) {
+			return blocks.getMisses();
+		}
+	}
+
+	/**
+	 * Get the number of evicted blocks
+	 * 
+	 * @return evictions
+	 */
+	public long getEvictions() {
+		synchronized (blocks) {
+			return blocks.getEvictions();
+		}
+	}
+
+	/**
+	 * Reset the hit, miss, and eviction counters
+	 */
+	public void resetCounters() {
+		synchronized (blocks) {
+			blocks.resetCounters();
+		}
+	}
+
+}
@@ -0,0 +1,277 @@
+package mil.nga.tiff.util;
+
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Least recently used cache core bounded by a maximum number of bytes, with
+ * hit, miss, and eviction counters. Not thread safe, the owning cache
+ * synchronizes access.
+ * 
+ * @param <K>
+ *            key type
+ * @param <V>
+ *            value type
+ * 
+ * @author osbornb
+ * @since 3.0.1
+ */
+abstract class LRUCache<K, V> {
+
+	/**
+	 * Values by key in access order
+	 */
+	private final LinkedHashMap<K, V> entries = new LinkedHashMap<>(16, 0.75f,
+			true);
+
+	/**
+	 * Maximum number of cached bytes
+	 */
+	private final long maxBytes;
+
+	/**
+	 * Number of cached bytes
+	 */
+	private long bytes = 0;
+
+	/**
+	 * Cache hits
+	 */
+	private long hits = 0;
+
+	/**
+	 * Cache misses
+	 */
+	private long misses = 0;
+
+	/**
+	 * Evicted values
+	 */
+	private long evictions = 0;
+
+	/**
+	 * Constructor
+	 * 
+	 * @param maxBytes
+	 *            maximum number of cached bytes
+	 */
+	LRUCache(long maxBytes) {
+		this.maxBytes = maxBytes;
+	}
+
+	/**
+	 * Get the number of bytes of a value
+	 * 
+	 * @param value
+	 *            value
+	 * @return bytes
+	 */
+	protected abstract long size(V value);
+
+	/**
+	 * Called when a value is replaced, evicted, or removed from the cache
+	 * 
+	 * @param value
+	 *            removed value
+	 */
+	protected void removed(V value) {
+
+	}
+
+	/**
+	 * Get a value, counting a hit or miss
+	 * 
+	 * @param key
+	 *            key
+	 * @return value, null if not cached
+	 */
+	V get(K key) {
+		V value = entries.get(key);
+		if (value != null) {
+			hits++;
+		} else {
+			misses++;
+		}
+		return value;
+	}
+
+	/**
+	 * Determine if a value is cached, without counting as a cache access
+	 * 
+	 * @param key
+	 *            key
+	 * @return true if cached
+	 */
+	boolean contains(K key) {
+		return entries.containsKey(key);
+	}
+
+	/**
+	 * Cache a value, evicting the least recently used values over the
+	 * maximum number of bytes. Values larger than the cache are not cached.
+	 * 
+	 * @param key
+	 *            key
+	 * @param value
+	 *            value
+	 * @return true if cached
+	 */
+	boolean put(K key, V value) {
+
+		long valueBytes = size(value);
+		if (valueBytes > maxBytes) {
+			return false;
+		}
+
+		V previous = entries.put(key, value);
+		if (previous != null) {
+			bytes -= size(previous);
+			removed(previous);
+		}
+		bytes += valueBytes;
+
+		// Evict the least recently used values
+		Iterator<Map.Entry<K, V>> iterator = entries.entrySet().iterator();
+		while (bytes > maxBytes && iterator.hasNext()) {
+			Map.Entry<K, V> eldest = iterator.next();
+			if (!eldest.getKey().equals(key)) {
+				iterator.remove();
+				evicted(eldest.getValue());
+			}
+		}
+
+		return true;
+	}
+
+	/**
+	 * Evict the least recently used value
+	 * 
+	 * @return true if evicted, false if empty
+	 */
+	boolean evictEldest() {
+		Iterator<V> iterator = entries.values().iterator();
+		boolean evicted = iterator.hasNext();
+		if (evicted) {
+			V eldest = iterator.next();
+			iterator.remove();
+			evicted(eldest);
+		}
+		return evicted;
+	}
+
+	/**
+	 * Remove a value
+	 * 
+	 * @param key
+	 *            key
+	 * @return true if removed
+	 */
+	boolean remove(K key) {
+		V value = entries.remove(key);
+		if (value != null) {
+			bytes -= size(value);
+			removed(value);
+		}
+		return value != null;
+	}
+
+	/**
+	 * Get the cached keys, from least to most recently used
+	 * 
+	 * @return keys
+	 */
+	List<K> keys() {
+		return new ArrayList<>(entries.keySet());
+	}
+
+	/**
+	 * Remove all values
+	 */
+	void clear() {
+		List<V> values = new ArrayList<>(entries.values());
+		entries.clear();
+		bytes = 0;
+		for (V value : values) {
+			removed(value);
+		}
+	}
+
+	/**
+	 * Get the maximum number of cached bytes
+	 * 
+	 * @return max bytes
+	 */
+	long getMaxBytes() {
+		return maxBytes;
+	}
+
+	/**
+	 * Get the number of cached bytes
+	 * 
+	 * @return bytes
+	 */
+	long getBytes() {
+		return bytes;
+	}
+
+	/**
+	 * Get the number of cached values
+	 * 
+	 * @return values
+	 */
+	int size() {
+		return entries.size();
+	}
+
+	/**
+	 * Get the number of cache hits
+	 * 
+	 * @return hits
+	 */
+	long getHits() {
+		return hits;
+	}
+
+	/**
+	 * Get the number of cache misses
+	 * 
+	 * @return misses
+	 */
+	long getMisses() {
+		return misses;
+	}
+
+	/**
+	 * Get the number of evicted values
+	 * 
+	 * @return evictions
+	 */
+	long getEvictions() {
+		return evictions;
+	}
+
+	/**
+	 * Reset the hit, miss, and eviction counters
+	 */
+	void resetCounters() {
+		hits = 0;
+		misses = 0;
+		evictions = 0;
+	}
+
+	/**
+	 * Account for an evicted value
+	 * 
+	 * @param value
+	 *            evicted value
+	 */
+	private void evicted(V value) {
+		bytes -= size(value);
+		evictions++;
+		removed(value);
+	}
+
+}
@@ -0,0 +1,47 @@
+package mil.nga.tiff.util;
+
+/**
+ * Fixed size, read only list view of a primitive long array, storing large
+ * numeric file directory entry values without boxing each value
+ * 
+ * @author osbornb
+ * @since 3.0.1
+ */
+public class LongArrayList extends PrimitiveArrayList<Long, long[]> {
+
+	/**
+	 * Values
+	 */
+	private final long[] values;
+
+	/**
+	 * Constructor
+	 * 
+	 * @param values
+	 *            long values
+	 */
+	public LongArrayList(long[] values) {
+		super(values);
+		this.values = values;
+	}
+
+	/**
+	 * Get the primitive value at the index
+	 * 
+	 * @param index
+	 *            index
+	 * @return long value
+	 */
+	public long getLong(int index) {
+		return values[index];
+	}
+
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	public Long get(int index) {
+		return values[index];
+	}
+
+}
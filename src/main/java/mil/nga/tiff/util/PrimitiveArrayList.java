@@ -0,0 +1,65 @@
+package mil.nga.tiff.util;
+
+import java.lang.reflect.Array;
+import java.util.AbstractList;
+import java.util.RandomAccess;
+
+/**
+ * Fixed size, read only list view of a primitive array, storing large numeric
+ * file directory entry values without boxing each value. The primitive array
+ * is not exposed, copies are returned by {@link #toPrimitiveArray()}.
+ * 
+ * @author osbornb
+ * 
+ * @param <E>
+ *            boxed element type
+ * @param <A>
+ *            primitive array type
+ * @since 3.0.1
+ */
+public abstract class PrimitiveArrayList<E extends Number, A>
+		extends AbstractList<E> implements RandomAccess {
+
+	/**
+	 * Primitive array values
+	 */
+	private final A values;
+
+	/**
+	 * Number of values
+	 */
+	private final int size;
+
+	/**
+	 * Constructor
+	 * 
+	 * @param values
+	 *            primitive array values
+	 */
+	protected PrimitiveArrayList(A values) {
+		this.values = values;
+		this.size = Array.getLength(values);
+	}
+
+	/**
+	 * Copy the values into a new primitive array
+	 * 
+	 * @return primitive array copy
+	 */
+	@SuppressWarnings("unchecked")
+	public A toPrimitiveArray() {
+		A copy = (A) Array.newInstance(values.getClass().getComponentType(),
+				size);
+		System.arraycopy(values, 0, copy, 0, size);
+		return copy;
+	}
+
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	public int size() {
+		return size;
+	}
+
+}
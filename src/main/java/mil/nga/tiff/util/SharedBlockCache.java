@@ -0,0 +1,701 @@
+package mil.nga.tiff.util;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+
+/**
+ * Process wide least recently used cache of decoded tile and strip blocks,
+ * shared across TIFF Images and file handles. Blocks are keyed by file
+ * identity, file directory index, and block index, and are stored off the
+ * Java heap in pages carved from fixed size direct byte buffer slabs. The
+ * slabs together never exceed the global maximum number of bytes, and freed
+ * pages are reused through a free list. Raster reads copy rows straight
+ * from the pages with {@link BlockCache#copy}. Use
+ * {@link #getBlockCache(Object, int)} to get the {@link BlockCache} of a
+ * file directory.
+ * 
+ * @author osbornb
+ * @since 3.0.1
+ */
+public class SharedBlockCache {
+
+	/**
+	 * Default maximum number of cached bytes of the shared instance
+	 */
+	public static long DEFAULT_MAX_BYTES = 256 * 1024 * 1024;
+
+	/**
+	 * Default page size in bytes that blocks are stored in
+	 * 
+	 * @since 3.0.1
+	 */
+	public static int DEFAULT_PAGE_SIZE = 16 * 1024;
+
+	/**
+	 * Size in bytes of the off heap slabs pages are carved from
+	 * 
+	 * @since 3.0.1
+	 */
+	public static int SLAB_SIZE = 4 * 1024 * 1024;
+
+	/**
+	 * Shared instance
+	 */
+	private static SharedBlockCache instance = null;
+
+	/**
+	 * Get the process wide shared instance, created with
+	 * {@link #DEFAULT_MAX_BYTES} on first access
+	 * 
+	 * @return shared block cache
+	 */
+	public static synchronized SharedBlockCache getInstance() {
+		if (instance == null) {
+			instance = new SharedBlockCache(DEFAULT_MAX_BYTES);
+		}
+		return instance;
+	}
+
+	/**
+	 * Get the identity of a file, changing when the file is modified
+	 * 
+	 * @param file
+	 *            file
+	 * @return file identity
+	 * @throws IOException
+	 *             upon failure to resolve the file path
+	 */
+	public static String fileIdentity(File file) throws IOException {
+		return file.getCanonicalPath() + ":" + file.length() + ":"
+				+ file.lastModified();
+	}
+
+	/**
+	 * Cache key of a file directory block
+	 */
+	private static class Key {
+
+		/**
+		 * File identity
+		 */
+		private final Object file;
+
+		/**
+		 * File directory index
+		 */
+		private final int directory;
+
+		/**
+		 * Child file directory byte offset, 0 for the indexed file directory
+		 */
+		private final long child;
+
+		/**
+		 * Block index
+		 */
+		private final int block;
+
+		/**
+		 * Constructor
+		 * 
+		 * @param file
+		 *            file identity
+		 * @param directory
+		 *            file directory index
+		 * @param child
+		 *            child file directory byte offset, 0 for the indexed file
+		 *            directory
+		 * @param block
+		 *            block index
+		 */
+		private Key(Object file, int directory, long child, int block) {
+			this.file = file;
+			this.directory = directory;
+			this.child = child;
+			this.block = block;
+		}
+
+		/**
+		 * {@inheritDoc}
+		 */
+		@Override
+		public int hashCode() {
+			return ((file.hashCode() * 31 + directory) * 31
+					+ Long.hashCode(child)) * 31 + block;
+		}
+
+		/**
+		 * {@inheritDoc}
+		 */
+		@Override
+		public boolean equals(Object obj) {
+			if (this == obj) {
+				return true;
+			}
+			if (!(obj instanceof Key)) {
+				return false;
+			}
+			Key other = (Key) obj;
+			return directory == other.directory && child == other.child
+					&& block == other.block && file.equals(other.file);
+		}
+
+	}
+
+	/**
+	 * Cached block stored in slab pages
+	 */
+	private static class Block {
+
+		/**
+		 * Page indices holding the block bytes, in order
+		 */
+		private final int[] pages;
+
+		/**
+		 * Block length in bytes
+		 */
+		private final int length;
+
+		/**
+		 * Number of reads in progress, which keep the pages from reuse
+		 */
+		private int pins = 0;
+
+		/**
+		 * True when evicted or removed from the cache
+		 */
+		private boolean removed = false;
+
+		/**
+		 * Constructor
+		 * 
+		 * @param pages
+		 *            page indices
+		 * @param length
+		 *            block length in bytes
+		 */
+		private Block(int[] pages, int length) {
+			this.pages = pages;
+			this.length = length;
+		}
+
+	}
+
+	/**
+	 * Least recently used off heap blocks by key
+	 */
+	private final LRUCache<Key, Block> blocks;
+
+	/**
+	 * Page size in bytes
+	 */
+	private final int pageSize;
+
+	/**
+	 * Number of pages in each slab
+	 */
+	private final int slabPages;
+
+	/**
+	 * Fixed size off heap slabs the pages are carved from, each allocated on
+	 * first use
+	 */
+	private final ByteBuffer[] slabs;
+
+	/**
+	 * Free page indices, a stack of the first free count entries
+	 */
+	private final int[] freePages;
+
+	/**
+	 * Number of free pages
+	 */
+	private int freeCount;
+
+	/**
+	 * Constructor, using {@link #DEFAULT_PAGE_SIZE}
+	 * 
+	 * @param maxBytes
+	 *            maximum number of cached bytes
+	 */
+	public SharedBlockCache(long maxBytes) {
+		this(maxBytes, DEFAULT_PAGE_SIZE);
+	}
+
+	/**
+	 * Constructor
+	 * 
+	 * @param maxBytes
+	 *            maximum number of cached bytes, rounded down to whole pages
+	 * @param pageSize
+	 *            page size in bytes that blocks are stored in
+	 * @since 3.0.1
+	 */
+	public SharedBlockCache(long maxBytes, int pageSize) {
+		if (pageSize < 1) {
+			throw new TiffException("Invalid page size: " + pageSize);
+		}
+		this.pageSize = pageSize;
+		int pages = (int) Math.min(Math.max(0, maxBytes / pageSize),
+				Integer.MAX_VALUE);
+		slabPages = Math.max(1, SLAB_SIZE / pageSize);
+		slabs = new ByteBuffer[(pages + slabPages - 1) / slabPages];
+		freePages = new int[pages];
+		for (int i = 0; i < pages; i++) {
+			freePages[i] = pages - 1 - i;
+		}
+		freeCount = pages;
+		blocks = new LRUCache<Key, Block>((long) pages * pageSize) {
+			@Override
+			protected long size(Block block) {
+				return (long) block.pages.length
+						* SharedBlockCache.this.pageSize;
+			}
+
+			@Override
+			protected void removed(Block block) {
+				block.removed = true;
+				if (block.pins == 0) {
+					free(block.pages);
+				}
+			}
+		};
+	}
+
+	/**
+	 * Get the block cache of a file directory, backed by this shared cache
+	 * 
+	 * @param fileIdentity
+	 *            file identity, such as {@link #fileIdentity(File)}, with
+	 *            equals and hash code implementations
+	 * @param directory
+	 *            file directory index
+	 * @return block cache
+	 */
+	public BlockCache getBlockCache(Object fileIdentity, int directory) {
+		return getBlockCache(fileIdentity, directory, 0);
+	}
+
+	/**
+	 * Get the block cache of a file directory or of one of its child file
+	 * directories, backed by this shared cache
+	 * 
+	 * @param fileIdentity
+	 *            file identity
+	 * @param directory
+	 *            file directory index
+	 * @param child
+	 *            child file directory byte offset, 0 for the indexed file
+	 *            directory
+	 * @return block cache
+	 */
+	private BlockCache getBlockCache(final Object fileIdentity,
+			final int directory, final long child) {
+		return new BlockCache() {
+
+			/**
+			 * {@inheritDoc}
+			 */
+			@Override
+			public byte[] get(int index) {
+				return SharedBlockCache.this
+						.get(new Key(fileIdentity, directory, child, index));
+			}
+
+			/**
+			 * {@inheritDoc}
+			 */
+			@Override
+			public boolean contains(int index) {
+				return SharedBlockCache.this.contains(
+						new Key(fileIdentity, directory, child, index));
+			}
+
+			/**
+			 * {@inheritDoc}
+			 */
+			@Override
+			public boolean copy(int index, int blockOffset,
+					int blockRowBytes, ByteBuffer buffer, int bufferOffset,
+					int bufferRowBytes, int length, int rows) {
+				return SharedBlockCache.this.copy(
+						new Key(fileIdentity, directory, child, index),
+						blockOffset, blockRowBytes, buffer, bufferOffset,
+						bufferRowBytes, length, rows);
+			}
+
+			/**
+			 * {@inheritDoc}
+			 */
+			@Override
+			public void put(int index, byte[] block) {
+				SharedBlockCache.this.put(
+						new Key(fileIdentity, directory, child, index), block);
+			}
+
+			/**
+			 * {@inheritDoc}
+			 */
+			@Override
+			public void clear() {
+				SharedBlockCache.this.clear(fileIdentity, directory, child);
+			}
+
+			/**
+			 * {@inheritDoc}
+			 */
+			@Override
+			public BlockCache getChildCache(long byteOffset) {
+				return getBlockCache(fileIdentity, directory, byteOffset);
+			}
+
+		};
+	}
+
+	/**
+	 * Get a block, copied from off heap
+	 * 
+	 * @param key
+	 *            block key
+	 * @return decoded block, null if not cached
+	 */
+	private byte[] get(Key key) {
+		byte[] block = null;
+		Block cached = pin(key);
+		if (cached != null) {
+			try {
+				block = new byte[cached.length];
+				read(cached, 0, ByteBuffer.wrap(block), 0, cached.length);
+			} finally {
+				unpin(cached);
+			}
+		}
+		return block;
+	}
+
+	/**
+	 * Copy rows of a block from off heap into a buffer
+	 * 
+	 * @param key
+	 *            block key
+	 * @param blockOffset
+	 *            block byte offset of the first row
+	 * @param blockRowBytes
+	 *            block bytes between rows
+	 * @param buffer
+	 *            buffer to copy into
+	 * @param bufferOffset
+	 *            buffer byte offset of the first row
+	 * @param bufferRowBytes
+	 *            buffer bytes between rows
+	 * @param length
+	 *            bytes to copy from each row
+	 * @param rows
+	 *            number of rows
+	 * @return true if copied, false if not cached
+	 */
+	private boolean copy(Key key, int blockOffset, int blockRowBytes,
+			ByteBuffer buffer, int bufferOffset, int bufferRowBytes,
+			int length, int rows) {
+		Block cached = pin(key);
+		if (cached != null) {
+			try {
+				for (int row = 0; row < rows; row++) {
+					read(cached, blockOffset + row * blockRowBytes, buffer,
+							bufferOffset + row * bufferRowBytes, length);
+				}
+			} finally {
+				unpin(cached);
+			}
+		}
+		return cached != null;
+	}
+
+	/**
+	 * Determine if a block is cached, without counting as a cache access
+	 * 
+	 * @param key
+	 *            block key
+	 * @return true if cached
+	 */
+	private synchronized boolean contains(Key key) {
+		return blocks.contains(key);
+	}
+
+	/**
+	 * Cache a block, copied off heap into free slab pages
+	 * 
+	 * @param key
+	 *            block key
+	 * @param block
+	 *            decoded block
+	 */
+	private void put(Key key, byte[] block) {
+
+		int pageCount = (block.length + pageSize - 1) / pageSize;
+
+		int[] pages = null;
+		synchronized (this) {
+
+			// Blocks larger than the cache are not cached
+			if (pageCount > freePages.length) {
+				return;
+			}
+
+			// Replace a cached block, then evict the least recently used
+			// blocks until enough pages are free
+			blocks.remove(key);
+			while (freeCount < pageCount && blocks.evictEldest()) {
+				// Pages of blocks being read are freed when unpinned
+			}
+			if (freeCount < pageCount) {
+				return;
+			}
+
+			pages = allocate(pageCount);
+		}
+
+		// Copy into the reserved pages before the block is visible
+		Block cached = new Block(pages, block.length);
+		int offset = 0;
+		for (int page : pages) {
+			int count = Math.min(pageSize, block.length - offset);
+			ByteBuffer target = page(page);
+			target.put(block, offset, count);
+			offset += count;
+		}
+
+		synchronized (this) {
+			blocks.put(key, cached);
+		}
+	}
+
+	/**
+	 * Remove the cached blocks of a file directory
+	 * 
+	 * @param fileIdentity
+	 *            file identity
+	 * @param directory
+	 *            file directory index
+	 * @param child
+	 *            child file directory byte offset, 0 for the indexed file
+	 *            directory
+	 */
+	private synchronized void clear(Object fileIdentity, int directory,
+			long child) {
+		for (Key key : blocks.keys()) {
+			if (key.directory == directory && key.child == child
+					&& key.file.equals(fileIdentity)) {
+				blocks.remove(key);
+			}
+		}
+	}
+
+	/**
+	 * Remove all cached blocks. The slabs are kept for reuse.
+	 */
+	public synchronized void clear() {
+		blocks.clear();
+	}
+
+	/**
+	 * Get and pin a cached block, counting a hit or miss. Pinned block pages
+	 * are not reused until unpinned.
+	 * 
+	 * @param key
+	 *            block key
+	 * @return pinned block, null if not cached
+	 */
+	private synchronized Block pin(Key key) {
+		Block cached = blocks.get(key);
+		if (cached != null) {
+			cached.pins++;
+		}
+		return cached;
+	}
+
+	/**
+	 * Unpin a block, freeing its pages if removed while pinned
+	 * 
+	 * @param cached
+	 *            pinned block
+	 */
+	private synchronized void unpin(Block cached) {
+		cached.pins--;
+		if (cached.removed && cached.pins == 0) {
+			free(cached.pages);
+		}
+	}
+
+	/**
+	 * Copy bytes of a pinned block into a buffer
+	 * 
+	 * @param cached
+	 *            pinned block
+	 * @param offset
+	 *            block byte offset
+	 * @param buffer
+	 *            buffer to copy into
+	 * @param bufferOffset
+	 *            buffer byte offset
+	 * @param length
+	 *            number of bytes
+	 */
+	private void read(Block cached, int offset, ByteBuffer buffer,
+			int bufferOffset, int length) {
+		ByteBuffer target = buffer.duplicate();
+		target.position(bufferOffset);
+		while (length > 0) {
+			ByteBuffer source = page(cached.pages[offset / pageSize]);
+			int position = source.position() + offset % pageSize;
+			int count = Math.min(length, source.limit() - position);
+			source.position(position);
+			source.limit(position + count);
+			target.put(source);
+			offset += count;
+			length -= count;
+		}
+	}
+
+	/**
+	 * Get a buffer of a page, positioned at the page start with the limit at
+	 * the page end
+	 * 
+	 * @param page
+	 *            page index
+	 * @return page buffer
+	 */
+	private ByteBuffer page(int page) {
+		ByteBuffer buffer = slabs[page / slabPages].duplicate();
+		int position = (page % slabPages) * pageSize;
+		buffer.limit(position + pageSize);
+		buffer.position(position);
+		return buffer;
+	}
+
+	/**
+	 * Allocate free pages, allocating their slabs on first use
+	 * 
+	 * @param pageCount
+	 *            number of pages
+	 * @return page indices
+	 */
+	private int[] allocate(int pageCount) {
+		int[] pages = new int[pageCount];
+		for (int i = 0; i < pageCount; i++) {
+			int page = freePages[--freeCount];
+			int slab = page / slabPages;
+			if (slabs[slab] == null) {
+				int slabPageCount = Math.min(slabPages,
+						freePages.length - slab * slabPages);
+				slabs[slab] = ByteBuffer
+						.allocateDirect(slabPageCount * pageSize);
+			}
+			pages[i] = page;
+		}
+		return pages;
+	}
+
+	/**
+	 * Return pages to the free list
+	 * 
+	 * @param pages
+	 *            page indices
+	 */
+	private void free(int[] pages) {
+		for (int page : pages) {
+			freePages[freeCount++] = page;
+		}
+	}
+
+	/**
+	 * Get the page size in bytes that blocks are stored in
+	 * 
+	 * @return page size
+	 * @since 3.0.1
+	 */
+	public int getPageSize() {
+		return pageSize;
+	}
+
+	/**
+	 * Get the number of off heap bytes allocated by slabs, never more than
+	 * the maximum number of cached bytes
+	 * 
+	 * @return allocated bytes
+	 * @since 3.0.1
+	 */
+	public synchronized long getAllocatedBytes() {
+		long allocated = 0;
+		for (ByteBuffer slab : slabs) {
+			if (slab != null) {
+				allocated += slab.capacity();
+			}
+		}
+		return allocated;
+	}
+
+	/**
+	 * Get the maximum number of cached bytes
+	 * 
+	 * @return max bytes
+	 */
+	public long getMaxBytes() {
+		return blocks.getMaxBytes();
+	}
+
+	/**
+	 * Get the number of cached bytes, in whole pages
+	 * 
+	 * @return bytes
+	 */
+	public synchronized long getBytes() {
+		return blocks.getBytes();
+	}
+
+	/**
+	 * Get the number of cached blocks
+	 * 
+	 * @return blocks
+	 */
+	public synchronized int size() {
+		return blocks.size();
+	}
+
+	/**
+	 * Get the number of cache hits
+	 * 
+	 * @return hits
+	 */
+	public synchronized long getHits() {
+		return blocks.getHits();
+	}
+
+	/**
+	 * Get the number of cache misses
+	 * 
+	 * @return misses
+	 */
+	public synchronized long getMisses() {
+		return blocks.getMisses();
+	}
+
+	/**
+	 * Get the number of evicted blocks
+	 * 
+	 * @return evictions
+	 */
+	public synchronized long getEvictions() {
+		return blocks.getEvictions();
+	}
+
+	/**
+	 * Reset the hit, miss, and eviction counters
+	 */
+	public synchronized void resetCounters() {
+		blocks.resetCounters();
+	}
+
+}
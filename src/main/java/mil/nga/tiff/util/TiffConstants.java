@@ -22,11 +22,39 @@ public class TiffConstants {
 	 */
 	public static final int FILE_IDENTIFIER = 42;
 
+	/**
+	 * BigTIFF File Identifier
+	 * 
+	 * @since 3.0.1
+	 */
+	public static final int BIGTIFF_FILE_IDENTIFIER = 43;
+
 	/**
 	 * TIFF header bytes
 	 */
 	public static final int HEADER_BYTES = 8;
 
+	/**
+	 * BigTIFF header bytes
+	 * 
+	 * @since 3.0.1
+	 */
+	public static final int BIGTIFF_HEADER_BYTES = 16;
+
+	/**
+	 * BigTIFF byte size of offsets
+	 * 
+	 * @since 3.0.1
+	 */
+	public static final int BIGTIFF_OFFSET_BYTES = 8;
+
+	/**
+	 * Max byte size of a classic TIFF, the largest 4 byte offset
+	 * 
+	 * @since 3.0.1
+	 */
+	public static final long MAX_CLASSIC_BYTES = 0xFFFFFFFFL;
+
 	/**
 	 * Image File Directory header / number of entries bytes
 	 */
@@ -42,6 +70,41 @@ public class TiffConstants {
 	 */
 	public static final int IFD_ENTRY_BYTES = 12;
 
+	/**
+	 * Image File Directory entry inline value bytes
+	 * 
+	 * @since 3.0.1
+	 */
+	public static final int IFD_ENTRY_VALUE_BYTES = 4;
+
+	/**
+	 * BigTIFF Image File Directory header / number of entries bytes
+	 * 
+	 * @since 3.0.1
+	 */
+	public static final int BIGTIFF_IFD_HEADER_BYTES = 8;
+
+	/**
+	 * BigTIFF Image File Directory offset to the next IFD bytes
+	 * 
+	 * @since 3.0.1
+	 */
+	public static final int BIGTIFF_IFD_OFFSET_BYTES = 8;
+
+	/**
+	 * BigTIFF Image File Directory entry bytes
+	 * 
+	 * @since 3.0.1
+	 */
+	public static final int BIGTIFF_IFD_ENTRY_BYTES = 20;
+
+	/**
+	 * BigTIFF Image File Directory entry inline value bytes
+	 * 
+	 * @since 3.0.1
+	 */
+	public static final int BIGTIFF_IFD_ENTRY_VALUE_BYTES = 8;
+
 	/**
 	 * Default max bytes per strip when writing strips
 	 */
@@ -113,6 +176,27 @@ public class TiffConstants {
 	public static final int SUBFILE_TYPE_REDUCED = 2;
 	public static final int SAMPLE_FORMAT_SINGLE_PAGE_MULTI_PAGE = 3;
 
+	/**
+	 * New Subfile Type bit flag of a reduced resolution image
+	 * 
+	 * @since 3.0.1
+	 */
+	public static final int NEW_SUBFILE_TYPE_REDUCED_RESOLUTION = 1;
+
+	/**
+	 * New Subfile Type bit flag of a single page of a multi-page image
+	 * 
+	 * @since 3.0.1
+	 */
+	public static final int NEW_SUBFILE_TYPE_PAGE = 2;
+
+	/**
+	 * New Subfile Type bit flag of a transparency mask
+	 * 
+	 * @since 3.0.1
+	 */
+	public static final int NEW_SUBFILE_TYPE_TRANSPARENCY_MASK = 4;
+
 	// Threshholding constants
 	public static final int THRESHHOLDING_NO = 1;
 	public static final int THRESHHOLDING_ORDERED = 2;
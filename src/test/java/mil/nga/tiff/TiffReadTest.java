@@ -2,12 +2,39 @@ package mil.nga.tiff;
 
 import static org.junit.Assert.fail;
 
+import java.io.ByteArrayInputStream;
 import java.io.File;
+import java.io.FilterInputStream;
 import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.Callable;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
 
 import org.junit.Test;
 
 import junit.framework.TestCase;
+import mil.nga.tiff.compression.Predictor;
+import mil.nga.tiff.io.ByteArrayByteSource;
+import mil.nga.tiff.io.ByteReader;
+import mil.nga.tiff.io.ByteWriter;
+import mil.nga.tiff.io.FileByteSource;
+import mil.nga.tiff.io.IOUtils;
+import mil.nga.tiff.util.BlockCache;
+import mil.nga.tiff.util.IntegerArrayList;
+import mil.nga.tiff.util.LRUBlockCache;
+import mil.nga.tiff.util.LongArrayList;
+import mil.nga.tiff.util.SharedBlockCache;
+import mil.nga.tiff.util.TiffConstants;
 import mil.nga.tiff.util.TiffException;
 
 /**
@@ -373,4 +400,2273 @@ public class TiffReadTest {
 
 	}
 
+	/**
+	 * Test the memory-mapped file read vs the same file read as bytes
+	 * 
+	 * @throws IOException
+	 *             upon error
+	 */
+	@Test
+	public void testFileVsBytes() throws IOException {
+
+		File file = TiffTestUtils
+				.getTestFile(TiffTestConstants.FILE_DEFLATE_PREDICTOR_TILED);
+		TIFFImage fileTiff = TiffReader.readTiff(file);
+
+		byte[] bytes = IOUtils.fileBytes(file);
+		TIFFImage bytesTiff = TiffReader.readTiff(bytes);
+
+		TiffTestUtils.compareTIFFImages(fileTiff, bytesTiff);
+
+	}
+
+	/**
+	 * Test the memory-mapped file read in many small segments vs the same
+	 * file read as bytes
+	 * 
+	 * @throws IOException
+	 *             upon error
+	 */
+	@Test
+	public void testFileSegmentsVsBytes() throws IOException {
+
+		File file = TiffTestUtils
+				.getTestFile(TiffTestConstants.FILE_DEFLATE_PREDICTOR);
+
+		int segmentSize = IOUtils.MAP_SEGMENT_SIZE;
+		TIFFImage fileTiff = null;
+		try {
+			IOUtils.MAP_SEGMENT_SIZE = 4099;
+			fileTiff = TiffReader.readTiff(file);
+		} finally {
+			IOUtils.MAP_SEGMENT_SIZE = segmentSize;
+		}
+
+		byte[] bytes = IOUtils.fileBytes(file);
+		TIFFImage bytesTiff = TiffReader.readTiff(bytes);
+
+		TiffTestUtils.compareTIFFImages(fileTiff, bytesTiff);
+
+	}
+
+	/**
+	 * Test reading a BigTIFF with 8 byte offsets and LONG8 strip offsets and
+	 * byte counts
+	 */
+	@Test
+	public void testBigTiff() {
+
+		int width = 3;
+		int height = 2;
+
+		ByteBuffer buffer = ByteBuffer.allocate(256)
+				.order(ByteOrder.LITTLE_ENDIAN);
+
+		// Header
+		buffer.put(TiffConstants.BYTE_ORDER_LITTLE_ENDIAN
+				.getBytes(StandardCharsets.US_ASCII));
+		buffer.putShort((short) TiffConstants.BIGTIFF_FILE_IDENTIFIER);
+		buffer.putShort((short) TiffConstants.BIGTIFF_OFFSET_BYTES);
+		buffer.putShort((short) 0);
+		buffer.putLong(TiffConstants.BIGTIFF_HEADER_BYTES);
+
+		// Image file directory
+		int entries = 7;
+		long valuesOffset = TiffConstants.BIGTIFF_HEADER_BYTES
+				+ TiffConstants.BIGTIFF_IFD_HEADER_BYTES
+				+ entries * TiffConstants.BIGTIFF_IFD_ENTRY_BYTES
+				+ TiffConstants.BIGTIFF_IFD_OFFSET_BYTES;
+		long stripOffsetsOffset = valuesOffset;
+		long stripByteCountsOffset = valuesOffset + 16;
+		long stripsOffset = valuesOffset + 32;
+		buffer.putLong(entries);
+		putBigTiffEntry(buffer, FieldTagType.ImageWidth, FieldType.SHORT, 1,
+				width);
+		putBigTiffEntry(buffer, FieldTagType.ImageLength, FieldType.SHORT, 1,
+				height);
+		putBigTiffEntry(buffer, FieldTagType.BitsPerSample, FieldType.SHORT,
+				1, 16);
+		putBigTiffEntry(buffer, FieldTagType.Compression, FieldType.SHORT, 1,
+				TiffConstants.COMPRESSION_NO);
+		putBigTiffEntry(buffer, FieldTagType.StripOffsets, FieldType.LONG8,
+				height, stripOffsetsOffset);
+		putBigTiffEntry(buffer, FieldTagType.RowsPerStrip, FieldType.SHORT, 1,
+				1);
+		putBigTiffEntry(buffer, FieldTagType.StripByteCounts, FieldType.LONG8,
+				height, stripByteCountsOffset);
+		buffer.putLong(0);
+
+		// Strip offsets and byte counts
+		for (int strip = 0; strip < height; strip++) {
+			buffer.putLong(stripsOffset + strip * width * 2);
+		}
+		for (int strip = 0; strip < height; strip++) {
+			buffer.putLong(width * 2);
+		}
+
+		// Strips
+		for (int i = 0; i < width * height; i++) {
+			buffer.putShort((short) (i * 1000));
+		}
+
+		byte[] bytes = Arrays.copyOf(buffer.array(), buffer.position());
+		TIFFImage tiffImage = TiffReader.readTiff(bytes);
+		TestCase.assertTrue(tiffImage.isBigTiff());
+		TestCase.assertEquals(1, tiffImage.getFileDirectories().size());
+
+		FileDirectory fileDirectory = tiffImage.getFileDirectory();
+		TestCase.assertEquals(width, fileDirectory.getImageWidth().intValue());
+		TestCase.assertEquals(height,
+				fileDirectory.getImageHeight().intValue());
+		TestCase.assertEquals(FieldType.LONG8, fileDirectory
+				.get(FieldTagType.StripOffsets).getFieldType());
+		TestCase.assertEquals(stripsOffset + width * 2,
+				fileDirectory.getStripOffsets().get(1).longValue());
+
+		Rasters rasters = fileDirectory.readRasters();
+		for (int y = 0; y < height; y++) {
+			for (int x = 0; x < width; x++) {
+				TestCase.assertEquals((y * width + x) * 1000,
+						rasters.getFirstPixelSample(x, y).intValue());
+			}
+		}
+
+		// Deprecated int offset methods match the long offset methods
+		ByteReader reader = new ByteReader(bytes, ByteOrder.LITTLE_ENDIAN);
+		int stripOffset = (int) stripsOffset;
+		TestCase.assertEquals(reader.byteLengthLong(), reader.byteLength());
+		TestCase.assertEquals(reader.readUnsignedShort((long) stripOffset),
+				reader.readUnsignedShort(stripOffset));
+		TestCase.assertEquals(reader.readInt((long) stripOffset),
+				reader.readInt(stripOffset));
+		TestCase.assertTrue(Arrays.equals(
+				reader.readBytes((long) stripOffset, 6),
+				reader.readBytes(stripOffset, 6)));
+		TestCase.assertTrue(reader.hasBytes(stripOffset, 6));
+		reader.setNextByte(stripOffset);
+		TestCase.assertEquals(0, reader.readShort());
+		TestCase.assertEquals(stripOffset + 2, reader.getNextByte());
+		TestCase.assertEquals(stripOffset + 2, reader.getNextByteLong());
+
+		TestCase.assertEquals(FieldType.LONG8, FieldType.getFieldType(16));
+		TestCase.assertNull(FieldType.findFieldType(14));
+		try {
+			FieldType.getFieldType(14);
+			fail("Unknown field type did not fail");
+		} catch (TiffException e) {
+			// expected
+		}
+
+	}
+
+	/**
+	 * Test reading a multiple directory TIFF with lazily parsed file
+	 * directories
+	 * 
+	 * @throws IOException
+	 *             upon error
+	 */
+	@Test
+	public void testLazyFileDirectories() throws IOException {
+
+		TIFFImage tiffImage = new TIFFImage();
+		for (int i = 1; i <= 3; i++) {
+			Rasters rasters = new Rasters(i * 10, i * 5, 1, 16,
+					TiffConstants.SAMPLE_FORMAT_UNSIGNED_INT);
+			for (int y = 0; y < rasters.getHeight(); y++) {
+				for (int x = 0; x < rasters.getWidth(); x++) {
+					rasters.setFirstPixelSample(x, y, i * 1000 + y * 10 + x);
+				}
+			}
+			FileDirectory fileDirectory = new FileDirectory(rasters);
+			fileDirectory.setImageWidth(rasters.getWidth());
+			fileDirectory.setImageHeight(rasters.getHeight());
+			fileDirectory.setBitsPerSample(16);
+			fileDirectory.setSamplesPerPixel(1);
+			fileDirectory
+					.setSampleFormat(TiffConstants.SAMPLE_FORMAT_UNSIGNED_INT);
+			fileDirectory.setCompression(TiffConstants.COMPRESSION_NO);
+			fileDirectory.setPhotometricInterpretation(
+					TiffConstants.PHOTOMETRIC_INTERPRETATION_BLACK_IS_ZERO);
+			fileDirectory.setPlanarConfiguration(
+					TiffConstants.PLANAR_CONFIGURATION_CHUNKY);
+			fileDirectory.setRowsPerStrip(rasters.calculateRowsPerStrip(
+					TiffConstants.PLANAR_CONFIGURATION_CHUNKY));
+			tiffImage.add(fileDirectory);
+		}
+		byte[] bytes = TiffWriter.writeTiffToBytes(tiffImage);
+
+		TIFFImage tiff = TiffReader.readTiff(bytes);
+		TestCase.assertFalse(tiff.isLazy());
+
+		TIFFImage lazyTiff = TiffReader.readTiff(bytes, false, true);
+		TestCase.assertTrue(lazyTiff.isLazy());
+		TestCase.assertEquals(3, lazyTiff.numFileDirectories());
+
+		FileDirectory lastDirectory = lazyTiff.getFileDirectory(2);
+		TestCase.assertSame(lastDirectory, lazyTiff.getFileDirectory(2));
+		TestCase.assertEquals(30, lastDirectory.getImageWidth().intValue());
+		TiffTestUtils.compareRastersSampleValues(
+				tiff.getFileDirectory(2).readRasters(),
+				lastDirectory.readRasters());
+
+		int count = 0;
+		for (FileDirectory fileDirectory : lazyTiff) {
+			count++;
+			TestCase.assertEquals(count * 10,
+					fileDirectory.getImageWidth().intValue());
+			TestCase.assertEquals(count * 1000, fileDirectory.readRasters()
+					.getPixelSample(0, 0, 0).intValue());
+		}
+		TestCase.assertEquals(3, count);
+
+		TiffTestUtils.compareTIFFImages(tiff, lazyTiff);
+
+	}
+
+	/**
+	 * Test reading large entry values into primitive arrays
+	 * 
+	 * @throws IOException
+	 *             upon error
+	 */
+	@Test
+	public void testPrimitiveArrayValues() throws IOException {
+
+		File file = TiffTestUtils
+				.getTestFile(TiffTestConstants.FILE_DEFLATE_PREDICTOR_TILED);
+		TIFFImage tiff = TiffReader.readTiff(file);
+		FileDirectory fileDirectory = tiff.getFileDirectory();
+
+		Object tileOffsets = fileDirectory.get(FieldTagType.TileOffsets)
+				.getValues();
+		TestCase.assertTrue(tileOffsets instanceof LongArrayList);
+		long[] tileOffsetsArray = fileDirectory
+				.getLongArrayEntryValue(FieldTagType.TileOffsets);
+		TestCase.assertTrue(Arrays.equals(
+				((LongArrayList) tileOffsets).toPrimitiveArray(),
+				tileOffsetsArray));
+		long tileOffset = tileOffsetsArray[0];
+		tileOffsetsArray[0] = -1;
+		TestCase.assertEquals(tileOffset,
+				((LongArrayList) tileOffsets).getLong(0));
+		TestCase.assertEquals(tileOffset, fileDirectory
+				.getLongArrayEntryValue(FieldTagType.TileOffsets)[0]);
+		try {
+			fileDirectory.getTileOffsets().set(0, -1L);
+			fail("Primitive array list view was modified");
+		} catch (UnsupportedOperationException e) {
+			// Expected
+		}
+
+		List<Number> tileByteCounts = fileDirectory.getTileByteCounts();
+		long[] tileByteCountsArray = fileDirectory
+				.getLongArrayEntryValue(FieldTagType.TileByteCounts);
+		TestCase.assertEquals(tileOffsetsArray.length, tileByteCounts.size());
+		TestCase.assertEquals(tileByteCounts.size(),
+				tileByteCountsArray.length);
+		for (int i = 0; i < tileByteCountsArray.length; i++) {
+			TestCase.assertEquals(tileByteCounts.get(i).longValue(),
+					tileByteCountsArray[i]);
+		}
+
+		List<Integer> bitsPerSample = fileDirectory.getBitsPerSample();
+		TestCase.assertTrue(bitsPerSample instanceof IntegerArrayList);
+		TestCase.assertEquals(new ArrayList<>(bitsPerSample), bitsPerSample);
+
+	}
+
+	/**
+	 * Test reading large entry values deferred until accessed
+	 * 
+	 * @throws IOException
+	 *             upon error
+	 */
+	@Test
+	public void testDeferredValues() throws IOException {
+
+		File file = TiffTestUtils
+				.getTestFile(TiffTestConstants.FILE_DEFLATE_PREDICTOR_TILED);
+		TIFFImage tiff = TiffReader.readTiff(file);
+		TestCase.assertFalse(tiff.getFileDirectory()
+				.get(FieldTagType.TileOffsets).isDeferred());
+
+		int deferredValueBytes = TiffReader.DEFERRED_VALUE_BYTES;
+		TIFFImage deferredTiff = null;
+		try {
+			TiffReader.DEFERRED_VALUE_BYTES = 16;
+			deferredTiff = TiffReader.readTiff(file);
+		} finally {
+			TiffReader.DEFERRED_VALUE_BYTES = deferredValueBytes;
+		}
+
+		FileDirectoryEntry tileOffsets = deferredTiff.getFileDirectory()
+				.get(FieldTagType.TileOffsets);
+		TestCase.assertTrue(tileOffsets.isDeferred());
+		TestCase.assertEquals(
+				tiff.getFileDirectory().get(FieldTagType.TileOffsets)
+						.getValues(),
+				tileOffsets.getValues());
+		TestCase.assertFalse(tileOffsets.isDeferred());
+
+		TiffTestUtils.compareTIFFImages(tiff, deferredTiff);
+
+		// Deferred values too large to read fail with the type count
+		for (long typeCount : new long[] { 1L << 28, 1L << 40, -2 }) {
+			ByteBuffer buffer = ByteBuffer.allocate(64)
+					.order(ByteOrder.LITTLE_ENDIAN);
+			buffer.put(TiffConstants.BYTE_ORDER_LITTLE_ENDIAN
+					.getBytes(StandardCharsets.US_ASCII));
+			buffer.putShort((short) TiffConstants.BIGTIFF_FILE_IDENTIFIER);
+			buffer.putShort((short) TiffConstants.BIGTIFF_OFFSET_BYTES);
+			buffer.putShort((short) 0);
+			buffer.putLong(TiffConstants.BIGTIFF_HEADER_BYTES);
+			buffer.putLong(1);
+			putBigTiffEntry(buffer, FieldTagType.StripOffsets,
+					FieldType.LONG8, typeCount, 0);
+			buffer.putLong(0);
+			try {
+				TiffReader.readTiff(buffer.array());
+				fail("Type count too large to read did not fail: "
+						+ typeCount);
+			} catch (TiffException e) {
+				TestCase.assertTrue(
+						e.getMessage().contains(Long.toString(typeCount)));
+			}
+		}
+
+	}
+
+	/**
+	 * Test reading from byte sources vs the same file read as bytes
+	 * 
+	 * @throws IOException
+	 *             upon error
+	 */
+	@Test
+	public void testByteSource() throws IOException {
+
+		File file = TiffTestUtils
+				.getTestFile(TiffTestConstants.FILE_DEFLATE_PREDICTOR_TILED);
+		byte[] bytes = IOUtils.fileBytes(file);
+		TIFFImage bytesTiff = TiffReader.readTiff(bytes);
+
+		try (FileByteSource fileSource = new FileByteSource(file)) {
+			TIFFImage fileTiff = TiffReader.readTiff(fileSource);
+			TiffTestUtils.compareTIFFImages(bytesTiff, fileTiff);
+		}
+
+		int chunkSize = IOUtils.SOURCE_CHUNK_SIZE;
+		try {
+			IOUtils.SOURCE_CHUNK_SIZE = 1024;
+
+			ByteArrayByteSource source = new ByteArrayByteSource(bytes);
+			TIFFImage sourceTiff = TiffReader.readTiff(source);
+			FileDirectory fileDirectory = sourceTiff.getFileDirectory();
+			int tileWidth = fileDirectory.getTileWidth().intValue();
+			int tileHeight = fileDirectory.getTileHeight().intValue();
+
+			// Read a window of four tiles in a single range read
+			ImageWindow window = new ImageWindow(tileWidth / 2,
+					tileHeight / 2, tileWidth * 3 / 2, tileHeight * 3 / 2);
+			int reads = source.getReads();
+			Rasters rasters = fileDirectory.readRasters(window);
+			TestCase.assertEquals(reads + 1, source.getReads());
+
+			Rasters bytesRasters = bytesTiff.getFileDirectory()
+					.readRasters(window);
+			TiffTestUtils.compareRastersSampleValues(bytesRasters, rasters);
+
+			TiffTestUtils.compareTIFFImages(bytesTiff, sourceTiff);
+		} finally {
+			IOUtils.SOURCE_CHUNK_SIZE = chunkSize;
+		}
+
+	}
+
+	/**
+	 * Test probing TIFF metadata from a byte prefix
+	 * 
+	 * @throws IOException
+	 *             upon error
+	 */
+	@Test
+	public void testProbe() throws IOException {
+
+		File file = TiffTestUtils
+				.getTestFile(TiffTestConstants.FILE_DEFLATE_PREDICTOR_TILED);
+		TIFFImage tiff = TiffReader.readTiff(file);
+		FileDirectory fileDirectory = tiff.getFileDirectory();
+
+		// File directory within the prefix
+		ByteArrayByteSource source = new ByteArrayByteSource(
+				IOUtils.fileBytes(file));
+		TIFFImage probeTiff = TiffReader.probeTiff(source);
+		TestCase.assertEquals(1, source.getReads());
+		FileDirectory probeDirectory = probeTiff.getFileDirectory();
+		TestCase.assertEquals(fileDirectory.getImageWidth(),
+				probeDirectory.getImageWidth());
+		TestCase.assertEquals(fileDirectory.getImageHeight(),
+				probeDirectory.getImageHeight());
+		TestCase.assertEquals(fileDirectory.numEntries(),
+				probeDirectory.numEntries());
+
+		// Rasters are read from the source when needed
+		TiffTestUtils.compareTIFFImages(tiff, probeTiff);
+
+		// File directory after the prefix
+		File jpegFile = TiffTestUtils
+				.getTestFile(TiffTestConstants.FILE_JPEG);
+		source = new ByteArrayByteSource(IOUtils.fileBytes(jpegFile));
+		probeTiff = TiffReader.probeTiff(source, 4096);
+		TestCase.assertEquals(2, source.getReads());
+		TestCase.assertEquals(
+				TiffReader.readTiff(jpegFile).getFileDirectory()
+						.getImageWidth(),
+				probeTiff.getFileDirectory().getImageWidth());
+
+		probeTiff = TiffReader.probeTiff(file);
+		TestCase.assertEquals(fileDirectory.getImageWidth(),
+				probeTiff.getFileDirectory().getImageWidth());
+
+	}
+
+	/**
+	 * Test sequentially reading strips from an input stream
+	 * 
+	 * @throws IOException
+	 *             upon error
+	 */
+	@Test
+	public void testReadStrips() throws IOException {
+
+		File file = TiffTestUtils
+				.getTestFile(TiffTestConstants.FILE_DEFLATE_PREDICTOR);
+		final Rasters rasters = TiffReader.readTiff(file).getFileDirectory()
+				.readRasters();
+
+		final int[] rows = new int[1];
+		FileDirectory fileDirectory = TiffReader.readStrips(
+				new ByteArrayInputStream(IOUtils.fileBytes(file)),
+				new RowsCallback() {
+					@Override
+					public void rows(int y, Rasters stripRasters) {
+						TestCase.assertEquals(rows[0], y);
+						TestCase.assertEquals(rasters.getWidth(),
+								stripRasters.getWidth());
+						for (int row = 0; row < stripRasters
+								.getHeight(); row++) {
+							for (int x = 0; x < stripRasters.getWidth(); x++) {
+								for (int sample = 0; sample < stripRasters
+										.getSamplesPerPixel(); sample++) {
+									TestCase.assertEquals(
+											rasters.getPixelSample(sample, x,
+													y + row),
+											stripRasters.getPixelSample(sample,
+													x, row));
+								}
+							}
+						}
+						rows[0] += stripRasters.getHeight();
+					}
+				});
+		TestCase.assertEquals(rasters.getHeight(), rows[0]);
+		TestCase.assertEquals(rasters.getWidth(),
+				fileDirectory.getImageWidth().intValue());
+
+		try {
+			TiffReader.readStrips(
+					new ByteArrayInputStream(IOUtils.fileBytes(TiffTestUtils
+							.getTestFile(
+									TiffTestConstants.FILE_DEFLATE_PREDICTOR_TILED))),
+					new RowsCallback() {
+						@Override
+						public void rows(int y, Rasters stripRasters) {
+						}
+					});
+			fail("Tiled TIFF was read sequentially");
+		} catch (TiffException e) {
+			// expected
+		}
+
+	}
+
+	/**
+	 * Test sequentially reading a strip without rows per strip, skipping
+	 * metadata entry values written after the image data
+	 * 
+	 * @throws IOException
+	 *             upon error
+	 */
+	@Test
+	public void testReadStripsMetadataAfterData() throws IOException {
+
+		int xmpBytes = 100000;
+		ByteBuffer buffer = ByteBuffer.allocate(224 + xmpBytes)
+				.order(ByteOrder.LITTLE_ENDIAN);
+
+		// Header
+		buffer.put(TiffConstants.BYTE_ORDER_LITTLE_ENDIAN
+				.getBytes(StandardCharsets.US_ASCII));
+		buffer.putShort((short) TiffConstants.BIGTIFF_FILE_IDENTIFIER);
+		buffer.putShort((short) TiffConstants.BIGTIFF_OFFSET_BYTES);
+		buffer.putShort((short) 0);
+		buffer.putLong(TiffConstants.BIGTIFF_HEADER_BYTES);
+
+		// 4x3 single strip image without rows per strip, GDAL metadata
+		// before the strip and XMP after the strip
+		buffer.putLong(8);
+		putBigTiffEntry(buffer, FieldTagType.ImageWidth, FieldType.SHORT, 1,
+				4);
+		putBigTiffEntry(buffer, FieldTagType.ImageLength, FieldType.SHORT, 1,
+				3);
+		putBigTiffEntry(buffer, FieldTagType.BitsPerSample, FieldType.SHORT,
+				1, 8);
+		putBigTiffEntry(buffer, FieldTagType.Compression, FieldType.SHORT, 1,
+				TiffConstants.COMPRESSION_NO);
+		putBigTiffEntry(buffer, FieldTagType.StripOffsets, FieldType.LONG8, 1,
+				212);
+		putBigTiffEntry(buffer, FieldTagType.StripByteCounts, FieldType.LONG8,
+				1, 12);
+		putBigTiffEntry(buffer, FieldTagType.XMP, FieldType.BYTE, xmpBytes,
+				224);
+		putBigTiffEntry(buffer, FieldTagType.GDAL_METADATA, FieldType.ASCII,
+				20, 192);
+		buffer.putLong(0);
+
+		// GDAL metadata values
+		buffer.put("<GDALMetadata/>\0\0\0\0\0"
+				.getBytes(StandardCharsets.US_ASCII));
+
+		// Strip
+		for (int i = 0; i < 12; i++) {
+			buffer.put((byte) i);
+		}
+		TestCase.assertEquals(224, buffer.position());
+
+		final byte[] bytes = buffer.array();
+		final long[] read = new long[1];
+		final long[] readAtRows = new long[1];
+		InputStream stream = new FilterInputStream(
+				new ByteArrayInputStream(bytes)) {
+			@Override
+			public int read() throws IOException {
+				int value = super.read();
+				if (value >= 0) {
+					read[0]++;
+				}
+				return value;
+			}
+
+			@Override
+			public int read(byte[] b, int off, int len) throws IOException {
+				int count = super.read(b, off, len);
+				if (count > 0) {
+					read[0] += count;
+				}
+				return count;
+			}
+		};
+
+		final int[] rows = new int[1];
+		FileDirectory fileDirectory = TiffReader.readStrips(stream,
+				new RowsCallback() {
+					@Override
+					public void rows(int y, Rasters rasters) {
+						readAtRows[0] = read[0];
+						TestCase.assertEquals(0, y);
+						TestCase.assertEquals(3, rasters.getHeight());
+						for (int row = 0; row < 3; row++) {
+							for (int x = 0; x < 4; x++) {
+								TestCase.assertEquals(row * 4 + x,
+										rasters.getPixelSample(0, x, row)
+												.intValue());
+							}
+						}
+						rows[0] += rasters.getHeight();
+					}
+				});
+
+		TestCase.assertEquals(3, rows[0]);
+		TestCase.assertTrue(readAtRows[0] <= 224);
+		TestCase.assertFalse(fileDirectory.isTiled());
+		TestCase.assertNull(fileDirectory.getRowsPerStrip());
+		TestCase.assertEquals(3, fileDirectory.getTileHeight().intValue());
+		TestCase.assertNotNull(fileDirectory.get(FieldTagType.GDAL_METADATA));
+		TestCase.assertNull(fileDirectory.get(FieldTagType.XMP));
+
+		// Random access reads of strips without rows per strip
+		FileDirectory readFileDirectory = TiffReader.readTiff(bytes)
+				.getFileDirectory();
+		TestCase.assertFalse(readFileDirectory.isTiled());
+		TestCase.assertNotNull(readFileDirectory.get(FieldTagType.XMP));
+		Rasters rasters = readFileDirectory.readRasters();
+		TestCase.assertEquals(11, rasters.getPixelSample(0, 3, 2).intValue());
+
+	}
+
+	/**
+	 * Test the primitive pixel sample accessors and bulk getters
+	 * 
+	 * @throws IOException
+	 *             upon error
+	 */
+	@Test
+	public void testPrimitiveAccessors() throws IOException {
+
+		File file = TiffTestUtils
+				.getTestFile(TiffTestConstants.FILE_DEFLATE_PREDICTOR);
+		FileDirectory fileDirectory = TiffReader.readTiff(file)
+				.getFileDirectory();
+		Rasters rasters = fileDirectory.readRasters(true, true);
+		Rasters interleaveRasters = fileDirectory.readInterleavedRasters();
+
+		int width = rasters.getWidth();
+		int height = rasters.getHeight();
+		float[] row = new float[width];
+		for (int sample = 0; sample < rasters.getSamplesPerPixel(); sample++) {
+			for (int y = 0; y < height; y++) {
+				rasters.getSampleRow(y, sample, row);
+				float[] interleaveRow = interleaveRasters.getSampleRow(y,
+						sample, (float[]) null);
+				for (int x = 0; x < width; x++) {
+					Number value = rasters.getPixelSample(sample, x, y);
+					TestCase.assertEquals(value.doubleValue(),
+							rasters.getDouble(sample, x, y), 0.0);
+					TestCase.assertEquals(value.floatValue(),
+							rasters.getFloat(sample, x, y), 0.0f);
+					TestCase.assertEquals(value.longValue(),
+							rasters.getLong(sample, x, y));
+					TestCase.assertEquals(value.intValue(),
+							rasters.getInt(sample, x, y));
+					TestCase.assertEquals(value.floatValue(), row[x], 0.0f);
+					TestCase.assertEquals(value.floatValue(),
+							interleaveRow[x], 0.0f);
+				}
+			}
+		}
+
+		Rasters shortRasters = new Rasters(3, 2, 2, FieldType.SHORT);
+		for (int y = 0; y < 2; y++) {
+			for (int x = 0; x < 3; x++) {
+				shortRasters.setInt(0, x, y, y * 3 + x);
+				shortRasters.setDouble(1, x, y, 40000.7);
+			}
+		}
+		short[] shorts = shortRasters.getSampleRectangle(0, 1, 0, 2, 2,
+				(short[]) null);
+		TestCase.assertTrue(
+				Arrays.equals(new short[] { 1, 2, 4, 5 }, shorts));
+		int[] ints = shortRasters.getSampleRectangle(1, 0, 1, 3, 1,
+				new int[4]);
+		TestCase.assertTrue(
+				Arrays.equals(new int[] { 40000, 40000, 40000, 0 }, ints));
+		TestCase.assertEquals(40000, shortRasters.getPixelSample(1, 2, 1));
+		TestCase.assertEquals(40000, shortRasters.getLong(1, 2, 1));
+		shortRasters.setFloat(0, 2, 1, 7.9f);
+		TestCase.assertEquals(7.0, shortRasters.getDouble(0, 2, 1), 0.0);
+
+		// Mixed sample types agree between the number and primitive accessors
+		FieldType[] mixedTypes = new FieldType[] { FieldType.BYTE,
+				FieldType.FLOAT, FieldType.SHORT };
+		Rasters mixedRasters = new Rasters(3, 2, mixedTypes,
+				ByteBuffer.allocate(3 * 2 * 7));
+		for (int y = 0; y < 2; y++) {
+			for (int x = 0; x < 3; x++) {
+				mixedRasters.setPixelSample(0, x, y, (short) (x + 1));
+				mixedRasters.setFloat(1, x, y, y + 0.5f);
+				mixedRasters.setPixelSample(2, x, y, 1000 * x + y);
+			}
+		}
+		for (int y = 0; y < 2; y++) {
+			for (int x = 0; x < 3; x++) {
+				TestCase.assertEquals(x + 1, mixedRasters.getInt(0, x, y));
+				TestCase.assertEquals(y + 0.5f,
+						mixedRasters.getPixelSample(1, x, y).floatValue(),
+						0.0f);
+				TestCase.assertEquals(1000 * x + y,
+						mixedRasters.getInt(2, x, y));
+				TestCase.assertEquals(1000 * x + y,
+						mixedRasters.getPixelSample(2, x, y).intValue());
+			}
+		}
+
+		// Bulk getters are independent of the position left by number reads
+		for (FieldType fieldType : new FieldType[] { FieldType.FLOAT,
+				FieldType.LONG, FieldType.SHORT }) {
+			Rasters typedRasters = new Rasters(5, 4, 2, fieldType);
+			for (int y = 0; y < 4; y++) {
+				for (int x = 0; x < 5; x++) {
+					typedRasters.setInt(0, x, y, y * 5 + x);
+					typedRasters.setInt(1, x, y, 100 + y * 5 + x);
+				}
+			}
+			for (int y = 0; y < 4; y++) {
+				for (int sample = 0; sample < 2; sample++) {
+					typedRasters.getPixelSample(sample, 4, 3);
+					float[] floats = typedRasters.getSampleRow(y, sample,
+							(float[]) null);
+					typedRasters.getPixel(3, 2);
+					int[] rowInts = typedRasters.getSampleRow(y, sample,
+							(int[]) null);
+					typedRasters.getPixelRow(3, ByteOrder.BIG_ENDIAN);
+					short[] rowShorts = typedRasters.getSampleRow(y, sample,
+							(short[]) null);
+					for (int x = 0; x < 5; x++) {
+						int expected = sample * 100 + y * 5 + x;
+						TestCase.assertEquals(expected, floats[x], 0.0f);
+						TestCase.assertEquals(expected, rowInts[x]);
+						TestCase.assertEquals(expected, rowShorts[x]);
+					}
+				}
+			}
+		}
+
+		try {
+			shortRasters.getSampleRow(0, 0, new int[2]);
+			fail("Values array smaller than the row was filled");
+		} catch (TiffException e) {
+			// expected
+		}
+
+	}
+
+	/**
+	 * Test reading rasters with concurrent tile and strip decoding
+	 * 
+	 * @throws IOException
+	 *             upon error
+	 */
+	@Test
+	public void testParallelReadRasters() throws IOException {
+
+		ExecutorService executor = Executors.newFixedThreadPool(4);
+		try {
+			for (String fileName : new String[] {
+					TiffTestConstants.FILE_DEFLATE_PREDICTOR,
+					TiffTestConstants.FILE_DEFLATE_PREDICTOR_TILED }) {
+
+				File file = TiffTestUtils.getTestFile(fileName);
+				FileDirectory fileDirectory = TiffReader.readTiff(file)
+						.getFileDirectory();
+				Rasters rasters = fileDirectory.readRasters(true, true);
+
+				TiffTestUtils.compareRastersSampleValues(rasters,
+						fileDirectory.readRasters(executor));
+
+				Rasters parallelRasters = fileDirectory.readRasters(
+						new ImageWindow(fileDirectory), null, true, true, 3);
+				TiffTestUtils.compareRastersSampleValues(rasters,
+						parallelRasters);
+				TiffTestUtils.compareRastersInterleaveValues(rasters,
+						parallelRasters);
+
+				int width = fileDirectory.getImageWidth().intValue();
+				int height = fileDirectory.getImageHeight().intValue();
+				ImageWindow window = new ImageWindow(width / 4, height / 3,
+						width - 5, height / 2 + 17);
+				TIFFImage cachedTiff = TiffReader.readTiff(file, true);
+				for (int i = 0; i < 2; i++) {
+					Rasters windowRasters = cachedTiff.getFileDirectory()
+							.readRasters(window, null, true, true, executor);
+					Rasters expectedRasters = fileDirectory.readRasters(
+							window, null, true, true);
+					TiffTestUtils.compareRastersSampleValues(
+							expectedRasters, windowRasters);
+					TiffTestUtils.compareRastersInterleaveValues(
+							expectedRasters, windowRasters);
+				}
+
+				try (FileByteSource source = new FileByteSource(file)) {
+					TiffTestUtils.compareRastersSampleValues(rasters,
+							TiffReader.readTiff(source).getFileDirectory()
+									.readRasters(executor));
+				}
+			}
+		} finally {
+			executor.shutdown();
+		}
+
+	}
+
+	/**
+	 * Test that concurrent raster reads start decoding before all undecoded
+	 * bytes are read
+	 * 
+	 * @throws IOException
+	 *             upon error
+	 */
+	@Test
+	public void testParallelReadAhead() throws IOException {
+
+		int width = 1000;
+		int height = 400;
+		// Random values so the strips stay larger than the source chunks,
+		// BigTIFF for LONG8 strip byte counts
+		Random random = new Random(7);
+		Rasters rasters = new Rasters(width, height, 1, FieldType.SHORT);
+		for (int y = 0; y < height; y++) {
+			for (int x = 0; x < width; x++) {
+				rasters.setInt(0, x, y, random.nextInt(65536));
+			}
+		}
+
+		FileDirectory directory = new FileDirectory();
+		directory.setImageWidth(width);
+		directory.setImageHeight(height);
+		directory.setBitsPerSample(rasters.getBitsPerSample());
+		directory.setCompression(TiffConstants.COMPRESSION_DEFLATE);
+		directory.setPhotometricInterpretation(
+				TiffConstants.PHOTOMETRIC_INTERPRETATION_BLACK_IS_ZERO);
+		directory.setSamplesPerPixel(1);
+		directory.setRowsPerStrip(40);
+		directory.setPlanarConfiguration(
+				TiffConstants.PLANAR_CONFIGURATION_CHUNKY);
+		directory.setSampleFormat(rasters.getSampleFormat());
+		directory.setWriteRasters(rasters);
+		TIFFImage tiffImage = new TIFFImage();
+		tiffImage.add(directory);
+		tiffImage.setBigTiff(true);
+		byte[] bytes = TiffWriter.writeTiffToBytes(tiffImage);
+
+		final long[] bytesRead = new long[1];
+		ByteArrayByteSource source = new ByteArrayByteSource(bytes) {
+			@Override
+			public byte[] readRange(long offset, int length)
+					throws IOException {
+				bytesRead[0] += length;
+				return super.readRange(offset, length);
+			}
+		};
+		FileDirectory fileDirectory = TiffReader.readTiff(source)
+				.getFileDirectory();
+		long stripBytes = 0;
+		long maxStripBytes = 0;
+		for (Number count : fileDirectory.getStripByteCounts()) {
+			stripBytes += count.longValue();
+			maxStripBytes = Math.max(maxStripBytes, count.longValue());
+		}
+
+		final ExecutorService pool = Executors.newFixedThreadPool(2);
+		final long[] firstTaskBytes = new long[] { -1 };
+		Executor executor = new Executor() {
+			@Override
+			public void execute(Runnable command) {
+				if (firstTaskBytes[0] < 0) {
+					firstTaskBytes[0] = bytesRead[0];
+				}
+				pool.execute(command);
+			}
+		};
+
+		int readAheadSize = IOUtils.READ_AHEAD_SIZE;
+		IOUtils.READ_AHEAD_SIZE = (int) maxStripBytes * 4;
+		try {
+			bytesRead[0] = 0;
+			Rasters parallelRasters = fileDirectory
+					.readRasters(new ImageWindow(fileDirectory), null, true,
+							false, executor);
+			TestCase.assertTrue(firstTaskBytes[0] > 0);
+			TestCase.assertTrue(firstTaskBytes[0] < stripBytes / 2);
+			TestCase.assertTrue(bytesRead[0] >= stripBytes);
+			TiffTestUtils.compareRastersSampleValues(rasters,
+					parallelRasters);
+		} finally {
+			IOUtils.READ_AHEAD_SIZE = readAheadSize;
+			pool.shutdown();
+		}
+
+	}
+
+	/**
+	 * Test concurrent window reads from a single TIFF image
+	 * 
+	 * @throws Exception
+	 *             upon error
+	 */
+	@Test
+	public void testConcurrentReads() throws Exception {
+
+		for (String fileName : new String[] {
+				TiffTestConstants.FILE_DEFLATE_PREDICTOR,
+				TiffTestConstants.FILE_DEFLATE_PREDICTOR_TILED }) {
+
+			File file = TiffTestUtils.getTestFile(fileName);
+			FileDirectory expectedDirectory = TiffReader.readTiff(file, true)
+					.getFileDirectory();
+
+			for (boolean cache : new boolean[] { false, true }) {
+
+				int deferredValueBytes = TiffReader.DEFERRED_VALUE_BYTES;
+				TIFFImage tiff = null;
+				try {
+					TiffReader.DEFERRED_VALUE_BYTES = 16;
+					tiff = TiffReader.readTiff(file, cache, true);
+				} finally {
+					TiffReader.DEFERRED_VALUE_BYTES = deferredValueBytes;
+				}
+
+				final TIFFImage sharedTiff = tiff;
+				final int width = expectedDirectory.getImageWidth()
+						.intValue();
+				final int height = expectedDirectory.getImageHeight()
+						.intValue();
+				List<Callable<Rasters>> reads = new ArrayList<>();
+				final List<ImageWindow> windows = new ArrayList<>();
+				for (int i = 0; i < 32; i++) {
+					int x = (i * 37) % (width / 2);
+					int y = (i * 53) % (height / 2);
+					final ImageWindow window = new ImageWindow(x, y,
+							x + width / 3, y + height / 3);
+					windows.add(window);
+					reads.add(new Callable<Rasters>() {
+						@Override
+						public Rasters call() {
+							return sharedTiff.getFileDirectory()
+									.readRasters(window);
+						}
+					});
+				}
+
+				ExecutorService executor = Executors.newFixedThreadPool(8);
+				try {
+					List<Future<Rasters>> results = executor.invokeAll(reads);
+					for (int i = 0; i < results.size(); i++) {
+						TiffTestUtils.compareRastersSampleValues(
+								expectedDirectory.readRasters(windows.get(i)),
+								results.get(i).get());
+					}
+				} finally {
+					executor.shutdown();
+				}
+			}
+		}
+
+	}
+
+	/**
+	 * Test the byte budgeted least recently used block cache
+	 * 
+	 * @throws IOException
+	 *             upon error
+	 */
+	@Test
+	public void testBlockCache() throws IOException {
+
+		File file = TiffTestUtils
+				.getTestFile(TiffTestConstants.FILE_DEFLATE_PREDICTOR_TILED);
+		FileDirectory fileDirectory = TiffReader.readTiff(file)
+				.getFileDirectory();
+		Rasters rasters = fileDirectory.readRasters();
+
+		FileDirectory cachedDirectory = TiffReader.readTiff(file, true)
+				.getFileDirectory();
+		TestCase.assertTrue(
+				cachedDirectory.getCache() instanceof LRUBlockCache);
+
+		int bytesPerPixel = 0;
+		for (int bitsPerSample : fileDirectory.getBitsPerSample()) {
+			bytesPerPixel += bitsPerSample / 8;
+		}
+		int tileBytes = fileDirectory.getTileWidth().intValue()
+				* fileDirectory.getTileHeight().intValue() * bytesPerPixel;
+		int tiles = (int) fileDirectory.get(FieldTagType.TileOffsets)
+				.getTypeCount();
+		TestCase.assertTrue(tiles > 2);
+
+		// Budget for two tiles
+		LRUBlockCache cache = new LRUBlockCache(2L * tileBytes);
+		cachedDirectory.setCache(cache);
+		TiffTestUtils.compareRastersSampleValues(rasters,
+				cachedDirectory.readRasters());
+		// Each chunky tile is read once per sample
+		int samples = fileDirectory.getSamplesPerPixel();
+		TestCase.assertEquals(tiles * (samples - 1), cache.getHits());
+		TestCase.assertEquals(tiles, cache.getMisses());
+		TestCase.assertEquals(tiles - 2, cache.getEvictions());
+		TestCase.assertEquals(2, cache.size());
+		TestCase.assertEquals(2L * tileBytes, cache.getBytes());
+
+		// The most recent tile is a hit
+		cache.resetCounters();
+		ImageWindow lastTile = new ImageWindow(
+				fileDirectory.getImageWidth().intValue() - 1,
+				fileDirectory.getImageHeight().intValue() - 1);
+		TiffTestUtils.compareRastersSampleValues(
+				fileDirectory.readRasters(lastTile),
+				cachedDirectory.readRasters(lastTile));
+		TestCase.assertEquals(samples, cache.getHits());
+		TestCase.assertEquals(0, cache.getMisses());
+
+		// Blocks larger than the budget are not cached
+		cache = new LRUBlockCache(tileBytes - 1);
+		cachedDirectory.setCache(cache);
+		cachedDirectory.readRasters(lastTile);
+		TestCase.assertEquals(0, cache.size());
+		TestCase.assertEquals(0, cache.getBytes());
+
+		cache.clear();
+		cachedDirectory.setCache(false);
+		TestCase.assertNull(cachedDirectory.getCache());
+
+	}
+
+	/**
+	 * Test the process wide shared off heap block cache
+	 * 
+	 * @throws IOException
+	 *             upon error
+	 */
+	@Test
+	public void testSharedBlockCache() throws IOException {
+
+		File file = TiffTestUtils
+				.getTestFile(TiffTestConstants.FILE_DEFLATE_PREDICTOR_TILED);
+		FileDirectory fileDirectory = TiffReader.readTiff(file)
+				.getFileDirectory();
+		Rasters rasters = fileDirectory.readRasters();
+		int tiles = (int) fileDirectory.get(FieldTagType.TileOffsets)
+				.getTypeCount();
+		long tileBytes = fileDirectory.getTileWidth().longValue()
+				* fileDirectory.getTileHeight().longValue()
+				* rasters.sizePixel();
+		int samples = rasters.getSamplesPerPixel();
+
+		SharedBlockCache sharedCache = new SharedBlockCache(
+				SharedBlockCache.DEFAULT_MAX_BYTES);
+		TIFFImage tiffImage = TiffReader.readTiff(file, sharedCache);
+		TestCase.assertSame(sharedCache, tiffImage.getSharedCache());
+		TiffTestUtils.compareRastersSampleValues(rasters,
+				tiffImage.getFileDirectory().readRasters());
+		TestCase.assertEquals(tiles, sharedCache.getMisses());
+		TestCase.assertEquals(tiles, sharedCache.size());
+
+		// A second image of the same file reads only from the shared cache
+		sharedCache.resetCounters();
+		TIFFImage otherImage = TiffReader.readTiff(file, sharedCache);
+		TiffTestUtils.compareRastersSampleValues(rasters,
+				otherImage.getFileDirectory().readRasters());
+		TestCase.assertEquals(tiles * samples, sharedCache.getHits());
+		TestCase.assertEquals(0, sharedCache.getMisses());
+
+		// Clearing a file directory cache removes only its blocks
+		tiffImage.getFileDirectory().getCache().clear();
+		TestCase.assertEquals(0, sharedCache.size());
+		TestCase.assertEquals(0, sharedCache.getBytes());
+
+		// The global ceiling evicts the least recently used blocks
+		sharedCache = new SharedBlockCache(3 * tileBytes);
+		tiffImage.setSharedCache(sharedCache,
+				SharedBlockCache.fileIdentity(file));
+		TiffTestUtils.compareRastersSampleValues(rasters,
+				tiffImage.getFileDirectory().readRasters());
+		TestCase.assertTrue(sharedCache.size() <= 3);
+		TestCase.assertTrue(sharedCache.getBytes() <= 3 * tileBytes);
+		TestCase.assertTrue(sharedCache.getEvictions() > 0);
+
+	}
+
+	/**
+	 * Test the least recently used eviction and counters of the block caches
+	 */
+	@Test
+	public void testBlockCacheEviction() {
+
+		byte[][] blocks = new byte[4][];
+		for (int i = 0; i < blocks.length; i++) {
+			blocks[i] = new byte[1000];
+			Arrays.fill(blocks[i], (byte) (i + 1));
+		}
+
+		LRUBlockCache lruCache = new LRUBlockCache(2500);
+		SharedBlockCache sharedCache = new SharedBlockCache(2500, 500);
+		BlockCache sharedBlockCache = sharedCache.getBlockCache("file", 0);
+		BlockCache otherBlockCache = sharedCache.getBlockCache("file", 1);
+
+		for (BlockCache cache : new BlockCache[] { lruCache,
+				sharedBlockCache }) {
+
+			cache.put(0, blocks[0]);
+			cache.put(1, blocks[1]);
+			TestCase.assertTrue(Arrays.equals(blocks[0], cache.get(0)));
+
+			// The least recently used block is evicted
+			cache.put(2, blocks[2]);
+			TestCase.assertTrue(cache.contains(0));
+			TestCase.assertFalse(cache.contains(1));
+			TestCase.assertTrue(Arrays.equals(blocks[2], cache.get(2)));
+			TestCase.assertNull(cache.get(1));
+
+			// Replacing a block does not evict
+			cache.put(2, blocks[3]);
+			TestCase.assertTrue(Arrays.equals(blocks[3], cache.get(2)));
+			TestCase.assertTrue(cache.contains(0));
+
+			// Blocks larger than the cache are not cached
+			cache.put(3, new byte[3000]);
+			TestCase.assertFalse(cache.contains(3));
+		}
+
+		TestCase.assertEquals(2, lruCache.size());
+		TestCase.assertEquals(2000, lruCache.getBytes());
+		TestCase.assertEquals(3, lruCache.getHits());
+		TestCase.assertEquals(1, lruCache.getMisses());
+		TestCase.assertEquals(1, lruCache.getEvictions());
+		lruCache.clear();
+		TestCase.assertEquals(0, lruCache.size());
+		TestCase.assertEquals(0, lruCache.getBytes());
+
+		TestCase.assertEquals(2, sharedCache.size());
+		TestCase.assertEquals(3, sharedCache.getHits());
+		TestCase.assertEquals(1, sharedCache.getMisses());
+		TestCase.assertEquals(1, sharedCache.getEvictions());
+
+		// Clearing a file directory cache removes only its blocks
+		otherBlockCache.put(0, blocks[1]);
+		TestCase.assertEquals(2, sharedCache.size());
+		sharedBlockCache.clear();
+		TestCase.assertEquals(1, sharedCache.size());
+		TestCase.assertFalse(sharedBlockCache.contains(0));
+		TestCase.assertTrue(Arrays.equals(blocks[1], otherBlockCache.get(0)));
+		sharedCache.clear();
+		TestCase.assertEquals(0, sharedCache.size());
+		TestCase.assertEquals(0, sharedCache.getBytes());
+
+		// Blocks of varying sizes fill whole pages within fixed slabs
+		int slabSize = SharedBlockCache.SLAB_SIZE;
+		SharedBlockCache.SLAB_SIZE = 1500;
+		try {
+			sharedCache = new SharedBlockCache(10000, 256);
+		} finally {
+			SharedBlockCache.SLAB_SIZE = slabSize;
+		}
+		TestCase.assertEquals(39 * 256, sharedCache.getMaxBytes());
+		BlockCache pagedCache = sharedCache.getBlockCache("file", 0);
+		Random random = new Random(11);
+		byte[][] pagedBlocks = new byte[50][];
+		for (int i = 0; i < pagedBlocks.length; i++) {
+			pagedBlocks[i] = new byte[1 + random.nextInt(3000)];
+			random.nextBytes(pagedBlocks[i]);
+			pagedCache.put(i, pagedBlocks[i]);
+			TestCase.assertTrue(pagedCache.contains(i));
+			TestCase.assertTrue(
+					sharedCache.getBytes() <= sharedCache.getMaxBytes());
+			TestCase.assertTrue(sharedCache.getAllocatedBytes() <= sharedCache
+					.getMaxBytes());
+		}
+		int cached = 0;
+		for (int i = 0; i < pagedBlocks.length; i++) {
+			byte[] block = pagedCache.get(i);
+			if (block != null) {
+				TestCase.assertTrue(Arrays.equals(pagedBlocks[i], block));
+				cached++;
+			}
+		}
+		TestCase.assertEquals(sharedCache.size(), cached);
+		TestCase.assertEquals(39 * 256, sharedCache.getAllocatedBytes());
+
+		// Row copies span page boundaries without copying the whole block
+		int copies = 0;
+		for (int i = 0; i < pagedBlocks.length; i++) {
+			if (pagedCache.contains(i) && pagedBlocks[i].length >= 600) {
+				ByteBuffer rows = ByteBuffer.allocate(40);
+				TestCase.assertTrue(
+						pagedCache.copy(i, 250, 300, rows, 5, 20, 15, 2));
+				for (int j = 0; j < 15; j++) {
+					TestCase.assertEquals(pagedBlocks[i][250 + j],
+							rows.get(5 + j));
+					TestCase.assertEquals(pagedBlocks[i][550 + j],
+							rows.get(25 + j));
+				}
+				copies++;
+			}
+		}
+		TestCase.assertTrue(copies > 0);
+		TestCase.assertFalse(pagedCache.copy(pagedBlocks.length, 0, 0,
+				ByteBuffer.allocate(1), 0, 0, 1, 1));
+
+	}
+
+	/**
+	 * Test reads copying from the shared block cache match uncached reads
+	 * 
+	 * @throws IOException
+	 *             upon error
+	 */
+	@Test
+	public void testSharedBlockCacheReads() throws IOException {
+
+		int width = 37;
+		int height = 23;
+		Rasters rasters = new Rasters(width, height, 3, FieldType.SHORT);
+		for (int y = 0; y < height; y++) {
+			for (int x = 0; x < width; x++) {
+				for (int sample = 0; sample < 3; sample++) {
+					rasters.setInt(sample, x, y,
+							(x * 977 + y * 131 + sample * 7919) % 65536);
+				}
+			}
+		}
+
+		ExecutorService executor = Executors.newFixedThreadPool(2);
+		try {
+			for (int planarConfiguration : new int[] {
+					TiffConstants.PLANAR_CONFIGURATION_CHUNKY,
+					TiffConstants.PLANAR_CONFIGURATION_PLANAR }) {
+
+				FileDirectory directory = new FileDirectory();
+				directory.setImageWidth(width);
+				directory.setImageHeight(height);
+				directory.setBitsPerSample(rasters.getBitsPerSample());
+				directory.setCompression(TiffConstants.COMPRESSION_DEFLATE);
+				directory.setPhotometricInterpretation(
+						TiffConstants.PHOTOMETRIC_INTERPRETATION_RGB);
+				directory.setSamplesPerPixel(3);
+				directory.setRowsPerStrip(5);
+				directory.setPlanarConfiguration(planarConfiguration);
+				directory.setSampleFormat(rasters.getSampleFormat());
+				directory.setWriteRasters(rasters);
+				byte[] bytes = TiffWriter.writeTiffToBytes(
+						new ByteWriter(ByteOrder.BIG_ENDIAN),
+						new TIFFImage(directory));
+
+				FileDirectory expectedDirectory = TiffReader.readTiff(bytes)
+						.getFileDirectory();
+				SharedBlockCache sharedCache = new SharedBlockCache(
+						1024 * 1024, 512);
+				TIFFImage tiffImage = TiffReader.readTiff(bytes);
+				tiffImage.setSharedCache(sharedCache, "image");
+				FileDirectory fileDirectory = tiffImage.getFileDirectory();
+				fileDirectory.readRasters();
+				sharedCache.resetCounters();
+
+				ImageWindow window = new ImageWindow(3, 2, 34, 19);
+				Rasters expected = expectedDirectory.readRasters(window,
+						null, true, true);
+
+				// Interleaved and sample spans and values read by value
+				TiffTestUtils.compareRastersSampleValues(expected,
+						fileDirectory.readRasters(window, null, true, true));
+				TiffTestUtils.compareRastersInterleaveValues(expected,
+						fileDirectory.readRasters(window, null, false, true));
+				for (ByteOrder order : new ByteOrder[] {
+						ByteOrder.BIG_ENDIAN, ByteOrder.LITTLE_ENDIAN }) {
+					ByteBuffer[] sampleValues = new ByteBuffer[3];
+					for (int i = 0; i < 3; i++) {
+						sampleValues[i] = ByteBuffer.allocate(31 * 17 * 2)
+								.order(order);
+					}
+					Rasters orderRasters = new Rasters(31, 17,
+							rasters.getFieldTypes(), sampleValues,
+							ByteBuffer.allocate(31 * 17 * 6).order(order));
+					fileDirectory.readRasters(window, null, orderRasters);
+					TiffTestUtils.compareRastersSampleValues(expected,
+							orderRasters);
+					TiffTestUtils.compareRastersInterleaveValues(expected,
+							orderRasters);
+				}
+
+				// Concurrent and decimated reads
+				Rasters parallel = fileDirectory.readRasters(window, null,
+						true, true, executor);
+				TiffTestUtils.compareRastersSampleValues(expected, parallel);
+				TiffTestUtils.compareRastersInterleaveValues(expected,
+						parallel);
+				TiffTestUtils.compareRastersSampleValues(
+						expectedDirectory.readDecimatedRasters(window, null,
+								true, false, 12, 40),
+						fileDirectory.readDecimatedRasters(window, null,
+								true, false, 12, 40));
+
+				TestCase.assertTrue(sharedCache.getHits() > 0);
+				TestCase.assertEquals(0, sharedCache.getMisses());
+			}
+		} finally {
+			executor.shutdown();
+		}
+
+	}
+
+	/**
+	 * Test reading rasters into reused existing rasters and buffers
+	 * 
+	 * @throws IOException
+	 *             upon error
+	 */
+	@Test
+	public void testReadIntoRasters() throws IOException {
+
+		File file = TiffTestUtils
+				.getTestFile(TiffTestConstants.FILE_DEFLATE_PREDICTOR_TILED);
+		FileDirectory fileDirectory = TiffReader.readTiff(file)
+				.getFileDirectory();
+
+		ImageWindow window = new ImageWindow(0, 0, 40, 40);
+		Rasters rasters = fileDirectory.createRasters(window, null, true,
+				true);
+		ByteBuffer[] sampleValues = rasters.getSampleValues();
+		ByteBuffer interleaveValues = rasters.getInterleaveValues();
+
+		for (int offset = 0; offset < 400; offset += 97) {
+			window = new ImageWindow(offset, offset / 2, offset + 40,
+					offset / 2 + 40);
+			TestCase.assertSame(rasters,
+					fileDirectory.readRasters(window, null, rasters));
+			TestCase.assertSame(sampleValues, rasters.getSampleValues());
+			TestCase.assertSame(interleaveValues,
+					rasters.getInterleaveValues());
+			Rasters expected = fileDirectory.readRasters(window, null, true,
+					true);
+			TiffTestUtils.compareRastersSampleValues(expected, rasters);
+			TiffTestUtils.compareRastersInterleaveValues(expected, rasters);
+		}
+
+		// Interleaved values read into a caller buffer
+		int[] samples = new int[] { 0 };
+		ByteBuffer buffer = ByteBuffer.allocate(40 * 40 * 2)
+				.order(ByteOrder.BIG_ENDIAN);
+		Rasters bufferRasters = fileDirectory.readInterleavedRasters(window,
+				samples, buffer);
+		TestCase.assertSame(buffer, bufferRasters.getInterleaveValues());
+		Rasters expected = fileDirectory.readRasters(window, samples, false,
+				true);
+		for (int y = 0; y < 40; y++) {
+			for (int x = 0; x < 40; x++) {
+				TestCase.assertEquals(expected.getInt(0, x, y),
+						bufferRasters.getInt(0, x, y));
+			}
+		}
+
+		// Mismatched rasters layouts are rejected
+		try {
+			fileDirectory.readRasters(new ImageWindow(0, 0, 41, 40), null,
+					rasters);
+			fail("Mismatched window size did not fail");
+		} catch (TiffException e) {
+			// Expected
+		}
+		try {
+			fileDirectory.readInterleavedRasters(window, samples,
+					ByteBuffer.allocate(40 * 40));
+			fail("Undersized buffer did not fail");
+		} catch (TiffException e) {
+			// Expected
+		}
+
+	}
+
+	/**
+	 * Test reading packed sub-byte and odd bit width samples
+	 */
+	@Test
+	public void testPackedSamples() {
+
+		int width = 13;
+		int height = 3;
+
+		int[][] bitsAndSamples = new int[][] { { 1, 1 }, { 2, 1 }, { 4, 1 },
+				{ 5, 1 }, { 12, 1 }, { 4, 3 }, { 12, 3 } };
+		for (int[] bitsAndSample : bitsAndSamples) {
+
+			int bitsPerSample = bitsAndSample[0];
+			int samplesPerPixel = bitsAndSample[1];
+			int valuesPerRow = width * samplesPerPixel;
+			int[] values = new int[valuesPerRow * height];
+			for (int i = 0; i < values.length; i++) {
+				values[i] = (i * 7 + 3) & ((1 << bitsPerSample) - 1);
+			}
+
+			// Pack the values most significant bit first, padding each row
+			int rowBytes = (valuesPerRow * bitsPerSample + 7) / 8;
+			byte[] strip = new byte[rowBytes * height];
+			for (int i = 0; i < values.length; i++) {
+				int bit = (i / valuesPerRow) * rowBytes * 8
+						+ (i % valuesPerRow) * bitsPerSample;
+				for (int b = 0; b < bitsPerSample; b++, bit++) {
+					if (((values[i] >> (bitsPerSample - 1 - b)) & 1) != 0) {
+						strip[bit / 8] |= 0x80 >> (bit % 8);
+					}
+				}
+			}
+
+			FileDirectory fileDirectory = TiffReader
+					.readTiff(createStrippedBigTiff(width, height,
+							bitsPerSample, samplesPerPixel, strip))
+					.getFileDirectory();
+			TestCase.assertEquals(bitsPerSample <= 8 ? FieldType.BYTE
+					: FieldType.SHORT, fileDirectory.getFieldTypeForSample(0));
+
+			Rasters rasters = fileDirectory.readRasters(true, true);
+			for (int y = 0; y < height; y++) {
+				for (int x = 0; x < width; x++) {
+					for (int sample = 0; sample < samplesPerPixel; sample++) {
+						int value = values[(y * width + x) * samplesPerPixel
+								+ sample];
+						TestCase.assertEquals(value,
+								rasters.getInt(sample, x, y));
+						TestCase.assertEquals(value, rasters
+								.getPixelSample(sample, x, y).intValue());
+					}
+				}
+			}
+
+			ImageWindow window = new ImageWindow(3, 1, 11, 3);
+			Rasters windowRasters = fileDirectory.readRasters(window);
+			for (int y = 0; y < 2; y++) {
+				for (int x = 0; x < 8; x++) {
+					TestCase.assertEquals(rasters.getInt(0, x + 3, y + 1),
+							windowRasters.getInt(0, x, y));
+				}
+			}
+		}
+
+	}
+
+	/**
+	 * Test iterating the raster blocks of the tiles and strips
+	 * 
+	 * @throws IOException
+	 *             upon error
+	 */
+	@Test
+	public void testReadBlocks() throws IOException {
+
+		File file = TiffTestUtils
+				.getTestFile(TiffTestConstants.FILE_DEFLATE_PREDICTOR_TILED);
+		FileDirectory fileDirectory = TiffReader.readTiff(file)
+				.getFileDirectory();
+		int tiles = (int) fileDirectory.get(FieldTagType.TileOffsets)
+				.getTypeCount();
+		int width = fileDirectory.getImageWidth().intValue();
+		int height = fileDirectory.getImageHeight().intValue();
+
+		int blocks = 0;
+		long pixels = 0;
+		for (RasterBlock block : fileDirectory.readBlocks()) {
+			ImageWindow window = block.getWindow();
+			TestCase.assertEquals(block.getXBlock()
+					* fileDirectory.getTileWidth().intValue(), block.getX());
+			TestCase.assertEquals(block.getYBlock()
+					* fileDirectory.getTileHeight().intValue(), block.getY());
+			TestCase.assertTrue(window.getMaxX() <= width);
+			TestCase.assertTrue(window.getMaxY() <= height);
+			if (blocks % 17 == 0) {
+				TiffTestUtils.compareRastersSampleValues(
+						fileDirectory.readRasters(window), block.getRasters());
+			}
+			pixels += block.getRasters().getNumPixels();
+			blocks++;
+		}
+		TestCase.assertEquals(tiles, blocks);
+		TestCase.assertEquals((long) width * height, pixels);
+
+		// Read ahead blocks from a byte source, stopping early
+		ByteArrayByteSource source = new ByteArrayByteSource(
+				IOUtils.fileBytes(file));
+		FileDirectory sourceDirectory = TiffReader.readTiff(source)
+				.getFileDirectory();
+		int reads = source.getReads();
+		blocks = 0;
+		for (RasterBlock block : sourceDirectory.readBlocks(new int[] { 2 },
+				false, true, 20)) {
+			Rasters expected = fileDirectory.readRasters(block.getWindow(),
+					new int[] { 2 }, false, true);
+			TiffTestUtils.compareRastersInterleaveValues(expected,
+					block.getRasters());
+			if (++blocks == 40) {
+				break;
+			}
+		}
+		TestCase.assertEquals(40, blocks);
+		TestCase.assertTrue(source.getReads() - reads <= 2);
+
+	}
+
+	/**
+	 * Test reading only the window rows of uncompressed strips
+	 * 
+	 * @throws IOException
+	 *             upon error
+	 */
+	@Test
+	public void testPartialStripReads() throws IOException {
+
+		int width = 1000;
+		int height = 400;
+		int samplesPerPixel = 3;
+		FieldType fieldType = FieldType.SHORT;
+
+		Rasters rasters = new Rasters(width, height, samplesPerPixel,
+				fieldType);
+		for (int y = 0; y < height; y++) {
+			for (int x = 0; x < width; x++) {
+				for (int sample = 0; sample < samplesPerPixel; sample++) {
+					rasters.setInt(sample, x, y,
+							(x * 31 + y * 7 + sample) % 65536);
+				}
+			}
+		}
+
+		// A single uncompressed strip, BigTIFF for LONG8 strip byte counts
+		FileDirectory directory = new FileDirectory();
+		directory.setImageWidth(width);
+		directory.setImageHeight(height);
+		directory.setBitsPerSample(rasters.getBitsPerSample());
+		directory.setCompression(TiffConstants.COMPRESSION_NO);
+		directory.setPhotometricInterpretation(
+				TiffConstants.PHOTOMETRIC_INTERPRETATION_RGB);
+		directory.setSamplesPerPixel(samplesPerPixel);
+		directory.setRowsPerStrip(height);
+		directory.setPlanarConfiguration(
+				TiffConstants.PLANAR_CONFIGURATION_CHUNKY);
+		directory.setSampleFormat(rasters.getSampleFormat());
+		directory.setWriteRasters(rasters);
+		TIFFImage tiffImage = new TIFFImage();
+		tiffImage.add(directory);
+		tiffImage.setBigTiff(true);
+		byte[] bytes = TiffWriter.writeTiffToBytes(tiffImage);
+
+		final long[] bytesRead = new long[1];
+		ByteArrayByteSource source = new ByteArrayByteSource(bytes) {
+			@Override
+			public byte[] readRange(long offset, int length)
+					throws IOException {
+				bytesRead[0] += length;
+				return super.readRange(offset, length);
+			}
+		};
+		FileDirectory fileDirectory = TiffReader.readTiff(source)
+				.getFileDirectory();
+		long stripBytes = fileDirectory.getStripByteCounts().get(0)
+				.longValue();
+
+		// A single row reads a fraction of the strip
+		bytesRead[0] = 0;
+		ImageWindow window = new ImageWindow(100, 250, 300, 251);
+		Rasters rowRasters = fileDirectory.readRasters(window, null, true,
+				true);
+		TestCase.assertTrue(bytesRead[0] < stripBytes / 10);
+		for (int x = 0; x < 200; x++) {
+			for (int sample = 0; sample < samplesPerPixel; sample++) {
+				TestCase.assertEquals(rasters.getInt(sample, x + 100, 250),
+						rowRasters.getInt(sample, x, 0));
+			}
+		}
+
+		// Memory mapped and byte array reads match the full image
+		FileDirectory bytesDirectory = TiffReader.readTiff(bytes)
+				.getFileDirectory();
+		window = new ImageWindow(7, 13, 901, 377);
+		Rasters windowRasters = bytesDirectory.readInterleavedRasters(window);
+		for (int y = 0; y < 364; y += 9) {
+			for (int x = 0; x < 894; x += 5) {
+				TestCase.assertEquals(rasters.getInt(1, x + 7, y + 13),
+						windowRasters.getInt(1, x, y));
+			}
+		}
+		TiffTestUtils.compareRastersSampleValues(rasters,
+				bytesDirectory.readRasters());
+
+	}
+
+	/**
+	 * Test that row span copies match value by value reads for interleaved
+	 * and sample output, mid block windows, and differing byte orders
+	 * 
+	 * @throws IOException
+	 *             upon error
+	 */
+	@Test
+	public void testSpanCopyReads() throws IOException {
+
+		int width = 37;
+		int height = 23;
+		int samplesPerPixel = 3;
+		FieldType fieldType = FieldType.SHORT;
+
+		Rasters rasters = new Rasters(width, height, samplesPerPixel,
+				fieldType);
+		for (int y = 0; y < height; y++) {
+			for (int x = 0; x < width; x++) {
+				for (int sample = 0; sample < samplesPerPixel; sample++) {
+					rasters.setInt(sample, x, y,
+							(x * 977 + y * 131 + sample * 7919) % 65536);
+				}
+			}
+		}
+
+		FieldType[] fieldTypes = rasters.getFieldTypes();
+		int[] samples = new int[] { 0, 1, 2 };
+		int[] reversedSamples = new int[] { 2, 1, 0 };
+		ByteOrder[] byteOrders = new ByteOrder[] { ByteOrder.BIG_ENDIAN,
+				ByteOrder.LITTLE_ENDIAN };
+
+		for (int compression : new int[] { TiffConstants.COMPRESSION_NO,
+				TiffConstants.COMPRESSION_DEFLATE }) {
+			for (int planarConfiguration : new int[] {
+					TiffConstants.PLANAR_CONFIGURATION_CHUNKY,
+					TiffConstants.PLANAR_CONFIGURATION_PLANAR }) {
+				for (ByteOrder fileOrder : byteOrders) {
+
+					FileDirectory directory = new FileDirectory();
+					directory.setImageWidth(width);
+					directory.setImageHeight(height);
+					directory.setBitsPerSample(rasters.getBitsPerSample());
+					directory.setCompression(compression);
+					directory.setPhotometricInterpretation(
+							TiffConstants.PHOTOMETRIC_INTERPRETATION_RGB);
+					directory.setSamplesPerPixel(samplesPerPixel);
+					directory.setRowsPerStrip(5);
+					directory.setPlanarConfiguration(planarConfiguration);
+					directory.setSampleFormat(rasters.getSampleFormat());
+					directory.setWriteRasters(rasters);
+					TIFFImage tiffImage = new TIFFImage();
+					tiffImage.add(directory);
+					byte[] bytes = TiffWriter.writeTiffToBytes(
+							new ByteWriter(fileOrder), tiffImage);
+
+					FileDirectory fileDirectory = TiffReader.readTiff(bytes)
+							.getFileDirectory();
+
+					// Full image, and a window starting and ending mid strip
+					// and mid row
+					for (ImageWindow window : new ImageWindow[] {
+							new ImageWindow(fileDirectory),
+							new ImageWindow(3, 2, 34, 19) }) {
+
+						int windowWidth = window.getMaxX() - window.getMinX();
+						int windowHeight = window.getMaxY()
+								- window.getMinY();
+
+						for (ByteOrder rastersOrder : byteOrders) {
+
+							// Interleaved samples in order copy spans for
+							// chunky blocks, reversed samples read by value
+							Rasters interleave = new Rasters(windowWidth,
+									windowHeight, fieldTypes,
+									ByteBuffer
+											.allocate(windowWidth * windowHeight
+													* rasters.sizePixel())
+											.order(rastersOrder));
+							fileDirectory.readRasters(window, samples,
+									interleave);
+							Rasters reversedInterleave = new Rasters(
+									windowWidth, windowHeight, fieldTypes,
+									ByteBuffer
+											.allocate(windowWidth * windowHeight
+													* rasters.sizePixel())
+											.order(rastersOrder));
+							fileDirectory.readRasters(window, reversedSamples,
+									reversedInterleave);
+
+							// Sample values copy spans for planar blocks and
+							// read by value for chunky blocks
+							ByteBuffer[] sampleValues = new ByteBuffer[samplesPerPixel];
+							for (int i = 0; i < samplesPerPixel; i++) {
+								sampleValues[i] = ByteBuffer
+										.allocate(windowWidth * windowHeight
+												* fieldType.getBytes())
+										.order(rastersOrder);
+							}
+							Rasters sample = new Rasters(windowWidth,
+									windowHeight, fieldTypes, sampleValues);
+							fileDirectory.readRasters(window, samples, sample);
+
+							for (int y = 0; y < windowHeight; y++) {
+								for (int x = 0; x < windowWidth; x++) {
+									for (int i = 0; i < samplesPerPixel; i++) {
+										int expected = rasters.getInt(i,
+												x + window.getMinX(),
+												y + window.getMinY());
+										TestCase.assertEquals(expected,
+												interleave.getInterleaveValues()
+														.getShort(((y
+																* windowWidth
+																+ x)
+																* samplesPerPixel
+																+ i) * 2)
+														& 0xffff);
+										TestCase.assertEquals(expected,
+												reversedInterleave
+														.getInterleaveValues()
+														.getShort(((y
+																* windowWidth
+																+ x)
+																* samplesPerPixel
+																+ 2 - i) * 2)
+														& 0xffff);
+										TestCase.assertEquals(expected,
+												sample.getInt(i, x, y));
+									}
+								}
+							}
+
+							// Span copy and value by value reads agree
+							Rasters expected = fileDirectory.readRasters(
+									window, samples, true, true);
+							TiffTestUtils.compareRastersSampleValues(expected,
+									sample);
+							TiffTestUtils.compareRastersInterleaveValues(
+									expected, interleave);
+						}
+					}
+				}
+			}
+		}
+
+	}
+
+	/**
+	 * Test reading decimated rasters by stride and size
+	 * 
+	 * @throws IOException
+	 *             upon error
+	 */
+	@Test
+	public void testDecimatedRasters() throws IOException {
+
+		// Uncompressed strips
+		Rasters rawRasters = new Rasters(300, 200, 3, FieldType.BYTE);
+		for (int y = 0; y < 200; y++) {
+			for (int x = 0; x < 300; x++) {
+				for (int sample = 0; sample < 3; sample++) {
+					rawRasters.setInt(sample, x, y,
+							(x + y * 3 + sample) % 256);
+				}
+			}
+		}
+		FileDirectory rawDirectory = new FileDirectory();
+		rawDirectory.setImageWidth(300);
+		rawDirectory.setImageHeight(200);
+		rawDirectory.setBitsPerSample(rawRasters.getBitsPerSample());
+		rawDirectory.setCompression(TiffConstants.COMPRESSION_NO);
+		rawDirectory.setPhotometricInterpretation(
+				TiffConstants.PHOTOMETRIC_INTERPRETATION_RGB);
+		rawDirectory.setSamplesPerPixel(3);
+		rawDirectory.setRowsPerStrip(16);
+		rawDirectory.setPlanarConfiguration(
+				TiffConstants.PLANAR_CONFIGURATION_CHUNKY);
+		rawDirectory.setSampleFormat(rawRasters.getSampleFormat());
+		rawDirectory.setWriteRasters(rawRasters);
+		byte[] rawBytes = TiffWriter
+				.writeTiffToBytes(new TIFFImage(rawDirectory));
+
+		List<FileDirectory> fileDirectories = new ArrayList<>();
+		fileDirectories.add(TiffReader.readTiff(rawBytes).getFileDirectory());
+		fileDirectories.add(TiffReader
+				.readTiff(TiffTestUtils.getTestFile(
+						TiffTestConstants.FILE_DEFLATE_PREDICTOR_TILED))
+				.getFileDirectory());
+		fileDirectories.add(TiffReader
+				.readTiff(TiffTestUtils.getTestFile(
+						TiffTestConstants.FILE_DEFLATE_PREDICTOR))
+				.getFileDirectory());
+
+		for (FileDirectory fileDirectory : fileDirectories) {
+
+			Rasters rasters = fileDirectory.readRasters();
+			int samples = rasters.getSamplesPerPixel();
+			int width = rasters.getWidth();
+			int height = rasters.getHeight();
+
+			// Every fifth pixel of a window
+			ImageWindow window = new ImageWindow(3, 7, width - 11,
+					height - 2);
+			Rasters strided = fileDirectory.readDecimatedRasters(window, null,
+					true, true, 5);
+			TestCase.assertEquals((width - 14 + 4) / 5, strided.getWidth());
+			TestCase.assertEquals((height - 9 + 4) / 5, strided.getHeight());
+			for (int y = 0; y < strided.getHeight(); y++) {
+				for (int x = 0; x < strided.getWidth(); x++) {
+					for (int sample = 0; sample < samples; sample++) {
+						int expected = rasters.getInt(sample, 3 + x * 5,
+								7 + y * 5);
+						TestCase.assertEquals(expected,
+								strided.getInt(sample, x, y));
+						TestCase.assertEquals(expected, strided
+								.getPixelSample(sample, x, y).intValue());
+					}
+				}
+			}
+
+			// A preview of the size
+			Rasters preview = fileDirectory.readDecimatedRasters(64, 48);
+			TestCase.assertEquals(64, preview.getWidth());
+			TestCase.assertEquals(48, preview.getHeight());
+			for (int y = 0; y < 48; y++) {
+				for (int x = 0; x < 64; x++) {
+					TestCase.assertEquals(
+							rasters.getInt(samples - 1, x * width / 64,
+									y * height / 48),
+							preview.getInt(samples - 1, x, y));
+				}
+			}
+
+			// A stride of 1 matches the window rasters
+			TiffTestUtils.compareRastersInterleaveValues(
+					fileDirectory.readRasters(window, null, false, true),
+					fileDirectory.readDecimatedRasters(window, null, false,
+							true, 1));
+		}
+
+		// Sizes larger than the window repeat the nearest pixels
+		FileDirectory rawFileDirectory = fileDirectories.get(0);
+		ImageWindow upsampleWindow = new ImageWindow(5, 17, 15, 25);
+		Rasters upsampled = rawFileDirectory.readDecimatedRasters(
+				upsampleWindow, null, true, true, 25, 12);
+		TestCase.assertEquals(25, upsampled.getWidth());
+		TestCase.assertEquals(12, upsampled.getHeight());
+		for (int y = 0; y < 12; y++) {
+			for (int x = 0; x < 25; x++) {
+				for (int sample = 0; sample < 3; sample++) {
+					TestCase.assertEquals(
+							rawRasters.getInt(sample, 5 + x * 10 / 25,
+									17 + y * 8 / 12),
+							upsampled.getInt(sample, x, y));
+				}
+			}
+		}
+		TestCase.assertEquals(301,
+				rawFileDirectory.readDecimatedRasters(301, 10).getWidth());
+
+		try {
+			rawFileDirectory.readDecimatedRasters(0, 10);
+			fail("Empty decimated size did not fail");
+		} catch (TiffException e) {
+			// Expected
+		}
+
+	}
+
+	/**
+	 * Test selecting and reading reduced resolution overviews
+	 * 
+	 * @throws IOException
+	 *             upon error
+	 */
+	@Test
+	public void testOverviews() throws IOException {
+
+		// Full resolution, two overviews, and an overview transparency mask
+		List<FileDirectory> fileDirectories = new ArrayList<>();
+		int[] sizes = new int[] { 256, 128, 64, 32 };
+		for (int level = 0; level < sizes.length; level++) {
+			int size = sizes[level];
+			int scale = 256 / size;
+			Rasters rasters = new Rasters(size, size, 1, FieldType.SHORT);
+			for (int y = 0; y < size; y++) {
+				for (int x = 0; x < size; x++) {
+					rasters.setInt(0, x, y, (y * scale) * 256 + x * scale);
+				}
+			}
+			FileDirectory directory = new FileDirectory();
+			directory.setImageWidth(size);
+			directory.setImageHeight(size);
+			directory.setBitsPerSample(rasters.getBitsPerSample());
+			directory.setCompression(TiffConstants.COMPRESSION_NO);
+			directory.setPhotometricInterpretation(
+					TiffConstants.PHOTOMETRIC_INTERPRETATION_BLACK_IS_ZERO);
+			directory.setSamplesPerPixel(1);
+			directory.setRowsPerStrip(rasters.calculateRowsPerStrip(
+					TiffConstants.PLANAR_CONFIGURATION_CHUNKY));
+			directory.setPlanarConfiguration(
+					TiffConstants.PLANAR_CONFIGURATION_CHUNKY);
+			directory.setSampleFormat(rasters.getSampleFormat());
+			directory.setWriteRasters(rasters);
+			if (level == 3) {
+				directory.setNewSubfileType(
+						TiffConstants.NEW_SUBFILE_TYPE_REDUCED_RESOLUTION
+								| TiffConstants.NEW_SUBFILE_TYPE_TRANSPARENCY_MASK);
+			} else if (level > 0) {
+				directory.setNewSubfileType(
+						TiffConstants.NEW_SUBFILE_TYPE_REDUCED_RESOLUTION);
+			}
+			fileDirectories.add(directory);
+		}
+		byte[] bytes = TiffWriter
+				.writeTiffToBytes(new TIFFImage(fileDirectories));
+
+		TIFFImage tiffImage = TiffReader.readTiff(bytes, false, true);
+		FileDirectory fullDirectory = tiffImage.getFileDirectory();
+		TestCase.assertFalse(fullDirectory.isReducedResolution());
+		List<FileDirectory> overviews = tiffImage.getOverviews();
+		TestCase.assertEquals(2, overviews.size());
+		TestCase.assertEquals(128, overviews.get(0).getImageWidth().intValue());
+		TestCase.assertEquals(64, overviews.get(1).getImageWidth().intValue());
+		TestCase.assertTrue(tiffImage.getFileDirectory(3).isTransparencyMask());
+
+		ImageWindow fullWindow = new ImageWindow(fullDirectory);
+		TestCase.assertSame(overviews.get(0),
+				tiffImage.getOverview(fullWindow, 100, 100));
+		TestCase.assertSame(overviews.get(1),
+				tiffImage.getOverview(fullWindow, 64, 64));
+		TestCase.assertSame(fullDirectory,
+				tiffImage.getOverview(fullWindow, 200, 100));
+		ImageWindow window = new ImageWindow(32, 64, 96, 128);
+		TestCase.assertSame(fullDirectory,
+				tiffImage.getOverview(window, 40, 40));
+		TestCase.assertSame(overviews.get(0),
+				tiffImage.getOverview(window, 32, 32));
+
+		ImageWindow overviewWindow = tiffImage.getOverviewWindow(window,
+				overviews.get(1));
+		TestCase.assertEquals(8, overviewWindow.getMinX());
+		TestCase.assertEquals(16, overviewWindow.getMinY());
+		TestCase.assertEquals(24, overviewWindow.getMaxX());
+		TestCase.assertEquals(32, overviewWindow.getMaxY());
+
+		// Read an overview at its size and decimated below it
+		Rasters rasters = tiffImage.readOverviewRasters(window, 16, 16);
+		for (int y = 0; y < 16; y++) {
+			for (int x = 0; x < 16; x++) {
+				TestCase.assertEquals((64 + y * 4) * 256 + 32 + x * 4,
+						rasters.getInt(0, x, y));
+			}
+		}
+		rasters = tiffImage.readOverviewRasters(fullWindow, 50, 50);
+		TestCase.assertEquals(50, rasters.getWidth());
+		for (int y = 0; y < 50; y++) {
+			for (int x = 0; x < 50; x++) {
+				TestCase.assertEquals(
+						(y * 64 / 50) * 4 * 256 + (x * 64 / 50) * 4,
+						rasters.getInt(0, x, y));
+			}
+		}
+
+		// Upsample a full resolution window smaller than the size
+		window = new ImageWindow(40, 20, 50, 30);
+		rasters = tiffImage.readOverviewRasters(window, 30, 20);
+		TestCase.assertEquals(30, rasters.getWidth());
+		TestCase.assertEquals(20, rasters.getHeight());
+		for (int y = 0; y < 20; y++) {
+			for (int x = 0; x < 30; x++) {
+				TestCase.assertEquals(
+						(20 + y * 10 / 20) * 256 + 40 + x * 10 / 30,
+						rasters.getInt(0, x, y));
+			}
+		}
+
+	}
+
+	/**
+	 * Test lazily reading the SubIFDs and Exif IFD child file directories
+	 */
+	@Test
+	public void testChildFileDirectories() {
+
+		ByteBuffer buffer = ByteBuffer.allocate(512)
+				.order(ByteOrder.LITTLE_ENDIAN);
+
+		// Header
+		buffer.put(TiffConstants.BYTE_ORDER_LITTLE_ENDIAN
+				.getBytes(StandardCharsets.US_ASCII));
+		buffer.putShort((short) TiffConstants.BIGTIFF_FILE_IDENTIFIER);
+		buffer.putShort((short) TiffConstants.BIGTIFF_OFFSET_BYTES);
+		buffer.putShort((short) 0);
+		buffer.putLong(TiffConstants.BIGTIFF_HEADER_BYTES);
+
+		int ifdBytes = TiffConstants.BIGTIFF_IFD_HEADER_BYTES
+				+ TiffConstants.BIGTIFF_IFD_OFFSET_BYTES;
+		long subOffset = TiffConstants.BIGTIFF_HEADER_BYTES + ifdBytes
+				+ 9 * TiffConstants.BIGTIFF_IFD_ENTRY_BYTES;
+		long exifOffset = subOffset + ifdBytes
+				+ 8 * TiffConstants.BIGTIFF_IFD_ENTRY_BYTES;
+		long stripOffset = exifOffset + ifdBytes
+				+ TiffConstants.BIGTIFF_IFD_ENTRY_BYTES;
+		long subStripOffset = stripOffset + 8;
+
+		// Full resolution 4x2 image with a sub file directory and Exif
+		buffer.putLong(9);
+		putBigTiffEntry(buffer, FieldTagType.ImageWidth, FieldType.SHORT, 1,
+				4);
+		putBigTiffEntry(buffer, FieldTagType.ImageLength, FieldType.SHORT, 1,
+				2);
+		putBigTiffEntry(buffer, FieldTagType.BitsPerSample, FieldType.SHORT,
+				1, 8);
+		putBigTiffEntry(buffer, FieldTagType.Compression, FieldType.SHORT, 1,
+				TiffConstants.COMPRESSION_NO);
+		putBigTiffEntry(buffer, FieldTagType.StripOffsets, FieldType.LONG8, 1,
+				stripOffset);
+		putBigTiffEntry(buffer, FieldTagType.RowsPerStrip, FieldType.SHORT, 1,
+				2);
+		putBigTiffEntry(buffer, FieldTagType.StripByteCounts, FieldType.LONG8,
+				1, 8);
+		putBigTiffEntry(buffer, FieldTagType.SubIFDs, FieldType.IFD8, 1,
+				subOffset);
+		putBigTiffEntry(buffer, FieldTagType.ExifIFD, FieldType.IFD8, 1,
+				exifOffset);
+		buffer.putLong(0);
+
+		// Reduced resolution 2x1 sub file directory
+		buffer.putLong(8);
+		putBigTiffEntry(buffer, FieldTagType.NewSubfileType, FieldType.LONG,
+				1, TiffConstants.NEW_SUBFILE_TYPE_REDUCED_RESOLUTION);
+		putBigTiffEntry(buffer, FieldTagType.ImageWidth, FieldType.SHORT, 1,
+				2);
+		putBigTiffEntry(buffer, FieldTagType.ImageLength, FieldType.SHORT, 1,
+				1);
+		putBigTiffEntry(buffer, FieldTagType.BitsPerSample, FieldType.SHORT,
+				1, 8);
+		putBigTiffEntry(buffer, FieldTagType.Compression, FieldType.SHORT, 1,
+				TiffConstants.COMPRESSION_NO);
+		putBigTiffEntry(buffer, FieldTagType.StripOffsets, FieldType.LONG8, 1,
+				subStripOffset);
+		putBigTiffEntry(buffer, FieldTagType.RowsPerStrip, FieldType.SHORT, 1,
+				1);
+		putBigTiffEntry(buffer, FieldTagType.StripByteCounts, FieldType.LONG8,
+				1, 2);
+		buffer.putLong(0);
+
+		// Exif file directory
+		buffer.putLong(1);
+		putBigTiffEntry(buffer, FieldTagType.ColorSpace, FieldType.SHORT, 1,
+				1);
+		buffer.putLong(0);
+
+		// Strips
+		buffer.put(new byte[] { 0, 1, 2, 3, 4, 5, 6, 7 });
+		buffer.put(new byte[] { 10, 12 });
+
+		byte[] bytes = Arrays.copyOf(buffer.array(), buffer.position());
+		TIFFImage tiffImage = TiffReader.readTiff(bytes);
+		TestCase.assertEquals(1, tiffImage.numFileDirectories());
+
+		FileDirectory fileDirectory = tiffImage.getFileDirectory();
+		TestCase.assertEquals(1, fileDirectory.numSubFileDirectories());
+		FileDirectory subFileDirectory = fileDirectory.getSubFileDirectory(0);
+		TestCase.assertSame(subFileDirectory,
+				fileDirectory.getSubFileDirectories().get(0));
+		TestCase.assertTrue(subFileDirectory.isReducedResolution());
+		TestCase.assertEquals(2,
+				subFileDirectory.getImageWidth().intValue());
+		Rasters rasters = subFileDirectory.readRasters();
+		TestCase.assertEquals(10, rasters.getInt(0, 0, 0));
+		TestCase.assertEquals(12, rasters.getInt(0, 1, 0));
+
+		FileDirectory exifFileDirectory = fileDirectory
+				.getExifFileDirectory();
+		TestCase.assertSame(exifFileDirectory,
+				fileDirectory.getExifFileDirectory());
+		TestCase.assertEquals(1, exifFileDirectory.numEntries());
+		TestCase.assertEquals(1, exifFileDirectory
+				.getIntegerEntryValue(FieldTagType.ColorSpace).intValue());
+
+		// Sub file directory overviews
+		TestCase.assertEquals(1, tiffImage.getOverviews().size());
+		TestCase.assertSame(subFileDirectory,
+				tiffImage.getOverview(new ImageWindow(fileDirectory), 2, 1));
+		rasters = tiffImage.readOverviewRasters(
+				new ImageWindow(fileDirectory), 2, 1);
+		TestCase.assertEquals(12, rasters.getInt(0, 1, 0));
+
+		// Sub file directory overviews share the parent heap cache
+		TIFFImage cachedImage = TiffReader.readTiff(bytes, true);
+		LRUBlockCache blockCache = (LRUBlockCache) cachedImage
+				.getFileDirectory().getCache();
+		for (int i = 0; i < 2; i++) {
+			rasters = cachedImage.readOverviewRasters(
+					new ImageWindow(cachedImage.getFileDirectory()), 2, 1);
+			TestCase.assertEquals(12, rasters.getInt(0, 1, 0));
+		}
+		cachedImage.getFileDirectory().readRasters();
+		TestCase.assertEquals(2, blockCache.size());
+		TestCase.assertEquals(1, blockCache.getHits());
+		TestCase.assertEquals(2, blockCache.getMisses());
+
+		// Sub file directory overviews share the shared cache across images,
+		// including a sub file directory read before setting the cache
+		SharedBlockCache sharedCache = new SharedBlockCache(1024 * 1024);
+		for (int i = 0; i < 2; i++) {
+			cachedImage = TiffReader.readTiff(bytes);
+			FileDirectory overview = cachedImage.getOverviews().get(0);
+			cachedImage.setSharedCache(sharedCache, "child directories");
+			rasters = overview.readRasters();
+			TestCase.assertEquals(10, rasters.getInt(0, 0, 0));
+			rasters = cachedImage.getFileDirectory().readRasters();
+			TestCase.assertEquals(7, rasters.getInt(0, 3, 1));
+		}
+		TestCase.assertEquals(2, sharedCache.size());
+		TestCase.assertEquals(2, sharedCache.getHits());
+		TestCase.assertEquals(2, sharedCache.getMisses());
+
+		try {
+			fileDirectory.getSubFileDirectory(1);
+			fail("Out of range sub file directory did not fail");
+		} catch (TiffException e) {
+			// Expected
+		}
+
+	}
+
+	/**
+	 * Test in place predictor decoding of big and little endian samples,
+	 * including 64 bit samples
+	 */
+	@Test
+	public void testPredictorDecode() {
+
+		long[] longs = new long[] { 5, 7, -3, Long.MAX_VALUE, 1 };
+		double[] doubles = new double[] { 1.5, -2.25, 1e10, 0, Math.PI };
+		List<Integer> bitsPerSample = Arrays.asList(64);
+
+		for (ByteOrder byteOrder : new ByteOrder[] { ByteOrder.BIG_ENDIAN,
+				ByteOrder.LITTLE_ENDIAN }) {
+
+			// Horizontal differencing of 64 bit integers
+			ByteBuffer buffer = ByteBuffer.allocate(longs.length * 8)
+					.order(byteOrder);
+			for (int i = 0; i < longs.length; i++) {
+				buffer.putLong(longs[i] - (i > 0 ? longs[i - 1] : 0));
+			}
+			byte[] bytes = buffer.array();
+			TestCase.assertSame(bytes,
+					Predictor.decode(bytes, TiffConstants.PREDICTOR_HORIZONTAL,
+							longs.length, 1, bitsPerSample,
+							TiffConstants.PLANAR_CONFIGURATION_CHUNKY,
+							byteOrder));
+			buffer.rewind();
+			for (long value : longs) {
+				TestCase.assertEquals(value, buffer.getLong());
+			}
+
+			// Floating point differencing of most significant byte first
+			// 64 bit float planes
+			ByteBuffer planes = ByteBuffer.allocate(doubles.length * 8);
+			for (double value : doubles) {
+				planes.putDouble(value);
+			}
+			byte[] planeBytes = planes.array();
+			bytes = new byte[planeBytes.length];
+			for (int i = 0; i < doubles.length; i++) {
+				for (int plane = 0; plane < 8; plane++) {
+					bytes[plane * doubles.length + i] = planeBytes[i * 8
+							+ plane];
+				}
+			}
+			for (int i = bytes.length - 1; i > 0; i--) {
+				bytes[i] -= bytes[i - 1];
+			}
+			Predictor.decode(bytes, TiffConstants.PREDICTOR_FLOATINGPOINT,
+					doubles.length, 1, bitsPerSample,
+					TiffConstants.PLANAR_CONFIGURATION_CHUNKY, byteOrder);
+			buffer = ByteBuffer.wrap(bytes).order(byteOrder);
+			for (double value : doubles) {
+				TestCase.assertEquals(value, buffer.getDouble(), 0.0);
+			}
+
+			// Horizontal differencing of two 16 bit samples over two rows
+			short[] shorts = new short[] { 1, 1000, 300, -2, 32767, 5, 9, 8,
+					-32768, 12, 7, 7 };
+			buffer = ByteBuffer.allocate(shorts.length * 2).order(byteOrder);
+			for (int i = 0; i < shorts.length; i++) {
+				buffer.putShort((short) (shorts[i]
+						- (i % 6 >= 2 ? shorts[i - 2] : 0)));
+			}
+			Predictor.decode(buffer.array(),
+					TiffConstants.PREDICTOR_HORIZONTAL, 3, 2,
+					Arrays.asList(16, 16),
+					TiffConstants.PLANAR_CONFIGURATION_CHUNKY, byteOrder);
+			buffer.rewind();
+			for (short value : shorts) {
+				TestCase.assertEquals(value, buffer.getShort());
+			}
+
+		}
+
+	}
+
+	/**
+	 * Create a single strip BigTIFF
+	 * 
+	 * @param width
+	 *            image width
+	 * @param height
+	 *            image height
+	 * @param bitsPerSample
+	 *            bits per sample
+	 * @param samplesPerPixel
+	 *            samples per pixel, up to 4
+	 * @param strip
+	 *            strip bytes
+	 * @return TIFF bytes
+	 */
+	private static byte[] createStrippedBigTiff(int width, int height,
+			int bitsPerSample, int samplesPerPixel, byte[] strip) {
+
+		ByteBuffer buffer = ByteBuffer.allocate(256 + strip.length)
+				.order(ByteOrder.LITTLE_ENDIAN);
+
+		// Header
+		buffer.put(TiffConstants.BYTE_ORDER_LITTLE_ENDIAN
+				.getBytes(StandardCharsets.US_ASCII));
+		buffer.putShort((short) TiffConstants.BIGTIFF_FILE_IDENTIFIER);
+		buffer.putShort((short) TiffConstants.BIGTIFF_OFFSET_BYTES);
+		buffer.putShort((short) 0);
+		buffer.putLong(TiffConstants.BIGTIFF_HEADER_BYTES);
+
+		// Image file directory, with the short bits per sample values inline
+		int entries = 8;
+		long stripOffset = TiffConstants.BIGTIFF_HEADER_BYTES
+				+ TiffConstants.BIGTIFF_IFD_HEADER_BYTES
+				+ entries * TiffConstants.BIGTIFF_IFD_ENTRY_BYTES
+				+ TiffConstants.BIGTIFF_IFD_OFFSET_BYTES;
+		long bitsPerSamples = 0;
+		for (int i = 0; i < samplesPerPixel; i++) {
+			bitsPerSamples |= (long) bitsPerSample << (i * 16);
+		}
+		buffer.putLong(entries);
+		putBigTiffEntry(buffer, FieldTagType.ImageWidth, FieldType.SHORT, 1,
+				width);
+		putBigTiffEntry(buffer, FieldTagType.ImageLength, FieldType.SHORT, 1,
+				height);
+		putBigTiffEntry(buffer, FieldTagType.BitsPerSample, FieldType.SHORT,
+				samplesPerPixel, bitsPerSamples);
+		putBigTiffEntry(buffer, FieldTagType.Compression, FieldType.SHORT, 1,
+				TiffConstants.COMPRESSION_NO);
+		putBigTiffEntry(buffer, FieldTagType.StripOffsets, FieldType.LONG8, 1,
+				stripOffset);
+		putBigTiffEntry(buffer, FieldTagType.SamplesPerPixel, FieldType.SHORT,
+				1, samplesPerPixel);
+		putBigTiffEntry(buffer, FieldTagType.RowsPerStrip, FieldType.SHORT, 1,
+				height);
+		putBigTiffEntry(buffer, FieldTagType.StripByteCounts, FieldType.LONG8,
+				1, strip.length);
+		buffer.putLong(0);
+
+		// Strip
+		buffer.put(strip);
+
+		return Arrays.copyOf(buffer.array(), buffer.position());
+	}
+
+	/**
+	 * Put a BigTIFF file directory entry with a single value or value offset
+	 * 
+	 * @param buffer
+	 *            byte buffer
+	 * @param fieldTag
+	 *            field tag type
+	 * @param fieldType
+	 *            field type
+	 * @param typeCount
+	 *            type count
+	 * @param value
+	 *            inline value or value offset
+	 */
+	private static void putBigTiffEntry(ByteBuffer buffer,
+			FieldTagType fieldTag, FieldType fieldType, long typeCount,
+			long value) {
+		buffer.putShort((short) fieldTag.getId());
+		buffer.putShort((short) fieldType.getValue());
+		buffer.putLong(typeCount);
+		int position = buffer.position();
+		if (fieldType == FieldType.SHORT && typeCount == 1) {
+			buffer.putShort((short) value);
+		} else {
+			buffer.putLong(value);
+		}
+		buffer.position(
+				position + TiffConstants.BIGTIFF_IFD_ENTRY_VALUE_BYTES);
+	}
+
 }
@@ -1,12 +1,18 @@
 package mil.nga.tiff;
 
+import java.io.ByteArrayOutputStream;
 import java.io.File;
 import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.file.Files;
+import java.util.Arrays;
 import java.util.List;
 
 import org.junit.Test;
 
 import junit.framework.TestCase;
+import mil.nga.tiff.io.ByteWriter;
 import mil.nga.tiff.util.TiffConstants;
 
 /**
@@ -206,4 +212,267 @@ public class TiffWriteTest {
 		}
 
 	}
+
+	/**
+	 * Test writing and reading a BigTIFF file
+	 * 
+	 * @throws IOException
+	 *             upon error
+	 */
+	@Test
+	public void testWriteBigTiff() throws IOException {
+
+		File file = TiffTestUtils
+				.getTestFile(TiffTestConstants.FILE_DEFLATE_PREDICTOR);
+		TIFFImage tiffImage = TiffReader.readTiff(file);
+		TestCase.assertFalse(tiffImage.isBigTiff());
+
+		FileDirectory fileDirectory = tiffImage.getFileDirectory();
+		Rasters rasters = fileDirectory.readRasters();
+
+		fileDirectory.setWriteRasters(rasters);
+		fileDirectory.setCompression(TiffConstants.COMPRESSION_DEFLATE);
+		fileDirectory.setPredictor(TiffConstants.PREDICTOR_NO);
+		fileDirectory.setPlanarConfiguration(
+				TiffConstants.PLANAR_CONFIGURATION_CHUNKY);
+		fileDirectory.setRowsPerStrip(rasters
+				.calculateRowsPerStrip(fileDirectory.getPlanarConfiguration()));
+		tiffImage.setBigTiff(true);
+
+		ByteWriter writer = new ByteWriter(ByteOrder.LITTLE_ENDIAN);
+		byte[] tiffBytes = TiffWriter.writeTiffToBytes(writer, tiffImage);
+		writer.close();
+
+		ByteBuffer header = ByteBuffer.wrap(tiffBytes)
+				.order(ByteOrder.LITTLE_ENDIAN);
+		TestCase.assertEquals(TiffConstants.BIGTIFF_FILE_IDENTIFIER,
+				header.getShort(2));
+		TestCase.assertEquals(TiffConstants.BIGTIFF_OFFSET_BYTES,
+				header.getShort(4));
+		TestCase.assertEquals(TiffConstants.BIGTIFF_HEADER_BYTES,
+				header.getLong(8));
+
+		TIFFImage readTiffImage = TiffReader.readTiff(tiffBytes);
+		TestCase.assertTrue(readTiffImage.isBigTiff());
+		FileDirectory fileDirectory2 = readTiffImage.getFileDirectory();
+		TestCase.assertEquals(FieldType.LONG8, fileDirectory2
+				.get(FieldTagType.StripOffsets).getFieldType());
+		TestCase.assertEquals(FieldType.LONG8, fileDirectory2
+				.get(FieldTagType.StripByteCounts).getFieldType());
+		TiffTestUtils.compareRastersSampleValues(rasters,
+				fileDirectory2.readRasters());
+
+		File bigTiffFile = File.createTempFile("bigtiff", ".tiff");
+		try {
+			TiffWriter.writeTiff(bigTiffFile, tiffImage);
+			TIFFImage fileTiffImage = TiffReader.readTiff(bigTiffFile);
+			TestCase.assertTrue(fileTiffImage.isBigTiff());
+			TiffTestUtils.compareRastersSampleValues(rasters,
+					fileTiffImage.getFileDirectory().readRasters());
+		} finally {
+			bigTiffFile.delete();
+		}
+
+	}
+
+	/**
+	 * Test streaming strips to byte array and file writers with the strip
+	 * offsets, byte counts, and next directory offsets written back, matching
+	 * the rasters buffered for other output streams
+	 * 
+	 * @throws IOException
+	 *             upon error
+	 */
+	@Test
+	public void testWriteStreamed() throws IOException {
+
+		File file = TiffTestUtils
+				.getTestFile(TiffTestConstants.FILE_DEFLATE_PREDICTOR);
+		Rasters rasters = TiffReader.readTiff(file).getFileDirectory()
+				.readRasters();
+
+		TIFFImage tiffImage = new TIFFImage();
+		for (int compression : new int[] { TiffConstants.COMPRESSION_NO,
+				TiffConstants.COMPRESSION_DEFLATE }) {
+			FileDirectory fileDirectory = new FileDirectory();
+			fileDirectory.setImageWidth(rasters.getWidth());
+			fileDirectory.setImageHeight(rasters.getHeight());
+			fileDirectory.setBitsPerSample(rasters.getBitsPerSample());
+			fileDirectory.setSamplesPerPixel(rasters.getSamplesPerPixel());
+			fileDirectory
+					.setSampleFormat(TiffConstants.SAMPLE_FORMAT_UNSIGNED_INT);
+			fileDirectory.setPhotometricInterpretation(
+					TiffConstants.PHOTOMETRIC_INTERPRETATION_BLACK_IS_ZERO);
+			fileDirectory.setPlanarConfiguration(
+					TiffConstants.PLANAR_CONFIGURATION_CHUNKY);
+			fileDirectory.setRowsPerStrip(rasters.calculateRowsPerStrip(
+					TiffConstants.PLANAR_CONFIGURATION_CHUNKY, 1000));
+			fileDirectory.setCompression(compression);
+			fileDirectory.setWriteRasters(rasters);
+			tiffImage.add(fileDirectory);
+		}
+
+		for (boolean bigTiff : new boolean[] { false, true }) {
+
+			tiffImage.setBigTiff(bigTiff);
+
+			ByteWriter writer = new ByteWriter(ByteOrder.nativeOrder());
+			TestCase.assertTrue(writer.isSeekable());
+			byte[] tiffBytes = TiffWriter.writeTiffToBytes(writer, tiffImage);
+			TestCase.assertEquals(tiffBytes.length, writer.size());
+			TestCase.assertEquals(tiffBytes.length, writer.sizeLong());
+			writer.close();
+
+			ByteArrayOutputStream outputStream = new ByteArrayOutputStream();
+			ByteWriter streamWriter = new ByteWriter(outputStream,
+					ByteOrder.nativeOrder());
+			TestCase.assertFalse(streamWriter.isSeekable());
+			TiffWriter.writeTiff(streamWriter, tiffImage);
+			streamWriter.close();
+			TestCase.assertTrue(
+					Arrays.equals(tiffBytes, outputStream.toByteArray()));
+
+			File tiffFile = File.createTempFile("streamed", ".tiff");
+			try {
+				TiffWriter.writeTiff(tiffFile, tiffImage);
+				TestCase.assertTrue(Arrays.equals(tiffBytes,
+						Files.readAllBytes(tiffFile.toPath())));
+			} finally {
+				tiffFile.delete();
+			}
+
+			TestCase.assertEquals(bigTiff, tiffImage.isBigTiff());
+
+			TIFFImage readTiffImage = TiffReader.readTiff(tiffBytes);
+			TestCase.assertEquals(bigTiff, readTiffImage.isBigTiff());
+			TestCase.assertEquals(2, readTiffImage.numFileDirectories());
+			for (FileDirectory fileDirectory : readTiffImage
+					.getFileDirectories()) {
+				TestCase.assertTrue(fileDirectory.getStripOffsets().size() > 1);
+				TiffTestUtils.compareRastersSampleValues(rasters,
+						fileDirectory.readRasters());
+			}
+		}
+
+	}
+
+	/**
+	 * Test writing and reading horizontal and floating point predictor
+	 * encoded TIFF files
+	 * 
+	 * @throws IOException
+	 *             upon error
+	 */
+	@Test
+	public void testWritePredictor() throws IOException {
+
+		File file = TiffTestUtils
+				.getTestFile(TiffTestConstants.FILE_DEFLATE_PREDICTOR);
+		TIFFImage tiffImage = TiffReader.readTiff(file);
+		FileDirectory fileDirectory = tiffImage.getFileDirectory();
+		Rasters rasters = fileDirectory.readRasters();
+
+		fileDirectory.setWriteRasters(rasters);
+		fileDirectory.setCompression(TiffConstants.COMPRESSION_DEFLATE);
+		tiffImage.setBigTiff(true);
+
+		for (ByteOrder byteOrder : new ByteOrder[] { ByteOrder.BIG_ENDIAN,
+				ByteOrder.LITTLE_ENDIAN }) {
+			for (int planarConfiguration : new int[] {
+					TiffConstants.PLANAR_CONFIGURATION_CHUNKY,
+					TiffConstants.PLANAR_CONFIGURATION_PLANAR }) {
+
+				fileDirectory.setPlanarConfiguration(planarConfiguration);
+				fileDirectory.setRowsPerStrip(
+						rasters.calculateRowsPerStrip(planarConfiguration));
+
+				fileDirectory.setPredictor(TiffConstants.PREDICTOR_NO);
+				byte[] noPredictorBytes = writeTiffToBytes(byteOrder,
+						tiffImage);
+
+				fileDirectory.setPredictor(TiffConstants.PREDICTOR_HORIZONTAL);
+				byte[] tiffBytes = writeTiffToBytes(byteOrder, tiffImage);
+				TestCase.assertTrue(
+						tiffBytes.length < noPredictorBytes.length);
+
+				FileDirectory readFileDirectory = TiffReader
+						.readTiff(tiffBytes).getFileDirectory();
+				TestCase.assertEquals(TiffConstants.PREDICTOR_HORIZONTAL,
+						readFileDirectory.getPredictor().intValue());
+				TiffTestUtils.compareRastersSampleValues(rasters,
+						readFileDirectory.readRasters());
+			}
+		}
+
+		int width = 97;
+		int height = 23;
+		Rasters floatRasters = new Rasters(width, height, 1, 32,
+				TiffConstants.SAMPLE_FORMAT_FLOAT);
+		for (int y = 0; y < height; y++) {
+			for (int x = 0; x < width; x++) {
+				floatRasters.setFirstPixelSample(x, y,
+						(float) (1000.0 + Math.sin(x / 10.0) * 50.0 + y * 0.25));
+			}
+		}
+
+		FileDirectory floatFileDirectory = new FileDirectory();
+		floatFileDirectory.setImageWidth(width);
+		floatFileDirectory.setImageHeight(height);
+		floatFileDirectory.setBitsPerSample(32);
+		floatFileDirectory.setSamplesPerPixel(1);
+		floatFileDirectory.setSampleFormat(TiffConstants.SAMPLE_FORMAT_FLOAT);
+		floatFileDirectory.setRowsPerStrip(floatRasters.calculateRowsPerStrip(
+				TiffConstants.PLANAR_CONFIGURATION_CHUNKY));
+		floatFileDirectory.setPhotometricInterpretation(
+				TiffConstants.PHOTOMETRIC_INTERPRETATION_BLACK_IS_ZERO);
+		floatFileDirectory.setPlanarConfiguration(
+				TiffConstants.PLANAR_CONFIGURATION_CHUNKY);
+		floatFileDirectory.setCompression(TiffConstants.COMPRESSION_DEFLATE);
+		floatFileDirectory.setWriteRasters(floatRasters);
+		TIFFImage floatImage = new TIFFImage();
+		floatImage.add(floatFileDirectory);
+
+		for (ByteOrder byteOrder : new ByteOrder[] { ByteOrder.BIG_ENDIAN,
+				ByteOrder.LITTLE_ENDIAN }) {
+
+			floatFileDirectory.setPredictor(TiffConstants.PREDICTOR_NO);
+			byte[] noPredictorBytes = writeTiffToBytes(byteOrder, floatImage);
+
+			floatFileDirectory
+					.setPredictor(TiffConstants.PREDICTOR_FLOATINGPOINT);
+			byte[] tiffBytes = writeTiffToBytes(byteOrder, floatImage);
+			TestCase.assertTrue(tiffBytes.length < noPredictorBytes.length);
+
+			Rasters readRasters = TiffReader.readTiff(tiffBytes)
+					.getFileDirectory().readRasters();
+			for (int y = 0; y < height; y++) {
+				for (int x = 0; x < width; x++) {
+					TestCase.assertEquals(
+							floatRasters.getFirstPixelSample(x, y),
+							readRasters.getFirstPixelSample(x, y));
+				}
+			}
+		}
+
+	}
+
+	/**
+	 * Write the TIFF image to bytes in the byte order
+	 * 
+	 * @param byteOrder
+	 *            byte order
+	 * @param tiffImage
+	 *            TIFF image
+	 * @return TIFF bytes
+	 * @throws IOException
+	 *             upon error
+	 */
+	private static byte[] writeTiffToBytes(ByteOrder byteOrder,
+			TIFFImage tiffImage) throws IOException {
+		ByteWriter writer = new ByteWriter(byteOrder);
+		byte[] tiffBytes = TiffWriter.writeTiffToBytes(writer, tiffImage);
+		writer.close();
+		return tiffBytes;
+	}
+
 }